@@ -23,26 +23,28 @@ package io.crate.blob;
 
 import com.google.common.base.Throwables;
 import io.crate.blob.exceptions.DigestNotFoundException;
+import io.crate.blob.stats.BlobStats;
 import io.crate.common.Hex;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 public class BlobContainer {
 
     private static final ESLogger logger = Loggers.getLogger(BlobContainer.class);
     private static final String[] SUB_DIRS = new String[256];
+    private static final String STATS_CHECKPOINT_FILE = "stats.ckp";
+    private static final int STATS_CHECKPOINT_VERSION = 1;
 
     public static final byte[] PREFIXES = new byte[256];
 
     private final File[] subDirs = new File[256];
+    private final SubDirStats[] subDirStats = new SubDirStats[256];
 
     static {
         for (int i = 0; i < 256; i++) {
@@ -59,6 +61,9 @@ public class BlobContainer {
         this.baseDirectory = baseDirectory;
         this.tmpDirectory = baseDirectory.resolve("tmp");
         this.varDirectory = baseDirectory.resolve("var");
+        for (int i = 0; i < subDirStats.length; i++) {
+            subDirStats[i] = new SubDirStats();
+        }
         try {
             Files.createDirectories(this.varDirectory);
             createSubDirectories(this.varDirectory);
@@ -73,6 +78,7 @@ public class BlobContainer {
             logger.error("Could not create 'tmp' path {}", this.tmpDirectory);
             Throwables.propagate(e);
         }
+        readStatsCheckpoint();
     }
 
     /**
@@ -152,6 +158,162 @@ public class BlobContainer {
         return varDirectory.resolve(digest.substring(0, 2)).resolve(digest).toFile();
     }
 
+    /**
+     * move a completely written file into the container, replacing an existing blob with the same digest.
+     */
+    public void moveIntoPlace(Path source, String digest) throws IOException {
+        Path target = getFile(digest).toPath();
+        SubDirStats stats = subDirStats(digest);
+        synchronized (stats) {
+            long existingSize = Files.exists(target) ? Files.size(target) : -1;
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (stats.loaded) {
+                if (existingSize < 0) {
+                    stats.count++;
+                } else {
+                    stats.totalUsage -= existingSize;
+                }
+                stats.totalUsage += Files.size(target);
+            }
+        }
+    }
+
+    public boolean delete(String digest) throws IOException {
+        Path path = getFile(digest).toPath();
+        SubDirStats stats = subDirStats(digest);
+        synchronized (stats) {
+            long size = Files.exists(path) ? Files.size(path) : 0;
+            boolean deleted = Files.deleteIfExists(path);
+            if (deleted && stats.loaded) {
+                stats.count--;
+                stats.totalUsage -= size;
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * @return the number of blobs and their total size.
+     * The stats are maintained on {@link #moveIntoPlace(Path, String)} and {@link #delete(String)}, only the
+     * sub-directories which haven't been loaded from the checkpoint or by {@link #loadStats()} yet are scanned.
+     */
+    public BlobStats stats() {
+        BlobStats blobStats = new BlobStats();
+        blobStats.location(baseDirectory.toString());
+        long count = 0;
+        long totalUsage = 0;
+        for (int i = 0; i < subDirStats.length; i++) {
+            SubDirStats stats = subDirStats[i];
+            synchronized (stats) {
+                if (!stats.loaded) {
+                    loadStats(i);
+                }
+                count += stats.count;
+                totalUsage += stats.totalUsage;
+            }
+        }
+        blobStats.count(count);
+        blobStats.totalUsage(totalUsage);
+        return blobStats;
+    }
+
+    /**
+     * compute the stats of all sub-directories for which they haven't been loaded yet.
+     */
+    public void loadStats() {
+        for (int i = 0; i < subDirStats.length; i++) {
+            SubDirStats stats = subDirStats[i];
+            synchronized (stats) {
+                if (!stats.loaded) {
+                    loadStats(i);
+                }
+            }
+        }
+    }
+
+    private void loadStats(int index) {
+        SubDirStats stats = subDirStats[index];
+        assert Thread.holdsLock(stats) : "must hold the lock of the sub-directory stats";
+        long count = 0;
+        long totalUsage = 0;
+        File[] files = subDirs[index].listFiles();
+        if (files != null) {
+            for (File file : files) {
+                // skip leftovers of recoveries, see cleanDigests
+                if (file.getName().indexOf('.') < 0) {
+                    count++;
+                    totalUsage += file.length();
+                }
+            }
+        }
+        stats.count = count;
+        stats.totalUsage = totalUsage;
+        stats.loaded = true;
+    }
+
+    private SubDirStats subDirStats(String digest) {
+        return subDirStats[Integer.parseInt(digest.substring(0, 2), 16)];
+    }
+
+    /**
+     * persist the stats so that they don't have to be computed on the next start.
+     * Must be called after the last modification of the container; the checkpoint is deleted once it has been read.
+     */
+    public void writeStatsCheckpoint() {
+        Path checkpoint = baseDirectory.resolve(STATS_CHECKPOINT_FILE);
+        Path tmpCheckpoint = tmpDirectory.resolve(STATS_CHECKPOINT_FILE);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpCheckpoint)))) {
+            out.writeInt(STATS_CHECKPOINT_VERSION);
+            for (SubDirStats stats : subDirStats) {
+                synchronized (stats) {
+                    if (!stats.loaded) {
+                        // stats are incomplete, they'll be computed again on the next start
+                        return;
+                    }
+                    out.writeLong(stats.count);
+                    out.writeLong(stats.totalUsage);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write blob stats checkpoint {}", e, tmpCheckpoint);
+            return;
+        }
+        try {
+            Files.move(tmpCheckpoint, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not write blob stats checkpoint {}", e, checkpoint);
+        }
+    }
+
+    private void readStatsCheckpoint() {
+        Path checkpoint = baseDirectory.resolve(STATS_CHECKPOINT_FILE);
+        if (Files.notExists(checkpoint)) {
+            return;
+        }
+        try {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+                if (in.readInt() != STATS_CHECKPOINT_VERSION) {
+                    return;
+                }
+                long[] values = new long[subDirStats.length * 2];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readLong();
+                }
+                for (int i = 0; i < subDirStats.length; i++) {
+                    SubDirStats stats = subDirStats[i];
+                    stats.count = values[i * 2];
+                    stats.totalUsage = values[i * 2 + 1];
+                    stats.loaded = true;
+                }
+            } finally {
+                // the checkpoint is only valid until the container is modified
+                Files.delete(checkpoint);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read blob stats checkpoint {}", e, checkpoint);
+        }
+    }
+
     public DigestBlob createBlob(String digest, UUID transferId) {
         // TODO: check if exists already
         return new DigestBlob(this, digest, transferId);
@@ -165,6 +327,12 @@ public class BlobContainer {
         }
     }
 
+    private static class SubDirStats {
+        long count;
+        long totalUsage;
+        boolean loaded = false;
+    }
+
     private static class RecursiveFileIterable implements Iterable<File> {
 
         private final File[] subDirs;
@@ -169,7 +169,11 @@ public class DigestBlob implements Closeable {
             headFileChannel = null;
         }
         File newFile = container.getFile(digest);
-        file.renameTo(newFile);
+        try {
+            container.moveIntoPlace(file.toPath(), digest);
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, size, e);
+        }
         file = null;
         return newFile;
     }
@@ -28,6 +28,7 @@ import org.elasticsearch.index.shard.ShardId;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 public class BlobIndex {
 
@@ -65,14 +66,23 @@ public class BlobIndex {
 
     private final Map<Integer, BlobShard> shards = new ConcurrentHashMap<>();
     private final Path globalBlobPath;
+    private final Executor executor;
 
 
-    BlobIndex(@Nullable Path globalBlobPath) {
+    BlobIndex(@Nullable Path globalBlobPath, Executor executor) {
         this.globalBlobPath = globalBlobPath;
+        this.executor = executor;
     }
 
     void createShard(IndexShard indexShard) {
-        shards.put(indexShard.shardId().id(), new BlobShard(indexShard, globalBlobPath));
+        shards.put(indexShard.shardId().id(), new BlobShard(indexShard, globalBlobPath, executor));
+    }
+
+    void closeShard(ShardId shardId) {
+        BlobShard shard = shards.get(shardId.id());
+        if (shard != null) {
+            shard.close();
+        }
     }
 
     BlobShard removeShard(ShardId shardId) {
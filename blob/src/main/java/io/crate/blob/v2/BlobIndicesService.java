@@ -36,6 +36,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -57,6 +58,7 @@ public class BlobIndicesService extends AbstractComponent {
 
     private final ClusterService clusterService;
     private final IndicesLifecycle indicesLifecycle;
+    private final ThreadPool threadPool;
 
     @VisibleForTesting
     final Map<String, BlobIndex> indices = new ConcurrentHashMap<>();
@@ -67,9 +69,11 @@ public class BlobIndicesService extends AbstractComponent {
     @Inject
     public BlobIndicesService(Settings settings,
                               ClusterService clusterService,
-                              IndicesLifecycle indicesLifecycle) {
+                              IndicesLifecycle indicesLifecycle,
+                              ThreadPool threadPool) {
         super(settings);
         this.clusterService = clusterService;
+        this.threadPool = threadPool;
         this.indicesLifecycle = indicesLifecycle;
         indicesLifecycle.addListener(new LifecycleListener());
         globalBlobPath = getGlobalBlobPath(settings);
@@ -93,7 +97,7 @@ public class BlobIndicesService extends AbstractComponent {
         public void afterIndexCreated(IndexService indexService) {
             String indexName = indexService.index().getName();
             if (isBlobIndex(indexName)) {
-                BlobIndex oldBlobIndex = indices.put(indexName, new BlobIndex(globalBlobPath));
+                BlobIndex oldBlobIndex = indices.put(indexName, new BlobIndex(globalBlobPath, threadPool.generic()));
                 assert oldBlobIndex == null : "There must not be an index present if a new index is created";
             }
         }
@@ -117,6 +121,17 @@ public class BlobIndicesService extends AbstractComponent {
             }
         }
 
+        @Override
+        public void afterIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
+            String index = shardId.getIndex();
+            if (isBlobIndex(index)) {
+                BlobIndex blobIndex = indices.get(index);
+                if (blobIndex != null) {
+                    blobIndex.closeShard(shardId);
+                }
+            }
+        }
+
         @Override
         public void afterIndexShardDeleted(ShardId shardId, Settings indexSettings) {
             String index = shardId.getIndex();
@@ -34,10 +34,9 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardPath;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
 
 public class BlobShard {
 
@@ -47,12 +46,22 @@ public class BlobShard {
     private final IndexShard indexShard;
     private final ESLogger logger;
 
-    public BlobShard(IndexShard indexShard, @Nullable Path globalBlobPath) {
+    public BlobShard(IndexShard indexShard, @Nullable Path globalBlobPath, Executor executor) {
         this.indexShard = indexShard;
         logger = Loggers.getLogger(BlobShard.class, indexShard.indexSettings(), indexShard.shardId());
         Path blobDir = getBlobDataDir(indexShard.indexSettings(), indexShard.shardPath(), globalBlobPath);
         logger.info("creating BlobContainer at {}", blobDir);
         this.blobContainer = new BlobContainer(blobDir);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blobContainer.loadStats();
+                } catch (Exception e) {
+                    logger.warn("Could not load blob stats", e);
+                }
+            }
+        });
     }
 
     public IndexShard indexShard() {
@@ -65,7 +74,7 @@ public class BlobShard {
 
     public boolean delete(String digest) {
         try {
-            return Files.deleteIfExists(blobContainer.getFile(digest).toPath());
+            return blobContainer.delete(digest);
         } catch (IOException e) {
             throw Throwables.propagate(e);
         }
@@ -80,13 +89,11 @@ public class BlobShard {
     }
 
     public BlobStats blobStats() {
-        final BlobStats stats = new BlobStats();
-        stats.location(blobContainer().getBaseDirectory().toString());
-        for (File file : blobContainer().getFiles()) {
-            stats.totalUsage(stats.totalUsage() + file.length());
-            stats.count(stats.count() + 1);
-        }
-        return stats;
+        return blobContainer.stats();
+    }
+
+    void close() {
+        blobContainer.writeStatsCheckpoint();
     }
 
     void deleteShard() {
@@ -0,0 +1,155 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.http.netty;
+
+import org.elasticsearch.http.netty.NettyHttpRequest;
+import org.elasticsearch.http.netty.pipelining.OrderedDownstreamChannelEvent;
+import org.elasticsearch.http.netty.pipelining.OrderedUpstreamMessageEvent;
+import org.elasticsearch.rest.RestRequest;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.http.*;
+
+import javax.annotation.Nullable;
+
+/**
+ * Writes a http response in chunks.
+ * <p>
+ * The regular {@link org.elasticsearch.rest.RestChannel} can only send a response as a whole.
+ * This writer goes to the netty channel directly, but keeps the order of responses to pipelined requests intact.
+ * <p>
+ * Use {@link #forRequest(RestRequest)} within the request dispatching to create an instance;
+ * {@link CurrentRequestHandler} must be part of the pipeline.
+ */
+public class ChunkedResponseWriter {
+
+    private static final ChannelLocal<MessageEvent> CURRENT_REQUEST = new ChannelLocal<>();
+
+    private final Channel channel;
+    private final HttpRequest request;
+    @Nullable
+    private final OrderedUpstreamMessageEvent orderedEvent;
+    private int subSequence = 0;
+    private boolean headerSent = false;
+
+    private ChannelFuture lastWrite = null;
+
+    private ChunkedResponseWriter(Channel channel, HttpRequest request, @Nullable OrderedUpstreamMessageEvent orderedEvent) {
+        this.channel = channel;
+        this.request = request;
+        this.orderedEvent = orderedEvent;
+    }
+
+    /**
+     * @return a writer for the request which is currently dispatched or null if the request wasn't received
+     *         through a pipeline containing {@link CurrentRequestHandler}
+     */
+    @Nullable
+    public static ChunkedResponseWriter forRequest(RestRequest restRequest) {
+        if (!(restRequest instanceof NettyHttpRequest)) {
+            return null;
+        }
+        Channel channel = ((NettyHttpRequest) restRequest).getChannel();
+        MessageEvent event = CURRENT_REQUEST.get(channel);
+        if (event == null || !(event.getMessage() instanceof HttpRequest)) {
+            return null;
+        }
+        OrderedUpstreamMessageEvent orderedEvent = null;
+        if (event instanceof OrderedUpstreamMessageEvent) {
+            orderedEvent = (OrderedUpstreamMessageEvent) event;
+        }
+        return new ChunkedResponseWriter(channel, (HttpRequest) event.getMessage(), orderedEvent);
+    }
+
+    public Channel channel() {
+        return channel;
+    }
+
+    /**
+     * @return the future of the last write or null if nothing has been written yet
+     */
+    @Nullable
+    public ChannelFuture lastWrite() {
+        return lastWrite;
+    }
+
+    /**
+     * write a chunk of the response body. The response header is sent with the first chunk.
+     */
+    public ChannelFuture write(String contentType, byte[] bytes) {
+        if (!headerSent) {
+            HttpResponse response = new DefaultHttpResponse(request.getProtocolVersion(), HttpResponseStatus.OK);
+            response.headers().set(HttpHeaders.Names.CONTENT_TYPE, contentType);
+            response.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+            if (!HttpHeaders.isKeepAlive(request)) {
+                response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
+            }
+            response.setChunked(true);
+            write(response, false);
+            headerSent = true;
+        }
+        return write(new DefaultHttpChunk(ChannelBuffers.wrappedBuffer(bytes)), false);
+    }
+
+    /**
+     * finish the response. {@link #write(String, byte[])} must have been called before.
+     */
+    public ChannelFuture finish() {
+        assert headerSent : "finish must be called after the response header was sent";
+        ChannelFuture future = write(HttpChunk.LAST_CHUNK, true);
+        if (!HttpHeaders.isKeepAlive(request)) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        return future;
+    }
+
+    private ChannelFuture write(Object msg, boolean last) {
+        ChannelFuture future;
+        if (orderedEvent == null) {
+            future = channel.write(msg);
+        } else {
+            OrderedDownstreamChannelEvent event = new OrderedDownstreamChannelEvent(orderedEvent, subSequence, last, msg);
+            subSequence++;
+            future = event.getFuture();
+            channel.getPipeline().sendDownstream(event);
+        }
+        lastWrite = future;
+        return future;
+    }
+
+    /**
+     * Remembers the request which is passed upstream so that the {@link org.elasticsearch.rest.RestHandler}s
+     * which are invoked by the upstream handler can create a {@link ChunkedResponseWriter}.
+     */
+    public static class CurrentRequestHandler extends SimpleChannelUpstreamHandler {
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            CURRENT_REQUEST.set(ctx.getChannel(), e);
+            try {
+                ctx.sendUpstream(e);
+            } finally {
+                CURRENT_REQUEST.remove(ctx.getChannel());
+            }
+        }
+    }
+}
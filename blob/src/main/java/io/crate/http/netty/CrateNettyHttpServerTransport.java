@@ -81,6 +81,7 @@ public class CrateNettyHttpServerTransport extends NettyHttpServerTransport {
             HttpBlobHandler blobHandler = new HttpBlobHandler(
                 transport.blobService, redirectService, transport.blobIndicesService, sslEnabled);
             pipeline.addBefore("aggregator", "blob_handler", blobHandler);
+            pipeline.addBefore("handler", "current_request", new ChunkedResponseWriter.CurrentRequestHandler());
 
             if (sslEnabled) {
                 // required for blob support with ssl enabled (zero copy doesn't work with https)
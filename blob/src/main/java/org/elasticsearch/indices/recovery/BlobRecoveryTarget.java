@@ -39,9 +39,7 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.FileOutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 
 public class BlobRecoveryTarget extends AbstractComponent {
@@ -161,7 +159,7 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 Path source = baseDirectory.resolve(transferStatus.sourcePath());
                 Path target = baseDirectory.resolve(transferStatus.targetPath());
 
-                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                shard.blobContainer().moveIntoPlace(source, target.getFileName().toString());
                 onGoingRecovery.onGoingTransfers().remove(request.transferId());
             }
 
@@ -218,7 +216,7 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 Path source = baseDirectory.resolve(tmpPath);
                 Path target = baseDirectory.resolve(request.path());
 
-                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                shard.blobContainer().moveIntoPlace(source, target.getFileName().toString());
             } else {
                 BlobRecoveryTransferStatus transferStatus = new BlobRecoveryTransferStatus(
                     request.transferId(), outputStream, tmpPath, request.path()
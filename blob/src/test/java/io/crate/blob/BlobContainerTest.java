@@ -22,6 +22,7 @@
 
 package io.crate.blob;
 
+import io.crate.blob.stats.BlobStats;
 import io.crate.common.Hex;
 import io.crate.test.utils.Blobs;
 import org.junit.ClassRule;
@@ -29,6 +30,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -57,6 +60,52 @@ public class BlobContainerTest {
         assertThat(fileIterator.hasNext(), is(false));
     }
 
+    @Test
+    public void testStatsAreMaintainedOnMoveAndDelete() throws Exception {
+        File blobsPath = temporaryFolder.newFolder();
+        BlobContainer blobContainer = new BlobContainer(blobsPath.toPath());
+        // existing files are picked up by the initial scan
+        Files.write(blobContainer.getFile(digest("Content A")).toPath(), new byte[10]);
+        assertStats(blobContainer.stats(), 1, 10);
+
+        Path tmpFile = blobContainer.getTmpDirectory().resolve("b");
+        Files.write(tmpFile, new byte[20]);
+        blobContainer.moveIntoPlace(tmpFile, digest("Content B"));
+        assertStats(blobContainer.stats(), 2, 30);
+
+        // replacing a blob only changes its size
+        Files.write(tmpFile, new byte[5]);
+        blobContainer.moveIntoPlace(tmpFile, digest("Content B"));
+        assertStats(blobContainer.stats(), 2, 15);
+
+        assertThat(blobContainer.delete(digest("Content A")), is(true));
+        assertThat(blobContainer.delete(digest("Content A")), is(false));
+        assertStats(blobContainer.stats(), 1, 5);
+    }
+
+    @Test
+    public void testStatsAreReadFromCheckpoint() throws Exception {
+        File blobsPath = temporaryFolder.newFolder();
+        BlobContainer blobContainer = new BlobContainer(blobsPath.toPath());
+        Files.write(blobContainer.getFile(digest("Content A")).toPath(), new byte[10]);
+        blobContainer.loadStats();
+        blobContainer.writeStatsCheckpoint();
+
+        // not picked up because the stats are read from the checkpoint instead of scanning the directories
+        Files.write(blobContainer.getFile(digest("Content B")).toPath(), new byte[10]);
+        blobContainer = new BlobContainer(blobsPath.toPath());
+        assertStats(blobContainer.stats(), 1, 10);
+
+        // checkpoint is only used once
+        blobContainer = new BlobContainer(blobsPath.toPath());
+        assertStats(blobContainer.stats(), 2, 20);
+    }
+
+    private static void assertStats(BlobStats stats, long count, long totalUsage) {
+        assertThat(stats.count(), is(count));
+        assertThat(stats.totalUsage(), is(totalUsage));
+    }
+
     private static String digest(String content) {
         return Hex.encodeHexString(Blobs.digest(content));
     }
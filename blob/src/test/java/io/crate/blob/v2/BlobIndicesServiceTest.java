@@ -29,6 +29,7 @@ import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.test.cluster.NoopClusterService;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
@@ -57,7 +58,8 @@ public class BlobIndicesServiceTest extends CrateUnitTest {
                 public void removeListener(Listener listener) {
 
                 }
-            }
+            },
+            mock(ThreadPool.class)
         );
         IndicesLifecycle.Listener listener = listenerFuture.get(30, TimeUnit.SECONDS);
 
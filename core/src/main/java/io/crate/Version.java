@@ -41,6 +41,16 @@ public class Version {
     public static final boolean SNAPSHOT = true;
     public static final Version CURRENT = new Version(1010099, SNAPSHOT, org.elasticsearch.Version.V_2_4_2);
 
+    /**
+     * transport streams of at least this version carry the columnar distributed results,
+     * the ordering flag of node operations, the profile flag of job requests, the search queue size
+     * of job and fetch responses and the hash join spec of nested loop phases.
+     * Crate 1.0.x runs on the same elasticsearch version, so this is an id which no elasticsearch
+     * release uses. Streams only switch to it if both nodes support it, see
+     * <code>io.crate.executor.transport.StreamExtensions</code>.
+     */
+    public static final org.elasticsearch.Version STREAM_VERSION_JOB_EXTENSIONS = org.elasticsearch.Version.fromId(2049999);
+
     static {
         // safe-guard that we don't release a version with DEBUG_MODE set to true
         assert CURRENT.esVersion == org.elasticsearch.Version.CURRENT : "Version must be " +
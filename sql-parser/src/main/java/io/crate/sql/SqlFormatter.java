@@ -79,9 +79,23 @@ public final class SqlFormatter {
             return null;
         }
 
+        @Override
+        public Void visitAnalyzeStatement(AnalyzeStatement node, Integer indent) {
+            append(indent, "ANALYZE");
+            int count = 0;
+            for (Table table : node.tables()) {
+                builder.append(count++ == 0 ? " " : ", ");
+                table.accept(this, indent);
+            }
+            return null;
+        }
+
         @Override
         protected Void visitExplain(Explain node, Integer indent) {
             append(indent, "EXPLAIN ");
+            if (node.isAnalyze()) {
+                builder.append("ANALYZE ");
+            }
             for (ExplainOption explainOption : node.getOptions()) {
                 process(explainOption, indent);
             }
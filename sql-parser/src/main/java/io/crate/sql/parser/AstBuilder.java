@@ -289,7 +289,7 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
 
     @Override
     public Node visitExplain(SqlBaseParser.ExplainContext context) {
-        return new Explain((Statement) visit(context.statement()), ImmutableList.of());
+        return new Explain((Statement) visit(context.statement()), ImmutableList.of(), context.ANALYZE() != null);
     }
 
     @Override
@@ -321,6 +321,14 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new RefreshStatement(visit(context.tableWithPartitions().tableWithPartition(), Table.class));
     }
 
+    @Override
+    public Node visitAnalyze(SqlBaseParser.AnalyzeContext context) {
+        return new AnalyzeStatement(
+            context.qname().stream()
+                .map(qname -> new Table(getQualifiedName(qname)))
+                .collect(toList()));
+    }
+
     @Override
     public Node visitTableOnly(SqlBaseParser.TableOnlyContext context) {
         return new Table(getQualifiedName(context.qname()));
@@ -33,8 +33,14 @@ public class Explain
     extends Statement {
     private final Statement statement;
     private final List<ExplainOption> options;
+    private final boolean analyze;
 
     public Explain(Statement statement, List<ExplainOption> options) {
+        this(statement, options, false);
+    }
+
+    public Explain(Statement statement, List<ExplainOption> options, boolean analyze) {
+        this.analyze = analyze;
         this.statement = checkNotNull(statement, "statement is null");
         if (options == null) {
             this.options = ImmutableList.of();
@@ -51,6 +57,13 @@ public class Explain
         return options;
     }
 
+    /**
+     * @return true if the statement should be executed and profiled (EXPLAIN ANALYZE)
+     */
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
     @Override
     public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
         return visitor.visitExplain(this, context);
@@ -58,7 +71,7 @@ public class Explain
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(statement, options);
+        return Objects.hashCode(statement, options, analyze);
     }
 
     @Override
@@ -71,7 +84,8 @@ public class Explain
         }
         Explain o = (Explain) obj;
         return Objects.equal(statement, o.statement) &&
-               Objects.equal(options, o.options);
+               Objects.equal(options, o.options) &&
+               analyze == o.analyze;
     }
 
     @Override
@@ -79,6 +93,7 @@ public class Explain
         return MoreObjects.toStringHelper(this)
             .add("statement", statement)
             .add("options", options)
+            .add("analyze", analyze)
             .toString();
     }
 }
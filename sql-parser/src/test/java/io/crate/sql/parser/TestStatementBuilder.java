@@ -32,6 +32,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Strings.repeat;
@@ -139,6 +140,15 @@ public class TestStatementBuilder {
     @Test
     public void testExplainStmtBuilder() {
         printStatement("explain drop table foo");
+        printStatement("explain analyze select * from foo");
+    }
+
+    @Test
+    public void testExplainAnalyze() {
+        Explain explain = (Explain) SqlParser.createStatement("explain analyze select * from foo");
+        assertThat(explain.isAnalyze(), is(true));
+        explain = (Explain) SqlParser.createStatement("explain select * from foo");
+        assertThat(explain.isAnalyze(), is(false));
     }
 
     @Test
@@ -205,6 +215,19 @@ public class TestStatementBuilder {
         printStatement("refresh table tableh partition (pcol['nested'] = ?)");
     }
 
+    @Test
+    public void testAnalyze() throws Exception {
+        printStatement("analyze");
+        printStatement("analyze t");
+        printStatement("analyze schema.t1, t2");
+
+        assertThat(SqlParser.createStatement("analyze t1, doc.t2"),
+            is(new AnalyzeStatement(Arrays.asList(
+                new Table(new QualifiedName("t1")),
+                new Table(new QualifiedName(Arrays.asList("doc", "t2")))))));
+        assertThat(SqlFormatter.formatSql(SqlParser.createStatement("analyze t1, doc.t2")), is("ANALYZE t1, doc.t2"));
+    }
+
     @Test
     public void testOptimize() throws Exception {
         printStatement("optimize table t");
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.testing.RowGenerator;
+import io.crate.testing.RowSender;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Equi-join of two single long column relations; comparable to {@link NestedLoopOperationBenchmark}
+ * which has to loop over all combinations of rows.
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix = "benchmark-hashjoin-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-hashjoin")
+public class HashJoinOperationBenchmark {
+
+    private static final List<DataType> TYPES = ImmutableList.<DataType>of(DataTypes.LONG);
+
+    private ThreadPoolExecutor executor;
+
+    static final int BENCHMARK_ROUNDS = 10;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Before
+    public void prepare() {
+        executor = EsExecutors.newFixed("hashjoin-benchmark", 5, 10, EsExecutors.daemonThreadFactory(getClass().getSimpleName()));
+    }
+
+    @After
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testPerfEqual10000() throws Exception {
+        executeHashJoin(10_000, 10_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testPerfEqual1000000() throws Exception {
+        executeHashJoin(1_000_000, 1_000_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testPerfLeft100Right100000() throws Exception {
+        executeHashJoin(100, 100_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testPerfLeft100000Right100() throws Exception {
+        executeHashJoin(100_000, 100);
+    }
+
+    private static JoinKeyExtractor keyOnFirstColumn() {
+        InputCollectExpression input = new InputCollectExpression(0);
+        return new JoinKeyExtractor(TYPES, ImmutableList.of(input), ImmutableList.of(input));
+    }
+
+    private Bucket executeHashJoin(int leftSize, int rightSize) throws Exception {
+        Iterable<Row> left = RowGenerator.range(0, leftSize);
+        Iterable<Row> right = RowGenerator.range(0, rightSize);
+
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        HashJoinOperation operation = new HashJoinOperation(
+            0,
+            receiver,
+            Predicates.<Row>alwaysTrue(),
+            JoinType.INNER,
+            leftSize < rightSize,
+            keyOnFirstColumn(),
+            keyOnFirstColumn(),
+            TYPES,
+            TYPES,
+            new RamAccountingContext("benchmark", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)),
+            null);
+
+        RowSender leftRowSender = new RowSender(left, operation.leftRowReceiver(), executor);
+        RowSender rightRowSender = new RowSender(right, operation.rightRowReceiver(), executor);
+
+        executor.execute(leftRowSender);
+        executor.execute(rightRowSender);
+        Bucket result = receiver.result(TimeValue.timeValueMinutes(10));
+        assertThat((Integer) result.iterator().next().get(0), is(Math.min(leftSize, rightSize)));
+        return result;
+    }
+}
@@ -150,4 +150,108 @@ public class GroupingProjectorBenchmark {
 
         groupingProjector.finish(RepeatHandle.UNSUPPORTED);
     }
+
+    @Test
+    public void testGroupBySumLongHighCardinality() throws Exception {
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+            .createInjector().getInstance(Functions.class);
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        List<Input<?>> keyInputs = Arrays.<Input<?>>asList(keyInput);
+        CollectExpression[] collectExpressions = new CollectExpression[]{keyInput};
+
+        GroupingProjector groupingProjector = new GroupingProjector(
+            Arrays.<DataType>asList(DataTypes.LONG),
+            keyInputs,
+            collectExpressions,
+            new AggregationContext[]{sumAggregation(functions, DataTypes.LONG, keyInput)},
+            RAM_ACCOUNTING_CONTEXT);
+        RowReceiver finalReceiver = new RowCountRowReceiver();
+        groupingProjector.downstream(finalReceiver);
+
+        Long[] keys = new Long[2_000_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) i;
+        }
+        SpareRow row = new SpareRow();
+        for (int i = 0; i < 20_000_000; i++) {
+            row.value = keys[i % keys.length];
+            groupingProjector.setNextRow(row);
+        }
+
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    /**
+     * GROUP BY on two columns; each row used to allocate a List as lookup key.
+     * The GC stats printed by the {@link BenchmarkRule} show the allocation rate.
+     */
+    @Test
+    public void testGroupByManyKeysSumLong() throws Exception {
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+            .createInjector().getInstance(Functions.class);
+
+        InputCollectExpression firstKeyInput = new InputCollectExpression(0);
+        InputCollectExpression secondKeyInput = new InputCollectExpression(1);
+        List<Input<?>> keyInputs = Arrays.<Input<?>>asList(firstKeyInput, secondKeyInput);
+        CollectExpression[] collectExpressions = new CollectExpression[]{firstKeyInput, secondKeyInput};
+
+        GroupingProjector groupingProjector = new GroupingProjector(
+            Arrays.<DataType>asList(DataTypes.LONG, DataTypes.INTEGER),
+            keyInputs,
+            collectExpressions,
+            new AggregationContext[]{sumAggregation(functions, DataTypes.LONG, firstKeyInput)},
+            RAM_ACCOUNTING_CONTEXT);
+        RowReceiver finalReceiver = new RowCountRowReceiver();
+        groupingProjector.downstream(finalReceiver);
+
+        Long[] firstKeys = new Long[200_000];
+        for (int i = 0; i < firstKeys.length; i++) {
+            firstKeys[i] = (long) i;
+        }
+        Integer[] secondKeys = new Integer[]{0, 1, 2, 3, 4};
+        SpareRowN row = new SpareRowN(2);
+        for (int i = 0; i < 20_000_000; i++) {
+            row.cells[0] = firstKeys[i % firstKeys.length];
+            row.cells[1] = secondKeys[i % secondKeys.length];
+            groupingProjector.setNextRow(row);
+        }
+
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    private static AggregationContext sumAggregation(Functions functions, DataType type, Input<?> input) {
+        FunctionIdent functionIdent = new FunctionIdent(SumAggregation.NAME, Arrays.asList(type));
+        FunctionInfo functionInfo = new FunctionInfo(functionIdent, type, FunctionInfo.Type.AGGREGATE);
+        Aggregation aggregation = Aggregation.finalAggregation(functionInfo,
+            Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) functions.get(functionIdent), aggregation);
+        aggregationContext.addInput(input);
+        return aggregationContext;
+    }
+
+    class SpareRowN implements Row {
+
+        final Object[] cells;
+
+        SpareRowN(int size) {
+            cells = new Object[size];
+        }
+
+        @Override
+        public int size() {
+            return cells.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return cells[index];
+        }
+
+        @Override
+        public Object[] materialize() {
+            return Arrays.copyOf(cells, cells.length);
+        }
+    }
 }
@@ -23,6 +23,7 @@
 package io.crate.analyze;
 
 import io.crate.action.sql.SessionContext;
+import io.crate.action.sql.StatementCache;
 import io.crate.planner.Plan;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.Statement;
@@ -46,12 +47,25 @@ public class PreExecutionBenchmark {
     private Statement selectStatement = SqlParser.createStatement("select name from users");
     private Analysis selectAnalysis = e.analyzer.boundAnalyze(selectStatement, SessionContext.SYSTEM_SESSION, ParameterContext.EMPTY);
     private UUID jobId = UUID.randomUUID();
+    private StatementCache statementCache = new StatementCache(100);
 
     @Benchmark
     public Statement benchParse() throws Exception {
         return SqlParser.createStatement("select name from users");
     }
 
+    @Benchmark
+    public Statement benchParseCached() throws Exception {
+        return statementCache.parse("select name from users");
+    }
+
+    @Benchmark
+    public Plan benchParseCachedAndAnalyzeAndPlan() {
+        Analysis analysis = e.analyzer.boundAnalyze(
+            statementCache.parse("select name from users"), SessionContext.SYSTEM_SESSION, ParameterContext.EMPTY);
+        return e.planner.plan(analysis, UUID.randomUUID(), 0, 0);
+    }
+
     @Benchmark
     public AnalyzedStatement benchParseAndAnalyzeSelect() {
         return e.analyze("select name from users");
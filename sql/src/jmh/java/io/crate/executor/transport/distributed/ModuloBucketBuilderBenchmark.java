@@ -0,0 +1,94 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport.distributed;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.RowN;
+import io.crate.operation.Paging;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Adds rows to a {@link ModuloBucketBuilder} from several threads, like shard collectors feeding one
+ * {@link DistributingDownstream}. Run with different thread counts, e.g. <code>-t 1</code> and <code>-t 8</code>
+ */
+@State(Scope.Benchmark)
+public class ModuloBucketBuilderBenchmark {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.STRING.streamer(),
+        DataTypes.LONG.streamer()
+    };
+
+    @Param({"ROW", "COLUMNAR_COMPRESSED"})
+    public BucketFormat bucketFormat;
+
+    private ModuloBucketBuilder builder;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private final Bucket[] buckets = new Bucket[4];
+        private final Object[] cells = new Object[2];
+        private final RowN row = new RowN(cells);
+        private long i = 0;
+    }
+
+    @Setup
+    public void setUpBuilder() {
+        builder = new ModuloBucketBuilder(STREAMERS, 4, 0, bucketFormat);
+    }
+
+    @Benchmark
+    public int benchAdd(ThreadState state) {
+        state.cells[0] = new BytesRef("key_" + (state.i % 1000));
+        state.cells[1] = state.i++;
+        builder.add(state.row);
+        int size = builder.size();
+        if (size >= Paging.PAGE_SIZE) {
+            // pages are built by the thread which reaches the page size, like in DistributingDownstream
+            builder.build(state.buckets);
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4, Runtime.getRuntime().availableProcessors()}) {
+            Options opt = new OptionsBuilder()
+                .include(ModuloBucketBuilderBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -34,6 +34,8 @@ import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.Symbols;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
@@ -46,10 +48,16 @@ import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.MapSideDataCollectOperation;
 import io.crate.operation.count.CountOperation;
 import io.crate.operation.fetch.FetchContext;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.join.HashJoinOperation;
+import io.crate.operation.join.JoinKeyExtractor;
+import io.crate.operation.join.JoinOperation;
 import io.crate.operation.join.NestedLoopOperation;
+import io.crate.operation.projectors.CountingRowReceiver;
 import io.crate.operation.projectors.DistributingDownstreamFactory;
 import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.projectors.SpillSettings;
 import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.distribution.UpstreamPhase;
 import io.crate.planner.node.ExecutionPhase;
@@ -60,6 +68,7 @@ import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.CountPhase;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.node.dql.join.HashJoinSpec;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.node.fetch.FetchPhase;
 import io.crate.types.DataTypes;
@@ -97,6 +106,8 @@ public class ContextPreparer extends AbstractComponent {
     private final DistributingDownstreamFactory distributingDownstreamFactory;
     private final InnerPreparer innerPreparer;
     private final InputFactory inputFactory;
+    @Nullable
+    private final SpillSettings spillSettings;
 
 
     @Inject
@@ -122,6 +133,7 @@ public class ContextPreparer extends AbstractComponent {
         this.distributingDownstreamFactory = distributingDownstreamFactory;
         innerPreparer = new InnerPreparer();
         inputFactory = new InputFactory(functions);
+        spillSettings = SpillSettings.fromSettings(settings);
     }
 
     public List<ListenableFuture<Bucket>> prepareOnRemote(Iterable<? extends NodeOperation> nodeOperations,
@@ -373,9 +385,27 @@ public class ContextPreparer extends AbstractComponent {
         }
 
         /**
-         * Retrieve the rowReceiver of the downstream of phase
+         * @return the profile of the phase or null if the job isn't profiled
+         */
+        @Nullable
+        PhaseProfile profile(ExecutionPhase phase) {
+            return contextBuilder.profile(phase.phaseId(), phase.name());
+        }
+
+        /**
+         * Retrieve the rowReceiver of the downstream of phase.
+         * If the job is profiled the rows passed to the downstream are counted.
          */
         RowReceiver getRowReceiver(UpstreamPhase phase, int pageSize) {
+            PhaseProfile profile = profile(phase);
+            RowReceiver rowReceiver = getDownstreamRowReceiver(phase, pageSize, profile);
+            if (profile == null) {
+                return rowReceiver;
+            }
+            return new CountingRowReceiver(rowReceiver, profile.counter("rows"));
+        }
+
+        private RowReceiver getDownstreamRowReceiver(UpstreamPhase phase, int pageSize, @Nullable PhaseProfile profile) {
             NodeOperation nodeOperation = opCtx.nodeOperationMap.get(phase.phaseId());
             if (nodeOperation == null) {
                 return handlerPhaseRowReceiver(phase.phaseId());
@@ -393,7 +423,7 @@ public class ContextPreparer extends AbstractComponent {
                 case BROADCAST:
                 case MODULO:
                     RowReceiver downstream = distributingDownstreamFactory.create(
-                        nodeOperation, phase.distributionInfo(), jobId(), pageSize);
+                        nodeOperation, phase.distributionInfo(), jobId(), pageSize, profile);
                     traceGetRowReceiver(phase, distributionType.toString(), nodeOperation, downstream);
                     return downstream;
                 default:
@@ -482,7 +512,8 @@ public class ContextPreparer extends AbstractComponent {
                         pageDownstreamFactory.projectorFactory(),
                         phase.projections(),
                         rowReceiver,
-                        noopRamAccountingContext);
+                        noopRamAccountingContext,
+                        context.profile(phase));
                     context.registerRowReceiver(phase.phaseId(), projectorChainContext.rowReceiver());
                     context.registerSubContext(projectorChainContext);
                     return true;
@@ -499,7 +530,8 @@ public class ContextPreparer extends AbstractComponent {
                 false,
                 ramAccountingContext,
                 // no separate executor because TransportDistributedResultAction already runs in a threadPool
-                Optional.<Executor>absent());
+                Optional.<Executor>absent(),
+                context.profile(phase));
 
 
             context.registerSubContext(new PageDownstreamContext(
@@ -526,7 +558,8 @@ public class ContextPreparer extends AbstractComponent {
                 clusterService.state().nodes().getLocalNodeId(),
                 ramAccountingContext,
                 rowReceiver,
-                context.sharedShardContexts
+                context.sharedShardContexts,
+                context.profile(phase)
             ));
             return true;
         }
@@ -541,7 +574,8 @@ public class ContextPreparer extends AbstractComponent {
                 clusterService.state().nodes().getLocalNodeId(),
                 ramAccountingContext,
                 rowReceiver,
-                context.sharedShardContexts
+                context.sharedShardContexts,
+                context.profile(phase)
             ));
             return true;
         }
@@ -582,26 +616,46 @@ public class ContextPreparer extends AbstractComponent {
                     ramAccountingContext,
                     phase.projections(),
                     downstreamRowReceiver,
-                    phase.jobId()
+                    phase.jobId(),
+                    context.profile(phase),
+                    PhaseProfile.NODE_CHAIN
                 );
             } else {
                 flatProjectorChain = FlatProjectorChain.withReceivers(Collections.singletonList(downstreamRowReceiver));
             }
             Predicate<Row> joinCondition = RowFilter.create(inputFactory, phase.joinCondition());
 
-            NestedLoopOperation nestedLoopOperation = new NestedLoopOperation(
-                phase.phaseId(),
-                flatProjectorChain.firstProjector(),
-                joinCondition,
-                phase.joinType(),
-                phase.numLeftOutputs(),
-                phase.numRightOutputs());
+            JoinOperation joinOperation;
+            HashJoinSpec hashJoinSpec = phase.hashJoinSpec();
+            if (hashJoinSpec == null) {
+                joinOperation = new NestedLoopOperation(
+                    phase.phaseId(),
+                    flatProjectorChain.firstProjector(),
+                    joinCondition,
+                    phase.joinType(),
+                    phase.numLeftOutputs(),
+                    phase.numRightOutputs());
+            } else {
+                joinOperation = new HashJoinOperation(
+                    phase.phaseId(),
+                    flatProjectorChain.firstProjector(),
+                    joinCondition,
+                    phase.joinType(),
+                    hashJoinSpec.buildLeft(),
+                    hashJoinSpec.probeOrdered(),
+                    joinKeyExtractor(hashJoinSpec.leftKeys()),
+                    joinKeyExtractor(hashJoinSpec.rightKeys()),
+                    hashJoinSpec.leftTypes(),
+                    hashJoinSpec.rightTypes(),
+                    ramAccountingContext,
+                    spillSettings);
+            }
             PageDownstreamContext left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
                 (byte) 0,
                 phase.leftMergePhase(),
-                nestedLoopOperation.leftRowReceiver(),
+                joinOperation.leftRowReceiver(),
                 ramAccountingContext);
             if (left != null) {
                 context.registerSubContext(left);
@@ -611,7 +665,7 @@ public class ContextPreparer extends AbstractComponent {
                 context,
                 (byte) 1,
                 phase.rightMergePhase(),
-                nestedLoopOperation.rightRowReceiver(),
+                joinOperation.rightRowReceiver(),
                 ramAccountingContext
             );
             if (right != null) {
@@ -620,13 +674,18 @@ public class ContextPreparer extends AbstractComponent {
             context.registerSubContext(new NestedLoopContext(
                 nlContextLogger,
                 phase,
-                nestedLoopOperation,
+                joinOperation,
                 left,
                 right
             ));
             return true;
         }
 
+        private JoinKeyExtractor joinKeyExtractor(List<Symbol> keys) {
+            InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(keys);
+            return new JoinKeyExtractor(Symbols.extractTypes(keys), ctx.topLevelInputs(), ctx.expressions());
+        }
+
         @Nullable
         private PageDownstreamContext pageDownstreamContextForNestedLoop(int nlPhaseId,
                                                                          PreparerContext ctx,
@@ -643,7 +702,8 @@ public class ContextPreparer extends AbstractComponent {
                 downstream,
                 true,
                 ramAccountingContext,
-                Optional.of(threadPool.executor(ThreadPool.Names.SEARCH))
+                Optional.of(threadPool.executor(ThreadPool.Names.SEARCH)),
+                ctx.profile(mergePhase)
             );
             return new PageDownstreamContext(
                 pageDownstreamContextLogger,
@@ -21,6 +21,8 @@
 
 package io.crate.action.job;
 
+import io.crate.Version;
+import io.crate.executor.transport.StreamExtensions;
 import io.crate.operation.NodeOperation;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -36,14 +38,23 @@ public class JobRequest extends TransportRequest {
     private UUID jobId;
     private String coordinatorNodeId;
     private Collection<? extends NodeOperation> nodeOperations;
+    private boolean profile;
 
     public JobRequest() {
     }
 
     public JobRequest(UUID jobId, String coordinatorNodeId, Collection<? extends NodeOperation> nodeOperations) {
+        this(jobId, coordinatorNodeId, nodeOperations, false);
+    }
+
+    public JobRequest(UUID jobId,
+                      String coordinatorNodeId,
+                      Collection<? extends NodeOperation> nodeOperations,
+                      boolean profile) {
         this.jobId = jobId;
         this.coordinatorNodeId = coordinatorNodeId;
         this.nodeOperations = nodeOperations;
+        this.profile = profile;
     }
 
     public UUID jobId() {
@@ -58,32 +69,53 @@ public class JobRequest extends TransportRequest {
         return coordinatorNodeId;
     }
 
+    /**
+     * @return true if the runtime metrics of the phases should be collected
+     */
+    public boolean profile() {
+        return profile;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-
-        jobId = new UUID(in.readLong(), in.readLong());
-        coordinatorNodeId = in.readString();
-
-        int numNodeOperations = in.readVInt();
-        ArrayList<NodeOperation> nodeOperations = new ArrayList<>(numNodeOperations);
-        for (int i = 0; i < numNodeOperations; i++) {
-            nodeOperations.add(new NodeOperation(in));
+        org.elasticsearch.Version version = StreamExtensions.enable(this, in);
+        try {
+            jobId = new UUID(in.readLong(), in.readLong());
+            coordinatorNodeId = in.readString();
+
+            int numNodeOperations = in.readVInt();
+            ArrayList<NodeOperation> nodeOperations = new ArrayList<>(numNodeOperations);
+            for (int i = 0; i < numNodeOperations; i++) {
+                nodeOperations.add(new NodeOperation(in));
+            }
+            this.nodeOperations = nodeOperations;
+            if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                profile = in.readBoolean();
+            }
+        } finally {
+            in.setVersion(version);
         }
-        this.nodeOperations = nodeOperations;
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-
-        out.writeLong(jobId.getMostSignificantBits());
-        out.writeLong(jobId.getLeastSignificantBits());
-        out.writeString(coordinatorNodeId);
-
-        out.writeVInt(nodeOperations.size());
-        for (NodeOperation nodeOperation : nodeOperations) {
-            nodeOperation.writeTo(out);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, out);
+        try {
+            out.writeLong(jobId.getMostSignificantBits());
+            out.writeLong(jobId.getLeastSignificantBits());
+            out.writeString(coordinatorNodeId);
+
+            out.writeVInt(nodeOperations.size());
+            for (NodeOperation nodeOperation : nodeOperations) {
+                nodeOperation.writeTo(out);
+            }
+            if (out.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                out.writeBoolean(profile);
+            }
+        } finally {
+            out.setVersion(version);
         }
     }
 }
@@ -22,8 +22,10 @@
 package io.crate.action.job;
 
 import io.crate.Streamer;
+import io.crate.Version;
 import io.crate.core.collections.Bucket;
 import io.crate.executor.transport.StreamBucket;
+import io.crate.executor.transport.StreamExtensions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportResponse;
@@ -37,6 +39,7 @@ public class JobResponse extends TransportResponse {
 
     private List<Bucket> directResponse = new ArrayList<>();
     private Streamer<?>[] streamers = null;
+    private int searchQueueSize = 0;
 
     public JobResponse() {
     }
@@ -49,6 +52,18 @@ public class JobResponse extends TransportResponse {
         return directResponse;
     }
 
+    /**
+     * size of the search queue of the node which sent the response,
+     * used by {@link io.crate.executor.transport.NodeResponseStats}
+     */
+    public int searchQueueSize() {
+        return searchQueueSize;
+    }
+
+    public void searchQueueSize(int searchQueueSize) {
+        this.searchQueueSize = searchQueueSize;
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         List<Bucket> directResponse = directResponse();
         for (Bucket bucket : directResponse) {
@@ -63,20 +78,36 @@ public class JobResponse extends TransportResponse {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        int size = in.readVInt();
-        for (int i = 0; i < size; i++) {
-            StreamBucket bucket = new StreamBucket(streamers);
-            bucket.readFrom(in);
-            directResponse.add(bucket);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, in);
+        try {
+            if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                searchQueueSize = in.readVInt();
+            }
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                StreamBucket bucket = new StreamBucket(streamers);
+                bucket.readFrom(in);
+                directResponse.add(bucket);
+            }
+        } finally {
+            in.setVersion(version);
         }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        out.writeVInt(directResponse.size());
-        for (Bucket bucket : directResponse) {
-            StreamBucket.writeBucket(out, streamers, bucket);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, out);
+        try {
+            if (out.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                out.writeVInt(searchQueueSize);
+            }
+            out.writeVInt(directResponse.size());
+            for (Bucket bucket : directResponse) {
+                StreamBucket.writeBucket(out, streamers, bucket);
+            }
+        } finally {
+            out.setVersion(version);
         }
     }
 }
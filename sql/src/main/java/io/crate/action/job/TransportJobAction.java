@@ -28,6 +28,8 @@ import io.crate.core.collections.Bucket;
 import io.crate.executor.transport.DefaultTransportResponseHandler;
 import io.crate.executor.transport.NodeAction;
 import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.executor.transport.NodeResponseStats;
+import io.crate.executor.transport.StreamExtensions;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
@@ -39,6 +41,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
 import java.util.List;
 
 @Singleton
@@ -51,24 +54,31 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
     private final Transports transports;
     private final JobContextService jobContextService;
     private final ContextPreparer contextPreparer;
+    private final ThreadPool threadPool;
+    private final NodeResponseStats nodeResponseStats;
 
     @Inject
     public TransportJobAction(TransportService transportService,
                               IndicesService indicesService,
                               Transports transports,
                               JobContextService jobContextService,
-                              ContextPreparer contextPreparer) {
+                              ContextPreparer contextPreparer,
+                              ThreadPool threadPool,
+                              NodeResponseStats nodeResponseStats) {
         this.indicesService = indicesService;
         this.transports = transports;
         this.jobContextService = jobContextService;
         this.contextPreparer = contextPreparer;
+        this.threadPool = threadPool;
+        this.nodeResponseStats = nodeResponseStats;
         transportService.registerRequestHandler(ACTION_NAME,
             JobRequest.class,
             EXECUTOR,
             new NodeActionRequestHandler<JobRequest, JobResponse>(this) {});
     }
 
-    public void execute(String node, final JobRequest request, final ActionListener<JobResponse> listener) {
+    public void execute(String node, final JobRequest request, ActionListener<JobResponse> listener) {
+        listener = nodeResponseStats.track(node, listener, JobResponse::searchQueueSize);
         transports.sendRequest(ACTION_NAME, node, request, listener,
             new DefaultTransportResponseHandler<JobResponse>(listener) {
                 @Override
@@ -78,9 +88,18 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
             });
     }
 
+    /**
+     * records the search queue size of this node for operations which the handler executes
+     * directly instead of sending a job request to itself
+     */
+    public void recordLocalSearchQueueSize(String localNodeId) {
+        nodeResponseStats.updateSearchQueueSize(localNodeId, NodeResponseStats.searchQueueSize(threadPool));
+    }
+
     @Override
     public void nodeOperation(final JobRequest request, final ActionListener<JobResponse> actionListener) {
-        JobExecutionContext.Builder contextBuilder = jobContextService.newBuilder(request.jobId(), request.coordinatorNodeId());
+        JobExecutionContext.Builder contextBuilder = jobContextService.newBuilder(
+            request.jobId(), request.coordinatorNodeId(), Collections.emptyList(), request.profile());
 
         SharedShardContexts sharedShardContexts = new SharedShardContexts(indicesService);
         List<ListenableFuture<Bucket>> directResponseFutures = contextPreparer.prepareOnRemote(
@@ -95,12 +114,12 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
         }
 
         if (directResponseFutures.size() == 0) {
-            actionListener.onResponse(new JobResponse());
+            actionListener.onResponse(newResponse(request, new JobResponse()));
         } else {
             Futures.addCallback(Futures.allAsList(directResponseFutures), new FutureCallback<List<Bucket>>() {
                 @Override
                 public void onSuccess(List<Bucket> buckets) {
-                    actionListener.onResponse(new JobResponse(buckets));
+                    actionListener.onResponse(newResponse(request, new JobResponse(buckets)));
                 }
 
                 @Override
@@ -110,4 +129,10 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
             });
         }
     }
+
+    private JobResponse newResponse(JobRequest request, JobResponse response) {
+        StreamExtensions.markLike(request, response);
+        response.searchQueueSize(NodeResponseStats.searchQueueSize(threadPool));
+        return response;
+    }
 }
@@ -23,12 +23,18 @@ package io.crate.action.sql;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.action.FutureActionListener;
 import io.crate.analyze.*;
 import io.crate.blob.v2.BlobAdminClient;
 import io.crate.executor.transport.*;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.ColumnStats;
+import io.crate.planner.TableStatsService;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
@@ -39,8 +45,7 @@ import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.inject.Singleton;
 
 import javax.annotation.Nullable;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * visitor that dispatches requests based on Analysis class to different actions.
@@ -57,6 +62,7 @@ public class DDLStatementDispatcher {
     private final AlterTableOperation alterTableOperation;
     private final RepositoryService repositoryService;
     private final SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher;
+    private final TableStatsService tableStatsService;
 
     private final InnerVisitor innerVisitor = new InnerVisitor();
 
@@ -67,13 +73,15 @@ public class DDLStatementDispatcher {
                                   AlterTableOperation alterTableOperation,
                                   RepositoryService repositoryService,
                                   SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher,
-                                  TransportActionProvider transportActionProvider) {
+                                  TransportActionProvider transportActionProvider,
+                                  TableStatsService tableStatsService) {
         this.blobAdminClient = blobAdminClient;
         this.tableCreator = tableCreator;
         this.alterTableOperation = alterTableOperation;
         this.transportActionProvider = transportActionProvider;
         this.repositoryService = repositoryService;
         this.snapshotRestoreDDLDispatcher = snapshotRestoreDDLDispatcher;
+        this.tableStatsService = tableStatsService;
     }
 
     public ListenableFuture<Long> dispatch(AnalyzedStatement analyzedStatement, UUID jobId) {
@@ -139,6 +147,33 @@ public class DDLStatementDispatcher {
         }
 
 
+        @Override
+        public ListenableFuture<Long> visitAnalyzeStatement(AnalyzeAnalyzedStatement analysis, UUID jobId) {
+            if (analysis.tables().isEmpty()) {
+                return Futures.immediateFuture(0L);
+            }
+            return analyzeTables(analysis.tables().iterator(), new HashMap<>(analysis.tables().size()));
+        }
+
+        /**
+         * analyzes one table after the other and publishes the statistics of all tables once they're computed
+         */
+        private ListenableFuture<Long> analyzeTables(final Iterator<DocTableInfo> tables,
+                                                     final Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats) {
+            if (!tables.hasNext()) {
+                PublishColumnStatsRequest request = new PublishColumnStatsRequest(columnStats);
+                return Futures.transform(
+                    transportActionProvider.transportPublishColumnStatsAction().broadcast(request),
+                    Functions.constant((long) columnStats.size()));
+            }
+            final DocTableInfo table = tables.next();
+            return Futures.transform(tableStatsService.analyze(table),
+                (AsyncFunction<Map<ColumnIdent, ColumnStats>, Long>) tableColumnStats -> {
+                    columnStats.put(table.ident(), tableColumnStats);
+                    return analyzeTables(tables, columnStats);
+                });
+        }
+
         @Override
         public ListenableFuture<Long> visitCreateBlobTableStatement(
             CreateBlobTableAnalyzedStatement analysis, UUID jobId) {
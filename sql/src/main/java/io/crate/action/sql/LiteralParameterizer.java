@@ -0,0 +1,223 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replaces the literals of a query string with parameter placeholders, without parsing it, see {@link QueryLexer}.
+ * <p>
+ * Only literals at positions where a parameter is known to result in the same analyzed statement are replaced:
+ * <ul>
+ * <li>in <code>WHERE</code> clauses of SELECT, UPDATE and DELETE statements</li>
+ * <li>in the <code>VALUES</code> of INSERT statements</li>
+ * <li>in the <code>SET</code> assignments of UPDATE statements</li>
+ * </ul>
+ * Literals in the select list (they'd change the output names), in ORDER BY / GROUP BY (ordinals), LIMIT,
+ * subscripts, array and object literals, typed literals, <code>CURRENT_TIMESTAMP</code> precisions and
+ * <code>WITH</code> properties are kept.
+ * Queries which already contain parameters or aren't one of the statements above aren't changed at all.
+ */
+final class LiteralParameterizer {
+
+    static class Result {
+
+        private final String query;
+        private final List<Object> parameters;
+
+        private Result(String query, List<Object> parameters) {
+            this.query = query;
+            this.parameters = parameters;
+        }
+
+        String query() {
+            return query;
+        }
+
+        List<Object> parameters() {
+            return parameters;
+        }
+    }
+
+    private LiteralParameterizer() {
+    }
+
+    /**
+     * @return the query with the literals replaced by <code>?</code> and the literal values,
+     * or null if no literal can be replaced.
+     */
+    @Nullable
+    static Result parameterize(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        List<Object> parameters = new ArrayList<>();
+        Deque<Boolean> enclosingStates = new ArrayDeque<>();
+        String statementType = null;
+        String previousWord = null;
+        boolean replaceLiterals = false;
+
+        QueryLexer lexer = new QueryLexer(query);
+        while (lexer.next()) {
+            int start = lexer.start();
+            int end = lexer.end();
+            switch (lexer.type()) {
+                case STRING:
+                    if (!lexer.isTerminated()) {
+                        return null;
+                    }
+                    if (replaceLiterals && !isTypedLiteral(previousWord)) {
+                        sb.append('?');
+                        parameters.add(lexer.stringValue());
+                    } else {
+                        sb.append(query, start, end);
+                    }
+                    previousWord = null;
+                    break;
+
+                case QUOTED_IDENTIFIER:
+                    if (!lexer.isTerminated()) {
+                        return null;
+                    }
+                    sb.append(query, start, end);
+                    previousWord = null;
+                    break;
+
+                case WHITESPACE:
+                case COMMENT:
+                    sb.append(query, start, end);
+                    break;
+
+                case PARAMETER:
+                    // already parameterized
+                    return null;
+
+                case WORD:
+                    String word = lexer.text().toUpperCase(Locale.ENGLISH);
+                    if (statementType == null) {
+                        if (!word.equals("SELECT") && !word.equals("INSERT") && !word.equals("UPDATE") && !word.equals("DELETE")) {
+                            return null;
+                        }
+                        statementType = word;
+                    }
+                    switch (word) {
+                        case "WHERE":
+                            replaceLiterals = !statementType.equals("INSERT");
+                            break;
+                        case "VALUES":
+                            replaceLiterals = statementType.equals("INSERT");
+                            break;
+                        case "SET":
+                            replaceLiterals = statementType.equals("UPDATE");
+                            break;
+                        case "SELECT":
+                        case "GROUP":
+                        case "ORDER":
+                        case "HAVING":
+                        case "LIMIT":
+                        case "OFFSET":
+                        case "UNION":
+                        case "ON":
+                        case "USING":
+                        case "WITH":
+                        case "RETURNING":
+                            replaceLiterals = false;
+                            break;
+                    }
+                    sb.append(query, start, end);
+                    previousWord = word;
+                    break;
+
+                case NUMBER:
+                    Object value = null;
+                    if (replaceLiterals
+                        && (end == query.length() || !isPartOfWord(query.charAt(end)))
+                        && (start == 0 || query.charAt(start - 1) != '.')) {
+                        value = parseNumber(lexer.text(), lexer.isDecimal());
+                    }
+                    if (value == null) {
+                        sb.append(query, start, end);
+                    } else {
+                        sb.append('?');
+                        parameters.add(value);
+                    }
+                    previousWord = null;
+                    break;
+
+                case SYMBOL:
+                    char c = query.charAt(start);
+                    switch (c) {
+                        case '(':
+                            enclosingStates.push(replaceLiterals);
+                            // the precision of CURRENT_TIME(3) must be an integer literal
+                            if ("CURRENT_TIME".equals(previousWord) || "CURRENT_TIMESTAMP".equals(previousWord)) {
+                                replaceLiterals = false;
+                            }
+                            break;
+                        case '[':
+                        case '{':
+                            enclosingStates.push(replaceLiterals);
+                            replaceLiterals = false;
+                            break;
+                        case ')':
+                        case ']':
+                        case '}':
+                            if (enclosingStates.isEmpty()) {
+                                return null;
+                            }
+                            replaceLiterals = enclosingStates.pop();
+                            break;
+                    }
+                    sb.append(c);
+                    previousWord = null;
+                    break;
+            }
+        }
+        if (parameters.isEmpty()) {
+            return null;
+        }
+        return new Result(sb.toString(), parameters);
+    }
+
+    private static boolean isTypedLiteral(@Nullable String previousWord) {
+        return "DATE".equals(previousWord) || "TIME".equals(previousWord) || "TIMESTAMP".equals(previousWord);
+    }
+
+    private static boolean isPartOfWord(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    @Nullable
+    private static Object parseNumber(String number, boolean isDecimal) {
+        try {
+            if (isDecimal) {
+                return Double.parseDouble(number);
+            }
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
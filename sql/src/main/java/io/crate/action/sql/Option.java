@@ -25,7 +25,13 @@ package io.crate.action.sql;
 import java.util.EnumSet;
 
 public enum Option {
-    ALLOW_QUOTED_SUBSCRIPT;
+    ALLOW_QUOTED_SUBSCRIPT,
+
+    /**
+     * replace the literals of queries which are sent without parameters by parameters,
+     * see {@link StatementCache#parseParameterized(String)}
+     */
+    PARAMETERIZE_LITERALS;
 
     public static final EnumSet<Option> NONE = EnumSet.noneOf(Option.class);
 }
@@ -26,8 +26,11 @@ import io.crate.analyze.ParamTypeHints;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 class PreparedStmt {
@@ -35,14 +38,32 @@ class PreparedStmt {
     private final Statement statement;
     private final String query;
     private final ParamTypeHints paramTypes;
+    private final List<Object> literals;
 
     private AnalyzedRelation relation;
     private boolean relationInitialized = false;
 
     PreparedStmt(Statement statement, String query, List<DataType> paramTypes) {
+        this(statement, query, paramTypes, Collections.emptyList());
+    }
+
+    /**
+     * @param literals the values of the literals which have been replaced by parameters in the statement.
+     *                 If not empty they're used instead of the parameters provided on bind.
+     */
+    PreparedStmt(Statement statement, String query, List<DataType> paramTypes, List<Object> literals) {
         this.statement = statement;
         this.query = query;
-        this.paramTypes = new ParamTypeHints(paramTypes);
+        this.literals = literals;
+        if (literals.isEmpty()) {
+            this.paramTypes = new ParamTypeHints(paramTypes);
+        } else {
+            List<DataType> literalTypes = new ArrayList<>(literals.size());
+            for (Object literal : literals) {
+                literalTypes.add(DataTypes.guessType(literal));
+            }
+            this.paramTypes = new ParamTypeHints(literalTypes);
+        }
     }
 
     public Statement statement() {
@@ -53,6 +74,10 @@ class PreparedStmt {
         return paramTypes;
     }
 
+    List<Object> literals() {
+        return literals;
+    }
+
     public String query() {
         return query;
     }
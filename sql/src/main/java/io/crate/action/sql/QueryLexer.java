@@ -0,0 +1,229 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+/**
+ * Splits a query string into tokens without parsing it, used to rewrite queries textually,
+ * see {@link LiteralParameterizer} and {@link io.crate.operation.collect.StatementStats}.
+ * <p>
+ * The tokens cover the whole query, so appending the text of all tokens results in the original query.
+ * <pre>
+ *     QueryLexer lexer = new QueryLexer(query);
+ *     while (lexer.next()) {
+ *         switch (lexer.type()) {
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ */
+public final class QueryLexer {
+
+    public enum TokenType {
+        WHITESPACE,
+        /**
+         * a <code>--</code> comment up to the end of the line or a <code>/* *&#47;</code> comment
+         */
+        COMMENT,
+        /**
+         * a single quoted string literal
+         */
+        STRING,
+        QUOTED_IDENTIFIER,
+        /**
+         * an unquoted identifier or keyword
+         */
+        WORD,
+        /**
+         * an unsigned numeric literal, e.g. <code>10</code>, <code>.5</code> or <code>2e10</code>
+         */
+        NUMBER,
+        /**
+         * <code>?</code> or <code>$n</code>
+         */
+        PARAMETER,
+        /**
+         * any other single character, e.g. an operator or a parenthesis
+         */
+        SYMBOL
+    }
+
+    private final String query;
+    private final int length;
+    private TokenType type;
+    private int start = 0;
+    private int end = 0;
+    private boolean terminated;
+    private boolean decimal;
+
+    public QueryLexer(String query) {
+        this.query = query;
+        this.length = query.length();
+    }
+
+    /**
+     * move to the next token
+     *
+     * @return false if the end of the query has been reached
+     */
+    public boolean next() {
+        start = end;
+        if (start >= length) {
+            return false;
+        }
+        terminated = true;
+        decimal = false;
+        char c = query.charAt(start);
+        char next = start + 1 < length ? query.charAt(start + 1) : 0;
+        if (Character.isWhitespace(c)) {
+            type = TokenType.WHITESPACE;
+            end = start + 1;
+            while (end < length && Character.isWhitespace(query.charAt(end))) {
+                end++;
+            }
+        } else if (c == '\'') {
+            type = TokenType.STRING;
+            end = skipQuoted(c);
+        } else if (c == '"') {
+            type = TokenType.QUOTED_IDENTIFIER;
+            end = skipQuoted(c);
+        } else if (c == '-' && next == '-') {
+            type = TokenType.COMMENT;
+            end = query.indexOf('\n', start);
+            end = end == -1 ? length : end;
+        } else if (c == '/' && next == '*') {
+            type = TokenType.COMMENT;
+            end = query.indexOf("*/", start + 2);
+            terminated = end != -1;
+            end = terminated ? end + 2 : length;
+        } else if (c == '?') {
+            type = TokenType.PARAMETER;
+            end = start + 1;
+        } else if (c == '$') {
+            type = TokenType.PARAMETER;
+            end = skipDigits(start + 1);
+        } else if (Character.isLetter(c) || c == '_') {
+            type = TokenType.WORD;
+            end = start + 1;
+            while (end < length && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_')) {
+                end++;
+            }
+        } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(next))) {
+            type = TokenType.NUMBER;
+            end = skipNumber();
+        } else {
+            type = TokenType.SYMBOL;
+            end = start + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @return the position after the closing quote; doubled quotes are part of the quoted text
+     */
+    private int skipQuoted(char quote) {
+        int i = start + 1;
+        while (i < length) {
+            if (query.charAt(i) == quote) {
+                if (i + 1 < length && query.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        terminated = false;
+        return length;
+    }
+
+    private int skipDigits(int from) {
+        int i = from;
+        while (i < length && Character.isDigit(query.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipNumber() {
+        int i = skipDigits(start);
+        if (i < length && query.charAt(i) == '.') {
+            decimal = true;
+            i = skipDigits(i + 1);
+        }
+        if (i < length && (query.charAt(i) == 'e' || query.charAt(i) == 'E')) {
+            int exponentStart = i + 1;
+            if (exponentStart < length && (query.charAt(exponentStart) == '+' || query.charAt(exponentStart) == '-')) {
+                exponentStart++;
+            }
+            if (exponentStart < length && Character.isDigit(query.charAt(exponentStart))) {
+                decimal = true;
+                i = skipDigits(exponentStart);
+            }
+        }
+        return i;
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    /**
+     * @return the position of the first character of the token
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return the position after the last character of the token
+     */
+    public int end() {
+        return end;
+    }
+
+    public String text() {
+        return query.substring(start, end);
+    }
+
+    /**
+     * @return false if the query ends within a quoted string, quoted identifier or comment
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * @return true if the current {@link TokenType#NUMBER} token contains a fraction or an exponent
+     */
+    public boolean isDecimal() {
+        return decimal;
+    }
+
+    /**
+     * @return the value of the current {@link TokenType#STRING} token, without the quotes
+     */
+    public String stringValue() {
+        assert type == TokenType.STRING : "stringValue is only available for string literals";
+        int valueEnd = terminated ? end - 1 : end;
+        return query.substring(start + 1, valueEnd).replace("''", "'");
+    }
+}
@@ -22,9 +22,12 @@
 
 package io.crate.action.sql;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.core.collections.Row;
 import io.crate.operation.projectors.*;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 public class RowReceiverToResultReceiver implements RowReceiver {
@@ -35,11 +38,25 @@ public class RowReceiverToResultReceiver implements RowReceiver {
 
     private ResumeHandle resumeHandle = null;
 
+    @Nullable
+    private BackpressuredResultReceiver backpressuredReceiver;
+    @Nullable
+    private ListenableFuture<?> writableFuture = null;
+
     public RowReceiverToResultReceiver(ResultReceiver resultReceiver, int maxRows) {
-        this.resultReceiver = resultReceiver;
+        setResultReceiver(resultReceiver);
         this.maxRows = maxRows;
     }
 
+    private void setResultReceiver(ResultReceiver resultReceiver) {
+        this.resultReceiver = resultReceiver;
+        if (resultReceiver instanceof BackpressuredResultReceiver) {
+            backpressuredReceiver = (BackpressuredResultReceiver) resultReceiver;
+        } else {
+            backpressuredReceiver = null;
+        }
+    }
+
     @Override
     public Result setNextRow(Row row) {
         rowCount++;
@@ -48,11 +65,29 @@ public class RowReceiverToResultReceiver implements RowReceiver {
         if (maxRows > 0 && rowCount % maxRows == 0) {
             return Result.PAUSE;
         }
+        if (backpressuredReceiver != null) {
+            writableFuture = backpressuredReceiver.writable();
+            if (writableFuture != null) {
+                return Result.PAUSE;
+            }
+        }
         return Result.CONTINUE;
     }
 
     @Override
-    public void pauseProcessed(ResumeHandle resumeHandle) {
+    public void pauseProcessed(final ResumeHandle resumeHandle) {
+        if (writableFuture != null) {
+            // paused because the receiver can't keep up, not because the batch is complete
+            ListenableFuture<?> future = writableFuture;
+            writableFuture = null;
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    resumeHandle.resume(true);
+                }
+            }, MoreExecutors.directExecutor());
+            return;
+        }
         this.resumeHandle = resumeHandle;
         resultReceiver.batchFinished();
     }
@@ -77,13 +112,20 @@ public class RowReceiverToResultReceiver implements RowReceiver {
         return Requirements.NO_REQUIREMENTS;
     }
 
+    /**
+     * @return the number of rows which have been passed to the result receivers so far
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
     public ResumeHandle resumeHandle() {
         return resumeHandle;
     }
 
     public void replaceResultReceiver(ResultReceiver resultReceiver, int maxRows) {
         this.resumeHandle = null;
-        this.resultReceiver = resultReceiver;
+        setResultReceiver(resultReceiver);
         this.maxRows = maxRows;
     }
 }
@@ -65,6 +65,7 @@ public class SQLOperations {
     private final Provider<Executor> executorProvider;
     private final StatsTables statsTables;
     private final ClusterService clusterService;
+    private final StatementCache statementCache;
     private final boolean isReadOnly;
     private volatile boolean disabled;
 
@@ -74,13 +75,15 @@ public class SQLOperations {
                          Provider<Executor> executorProvider,
                          StatsTables statsTables,
                          Settings settings,
-                         ClusterService clusterService) {
+                         ClusterService clusterService,
+                         StatementCache statementCache) {
         this.analyzer = analyzer;
         this.planner = planner;
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
         this.clusterService = clusterService;
         this.isReadOnly = settings.getAsBoolean(NODE_READ_ONLY_SETTING, false);
+        this.statementCache = statementCache;
     }
 
     public Session createSession(@Nullable String defaultSchema, Set<Option> options, int defaultLimit) {
@@ -170,8 +173,15 @@ public class SQLOperations {
             LOGGER.debug("method=parse stmtName={} query={} paramTypes={}", statementName, query, paramTypes);
 
             Statement statement;
+            List<Object> literals = Collections.emptyList();
             try {
-                statement = SqlParser.createStatement(query);
+                if (paramTypes.isEmpty() && sessionContext.options().contains(Option.PARAMETERIZE_LITERALS)) {
+                    StatementCache.ParameterizedStatement parameterized = statementCache.parseParameterized(query);
+                    statement = parameterized.statement();
+                    literals = parameterized.parameters();
+                } else {
+                    statement = statementCache.parse(query);
+                }
             } catch (Throwable t) {
                 if ("".equals(query)) {
                     statement = EMPTY_STMT;
@@ -180,7 +190,7 @@ public class SQLOperations {
                     throw Exceptions.createSQLActionException(t);
                 }
             }
-            preparedStatements.put(statementName, new PreparedStmt(statement, query, paramTypes));
+            preparedStatements.put(statementName, new PreparedStmt(statement, query, paramTypes, literals));
         }
 
         public void bind(String portalName,
@@ -192,6 +202,9 @@ public class SQLOperations {
             Portal portal = getOrCreatePortal(portalName);
             try {
                 PreparedStmt preparedStmt = getSafeStmt(statementName);
+                if (!preparedStmt.literals().isEmpty()) {
+                    params = preparedStmt.literals();
+                }
                 Portal newPortal = portal.bind(
                     statementName, preparedStmt.query(), preparedStmt.statement(), params, resultFormatCodes);
                 if (portal != newPortal) {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node wide cache of parsed statements, keyed by the query string.
+ * <p>
+ * Parsing is by far the most expensive part of the pre-execution steps of short queries. Clients using connection
+ * pools or prepared statements send the same query string over and over again, so the {@link Statement}
+ * is shared. This is safe because the statement tree is immutable and doesn't depend on the schema, the
+ * parameters or the cluster state.
+ * <p>
+ * Clients which inline the values into the query string can use {@link #parseParameterized(String)}: the
+ * literals are replaced with parameters before the lookup, so that queries which only differ in their values
+ * share a single entry.
+ * <p>
+ * Statements that fail to parse are not cached.
+ */
+@Singleton
+public class StatementCache {
+
+    public final static String STATEMENT_CACHE_SIZE_SETTING = "node.sql.statement_cache.size";
+    private final static int DEFAULT_STATEMENT_CACHE_SIZE = 1000;
+
+    private final Cache<String, Statement> statements;
+
+    @Inject
+    public StatementCache(Settings settings) {
+        this(settings.getAsInt(STATEMENT_CACHE_SIZE_SETTING, DEFAULT_STATEMENT_CACHE_SIZE));
+    }
+
+    public StatementCache(int maxSize) {
+        statements = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    public Statement parse(String query) {
+        Statement statement = statements.getIfPresent(query);
+        if (statement == null) {
+            statement = SqlParser.createStatement(query);
+            statements.put(query, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Parse the query with its literals replaced by parameters.
+     *
+     * @return the statement and the values of the replaced literals, which have to be bound as parameters.
+     */
+    public ParameterizedStatement parseParameterized(String query) {
+        LiteralParameterizer.Result result = LiteralParameterizer.parameterize(query);
+        if (result != null) {
+            try {
+                return new ParameterizedStatement(parse(result.query()), result.parameters());
+            } catch (RuntimeException e) {
+                // the parameterizer doesn't know the full grammar; the placeholders may end up somewhere
+                // where the parser doesn't accept them. Parse the original query to get the correct error or result.
+            }
+        }
+        return new ParameterizedStatement(parse(query), Collections.emptyList());
+    }
+
+    public long size() {
+        return statements.size();
+    }
+
+    public Supplier<Iterable<?>> statsGetter() {
+        return new Supplier<Iterable<?>>() {
+            @Override
+            public Iterable<?> get() {
+                return Collections.singletonList(new Stats(statements.size(), statements.stats()));
+            }
+        };
+    }
+
+    public static class ParameterizedStatement {
+
+        private final Statement statement;
+        private final List<Object> parameters;
+
+        ParameterizedStatement(Statement statement, List<Object> parameters) {
+            this.statement = statement;
+            this.parameters = parameters;
+        }
+
+        public Statement statement() {
+            return statement;
+        }
+
+        public List<Object> parameters() {
+            return parameters;
+        }
+    }
+
+    /**
+     * Row of the sys.statement_cache table
+     */
+    public static class Stats {
+
+        private final long size;
+        private final CacheStats cacheStats;
+
+        Stats(long size, CacheStats cacheStats) {
+            this.size = size;
+            this.cacheStats = cacheStats;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public long hits() {
+            return cacheStats.hitCount();
+        }
+
+        public long misses() {
+            return cacheStats.missCount();
+        }
+
+        public long evictions() {
+            return cacheStats.evictionCount();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.analyze;
+
+import com.google.common.base.Preconditions;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.sql.tree.AnalyzeStatement;
+import io.crate.sql.tree.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class AnalyzeStatementAnalyzer {
+
+    private final Schemas schemas;
+
+    AnalyzeStatementAnalyzer(Schemas schemas) {
+        this.schemas = schemas;
+    }
+
+    public AnalyzeAnalyzedStatement analyze(AnalyzeStatement analyzeStatement, Analysis analysis) {
+        List<DocTableInfo> tables = new ArrayList<>();
+        if (analyzeStatement.tables().isEmpty()) {
+            for (SchemaInfo schemaInfo : schemas) {
+                for (TableInfo tableInfo : schemaInfo) {
+                    if (tableInfo instanceof DocTableInfo && !schemas.isOrphanedAlias((DocTableInfo) tableInfo)) {
+                        tables.add((DocTableInfo) tableInfo);
+                    }
+                }
+            }
+        } else {
+            for (Table table : analyzeStatement.tables()) {
+                TableInfo tableInfo = schemas.getTableInfo(
+                    TableIdent.of(table, analysis.sessionContext().defaultSchema()));
+                Preconditions.checkArgument(tableInfo instanceof DocTableInfo,
+                    "operation cannot be performed on system and blob tables: table '%s'",
+                    tableInfo.ident().fqn());
+                tables.add((DocTableInfo) tableInfo);
+            }
+        }
+        return new AnalyzeAnalyzedStatement(tables);
+    }
+}
@@ -52,6 +52,7 @@ public class Analyzer {
     private final CreateAnalyzerStatementAnalyzer createAnalyzerStatementAnalyzer;
     private final DropBlobTableAnalyzer dropBlobTableAnalyzer;
     private final RefreshTableAnalyzer refreshTableAnalyzer;
+    private final AnalyzeStatementAnalyzer analyzeStatementAnalyzer;
     private final OptimizeTableAnalyzer optimizeTableAnalyzer;
     private final AlterTableAnalyzer alterTableAnalyzer;
     private final AlterBlobTableAnalyzer alterBlobTableAnalyzer;
@@ -94,6 +95,7 @@ public class Analyzer {
         this.createBlobTableAnalyzer = new CreateBlobTableAnalyzer(schemas, numberOfShards);
         this.createAnalyzerStatementAnalyzer = new CreateAnalyzerStatementAnalyzer(fulltextAnalyzerResolver);
         this.refreshTableAnalyzer = new RefreshTableAnalyzer(schemas);
+        this.analyzeStatementAnalyzer = new AnalyzeStatementAnalyzer(schemas);
         this.optimizeTableAnalyzer = new OptimizeTableAnalyzer(schemas);
         this.alterTableAnalyzer = new AlterTableAnalyzer(schemas);
         this.alterBlobTableAnalyzer = new AlterBlobTableAnalyzer(schemas);
@@ -226,6 +228,11 @@ public class Analyzer {
             return refreshTableAnalyzer.analyze(node, context);
         }
 
+        @Override
+        public AnalyzedStatement visitAnalyzeStatement(AnalyzeStatement node, Analysis context) {
+            return analyzeStatementAnalyzer.analyze(node, context);
+        }
+
         @Override
         public AnalyzedStatement visitOptimizeStatement(OptimizeStatement node, Analysis context) {
             return optimizeTableAnalyzer.analyze(node, context);
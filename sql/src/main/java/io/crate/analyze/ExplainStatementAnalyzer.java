@@ -35,10 +35,15 @@ public class ExplainStatementAnalyzer {
     }
 
     public ExplainAnalyzedStatement analyze(Explain node, Analysis analysis) {
-        CHECK_VISITOR.process(node.getStatement(), null);
+        if (node.isAnalyze()) {
+            ANALYZE_CHECK_VISITOR.process(node.getStatement(), null);
+        } else {
+            CHECK_VISITOR.process(node.getStatement(), null);
+        }
         AnalyzedStatement subStatement = analyzer.analyzedStatement(node.getStatement(), analysis);
         String columnName = SqlFormatter.formatSql(node);
-        ExplainAnalyzedStatement explainAnalyzedStatement = new ExplainAnalyzedStatement(columnName, subStatement);
+        ExplainAnalyzedStatement explainAnalyzedStatement =
+            new ExplainAnalyzedStatement(columnName, subStatement, node.isAnalyze());
         analysis.rootRelation(explainAnalyzedStatement);
         return explainAnalyzedStatement;
     }
@@ -61,4 +66,19 @@ public class ExplainStatementAnalyzer {
         }
     };
 
+    /**
+     * EXPLAIN ANALYZE executes the statement, so only side-effect free statements are allowed
+     */
+    private static final AstVisitor<Void, Void> ANALYZE_CHECK_VISITOR = new AstVisitor<Void, Void>() {
+
+        @Override
+        protected Void visitQuery(Query node, Void context) {
+            return null;
+        }
+
+        @Override
+        protected Void visitNode(Node node, Void context) {
+            throw new UnsupportedFeatureException("EXPLAIN ANALYZE is not supported for " + node);
+        }
+    };
 }
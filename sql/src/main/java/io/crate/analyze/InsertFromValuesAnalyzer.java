@@ -22,18 +22,22 @@
 package io.crate.analyze;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
 import io.crate.analyze.expressions.ValueNormalizer;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.analyze.relations.FieldProvider;
 import io.crate.analyze.relations.NameFieldProvider;
+import io.crate.analyze.symbol.DynamicReference;
 import io.crate.analyze.symbol.Field;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.SymbolType;
+import io.crate.analyze.symbol.SymbolVisitors;
 import io.crate.analyze.symbol.format.SymbolFormatter;
 import io.crate.core.StringUtils;
+import io.crate.core.collections.Row;
 import io.crate.core.collections.StringObjectMaps;
 import io.crate.exceptions.ColumnValidationException;
 import io.crate.executor.transport.TransportShardUpsertAction;
@@ -41,8 +45,12 @@ import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
 import io.crate.operation.Input;
+import io.crate.operation.InputFactory;
 import io.crate.sql.tree.*;
+import io.crate.types.CollectionType;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.ObjectType;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.BytesRefs;
@@ -54,6 +62,19 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
     private static final ReferenceToLiteralConverter TO_LITERAL_CONVERTER = new ReferenceToLiteralConverter();
 
+    /**
+     * marker for values which couldn't be converted without the expression analysis
+     */
+    private static final Object NO_VALUE = new Object();
+
+    private static final Predicate<Symbol> IS_NON_DETERMINISTIC_FUNCTION = new Predicate<Symbol>() {
+        @Override
+        public boolean apply(@Nullable Symbol input) {
+            return input instanceof io.crate.analyze.symbol.Function
+                   && !((io.crate.analyze.symbol.Function) input).info().features().contains(FunctionInfo.Feature.DETERMINISTIC);
+        }
+    };
+
     private static class ValuesResolver implements io.crate.analyze.ValuesAwareExpressionAnalyzer.ValuesResolver {
 
         private final DocTableRelation tableRelation;
@@ -130,6 +151,17 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             null,
             tableRelation);
         analyzeColumns(statement.tableInfo(), statement.columns());
+
+        // everything that doesn't depend on the values is prepared once and re-used for all rows
+        Function<List<BytesRef>, String> idFunction = Id.compileWithNullValidation(tableInfo.primaryKey(),
+            tableInfo.clusteredBy());
+        GeneratedExpressionContext generatedExpressionContext = new GeneratedExpressionContext(
+            tableRelation,
+            statement,
+            normalizer,
+            analysis.transactionContext(),
+            referenceToLiteralContext,
+            compileGeneratedExpressions(tableInfo, normalizer, analysis.transactionContext(), referenceToLiteralContext));
         for (ValuesList valuesList : node.valuesLists()) {
             analyzeValues(
                 tableRelation,
@@ -144,11 +176,45 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                 node.onDuplicateKeyAssignments(),
                 statement,
                 analysis.parameterContext(),
-                referenceToLiteralContext);
+                idFunction,
+                generatedExpressionContext);
         }
         return statement;
     }
 
+    /**
+     * Creates an input for each generated column expression which evaluates the expression
+     * against the values set on the referenceToLiteralContext.
+     * The list contains null for expressions which have to be normalized per row instead (non-deterministic functions)
+     */
+    private List<Input<?>> compileGeneratedExpressions(DocTableInfo tableInfo,
+                                                       EvaluatingNormalizer normalizer,
+                                                       TransactionContext transactionContext,
+                                                       ReferenceToLiteralConverter.Context referenceToLiteralContext) {
+        List<GeneratedReference> generatedColumns = tableInfo.generatedColumns();
+        if (generatedColumns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        java.util.function.Function<Symbol, Input<?>> toInput = new InputFactory(functions).forRefs(
+            reference -> new Input<Object>() {
+                @Override
+                public Object value() {
+                    return referenceToLiteralContext.resolveValue(reference);
+                }
+            });
+        List<Input<?>> inputs = new ArrayList<>(generatedColumns.size());
+        for (GeneratedReference reference : generatedColumns) {
+            // normalizing once evaluates everything which doesn't depend on the values, like current_timestamp
+            Symbol expression = normalizer.normalize(reference.generatedExpression(), transactionContext);
+            if (SymbolVisitors.any(IS_NON_DETERMINISTIC_FUNCTION, expression)) {
+                inputs.add(null);
+            } else {
+                inputs.add(toInput.apply(expression));
+            }
+        }
+        return inputs;
+    }
+
     private void analyzeColumns(DocTableInfo tableInfo, List<Reference> columns) {
         Collection<ColumnIdent> notUsedNonGeneratedColumns = TransportShardUpsertAction.getNotUsedNonGeneratedColumns(columns.toArray(new Reference[]{}), tableInfo);
         ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
@@ -191,14 +257,13 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                                List<Assignment> assignments,
                                InsertFromValuesAnalyzedStatement statement,
                                ParameterContext parameterContext,
-                               ReferenceToLiteralConverter.Context referenceToLiteralContext) {
+                               Function<List<BytesRef>, String> idFunction,
+                               GeneratedExpressionContext generatedExpressionContext) {
         validateValuesSize(node.values(), statement, tableRelation);
 
         try {
-            DocTableInfo tableInfo = statement.tableInfo();
-            int numPks = tableInfo.primaryKey().size();
-            Function<List<BytesRef>, String> idFunction = Id.compileWithNullValidation(tableInfo.primaryKey(),
-                tableInfo.clusteredBy());
+            int numPks = statement.tableInfo().primaryKey().size();
+            int[] parameterIndices = parameterIndices(node.values(), statement.columns());
             if (parameterContext.numBulkParams() > 0) {
                 for (int i = 0; i < parameterContext.numBulkParams(); i++) {
                     parameterContext.setBulkIdx(i);
@@ -214,7 +279,9 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                         node,
                         assignments,
                         statement,
-                        referenceToLiteralContext,
+                        parameterContext,
+                        parameterIndices,
+                        generatedExpressionContext,
                         numPks,
                         idFunction,
                         i
@@ -233,7 +300,9 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                     node,
                     assignments,
                     statement,
-                    referenceToLiteralContext,
+                    parameterContext,
+                    parameterIndices,
+                    generatedExpressionContext,
                     numPks,
                     idFunction,
                     -1
@@ -244,6 +313,32 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
     }
 
+    /**
+     * @return for each value the index of the parameter if the value is a plain parameter which can be converted
+     * directly into the type of its column, otherwise -1.
+     * Values of object columns or dynamic columns always need the normalization of the {@link ValueNormalizer}.
+     */
+    private static int[] parameterIndices(List<Expression> values, List<Reference> columns) {
+        int[] parameterIndices = new int[values.size()];
+        for (int i = 0; i < parameterIndices.length; i++) {
+            Expression value = values.get(i);
+            Reference column = columns.get(i);
+            if (value instanceof ParameterExpression
+                && !(column instanceof DynamicReference)
+                && !containsObjects(column.valueType())) {
+                parameterIndices[i] = ((ParameterExpression) value).index();
+            } else {
+                parameterIndices[i] = -1;
+            }
+        }
+        return parameterIndices;
+    }
+
+    private static boolean containsObjects(DataType type) {
+        return type.id() == ObjectType.ID
+               || (type instanceof CollectionType && ((CollectionType) type).innerType().id() == ObjectType.ID);
+    }
+
     private void addValues(DocTableRelation tableRelation,
                            ValueNormalizer valueNormalizer,
                            EvaluatingNormalizer normalizer,
@@ -255,7 +350,9 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                            ValuesList node,
                            List<Assignment> assignments,
                            InsertFromValuesAnalyzedStatement context,
-                           ReferenceToLiteralConverter.Context referenceToLiteralContext,
+                           ParameterContext parameterContext,
+                           int[] parameterIndices,
+                           GeneratedExpressionContext generatedExpressionContext,
                            int numPrimaryKeys,
                            Function<List<BytesRef>, String> idFunction,
                            int bulkIdx) throws IOException {
@@ -268,24 +365,29 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         Object[] insertValues = new Object[node.values().size()];
 
         for (int i = 0, valuesSize = node.values().size(); i < valuesSize; i++) {
-            Expression expression = node.values().get(i);
-            Symbol valuesSymbol = normalizer.normalize(
-                expressionAnalyzer.convert(expression, expressionAnalysisContext),
-                transactionContext);
-
-            // implicit type conversion
             Reference column = context.columns().get(i);
             final ColumnIdent columnIdent = column.ident().columnIdent();
-            Object value;
-            try {
-                valuesSymbol = valueNormalizer.normalizeInputForReference(valuesSymbol, column);
-                value = ((Input) valuesSymbol).value();
-            } catch (IllegalArgumentException | UnsupportedOperationException e) {
-                throw new ColumnValidationException(columnIdent.sqlFqn(), e);
-            } catch (ClassCastException e) {
-                // symbol is no Input
-                throw new ColumnValidationException(columnIdent.name(),
-                    SymbolFormatter.format("Invalid value '%s' in insert statement", valuesSymbol));
+            Object value = NO_VALUE;
+            if (parameterIndices[i] >= 0) {
+                value = convertParameter(parameterContext.parameters(), parameterIndices[i], column.valueType());
+            }
+            if (value == NO_VALUE) {
+                Expression expression = node.values().get(i);
+                Symbol valuesSymbol = normalizer.normalize(
+                    expressionAnalyzer.convert(expression, expressionAnalysisContext),
+                    transactionContext);
+
+                // implicit type conversion
+                try {
+                    valuesSymbol = valueNormalizer.normalizeInputForReference(valuesSymbol, column);
+                    value = ((Input) valuesSymbol).value();
+                } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                    throw new ColumnValidationException(columnIdent.sqlFqn(), e);
+                } catch (ClassCastException e) {
+                    // symbol is no Input
+                    throw new ColumnValidationException(columnIdent.name(),
+                        SymbolFormatter.format("Invalid value '%s' in insert statement", valuesSymbol));
+                }
             }
 
             if (context.primaryKeyColumnIndices().contains(i)) {
@@ -349,15 +451,8 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
 
         // process generated column expressions and add columns + values
-        GeneratedExpressionContext ctx = new GeneratedExpressionContext(
-            tableRelation,
-            context,
-            normalizer,
-            transactionContext,
-            referenceToLiteralContext,
-            primaryKeyValues,
-            insertValues,
-            routingValue);
+        GeneratedExpressionContext ctx = generatedExpressionContext;
+        ctx.row(primaryKeyValues, insertValues, routingValue);
         processGeneratedExpressions(ctx);
         insertValues = ctx.insertValues;
         routingValue = ctx.routingValue;
@@ -370,6 +465,30 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
     }
 
+    /**
+     * Converts a parameter into the type of its column without analyzing and normalizing the parameter expression.
+     * This is equivalent to the conversion the {@link ValueNormalizer} does for literals of non-object types.
+     *
+     * @return the converted value or {@link #NO_VALUE} if the parameter is invalid;
+     *         the regular analysis is then used to raise the appropriate error.
+     */
+    private static Object convertParameter(Row parameters, int index, DataType targetType) {
+        try {
+            Object value = parameters.get(index);
+            DataType type = DataTypes.guessType(value);
+            if (type == null) {
+                return NO_VALUE;
+            }
+            value = type.value(value);
+            if (type.equals(targetType)) {
+                return value;
+            }
+            return targetType.value(value);
+        } catch (RuntimeException e) {
+            return NO_VALUE;
+        }
+    }
+
     private void addPrimaryKeyValue(int index, Object value, List<BytesRef> primaryKeyValues) {
         if (value == null) {
             throw new IllegalArgumentException("Primary key value must not be NULL");
@@ -432,9 +551,10 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         private final InsertFromValuesAnalyzedStatement analyzedStatement;
         private final ReferenceToLiteralConverter.Context referenceToLiteralContext;
         private final TransactionContext transactionContext;
-        private final List<BytesRef> primaryKeyValues;
         private final EvaluatingNormalizer normalizer;
+        private final List<Input<?>> compiledExpressions;
 
+        private List<BytesRef> primaryKeyValues;
         private Object[] insertValues;
         private
         @Nullable
@@ -445,44 +565,55 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                                            EvaluatingNormalizer normalizer,
                                            TransactionContext transactionContext,
                                            ReferenceToLiteralConverter.Context referenceToLiteralContext,
-                                           List<BytesRef> primaryKeyValues,
-                                           Object[] insertValues,
-                                           @Nullable String routingValue) {
+                                           List<Input<?>> compiledExpressions) {
             this.tableRelation = tableRelation;
             this.analyzedStatement = analyzedStatement;
             this.transactionContext = transactionContext;
+            this.referenceToLiteralContext = referenceToLiteralContext;
+            this.normalizer = normalizer;
+            this.compiledExpressions = compiledExpressions;
+        }
+
+        private void row(List<BytesRef> primaryKeyValues, Object[] insertValues, @Nullable String routingValue) {
             this.primaryKeyValues = primaryKeyValues;
             this.insertValues = insertValues;
             this.routingValue = routingValue;
-            this.referenceToLiteralContext = referenceToLiteralContext;
-            this.normalizer = normalizer;
             referenceToLiteralContext.values(insertValues);
         }
     }
 
     private void processGeneratedExpressions(GeneratedExpressionContext context) {
         List<ColumnIdent> primaryKey = context.analyzedStatement.tableInfo().primaryKey();
-        for (GeneratedReference reference : context.tableRelation.tableInfo().generatedColumns()) {
-            Symbol valueSymbol = TO_LITERAL_CONVERTER.process(reference.generatedExpression(), context.referenceToLiteralContext);
-            valueSymbol = context.normalizer.normalize(valueSymbol, context.transactionContext);
-            if (valueSymbol.symbolType() == SymbolType.LITERAL) {
-                Object value = ((Input) valueSymbol).value();
-                if (primaryKey.contains(reference.ident().columnIdent()) &&
-                    context.analyzedStatement.columns().indexOf(reference) == -1) {
-                    int idx = primaryKey.indexOf(reference.ident().columnIdent());
-                    addPrimaryKeyValue(idx, value, context.primaryKeyValues);
-                }
-                ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
-                if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
-                    context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
-                }
-                if (context.tableRelation.tableInfo().isPartitioned()
-                    && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
-                    addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
-                        context.analyzedStatement.currentPartitionMap());
-                } else {
-                    context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
+        List<GeneratedReference> generatedColumns = context.tableRelation.tableInfo().generatedColumns();
+        for (int i = 0; i < generatedColumns.size(); i++) {
+            GeneratedReference reference = generatedColumns.get(i);
+            Object value;
+            Input<?> compiledExpression = context.compiledExpressions.get(i);
+            if (compiledExpression == null) {
+                Symbol valueSymbol = TO_LITERAL_CONVERTER.process(reference.generatedExpression(), context.referenceToLiteralContext);
+                valueSymbol = context.normalizer.normalize(valueSymbol, context.transactionContext);
+                if (valueSymbol.symbolType() != SymbolType.LITERAL) {
+                    continue;
                 }
+                value = ((Input) valueSymbol).value();
+            } else {
+                value = compiledExpression.value();
+            }
+            if (primaryKey.contains(reference.ident().columnIdent()) &&
+                context.analyzedStatement.columns().indexOf(reference) == -1) {
+                int idx = primaryKey.indexOf(reference.ident().columnIdent());
+                addPrimaryKeyValue(idx, value, context.primaryKeyValues);
+            }
+            ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
+            if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
+                context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
+            }
+            if (context.tableRelation.tableInfo().isPartitioned()
+                && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
+                addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
+                    context.analyzedStatement.currentPartitionMap());
+            } else {
+                context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
             }
         }
     }
@@ -50,6 +50,7 @@ public class PartitionedTableParameterInfo extends TableParameterInfo {
             .add(TOTAL_SHARDS_PER_NODE)
             .add(RECOVERY_INITIAL_SHARDS)
             .add(WARMER_ENABLED)
+            .add(SOURCE_FORMAT)
             .build();
 
     private static final TableParameterInfo PARTITION_TABLE_PARAMETER_INFO = new TablePartitionParameterInfo();
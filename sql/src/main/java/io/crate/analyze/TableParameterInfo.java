@@ -67,6 +67,7 @@ public class TableParameterInfo {
     public static final String RECOVERY_INITIAL_SHARDS = PrimaryShardAllocator.INDEX_RECOVERY_INITIAL_SHARDS;
     public static final String WARMER_ENABLED = IndicesWarmer.INDEX_WARMER_ENABLED;
     public static final String UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT = UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING;
+    public static final String SOURCE_FORMAT = "index.source_format";
 
     // all available table mapping keys
     public static final String COLUMN_POLICY = ColumnPolicy.ES_MAPPING_NAME;
@@ -90,6 +91,7 @@ public class TableParameterInfo {
             .add(RECOVERY_INITIAL_SHARDS)
             .add(WARMER_ENABLED)
             .add(UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
+            .add(SOURCE_FORMAT)
             .build();
 
     private static final ImmutableList<String> SUPPORTED_INTERNAL_SETTINGS =
@@ -143,6 +145,7 @@ public class TableParameterInfo {
             .put(TableParameterInfo.TRANSLOG_SYNC_INTERVAL, CrateTableSettings.TRANSLOG_SYNC_INTERVAL.extractMillis(settings))
             .put(TableParameterInfo.REFRESH_INTERVAL, CrateTableSettings.REFRESH_INTERVAL.extractMillis(settings))
             .put(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT, CrateTableSettings.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT.extractMillis(settings))
+            .put(TableParameterInfo.SOURCE_FORMAT, CrateTableSettings.SOURCE_FORMAT.extract(settings))
             .build();
     }
 
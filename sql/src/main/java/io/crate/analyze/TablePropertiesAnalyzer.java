@@ -61,6 +61,7 @@ public class TablePropertiesAnalyzer {
             .put(stripIndexPrefix(TableParameterInfo.RECOVERY_INITIAL_SHARDS), TableParameterInfo.RECOVERY_INITIAL_SHARDS)
             .put(stripIndexPrefix(TableParameterInfo.WARMER_ENABLED), TableParameterInfo.WARMER_ENABLED)
             .put(stripIndexPrefix(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT), TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
+            .put(stripIndexPrefix(TableParameterInfo.SOURCE_FORMAT), TableParameterInfo.SOURCE_FORMAT)
             .put(stripIndexPrefix(TableParameterInfo.NUMBER_OF_SHARDS), TableParameterInfo.NUMBER_OF_SHARDS)
             .put("blobs_path", TableParameterInfo.BLOBS_PATH)
             .build();
@@ -96,6 +97,7 @@ public class TablePropertiesAnalyzer {
             .put(TableParameterInfo.RECOVERY_INITIAL_SHARDS, new RecoveryInitialShardsApplier())
             .put(TableParameterInfo.WARMER_ENABLED, new SettingsAppliers.BooleanSettingsApplier(CrateTableSettings.WARMER_ENABLED))
             .put(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT, new SettingsAppliers.TimeSettingsApplier(CrateTableSettings.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT))
+            .put(TableParameterInfo.SOURCE_FORMAT, new SettingsAppliers.StringSettingsApplier(CrateTableSettings.SOURCE_FORMAT))
             .put(TableParameterInfo.NUMBER_OF_SHARDS, new NumberOfShardsSettingsApplier())
             .put(TableParameterInfo.BLOBS_PATH, new BlobPathSettingApplier())
             .build();
@@ -28,12 +28,15 @@ import io.crate.analyze.GeneratedColumnComparisonReplacer;
 import io.crate.analyze.SymbolToTrueVisitor;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.symbol.Function;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.PartitionValueIndex;
+import io.crate.operation.operator.*;
 import io.crate.operation.reference.partitioned.PartitionExpression;
 import org.elasticsearch.common.collect.Tuple;
 
@@ -159,10 +162,25 @@ public class WhereClauseAnalyzer {
         EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
             functions, RowGranularity.PARTITION, ReplaceMode.COPY, partitionReferenceResolver, null);
 
+        List<PartitionName> partitions = tableInfo.partitions();
+        List<Symbol> remainingConjunctions = new ArrayList<>();
+        BitSet candidates = indexedCandidates(whereClause.query(), tableInfo, remainingConjunctions);
+        if (candidates == null) {
+            candidates = new BitSet(partitions.size());
+            candidates.set(0, partitions.size());
+        } else if (candidates.isEmpty()) {
+            return WhereClause.NO_MATCH;
+        } else if (!containsPartitionColumn(remainingConjunctions, tableInfo)) {
+            // all conditions on partition columns are true for every candidate, so the normalized query is the same
+            return resolveIndexedPartitions(whereClause, partitions, candidates,
+                partitionReferenceResolver, normalizer, transactionContext);
+        }
+
         Symbol normalized;
         Map<Symbol, List<Literal>> queryPartitionMap = new HashMap<>();
 
-        for (PartitionName partitionName : tableInfo.partitions()) {
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            PartitionName partitionName = partitions.get(i);
             for (PartitionExpression partitionExpression : partitionReferenceResolver.expressions()) {
                 partitionExpression.setNextRow(partitionName);
             }
@@ -175,12 +193,12 @@ public class WhereClauseAnalyzer {
 
             boolean canMatch = WhereClause.canMatch(normalized);
             if (canMatch) {
-                List<Literal> partitions = queryPartitionMap.get(normalized);
-                if (partitions == null) {
-                    partitions = new ArrayList<>();
-                    queryPartitionMap.put(normalized, partitions);
+                List<Literal> partitionLiterals = queryPartitionMap.get(normalized);
+                if (partitionLiterals == null) {
+                    partitionLiterals = new ArrayList<>();
+                    queryPartitionMap.put(normalized, partitionLiterals);
                 }
-                partitions.add(Literal.of(partitionName.asIndexName()));
+                partitionLiterals.add(Literal.of(partitionName.asIndexName()));
             }
         }
 
@@ -199,6 +217,98 @@ public class WhereClauseAnalyzer {
         }
     }
 
+    private static WhereClause resolveIndexedPartitions(WhereClause whereClause,
+                                                        List<PartitionName> partitions,
+                                                        BitSet candidates,
+                                                        PartitionReferenceResolver partitionReferenceResolver,
+                                                        EvaluatingNormalizer normalizer,
+                                                        TransactionContext transactionContext) {
+        PartitionName first = partitions.get(candidates.nextSetBit(0));
+        for (PartitionExpression partitionExpression : partitionReferenceResolver.expressions()) {
+            partitionExpression.setNextRow(first);
+        }
+        Symbol normalized = normalizer.normalize(whereClause.query(), transactionContext);
+        if (!WhereClause.canMatch(normalized)) {
+            return WhereClause.NO_MATCH;
+        }
+        List<Literal> partitionLiterals = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            partitionLiterals.add(Literal.of(partitions.get(i).asIndexName()));
+        }
+        WhereClause where = new WhereClause(
+            normalized,
+            whereClause.docKeys().orElse(null),
+            new ArrayList<String>(partitionLiterals.size()));
+        where.partitions(partitionLiterals);
+        return where;
+    }
+
+    /**
+     * Resolves the top-level conjunctions of the query which compare a partition column with a literal
+     * using the {@link PartitionValueIndex} of the table.
+     *
+     * @param remainingConjunctions receives all conjunctions which couldn't be resolved using the index
+     * @return the positions of the partitions which match all resolved conjunctions
+     *         or null if none of the conjunctions could be resolved
+     */
+    @Nullable
+    private static BitSet indexedCandidates(Symbol query, DocTableInfo tableInfo, List<Symbol> remainingConjunctions) {
+        List<Symbol> conjunctions = Operators.splitConjunctions(query);
+        PartitionValueIndex index = tableInfo.partitionValueIndex();
+        BitSet candidates = null;
+        for (Symbol conjunction : conjunctions) {
+            BitSet matches = indexMatches(conjunction, tableInfo, index);
+            if (matches == null) {
+                remainingConjunctions.add(conjunction);
+            } else if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.and(matches);
+            }
+        }
+        return candidates;
+    }
+
+    @Nullable
+    private static BitSet indexMatches(Symbol conjunction, DocTableInfo tableInfo, PartitionValueIndex index) {
+        if (!(conjunction instanceof Function)) {
+            return null;
+        }
+        Function function = (Function) conjunction;
+        if (function.arguments().size() != 2) {
+            return null;
+        }
+        String operatorName = function.info().ident().name();
+        Symbol left = function.arguments().get(0);
+        Symbol right = function.arguments().get(1);
+        if (left instanceof Literal && right instanceof Reference) {
+            operatorName = Operators.swapComparison(operatorName);
+            Symbol tmp = left;
+            left = right;
+            right = tmp;
+        }
+        if (operatorName == null || !(left instanceof Reference) || !(right instanceof Literal)) {
+            return null;
+        }
+        Reference ref = (Reference) left;
+        int columnIdx = tableInfo.partitionedBy().indexOf(ref.ident().columnIdent());
+        if (columnIdx < 0
+            || !ref.valueType().equals(right.valueType())
+            || !index.isIndexed(columnIdx, operatorName)) {
+            return null;
+        }
+        return index.matches(columnIdx, operatorName, ((Literal) right).value());
+    }
+
+    private static boolean containsPartitionColumn(List<Symbol> symbols, DocTableInfo tableInfo) {
+        for (ColumnIdent partitionColumn : tableInfo.partitionedBy()) {
+            if (Symbols.containsColumn(symbols, partitionColumn)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static WhereClause tieBreakPartitionQueries(EvaluatingNormalizer normalizer,
                                                         Map<Symbol, List<Literal>> queryPartitionMap,
                                                         WhereClause whereClause,
@@ -38,9 +38,11 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
     public static final String QUERY_CIRCUIT_BREAKER_LIMIT_SETTING = "indices.breaker.query.limit";
     public static final String QUERY_CIRCUIT_BREAKER_OVERHEAD_SETTING = "indices.breaker.query.overhead";
     public static final String QUERY_CIRCUIT_BREAKER_TYPE_SETTING = "indices.breaker.query.type";
+    public static final String QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING = "indices.breaker.query.spill_threshold";
     public static final String DEFAULT_QUERY_CIRCUIT_BREAKER_LIMIT = "60%";
     public static final double DEFAULT_QUERY_CIRCUIT_BREAKER_OVERHEAD_CONSTANT = 1.09;
     public static final String DEFAULT_QUERY_CIRCUIT_BREAKER_TYPE = "memory";
+    public static final double DEFAULT_QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD = 0.0;
 
     public static final String QUERY = "query";
 
@@ -0,0 +1,86 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.breaker;
+
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts bytes in the context of a phase, but keeps track of the bytes which have been accounted through it.
+ * <p>
+ * The context of a phase is shared by all of its operations. An operation which writes its data to disk
+ * uses this context to base the decision on its own memory usage and to release exactly the bytes it has
+ * accounted itself.
+ * <p>
+ * {@link #close()} is a no-op, the bytes which haven't been released are released once the parent context is closed.
+ */
+public class OperationRamAccountingContext extends RamAccountingContext {
+
+    private final RamAccountingContext parent;
+    private final AtomicLong accountedBytes = new AtomicLong(0);
+
+    public OperationRamAccountingContext(RamAccountingContext parent) {
+        super(parent.contextId(), parent.breaker());
+        this.parent = parent;
+    }
+
+    @Override
+    public void addBytes(long bytes) throws CircuitBreakingException {
+        // counted first, the parent keeps the bytes even if the breaker trips
+        accountedBytes.addAndGet(bytes);
+        parent.addBytes(bytes);
+    }
+
+    @Override
+    public void releaseBytes(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        parent.releaseBytes(bytes);
+        accountedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * release all bytes which have been accounted through this context
+     */
+    public void releaseAll() {
+        releaseBytes(accountedBytes.get());
+    }
+
+    /**
+     * @return the bytes which have been accounted through this context and haven't been released yet
+     */
+    @Override
+    public long totalBytes() {
+        return accountedBytes.get();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean trippedBreaker() {
+        return parent.trippedBreaker();
+    }
+}
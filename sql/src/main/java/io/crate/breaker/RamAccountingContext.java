@@ -101,6 +101,31 @@ public class RamAccountingContext {
         }
     }
 
+    /**
+     * Release bytes which have been added before, e.g. because the accounted data has been written to disk.
+     * Bytes which are still buffered are removed from the buffer, the rest is released from the breaker immediately.
+     *
+     * @param bytes number of bytes to release, must not be larger than the number of bytes which have been added
+     */
+    public void releaseBytes(long bytes) {
+        if (closed || bytes <= 0) {
+            return;
+        }
+        long buffered;
+        long releasedFromBuffer;
+        do {
+            buffered = flushBuffer.get();
+            releasedFromBuffer = Math.max(0L, Math.min(buffered, bytes));
+        } while (!flushBuffer.compareAndSet(buffered, buffered - releasedFromBuffer));
+
+        long flushedBytes = bytes - releasedFromBuffer;
+        if (flushedBytes > 0) {
+            assert flushedBytes <= totalBytes.get() : "must not release more bytes than have been added";
+            breaker.addWithoutBreaking(-flushedBytes);
+            totalBytes.addAndGet(-flushedBytes);
+        }
+    }
+
     /**
      * @return the total number of bytes that have been aggregated
      */
@@ -148,6 +173,10 @@ public class RamAccountingContext {
         return contextId;
     }
 
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
 
     /**
      * round n up to the nearest multiple of m
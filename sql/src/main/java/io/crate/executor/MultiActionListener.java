@@ -26,6 +26,7 @@ import com.google.common.base.Function;
 import org.elasticsearch.action.ActionListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -36,14 +37,15 @@ public class MultiActionListener<SingleResponse, FinalResponse> implements Actio
     private final AtomicReference<Throwable> lastThrowable = new AtomicReference<>(null);
     private final Function<List<SingleResponse>, FinalResponse> mergeFunction;
     private final ActionListener<? super FinalResponse> actionListener;
-    private final ArrayList<SingleResponse> results;
+    private final List<SingleResponse> results;
 
     public MultiActionListener(int numResponses,
                                Function<List<SingleResponse>, FinalResponse> mergeFunction,
                                ActionListener<? super FinalResponse> actionListener) {
         this.mergeFunction = mergeFunction;
         this.actionListener = actionListener;
-        results = new ArrayList<>(numResponses);
+        // responses may arrive concurrently
+        results = Collections.synchronizedList(new ArrayList<SingleResponse>(numResponses));
         counter = new AtomicInteger(numResponses);
     }
 
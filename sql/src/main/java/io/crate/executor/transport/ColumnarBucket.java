@@ -0,0 +1,584 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.StringType;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.GrowableByteArrayDataOutput;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Bucket which is serialized column by column instead of row by row like the {@link StreamBucket}.
+ * <p>
+ * Depending on the type, a column is encoded as
+ * <ul>
+ * <li>long/timestamp/integer: zig-zag encoded deltas of subsequent values as vlongs</li>
+ * <li>string/ip: a dictionary of the distinct values and a vint id per value, or plain if most values are distinct</li>
+ * <li>any other type: the values written by the {@link Streamer} of the column</li>
+ * </ul>
+ * Except for the generic encoding, null values are stored in a bitmap and are omitted from the values.
+ * <p>
+ * Optionally the whole payload is compressed using LZ4.
+ * Like with the {@link StreamBucket} the payload is decoded lazily, once the streamers are known.
+ * <p>
+ * A bucket may consist of several independently encoded chunks, see {@link #concat(Streamer[], List)}.
+ */
+public class ColumnarBucket implements Bucket, Streamable {
+
+    private static final byte GENERIC = 0;
+    private static final byte LONGS = 1;
+    private static final byte INTS = 2;
+    private static final byte BYTES_DICT = 3;
+    private static final byte BYTES_PLAIN = 4;
+
+    /**
+     * payloads smaller than this aren't compressed
+     */
+    static final int MIN_COMPRESSION_SIZE = 4096;
+
+    private Streamer<?>[] streamers;
+    private int size = -1;
+    private List<Chunk> chunks = Collections.emptyList();
+
+    private static class Chunk {
+
+        private final int size;
+        private final int uncompressedLength;
+        private final BytesReference bytes;
+
+        /**
+         * @param uncompressedLength the length of the payload before compression, -1 if it isn't compressed
+         */
+        Chunk(int size, int uncompressedLength, BytesReference bytes) {
+            this.size = size;
+            this.uncompressedLength = uncompressedLength;
+            this.bytes = bytes;
+        }
+    }
+
+    public ColumnarBucket(@Nullable Streamer<?>[] streamers) {
+        this.streamers = streamers;
+    }
+
+    /**
+     * @return true if at least one of the columns can be stored in a more compact way than by its streamer
+     */
+    public static boolean hasCompactEncoding(Streamer<?>[] streamers) {
+        for (Streamer<?> streamer : streamers) {
+            if (encodingFor(streamer) != GENERIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte encodingFor(Streamer<?> streamer) {
+        // TimestampType extends LongType and IpType extends StringType
+        if (streamer instanceof LongType) {
+            return LONGS;
+        }
+        if (streamer instanceof IntegerType) {
+            return INTS;
+        }
+        if (streamer instanceof StringType) {
+            return BYTES_DICT;
+        }
+        return GENERIC;
+    }
+
+    public static class Builder implements BucketBuilder {
+
+        private final Streamer<?>[] streamers;
+        private final boolean compress;
+        private final ColumnWriter[] columns;
+        private int size = 0;
+
+        /**
+         * @param compress if true, payloads larger than {@link #MIN_COMPRESSION_SIZE} are compressed
+         */
+        public Builder(Streamer<?>[] streamers, boolean compress) {
+            this.streamers = streamers;
+            this.compress = compress;
+            columns = new ColumnWriter[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                switch (encodingFor(streamers[i])) {
+                    case LONGS:
+                        columns[i] = new NumericColumnWriter(LONGS);
+                        break;
+                    case INTS:
+                        columns[i] = new NumericColumnWriter(INTS);
+                        break;
+                    case BYTES_DICT:
+                        columns[i] = new BytesRefColumnWriter();
+                        break;
+                    default:
+                        columns[i] = new GenericColumnWriter(streamers[i]);
+                }
+            }
+        }
+
+        @Override
+        public void add(Row row) throws IOException {
+            assert streamers.length == row.size() : "number of streamer must match row size";
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(size, row.get(i));
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnarBucket build() throws IOException {
+            ColumnarBucket bucket = new ColumnarBucket(streamers);
+            bucket.size = size;
+            if (size == 0) {
+                return bucket;
+            }
+            BytesStreamOutput out = new BytesStreamOutput();
+            out.writeVInt(columns.length);
+            for (ColumnWriter column : columns) {
+                column.writeTo(out, size);
+            }
+            BytesReference payload = out.bytes();
+            if (compress && payload.length() >= MIN_COMPRESSION_SIZE) {
+                BytesArray array = payload.toBytesArray();
+                GrowableByteArrayDataOutput compressed = new GrowableByteArrayDataOutput(array.length() / 2);
+                Compressor compressor = CompressionMode.FAST.newCompressor();
+                compressor.compress(array.array(), array.arrayOffset(), array.length(), compressed);
+                if (compressed.length < array.length()) {
+                    bucket.chunks = Collections.singletonList(
+                        new Chunk(size, array.length(), new BytesArray(compressed.bytes, 0, compressed.length)));
+                    return bucket;
+                }
+            }
+            bucket.chunks = Collections.singletonList(new Chunk(size, -1, payload));
+            return bucket;
+        }
+
+        @Override
+        public void reset() {
+            size = 0;
+            for (ColumnWriter column : columns) {
+                column.reset();
+            }
+        }
+    }
+
+    /**
+     * combine buckets which have been built with the same streamers into one bucket, without re-encoding them
+     */
+    public static ColumnarBucket concat(Streamer<?>[] streamers, List<ColumnarBucket> buckets) {
+        ColumnarBucket bucket = new ColumnarBucket(streamers);
+        bucket.size = 0;
+        bucket.chunks = new ArrayList<>(buckets.size());
+        for (ColumnarBucket part : buckets) {
+            bucket.size += part.size;
+            bucket.chunks.addAll(part.chunks);
+        }
+        return bucket;
+    }
+
+    public void streamers(Streamer<?>[] streamers) {
+        this.streamers = streamers;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes of the encoded (and possibly compressed) chunks
+     */
+    public long sizeInBytes() {
+        long sizeInBytes = 0;
+        for (Chunk chunk : chunks) {
+            sizeInBytes += chunk.bytes.length();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        if (size < 1) {
+            return Collections.emptyIterator();
+        }
+        assert streamers != null : "streamers must not be null";
+        return Iterators.concat(Iterators.transform(chunks.iterator(), new Function<Chunk, Iterator<Row>>() {
+            @Nullable
+            @Override
+            public Iterator<Row> apply(@Nullable Chunk input) {
+                assert input != null : "chunk must not be null";
+                return chunkIterator(input);
+            }
+        }));
+    }
+
+    private Iterator<Row> chunkIterator(final Chunk chunk) {
+        final Object[][] values;
+        try {
+            values = decodeColumns(chunk);
+        } catch (IOException e) {
+            throw new IllegalStateException("could not decode columnar bucket", e);
+        }
+        return new Iterator<Row>() {
+
+            private final ColumnRow row = new ColumnRow(values);
+
+            @Override
+            public boolean hasNext() {
+                return row.pos + 1 < chunk.size;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("no more rows");
+                }
+                row.pos++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove is not supported");
+            }
+        };
+    }
+
+    private Object[][] decodeColumns(Chunk chunk) throws IOException {
+        StreamInput in;
+        if (chunk.uncompressedLength == -1) {
+            in = chunk.bytes.streamInput();
+        } else {
+            BytesArray array = chunk.bytes.toBytesArray();
+            BytesRef decompressed = new BytesRef();
+            CompressionMode.FAST.newDecompressor().decompress(
+                new ByteArrayDataInput(array.array(), array.arrayOffset(), array.length()),
+                chunk.uncompressedLength, 0, chunk.uncompressedLength, decompressed);
+            in = new BytesArray(decompressed).streamInput();
+        }
+        int numColumns = in.readVInt();
+        assert numColumns == streamers.length : "number of streamers must match the number of columns";
+        Object[][] columns = new Object[numColumns][];
+        for (int c = 0; c < numColumns; c++) {
+            columns[c] = readColumn(in, streamers[c], chunk.size);
+        }
+        return columns;
+    }
+
+    private static Object[] readColumn(StreamInput in, Streamer<?> streamer, int size) throws IOException {
+        Object[] values = new Object[size];
+        byte encoding = in.readByte();
+        if (encoding == GENERIC) {
+            for (int i = 0; i < size; i++) {
+                values[i] = streamer.readValueFrom(in);
+            }
+            return values;
+        }
+        BitSet nulls = readNulls(in);
+        switch (encoding) {
+            case LONGS:
+            case INTS:
+                long value = 0L;
+                for (int i = 0; i < size; i++) {
+                    if (!nulls.get(i)) {
+                        value += readZLong(in);
+                        values[i] = encoding == LONGS ? (Object) value : (Object) (int) value;
+                    }
+                }
+                break;
+            case BYTES_DICT:
+                BytesRef[] dict = new BytesRef[in.readVInt()];
+                for (int i = 0; i < dict.length; i++) {
+                    dict[i] = in.readBytesRef();
+                }
+                for (int i = 0; i < size; i++) {
+                    if (!nulls.get(i)) {
+                        values[i] = dict[in.readVInt()];
+                    }
+                }
+                break;
+            case BYTES_PLAIN:
+                for (int i = 0; i < size; i++) {
+                    if (!nulls.get(i)) {
+                        values[i] = in.readBytesRef();
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("unknown column encoding: " + encoding);
+        }
+        return values;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        size = in.readVInt();
+        if (size > 0) {
+            int numChunks = in.readVInt();
+            chunks = new ArrayList<>(numChunks);
+            for (int i = 0; i < numChunks; i++) {
+                chunks.add(new Chunk(in.readVInt(), in.readInt(), in.readBytesReference()));
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        assert size > -1 : "size must be > -1";
+        out.writeVInt(size);
+        if (size > 0) {
+            out.writeVInt(chunks.size());
+            for (Chunk chunk : chunks) {
+                out.writeVInt(chunk.size);
+                out.writeInt(chunk.uncompressedLength);
+                out.writeBytesReference(chunk.bytes);
+            }
+        }
+    }
+
+    private static void writeNulls(StreamOutput out, BitSet nulls) throws IOException {
+        int numWords = nulls.isEmpty() ? 0 : nulls.wlen;
+        out.writeVInt(numWords);
+        for (int i = 0; i < numWords; i++) {
+            out.writeLong(nulls.bits[i]);
+        }
+    }
+
+    private static BitSet readNulls(StreamInput in) throws IOException {
+        int numWords = in.readVInt();
+        long[] words = new long[numWords];
+        for (int i = 0; i < numWords; i++) {
+            words[i] = in.readLong();
+        }
+        return new BitSet(words, numWords);
+    }
+
+    /**
+     * writes a zig-zag encoded vlong, so that small negative values take few bytes as well
+     */
+    private static void writeZLong(StreamOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0L) {
+            out.writeByte((byte) ((zigZag & 0x7FL) | 0x80L));
+            zigZag >>>= 7;
+        }
+        out.writeByte((byte) zigZag);
+    }
+
+    private static long readZLong(StreamInput in) throws IOException {
+        long zigZag = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            zigZag |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static class ColumnRow implements Row {
+
+        private final Object[][] columns;
+        private int pos = -1;
+
+        ColumnRow(Object[][] columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index][pos];
+        }
+
+        @Override
+        public Object[] materialize() {
+            Object[] result = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                result[i] = columns[i][pos];
+            }
+            return result;
+        }
+    }
+
+    private abstract static class ColumnWriter {
+
+        abstract void add(int row, @Nullable Object value) throws IOException;
+
+        abstract void writeTo(StreamOutput out, int numRows) throws IOException;
+
+        abstract void reset();
+    }
+
+    private static class GenericColumnWriter extends ColumnWriter {
+
+        private final Streamer<?> streamer;
+        private BytesStreamOutput values = new BytesStreamOutput();
+
+        GenericColumnWriter(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        void add(int row, @Nullable Object value) throws IOException {
+            streamer.writeValueTo(values, value);
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(GENERIC);
+            values.bytes().writeTo(out);
+        }
+
+        @Override
+        void reset() {
+            values = new BytesStreamOutput(values.size());
+        }
+    }
+
+    private static class NumericColumnWriter extends ColumnWriter {
+
+        private final byte encoding;
+        private final BitSet nulls = new BitSet();
+        private BytesStreamOutput deltas = new BytesStreamOutput();
+        private long previous = 0L;
+
+        NumericColumnWriter(byte encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        void add(int row, @Nullable Object value) throws IOException {
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            long current = ((Number) value).longValue();
+            writeZLong(deltas, current - previous);
+            previous = current;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            out.writeByte(encoding);
+            writeNulls(out, nulls);
+            deltas.bytes().writeTo(out);
+        }
+
+        @Override
+        void reset() {
+            nulls.clear();
+            deltas = new BytesStreamOutput(deltas.size());
+            previous = 0L;
+        }
+    }
+
+    private static class BytesRefColumnWriter extends ColumnWriter {
+
+        private final BitSet nulls = new BitSet();
+        private final ObjectIntHashMap<BytesRef> dictIds = new ObjectIntHashMap<>();
+        private final List<BytesRef> dict = new ArrayList<>();
+        private final IntArrayList ids = new IntArrayList();
+
+        @Override
+        void add(int row, @Nullable Object value) throws IOException {
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            BytesRef bytesRef = (BytesRef) value;
+            int idx = dictIds.indexOf(bytesRef);
+            int id;
+            if (dictIds.indexExists(idx)) {
+                id = dictIds.indexGet(idx);
+            } else {
+                id = dict.size();
+                // the row may re-use the BytesRef instance
+                BytesRef copy = BytesRef.deepCopyOf(bytesRef);
+                dict.add(copy);
+                dictIds.indexInsert(idx, copy, id);
+            }
+            ids.add(id);
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int numRows) throws IOException {
+            // a dictionary only pays off if values are repeated
+            boolean useDict = dict.size() <= ids.size() / 2;
+            out.writeByte(useDict ? BYTES_DICT : BYTES_PLAIN);
+            writeNulls(out, nulls);
+            if (useDict) {
+                out.writeVInt(dict.size());
+                for (BytesRef value : dict) {
+                    out.writeBytesRef(value);
+                }
+                for (int i = 0; i < ids.size(); i++) {
+                    out.writeVInt(ids.get(i));
+                }
+            } else {
+                for (int i = 0; i < ids.size(); i++) {
+                    out.writeBytesRef(dict.get(ids.get(i)));
+                }
+            }
+        }
+
+        @Override
+        void reset() {
+            nulls.clear();
+            dictIds.clear();
+            dict.clear();
+            ids.clear();
+        }
+    }
+}
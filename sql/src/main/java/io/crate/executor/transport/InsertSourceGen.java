@@ -0,0 +1,246 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Joiner;
+import io.crate.analyze.ConstraintsValidator;
+import io.crate.metadata.*;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.Input;
+import io.crate.operation.InputFactory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.XContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Generates the _source of the insert items of a {@link ShardUpsertRequest} directly from their insert values,
+ * in the {@link io.crate.metadata.doc.SourceFormat} of the index.
+ * <p>
+ * Everything that only depends on the request, like the column names and the compiled expressions of
+ * the generated columns, is computed once per request. The sources of all items are written into the same
+ * buffer and copied out of it, so that each source only occupies as much memory as it needs.
+ * <p>
+ * Instances are not thread-safe and must only be used for the items of one request.
+ */
+final class InsertSourceGen {
+
+    private final DocTableInfo tableInfo;
+    private final Reference[] insertColumns;
+    private final boolean validateConstraints;
+    private final Collection<ColumnIdent> notUsedNonGeneratedColumns;
+    private final XContent xContent;
+
+    /**
+     * The names of the insert columns which are written as they are.
+     * Null for partition columns and for generated columns which are written after their expression is evaluated.
+     */
+    private final String[] columnNames;
+    private final List<GeneratedColumn> generatedColumns;
+    private final BytesStreamOutput out = new BytesStreamOutput(256);
+
+    private Object[] values;
+
+    InsertSourceGen(Functions functions,
+                    DocTableInfo tableInfo,
+                    Reference[] insertColumns,
+                    boolean validateConstraints,
+                    Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                    XContentType contentType) {
+        this.tableInfo = tableInfo;
+        this.insertColumns = insertColumns;
+        this.validateConstraints = validateConstraints;
+        this.notUsedNonGeneratedColumns = notUsedNonGeneratedColumns;
+        this.xContent = XContentFactory.xContent(contentType);
+
+        columnNames = new String[insertColumns.length];
+        int numGeneratedWithValue = 0;
+        for (int i = 0; i < insertColumns.length; i++) {
+            Reference column = insertColumns[i];
+            if (column.granularity() == RowGranularity.DOC) {
+                // don't include values for partitions in the _source
+                // ideally columns with partition granularity shouldn't be part of the request
+                columnNames[i] = column.ident().columnIdent().fqn();
+                if (column instanceof GeneratedReference) {
+                    numGeneratedWithValue++;
+                }
+            }
+        }
+        generatedColumns = compileGeneratedColumns(functions, numGeneratedWithValue);
+    }
+
+    private List<GeneratedColumn> compileGeneratedColumns(Functions functions, int numGeneratedWithValue) {
+        List<GeneratedReference> candidates = new ArrayList<>();
+        for (GeneratedReference reference : tableInfo.generatedColumns()) {
+            // partitionedBy columns are part of the index name and not of the _source
+            if (!tableInfo.partitionedByColumns().contains(reference)) {
+                candidates.add(reference);
+            }
+        }
+        boolean missingGeneratedColumns = candidates.size() > numGeneratedWithValue;
+        if (!missingGeneratedColumns && (numGeneratedWithValue == 0 || !validateConstraints)) {
+            return Collections.emptyList();
+        }
+        Function<io.crate.analyze.symbol.Symbol, Input<?>> toInput = new InputFactory(functions).forRefs(this::valueInput);
+        List<GeneratedColumn> generatedColumns = new ArrayList<>(candidates.size());
+        for (GeneratedReference reference : candidates) {
+            int valueIdx = indexOf(reference.ident().columnIdent());
+            boolean evaluationNeeded = referencesInsertColumn(reference.referencedReferences());
+            Input<?> expression = null;
+            if ((valueIdx >= 0 && validateConstraints) || evaluationNeeded) {
+                expression = toInput.apply(reference.generatedExpression());
+                if (valueIdx >= 0) {
+                    // the value is written after it has been compared with the generated value
+                    columnNames[valueIdx] = null;
+                }
+            }
+            generatedColumns.add(new GeneratedColumn(reference, valueIdx, evaluationNeeded, expression));
+        }
+        return generatedColumns;
+    }
+
+    /**
+     * @return an input which resolves the value of the reference from the insert values of the current item
+     */
+    private Input<?> valueInput(Reference reference) {
+        ColumnIdent column = reference.ident().columnIdent();
+        int idx = indexOf(column);
+        int rootIdx = column.isColumn() ? -1 : indexOf(column.getRoot());
+        String path = Joiner.on('.').join(column.path());
+        return () -> {
+            Object value = idx < 0 ? null : values[idx];
+            if (value == null && rootIdx >= 0) {
+                Object root = values[rootIdx];
+                if (root instanceof Map) {
+                    value = XContentMapValues.extractValue(path, (Map) root);
+                }
+            }
+            return reference.valueType().value(value);
+        };
+    }
+
+    private int indexOf(ColumnIdent column) {
+        for (int i = 0; i < insertColumns.length; i++) {
+            if (insertColumns[i].ident().columnIdent().equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean referencesInsertColumn(List<Reference> referencedReferences) {
+        for (Reference reference : referencedReferences) {
+            ColumnIdent column = reference.ident().columnIdent();
+            for (Reference insertColumn : insertColumns) {
+                ColumnIdent insertColumnIdent = insertColumn.ident().columnIdent();
+                if (column.equals(insertColumnIdent) || column.isChildOf(insertColumnIdent)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    BytesReference generateSource(Object[] insertValues) throws IOException {
+        // For direct inserts it is enough to have constraints validation on a handler.
+        // validateConstraints() of ShardUpsertRequest should result in false in this case.
+        if (validateConstraints) {
+            ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
+        }
+        values = insertValues;
+        out.reset();
+        XContentBuilder builder = new XContentBuilder(xContent, out);
+        builder.startObject();
+        for (int i = 0; i < insertValues.length; i++) {
+            Object value = insertValues[i];
+            ConstraintsValidator.validate(value, insertColumns[i]);
+            if (columnNames[i] != null) {
+                builder.field(columnNames[i], value);
+            }
+        }
+        for (GeneratedColumn generatedColumn : generatedColumns) {
+            generatedColumn.write(builder, insertValues, validateConstraints);
+        }
+        builder.endObject();
+        builder.close();
+        values = null;
+        return new BytesArray(out.bytes().toBytes());
+    }
+
+    private static class GeneratedColumn {
+
+        private final GeneratedReference reference;
+        private final String name;
+        private final int valueIdx;
+        private final boolean evaluationNeeded;
+        @Nullable
+        private final Input<?> expression;
+
+        GeneratedColumn(GeneratedReference reference,
+                        int valueIdx,
+                        boolean evaluationNeeded,
+                        @Nullable Input<?> expression) {
+            this.reference = reference;
+            this.name = reference.ident().columnIdent().fqn();
+            this.valueIdx = valueIdx;
+            this.evaluationNeeded = evaluationNeeded;
+            this.expression = expression;
+        }
+
+        void write(XContentBuilder builder, Object[] insertValues, boolean validateConstraints) throws IOException {
+            Object userSuppliedValue = valueIdx < 0 ? null : insertValues[valueIdx];
+            if (validateConstraints) {
+                ConstraintsValidator.validate(userSuppliedValue, reference);
+            }
+            if (expression == null) {
+                // a given value has already been written, there is nothing to evaluate
+                return;
+            }
+            if (userSuppliedValue == null) {
+                if (evaluationNeeded) {
+                    builder.field(name, expression.value());
+                } else if (valueIdx >= 0) {
+                    builder.field(name, (Object) null);
+                }
+                return;
+            }
+            if (validateConstraints) {
+                Object generatedValue = expression.value();
+                if (reference.valueType().compareValueTo(generatedValue, userSuppliedValue) != 0) {
+                    throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Given value %s for generated column does not match defined generated expression value %s",
+                        userSuppliedValue, generatedValue));
+                }
+            }
+            builder.field(name, userSuppliedValue);
+        }
+    }
+}
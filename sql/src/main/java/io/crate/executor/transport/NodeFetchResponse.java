@@ -25,6 +25,7 @@ import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import io.crate.Streamer;
+import io.crate.Version;
 import io.crate.core.collections.Bucket;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -41,6 +42,7 @@ public class NodeFetchResponse extends TransportResponse {
 
     @Nullable
     private IntObjectMap<StreamBucket> fetched;
+    private int searchQueueSize = 0;
 
     public static NodeFetchResponse forSending(IntObjectMap<StreamBucket> fetched) {
         return new NodeFetchResponse(null, fetched);
@@ -61,33 +63,61 @@ public class NodeFetchResponse extends TransportResponse {
         return fetched;
     }
 
+    /**
+     * size of the search queue of the node which sent the response,
+     * used by {@link NodeResponseStats}
+     */
+    public int searchQueueSize() {
+        return searchQueueSize;
+    }
+
+    public void searchQueueSize(int searchQueueSize) {
+        this.searchQueueSize = searchQueueSize;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        int numReaders = in.readVInt();
-        if (numReaders > 0) {
-            assert streamers != null : "streamers must not be null";
-            fetched = new IntObjectHashMap<>(numReaders);
-            for (int i = 0; i < numReaders; i++) {
-                int readerId = in.readVInt();
-                StreamBucket bucket = new StreamBucket(streamers.get(readerId));
-                bucket.readFrom(in);
-                fetched.put(readerId, bucket);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, in);
+        try {
+            if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                searchQueueSize = in.readVInt();
+            }
+            int numReaders = in.readVInt();
+            if (numReaders > 0) {
+                assert streamers != null : "streamers must not be null";
+                fetched = new IntObjectHashMap<>(numReaders);
+                for (int i = 0; i < numReaders; i++) {
+                    int readerId = in.readVInt();
+                    StreamBucket bucket = new StreamBucket(streamers.get(readerId));
+                    bucket.readFrom(in);
+                    fetched.put(readerId, bucket);
+                }
             }
+        } finally {
+            in.setVersion(version);
         }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        if (fetched == null) {
-            out.writeVInt(0);
-        } else {
-            out.writeVInt(fetched.size());
-            for (IntObjectCursor<StreamBucket> cursor : fetched) {
-                out.writeVInt(cursor.key);
-                cursor.value.writeTo(out);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, out);
+        try {
+            if (out.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                out.writeVInt(searchQueueSize);
+            }
+            if (fetched == null) {
+                out.writeVInt(0);
+            } else {
+                out.writeVInt(fetched.size());
+                for (IntObjectCursor<StreamBucket> cursor : fetched) {
+                    out.writeVInt(cursor.key);
+                    cursor.value.writeTo(out);
+                }
             }
+        } finally {
+            out.setVersion(version);
         }
     }
 }
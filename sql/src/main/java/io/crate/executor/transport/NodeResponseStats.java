@@ -0,0 +1,260 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the response times and search queue sizes of the nodes this node sends job and fetch requests to
+ * and uses them to choose the shard copy with the best expected service time when building a routing.
+ * <p>
+ * The ranking is based on C3 (Suresh et al.): the exponentially weighted moving average of the response time
+ * is multiplied by the cube of the estimated queue, which consists of the requests which are still in flight
+ * to a node plus the (averaged) size of the search queue the node reported with its last responses.
+ * <p>
+ * Only requests which are answered once their work is done, like fetch requests, record a response time.
+ * Job requests are answered once the job has been set up, so they only record the search queue size.
+ * The queue of this node is recorded when the handler executes its operations without a job request.
+ * <p>
+ * Nodes without a (recent) response time are ranked with the average response time of the other nodes,
+ * so that their queue still counts and they are queried eventually. Stats which haven't been updated for
+ * {@link #STALE_AFTER_NANOS} are ignored so that a node which was slow once gets requests again.
+ */
+@Singleton
+public class NodeResponseStats {
+
+    static final double ALPHA = 0.3;
+    static final long STALE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ConcurrentMap<String, NodeStats> statsByNode = new ConcurrentHashMap<>();
+
+    /**
+     * @return the number of tasks waiting in the queue of the search thread pool of this node
+     */
+    public static int searchQueueSize(ThreadPool threadPool) {
+        Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return 0;
+    }
+
+    /**
+     * wraps the listener of a request which is sent to nodeId so that the search queue size
+     * included in the response is recorded.
+     */
+    public <T> ActionListener<T> track(String nodeId,
+                                       ActionListener<T> listener,
+                                       Function<? super T, Integer> searchQueueSize) {
+        return track(nodeId, listener, searchQueueSize, false);
+    }
+
+    /**
+     * like {@link #track(String, ActionListener, Function)}, but also records the response time.
+     * Must only be used for requests whose response is sent once all their work is done.
+     */
+    public <T> ActionListener<T> trackWithResponseTime(String nodeId,
+                                                       ActionListener<T> listener,
+                                                       Function<? super T, Integer> searchQueueSize) {
+        return track(nodeId, listener, searchQueueSize, true);
+    }
+
+    private <T> ActionListener<T> track(final String nodeId,
+                                        final ActionListener<T> listener,
+                                        final Function<? super T, Integer> searchQueueSize,
+                                        final boolean recordResponseTime) {
+        final NodeStats stats = stats(nodeId);
+        stats.outstanding.incrementAndGet();
+        final long startNanos = System.nanoTime();
+        return new ActionListener<T>() {
+            @Override
+            public void onResponse(T response) {
+                stats.outstanding.decrementAndGet();
+                if (recordResponseTime) {
+                    stats.updateResponseTime(System.nanoTime() - startNanos);
+                }
+                stats.updateSearchQueueSize(searchQueueSize.apply(response));
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                stats.outstanding.decrementAndGet();
+                listener.onFailure(e);
+            }
+        };
+    }
+
+    /**
+     * records the search queue size of a node which executed operations without a tracked request
+     */
+    public void updateSearchQueueSize(String nodeId, int searchQueueSize) {
+        stats(nodeId).updateSearchQueueSize(searchQueueSize);
+    }
+
+    /**
+     * Returns the copy of the shard which should be queried.
+     * Only active copies are considered; if the first copy isn't active it is returned as is.
+     *
+     * @return the chosen copy or null if the iterator is empty
+     */
+    @Nullable
+    public ShardRouting select(ShardIterator shardIterator) {
+        ShardRouting first = shardIterator.nextOrNull();
+        if (first == null || !first.active()) {
+            return first;
+        }
+        long now = System.nanoTime();
+        double defaultResponseTime = averageResponseTime(now);
+        if (Double.isNaN(defaultResponseTime)) {
+            // without any response times the copies can't be compared
+            return first;
+        }
+        double bestRank = rank(first.currentNodeId(), now, defaultResponseTime);
+        ShardRouting best = first;
+        ShardRouting copy;
+        while ((copy = shardIterator.nextOrNull()) != null) {
+            if (!copy.active()) {
+                continue;
+            }
+            double rank = rank(copy.currentNodeId(), now, defaultResponseTime);
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = copy;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the rank of the node, lower is better; NaN if there are no (recent) response times of any node
+     */
+    @VisibleForTesting
+    double rank(String nodeId, long nowNanos) {
+        return rank(nodeId, nowNanos, averageResponseTime(nowNanos));
+    }
+
+    private double rank(String nodeId, long nowNanos, double defaultResponseTime) {
+        NodeStats stats = statsByNode.get(nodeId);
+        if (stats == null) {
+            return defaultResponseTime;
+        }
+        return stats.rank(nowNanos, defaultResponseTime);
+    }
+
+    private double averageResponseTime(long nowNanos) {
+        double sum = 0;
+        int count = 0;
+        for (NodeStats stats : statsByNode.values()) {
+            double responseTime = stats.responseTime(nowNanos);
+            if (!Double.isNaN(responseTime)) {
+                sum += responseTime;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    @VisibleForTesting
+    void update(String nodeId, long responseTimeNanos, int searchQueueSize) {
+        NodeStats stats = stats(nodeId);
+        stats.updateResponseTime(responseTimeNanos);
+        stats.updateSearchQueueSize(searchQueueSize);
+    }
+
+    private NodeStats stats(String nodeId) {
+        NodeStats stats = statsByNode.get(nodeId);
+        if (stats == null) {
+            stats = new NodeStats();
+            NodeStats existing = statsByNode.putIfAbsent(nodeId, stats);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return stats;
+    }
+
+    private static class NodeStats {
+
+        private final AtomicInteger outstanding = new AtomicInteger(0);
+
+        private double responseTimeNanos = Double.NaN;
+        private long responseTimeUpdateNanos;
+        private double searchQueueSize = Double.NaN;
+        private long searchQueueSizeUpdateNanos;
+
+        synchronized void updateResponseTime(long responseTimeNanos) {
+            if (Double.isNaN(this.responseTimeNanos)) {
+                this.responseTimeNanos = responseTimeNanos;
+            } else {
+                this.responseTimeNanos = ALPHA * responseTimeNanos + (1 - ALPHA) * this.responseTimeNanos;
+            }
+            responseTimeUpdateNanos = System.nanoTime();
+        }
+
+        synchronized void updateSearchQueueSize(int searchQueueSize) {
+            if (Double.isNaN(this.searchQueueSize)) {
+                this.searchQueueSize = searchQueueSize;
+            } else {
+                this.searchQueueSize = ALPHA * searchQueueSize + (1 - ALPHA) * this.searchQueueSize;
+            }
+            searchQueueSizeUpdateNanos = System.nanoTime();
+        }
+
+        /**
+         * @return the averaged response time or NaN if there is none or it is stale
+         */
+        synchronized double responseTime(long nowNanos) {
+            if (nowNanos - responseTimeUpdateNanos > STALE_AFTER_NANOS) {
+                return Double.NaN;
+            }
+            return responseTimeNanos;
+        }
+
+        synchronized double rank(long nowNanos, double defaultResponseTime) {
+            double responseTime = responseTime(nowNanos);
+            if (Double.isNaN(responseTime)) {
+                responseTime = defaultResponseTime;
+            }
+            double queue = 1 + outstanding.get();
+            if (!Double.isNaN(searchQueueSize) && nowNanos - searchQueueSizeUpdateNanos <= STALE_AFTER_NANOS) {
+                queue += searchQueueSize;
+            }
+            return responseTime * queue * queue * queue;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.executor.transport;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.ColumnStats;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PublishColumnStatsRequest extends TransportRequest {
+
+    private Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats;
+
+    PublishColumnStatsRequest() {
+    }
+
+    public PublishColumnStatsRequest(Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats) {
+        this.columnStats = columnStats;
+    }
+
+    Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats() {
+        return columnStats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int numTables = in.readVInt();
+        columnStats = new HashMap<>(numTables);
+        for (int i = 0; i < numTables; i++) {
+            TableIdent tableIdent = TableIdent.fromStream(in);
+            int numColumns = in.readVInt();
+            Map<ColumnIdent, ColumnStats> tableColumnStats = new HashMap<>(numColumns);
+            for (int j = 0; j < numColumns; j++) {
+                tableColumnStats.put(ColumnIdent.fromStream(in), ColumnStats.fromStream(in));
+            }
+            columnStats.put(tableIdent, tableColumnStats);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(columnStats.size());
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStats>> table : columnStats.entrySet()) {
+            table.getKey().writeTo(out);
+            out.writeVInt(table.getValue().size());
+            for (Map.Entry<ColumnIdent, ColumnStats> column : table.getValue().entrySet()) {
+                column.getKey().writeTo(out);
+                column.getValue().writeTo(out);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PublishColumnStatsRequest{" + columnStats.keySet() + '}';
+    }
+}
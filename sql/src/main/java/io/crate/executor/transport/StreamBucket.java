@@ -39,6 +39,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 public class StreamBucket implements Bucket, Streamable {
 
@@ -46,7 +47,7 @@ public class StreamBucket implements Bucket, Streamable {
     private int size = -1;
     private BytesReference bytes;
 
-    public static class Builder {
+    public static class Builder implements BucketBuilder {
 
 
         private static final int INITIAL_PAGE_SIZE = 1024;
@@ -60,6 +61,7 @@ public class StreamBucket implements Bucket, Streamable {
             out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
         }
 
+        @Override
         public void add(Row row) throws IOException {
             assert streamers.length == row.size() : "number of streamer must match row size";
 
@@ -76,6 +78,7 @@ public class StreamBucket implements Bucket, Streamable {
             }
         }
 
+        @Override
         public StreamBucket build() throws IOException {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
@@ -83,12 +86,30 @@ public class StreamBucket implements Bucket, Streamable {
             return sb;
         }
 
+        @Override
         public void reset() {
             out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
             size = 0;
         }
     }
 
+    /**
+     * combine buckets which have been built with the same streamers into one bucket
+     */
+    public static StreamBucket concat(Streamer<?>[] streamers, List<StreamBucket> buckets) throws IOException {
+        StreamBucket bucket = new StreamBucket(streamers);
+        bucket.size = 0;
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (StreamBucket part : buckets) {
+            if (part.size > 0) {
+                bucket.size += part.size;
+                part.bytes.writeTo(out);
+            }
+        }
+        bucket.bytes = out.bytes();
+        return bucket;
+    }
+
     public StreamBucket(@Nullable Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -99,6 +120,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the number of bytes of the serialized rows, 0 if the bucket is empty
+     */
+    public long sizeInBytes() {
+        return bytes == null ? 0 : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
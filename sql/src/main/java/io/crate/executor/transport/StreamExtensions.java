@@ -0,0 +1,107 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportMessage;
+
+/**
+ * Negotiates the use of {@link Version#STREAM_VERSION_JOB_EXTENSIONS} between nodes.
+ * <p>
+ * Crate 1.0.x runs on the same elasticsearch version as this version, so the version of the transport
+ * streams can't tell the nodes apart. Instead, nodes which understand the extensions advertise it with
+ * the {@link #ATTRIBUTE} node attribute. Requests sent to those nodes, and the responses to such requests,
+ * are marked with a header and switch their stream to {@link Version#STREAM_VERSION_JOB_EXTENSIONS} once
+ * the header has been read or written, so that nested structures can check the stream version as usual.
+ */
+public final class StreamExtensions {
+
+    public static final String ATTRIBUTE = "crate_job_extensions";
+    public static final String SETTING = "node." + ATTRIBUTE;
+
+    private static final String HEADER = "crate_job_extensions";
+
+    private StreamExtensions() {
+    }
+
+    public static boolean supportedBy(DiscoveryNode node) {
+        return Boolean.parseBoolean(node.attributes().get(ATTRIBUTE));
+    }
+
+    public static boolean supportedByAll(DiscoveryNodes nodes) {
+        for (DiscoveryNode node : nodes) {
+            if (!supportedBy(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * marks the message if it is sent to a node which supports the extensions
+     */
+    public static void markIfSupported(DiscoveryNode receiver, TransportMessage<?> message) {
+        if (supportedBy(receiver)) {
+            message.putHeader(HEADER, true);
+        }
+    }
+
+    /**
+     * marks the response if the request it answers was marked
+     */
+    public static void markLike(TransportMessage<?> request, TransportMessage<?> response) {
+        if (request.hasHeader(HEADER)) {
+            response.putHeader(HEADER, true);
+        }
+    }
+
+    /**
+     * switches the stream to {@link Version#STREAM_VERSION_JOB_EXTENSIONS} if the message is marked
+     *
+     * @return the previous version of the stream which must be restored once the message has been read
+     */
+    public static org.elasticsearch.Version enable(TransportMessage<?> message, StreamInput in) {
+        org.elasticsearch.Version version = in.getVersion();
+        if (message.hasHeader(HEADER) && version.before(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+            in.setVersion(Version.STREAM_VERSION_JOB_EXTENSIONS);
+        }
+        return version;
+    }
+
+    /**
+     * switches the stream to {@link Version#STREAM_VERSION_JOB_EXTENSIONS} if the message is marked
+     *
+     * @return the previous version of the stream which must be restored once the message has been written
+     */
+    public static org.elasticsearch.Version enable(TransportMessage<?> message, StreamOutput out) {
+        org.elasticsearch.Version version = out.getVersion();
+        if (message.hasHeader(HEADER) && version.before(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+            out.setVersion(Version.STREAM_VERSION_JOB_EXTENSIONS);
+        }
+        return version;
+    }
+}
@@ -24,6 +24,7 @@ package io.crate.executor.transport;
 import io.crate.action.job.TransportJobAction;
 import io.crate.executor.transport.kill.TransportKillAllNodeAction;
 import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
+import io.crate.executor.transport.profile.TransportCollectProfileNodeAction;
 import org.elasticsearch.action.admin.cluster.settings.TransportClusterUpdateSettingsAction;
 import org.elasticsearch.action.admin.cluster.snapshots.create.TransportCreateSnapshotAction;
 import org.elasticsearch.action.admin.cluster.snapshots.delete.TransportDeleteSnapshotAction;
@@ -70,11 +71,13 @@ public class TransportActionProvider {
     private final Provider<TransportJobAction> transportJobInitActionProvider;
     private final Provider<TransportKillAllNodeAction> transportKillAllNodeActionProvider;
     private final Provider<TransportKillJobsNodeAction> transportKillJobsNodeActionProvider;
+    private final Provider<TransportCollectProfileNodeAction> transportCollectProfileNodeActionProvider;
 
     private final Provider<TransportCreateSnapshotAction> transportCreateSnapshotActionProvider;
     private final Provider<TransportDeleteSnapshotAction> transportDeleteSnapshotActionProvider;
     private final Provider<TransportRestoreSnapshotAction> transportRestoreSnapshotActionProvider;
     private final Provider<TransportNodeStatsAction> transportStatTablesActionProvider;
+    private final Provider<TransportPublishColumnStatsAction> transportPublishColumnStatsActionProvider;
 
     @Inject
     public TransportActionProvider(Provider<TransportFetchNodeAction> transportFetchNodeActionProvider,
@@ -99,7 +102,9 @@ public class TransportActionProvider {
                                    Provider<TransportDeleteSnapshotAction> transportDeleteSnapshotActionProvider,
                                    Provider<TransportCreateSnapshotAction> transportCreateSnapshotActionProvider,
                                    Provider<TransportRestoreSnapshotAction> transportRestoreSnapshotActionProvider,
-                                   Provider<TransportNodeStatsAction> transportStatTablesActionProvider) {
+                                   Provider<TransportNodeStatsAction> transportStatTablesActionProvider,
+                                   Provider<TransportCollectProfileNodeAction> transportCollectProfileNodeActionProvider,
+                                   Provider<TransportPublishColumnStatsAction> transportPublishColumnStatsActionProvider) {
         this.transportCreateIndexActionProvider = transportCreateIndexActionProvider;
         this.transportDeleteIndexActionProvider = transportDeleteIndexActionProvider;
         this.transportPutIndexTemplateActionProvider = transportPutIndexTemplateActionProvider;
@@ -123,6 +128,8 @@ public class TransportActionProvider {
         this.transportCreateSnapshotActionProvider = transportCreateSnapshotActionProvider;
         this.transportRestoreSnapshotActionProvider = transportRestoreSnapshotActionProvider;
         this.transportStatTablesActionProvider = transportStatTablesActionProvider;
+        this.transportCollectProfileNodeActionProvider = transportCollectProfileNodeActionProvider;
+        this.transportPublishColumnStatsActionProvider = transportPublishColumnStatsActionProvider;
     }
 
     public TransportCreateIndexAction transportCreateIndexAction() {
@@ -201,6 +208,10 @@ public class TransportActionProvider {
         return transportKillJobsNodeActionProvider.get();
     }
 
+    public TransportCollectProfileNodeAction transportCollectProfileNodeAction() {
+        return transportCollectProfileNodeActionProvider.get();
+    }
+
     public TransportDeleteSnapshotAction transportDeleteSnapshotAction() {
         return transportDeleteSnapshotActionProvider.get();
     }
@@ -216,4 +227,8 @@ public class TransportActionProvider {
     public TransportNodeStatsAction transportStatTablesActionProvider() {
         return transportStatTablesActionProvider.get();
     }
+
+    public TransportPublishColumnStatsAction transportPublishColumnStatsAction() {
+        return transportPublishColumnStatsActionProvider.get();
+    }
 }
@@ -84,6 +84,7 @@ public class TransportExecutor implements Executor {
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final Functions functions;
     private final TaskCollectingVisitor plan2TaskVisitor;
+    private final TaskCollectingVisitor profilingPlan2TaskVisitor;
     private DDLStatementDispatcher ddlAnalysisDispatcherProvider;
     private ShowStatementDispatcher showStatementDispatcherProvider;
 
@@ -123,7 +124,8 @@ public class TransportExecutor implements Executor {
         this.clusterService = clusterService;
         this.indicesService = indicesService;
         this.bulkRetryCoordinatorPool = bulkRetryCoordinatorPool;
-        plan2TaskVisitor = new TaskCollectingVisitor();
+        plan2TaskVisitor = new TaskCollectingVisitor(false);
+        profilingPlan2TaskVisitor = new TaskCollectingVisitor(true);
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(functions, ReplaceMode.COPY);
         globalProjectionToProjectionVisitor = new ProjectionToProjectorVisitor(
             clusterService,
@@ -153,6 +155,15 @@ public class TransportExecutor implements Executor {
 
     private class TaskCollectingVisitor extends PlanVisitor<Void, Task> {
 
+        /**
+         * if true the runtime metrics of the execution phases are collected (EXPLAIN ANALYZE)
+         */
+        private final boolean profile;
+
+        TaskCollectingVisitor(boolean profile) {
+            this.profile = profile;
+        }
+
         @Override
         public Task visitNoopPlan(NoopPlan plan, Void context) {
             return NoopTask.INSTANCE;
@@ -165,6 +176,12 @@ public class TransportExecutor implements Executor {
 
         @Override
         public Task visitExplainPlan(ExplainPlan explainPlan, Void context) {
+            if (explainPlan.isAnalyze()) {
+                CompletableFuture<Task> subTask = multiPhaseExecutor.process(explainPlan.subPlan(), null)
+                    .thenApply(p -> profilingPlan2TaskVisitor.process(p, null));
+                return new ExplainAnalyzeTask(
+                    explainPlan, subTask, transportActionProvider.transportCollectProfileNodeAction());
+            }
             return new ExplainTask(explainPlan);
         }
 
@@ -185,7 +202,8 @@ public class TransportExecutor implements Executor {
                 indicesService,
                 transportActionProvider.transportJobInitAction(),
                 transportActionProvider.transportKillJobsNodeAction(),
-                nodeOperationTrees
+                nodeOperationTrees,
+                profile
             );
         }
 
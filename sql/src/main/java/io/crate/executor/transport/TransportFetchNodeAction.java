@@ -45,13 +45,19 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
 
     private final Transports transports;
     private final NodeFetchOperation nodeFetchOperation;
+    private final ThreadPool threadPool;
+    private final NodeResponseStats nodeResponseStats;
 
     @Inject
     public TransportFetchNodeAction(TransportService transportService,
                                     Transports transports,
-                                    NodeFetchOperation nodeFetchOperation) {
+                                    NodeFetchOperation nodeFetchOperation,
+                                    ThreadPool threadPool,
+                                    NodeResponseStats nodeResponseStats) {
         this.transports = transports;
         this.nodeFetchOperation = nodeFetchOperation;
+        this.threadPool = threadPool;
+        this.nodeResponseStats = nodeResponseStats;
 
         transportService.registerRequestHandler(TRANSPORT_ACTION,
             NodeFetchRequest.class,
@@ -63,6 +69,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                         final IntObjectMap<Streamer[]> streamers,
                         final NodeFetchRequest request,
                         ActionListener<NodeFetchResponse> listener) {
+        listener = nodeResponseStats.trackWithResponseTime(targetNode, listener, NodeFetchResponse::searchQueueSize);
         transports.sendRequest(TRANSPORT_ACTION, targetNode, request, listener,
             new DefaultTransportResponseHandler<NodeFetchResponse>(listener, RESPONSE_EXECUTOR) {
                 @Override
@@ -84,7 +91,10 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
         Futures.addCallback(resultFuture, new FutureCallback<IntObjectMap<StreamBucket>>() {
             @Override
             public void onSuccess(@Nullable IntObjectMap<StreamBucket> result) {
-                responseListener.onResponse(NodeFetchResponse.forSending(result));
+                NodeFetchResponse response = NodeFetchResponse.forSending(result);
+                StreamExtensions.markLike(request, response);
+                response.searchQueueSize(NodeResponseStats.searchQueueSize(threadPool));
+                responseListener.onResponse(response);
             }
 
             @Override
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.executor.transport;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.planner.TableStatsService;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the column statistics computed by <code>ANALYZE</code> to all nodes, so that every node
+ * can use them to plan queries.
+ * <p>
+ * The statistics are only kept in memory: nodes which fail to receive them (e.g. nodes running an older version)
+ * or which join the cluster later on don't have statistics until the tables are analyzed again.
+ */
+@Singleton
+public class TransportPublishColumnStatsAction extends AbstractComponent
+    implements NodeAction<PublishColumnStatsRequest, TransportResponse.Empty> {
+
+    private static final String NAME = "crate/sql/publish_column_stats";
+
+    private final TableStatsService tableStatsService;
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+
+    @Inject
+    public TransportPublishColumnStatsAction(Settings settings,
+                                             TableStatsService tableStatsService,
+                                             ClusterService clusterService,
+                                             TransportService transportService) {
+        super(settings);
+        this.tableStatsService = tableStatsService;
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        transportService.registerRequestHandler(NAME,
+            PublishColumnStatsRequest::new,
+            ThreadPool.Names.GENERIC,
+            new NodeActionRequestHandler<PublishColumnStatsRequest, TransportResponse.Empty>(this) {});
+    }
+
+    @Override
+    public void nodeOperation(PublishColumnStatsRequest request, ActionListener<TransportResponse.Empty> listener) {
+        tableStatsService.updateColumnStats(request.columnStats());
+        listener.onResponse(TransportResponse.Empty.INSTANCE);
+    }
+
+    /**
+     * Sends the statistics to all nodes in the cluster.
+     *
+     * @return a future which completes once all nodes responded; failures are logged but don't fail the future
+     */
+    public ListenableFuture<Void> broadcast(PublishColumnStatsRequest request) {
+        final SettableFuture<Void> future = SettableFuture.create();
+        DiscoveryNode[] nodes = clusterService.state().nodes().nodes().values().toArray(DiscoveryNode.class);
+        final AtomicInteger pendingResponses = new AtomicInteger(nodes.length);
+        for (final DiscoveryNode node : nodes) {
+            ActionListener<TransportResponse.Empty> listener = new ActionListener<TransportResponse.Empty>() {
+                @Override
+                public void onResponse(TransportResponse.Empty empty) {
+                    countDown();
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    logger.warn("failed to publish column statistics to node {}", e, node);
+                    countDown();
+                }
+
+                private void countDown() {
+                    if (pendingResponses.decrementAndGet() == 0) {
+                        future.set(null);
+                    }
+                }
+            };
+            transportService.sendRequest(node, NAME, request,
+                new DefaultTransportResponseHandler<TransportResponse.Empty>(listener) {
+                    @Override
+                    public TransportResponse.Empty newInstance() {
+                        return TransportResponse.Empty.INSTANCE;
+                    }
+                });
+        }
+        if (nodes.length == 0) {
+            future.set(null);
+        }
+        return future;
+    }
+}
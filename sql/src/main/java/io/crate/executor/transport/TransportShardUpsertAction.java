@@ -35,6 +35,7 @@ import io.crate.executor.transport.task.elasticsearch.SymbolToFieldExtractor;
 import io.crate.jobs.JobContextService;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.SourceFormat;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchGenerationException;
@@ -126,10 +127,16 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         DocTableInfo tableInfo = schemas.getWritableTable(TableIdent.fromIndexName(request.index()));
         IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
         IndexShard indexShard = indexService.shardSafe(shardId.id());
+        XContentType sourceContentType = SourceFormat.contentType(indexService.settingsService().getSettings());
 
-        Collection<ColumnIdent> notUsedNonGeneratedColumns = ImmutableList.of();
-        if (request.validateConstraints()) {
-            notUsedNonGeneratedColumns = getNotUsedNonGeneratedColumns(request.insertColumns(), tableInfo);
+        InsertSourceGen insertSourceGen = null;
+        if (request.insertColumns() != null && !request.isRawSourceInsert()) {
+            Collection<ColumnIdent> notUsedNonGeneratedColumns = ImmutableList.of();
+            if (request.validateConstraints()) {
+                notUsedNonGeneratedColumns = getNotUsedNonGeneratedColumns(request.insertColumns(), tableInfo);
+            }
+            insertSourceGen = new InsertSourceGen(functions, tableInfo, request.insertColumns(),
+                request.validateConstraints(), notUsedNonGeneratedColumns, sourceContentType);
         }
 
         Translog.Location translogLocation = null;
@@ -150,7 +157,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     item,
                     indexShard,
                     item.insertValues() != null, // try insert first
-                    notUsedNonGeneratedColumns,
+                    insertSourceGen,
+                    sourceContentType,
                     0);
                 shardResponse.add(location);
             } catch (Throwable t) {
@@ -202,14 +210,15 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                           ShardUpsertRequest.Item item,
                                           IndexShard indexShard,
                                           boolean tryInsertFirst,
-                                          Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                          @Nullable InsertSourceGen insertSourceGen,
+                                          XContentType sourceContentType,
                                           int retryCount) throws Throwable {
         try {
             long version = item.version();
             if (tryInsertFirst) {
                 // try insert first without fetching the document
                 try {
-                    item.source(prepareInsert(tableInfo, notUsedNonGeneratedColumns, request, item));
+                    item.source(prepareInsert(tableInfo, insertSourceGen, sourceContentType, request, item));
                 } catch (IOException e) {
                     throw ExceptionsHelper.convertToElastic(e);
                 }
@@ -220,7 +229,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 }
             } else {
                 item.opType(IndexRequest.OpType.INDEX);
-                SourceAndVersion sourceAndVersion = prepareUpdate(tableInfo, request, item, indexShard);
+                SourceAndVersion sourceAndVersion = prepareUpdate(tableInfo, request, item, indexShard, sourceContentType);
                 item.source(sourceAndVersion.source);
                 version = sourceAndVersion.version;
             }
@@ -231,14 +240,14 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     logger.trace("[{}] VersionConflict, retrying operation for document id {}, retry count: {}",
                         indexShard.shardId(), item.id(), retryCount);
                 }
-                return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns,
-                    retryCount + 1);
+                return indexItem(tableInfo, request, item, indexShard, false, insertSourceGen,
+                    sourceContentType, retryCount + 1);
             }
             throw e;
         } catch (DocumentAlreadyExistsException e) {
             if (tryInsertFirst && item.updateAssignments() != null) {
                 // insert failed, document already exists, try update
-                return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns, 0);
+                return indexItem(tableInfo, request, item, indexShard, false, insertSourceGen, sourceContentType, 0);
             }
             throw e;
         }
@@ -253,7 +262,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
     private SourceAndVersion prepareUpdate(DocTableInfo tableInfo,
                                            ShardUpsertRequest request,
                                            ShardUpsertRequest.Item item,
-                                           IndexShard indexShard) throws ElasticsearchException {
+                                           IndexShard indexShard,
+                                           XContentType sourceContentType) throws ElasticsearchException {
         final GetResult getResult = indexShard.getService().get(
             request.type(),
             item.id(),
@@ -280,10 +290,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         }
 
         Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
-        final Map<String, Object> updatedSourceAsMap;
-        final XContentType updateSourceContentType = sourceAndContent.v1();
-
-        updatedSourceAsMap = sourceAndContent.v2();
+        final Map<String, Object> updatedSourceAsMap = sourceAndContent.v2();
 
         SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, item.insertValues());
 
@@ -320,7 +327,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         updateSourceByPaths(updatedSourceAsMap, pathsToUpdate);
 
         try {
-            XContentBuilder builder = XContentFactory.contentBuilder(updateSourceContentType);
+            // the source is written in the current format of the table which might differ from the one it was read in
+            XContentBuilder builder = XContentFactory.contentBuilder(sourceContentType);
             builder.map(updatedSourceAsMap);
             return new SourceAndVersion(builder.bytes(), getResult.getVersion());
         } catch (IOException e) {
@@ -329,58 +337,28 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
     }
 
     private BytesReference prepareInsert(DocTableInfo tableInfo,
-                                         Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                         @Nullable InsertSourceGen insertSourceGen,
+                                         XContentType sourceContentType,
                                          ShardUpsertRequest request,
                                          ShardUpsertRequest.Item item) throws IOException {
-        List<GeneratedReference> generatedReferencesWithValue = new ArrayList<>();
-        BytesReference source;
-        if (request.isRawSourceInsert()) {
-            assert item.insertValues().length > 0 : "empty insert values array";
-            source = new BytesArray((BytesRef) item.insertValues()[0]);
-        } else {
-            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
-
-            // For direct inserts it is enough to have constraints validation on a handler.
-            // validateConstraints() of ShardUpsertRequest should result in false in this case.
-            if (request.validateConstraints()) {
-                ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
-            }
-
-            for (int i = 0; i < item.insertValues().length; i++) {
-                Object value = item.insertValues()[i];
-                Reference ref = request.insertColumns()[i];
-
-                ConstraintsValidator.validate(value, ref);
-
-                if (ref.granularity() == RowGranularity.DOC) {
-                    // don't include values for partitions in the _source
-                    // ideally columns with partition granularity shouldn't be part of the request
-                    builder.field(ref.ident().columnIdent().fqn(), value);
-                    if (ref instanceof GeneratedReference) {
-                        generatedReferencesWithValue.add((GeneratedReference) ref);
-                    }
-                }
-            }
-            source = builder.bytes();
+        if (!request.isRawSourceInsert()) {
+            assert insertSourceGen != null : "insertSourceGen must not be null for inserts";
+            return insertSourceGen.generateSource(item.insertValues());
         }
-
-        int generatedColumnSize = 0;
+        assert item.insertValues().length > 0 : "empty insert values array";
         for (GeneratedReference reference : tableInfo.generatedColumns()) {
             if (!tableInfo.partitionedByColumns().contains(reference)) {
-                generatedColumnSize++;
+                // we need to evaluate some generated column expressions
+                Map<String, Object> sourceMap = processGeneratedColumnsOnInsert(tableInfo, request.insertColumns(),
+                    item.insertValues(), true, request.validateConstraints());
+                return XContentFactory.contentBuilder(sourceContentType).map(sourceMap).bytes();
             }
         }
-
-        int numMissingGeneratedColumns = generatedColumnSize - generatedReferencesWithValue.size();
-        if (numMissingGeneratedColumns > 0 ||
-            (generatedReferencesWithValue.size() > 0 && request.validateConstraints())) {
-            // we need to evaluate some generated column expressions
-            Map<String, Object> sourceMap = processGeneratedColumnsOnInsert(tableInfo, request.insertColumns(), item.insertValues(),
-                request.isRawSourceInsert(), request.validateConstraints());
-            source = XContentFactory.jsonBuilder().map(sourceMap).bytes();
+        BytesReference source = new BytesArray((BytesRef) item.insertValues()[0]);
+        if (sourceContentType == XContentType.JSON) {
+            return source;
         }
-
-        return source;
+        return SourceFormat.convert(source, sourceContentType);
     }
 
     private Engine.IndexingOperation prepareIndexOnPrimary(IndexShard indexShard,
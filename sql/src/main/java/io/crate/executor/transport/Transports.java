@@ -58,6 +58,7 @@ public class Transports {
                 String.format(Locale.ENGLISH, "node \"%s\" not found in cluster state!", node)));
             return;
         }
+        StreamExtensions.markIfSupported(discoveryNode, request);
         transportService.sendRequest(discoveryNode, action, request, options, handler);
     }
 
@@ -21,59 +21,57 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
-import io.crate.executor.transport.StreamBucket;
-
-import java.io.IOException;
 
 /**
  * MultiBucketBuilder that returns N buckets where N is the number of buckets specified in the constructor.
  * Internally only one bucket is built - the same instance is returned N number of times.
+ * <p>
+ * Rows can be added concurrently, see {@link BucketBuilderStripes}.
  */
 public class BroadcastingBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final StreamBucket.Builder bucketBuilder;
-    private volatile int size = 0;
+    private final BucketBuilderStripes stripes;
+    private final Bucket[] bucket = new Bucket[1];
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
+        this(streamers, numBuckets, BucketFormat.ROW);
+    }
+
+    public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets, BucketFormat bucketFormat) {
+        this(streamers, numBuckets, bucketFormat, false);
+    }
+
+    /**
+     * @param preserveOrder if true the bucket keeps the rows in the order in which they were added
+     */
+    public BroadcastingBucketBuilder(Streamer<?>[] streamers,
+                                     int numBuckets,
+                                     BucketFormat bucketFormat,
+                                     boolean preserveOrder) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers);
+        this.stripes = new BucketBuilderStripes(streamers, bucketFormat, 1, preserveOrder);
     }
 
     @Override
     public void add(Row row) {
-        try {
-            synchronized (this) {
-                bucketBuilder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        stripes.add(0, row);
     }
 
     @Override
     public int size() {
-        return size;
+        return stripes.size();
     }
 
     @Override
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        final Bucket bucket;
-        try {
-            bucket = bucketBuilder.build();
-            bucketBuilder.reset();
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        stripes.build(bucket);
         for (int i = 0; i < numBuckets; i++) {
-            buckets[i] = bucket;
+            buckets[i] = bucket[0];
         }
-        size = 0;
     }
 }
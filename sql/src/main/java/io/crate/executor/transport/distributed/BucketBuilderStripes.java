@@ -0,0 +1,159 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.distributed;
+
+import com.google.common.base.Throwables;
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.BucketBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bucket builders striped by thread, so that rows can be added concurrently without contending on a single lock.
+ * <p>
+ * Each stripe contains a builder per bucket. A thread always adds its rows to the same stripe,
+ * so a stripe lock is usually only taken by one thread. Only on {@link #build(Bucket[])} the stripes are combined,
+ * using {@link BucketFormat#concat(Streamer[], List)} which doesn't re-encode the rows.
+ * <p>
+ * Combining the stripes changes the order of the rows. If the receiver relies on the order
+ * a single stripe is used, which keeps the rows in the order in which they have been added.
+ */
+class BucketBuilderStripes {
+
+    private static final int NUM_STRIPES = numStripes(Runtime.getRuntime().availableProcessors());
+
+    private final Streamer<?>[] streamers;
+    private final BucketFormat bucketFormat;
+    private final int numBuckets;
+    private final int numStripes;
+    private final AtomicReferenceArray<Stripe> stripes;
+
+    private static class Stripe {
+
+        private final BucketBuilder[] builders;
+        private volatile int size = 0;
+
+        Stripe(BucketBuilder[] builders) {
+            this.builders = builders;
+        }
+    }
+
+    /**
+     * @param preserveOrder if true the buckets contain the rows in the order in which they were added
+     */
+    BucketBuilderStripes(Streamer<?>[] streamers, BucketFormat bucketFormat, int numBuckets, boolean preserveOrder) {
+        this.streamers = streamers;
+        this.bucketFormat = bucketFormat;
+        this.numBuckets = numBuckets;
+        this.numStripes = preserveOrder ? 1 : NUM_STRIPES;
+        this.stripes = new AtomicReferenceArray<>(numStripes);
+    }
+
+    /**
+     * @return the next power of two which is greater than or equal to numProcessors
+     */
+    static int numStripes(int numProcessors) {
+        return Integer.highestOneBit(Math.max(1, numProcessors - 1)) << 1;
+    }
+
+    void add(int bucketIdx, Row row) {
+        Stripe stripe = stripe();
+        try {
+            synchronized (stripe) {
+                stripe.builders[bucketIdx].add(row);
+                stripe.size++;
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (int i = 0; i < numStripes; i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * builds the buckets of all stripes and resets them.
+     * Must not be called concurrently.
+     */
+    void build(Bucket[] buckets) {
+        assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
+        List<List<Bucket>> parts = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            parts.add(new ArrayList<Bucket>());
+        }
+        try {
+            for (int s = 0; s < numStripes; s++) {
+                Stripe stripe = stripes.get(s);
+                if (stripe == null) {
+                    continue;
+                }
+                synchronized (stripe) {
+                    for (int i = 0; i < numBuckets; i++) {
+                        parts.get(i).add(stripe.builders[i].build());
+                        stripe.builders[i].reset();
+                    }
+                    stripe.size = 0;
+                }
+            }
+            for (int i = 0; i < numBuckets; i++) {
+                List<Bucket> bucketParts = parts.get(i);
+                if (bucketParts.size() == 1) {
+                    buckets[i] = bucketParts.get(0);
+                } else {
+                    buckets[i] = bucketFormat.concat(streamers, bucketParts);
+                }
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private Stripe stripe() {
+        int idx = (int) Thread.currentThread().getId() & (numStripes - 1);
+        Stripe stripe = stripes.get(idx);
+        if (stripe == null) {
+            BucketBuilder[] builders = new BucketBuilder[numBuckets];
+            for (int i = 0; i < numBuckets; i++) {
+                builders[i] = bucketFormat.newBuilder(streamers);
+            }
+            // builders are created lazily because usually only a few threads add rows
+            if (stripes.compareAndSet(idx, null, new Stripe(builders))) {
+                return stripes.get(idx);
+            }
+            stripe = stripes.get(idx);
+        }
+        return stripe;
+    }
+}
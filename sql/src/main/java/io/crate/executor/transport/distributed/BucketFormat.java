@@ -0,0 +1,105 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.distributed;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.executor.transport.BucketBuilder;
+import io.crate.executor.transport.ColumnarBucket;
+import io.crate.executor.transport.StreamBucket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The format in which the buckets of a phase are sent to the downstream nodes.
+ */
+public enum BucketFormat {
+
+    ROW {
+        @Override
+        public BucketBuilder newBuilder(Streamer<?>[] streamers) {
+            return new StreamBucket.Builder(streamers);
+        }
+
+        @Override
+        public Bucket concat(Streamer<?>[] streamers, List<Bucket> buckets) throws IOException {
+            List<StreamBucket> streamBuckets = new ArrayList<>(buckets.size());
+            for (Bucket bucket : buckets) {
+                streamBuckets.add((StreamBucket) bucket);
+            }
+            return StreamBucket.concat(streamers, streamBuckets);
+        }
+    },
+    COLUMNAR {
+        @Override
+        public BucketBuilder newBuilder(Streamer<?>[] streamers) {
+            return new ColumnarBucket.Builder(streamers, false);
+        }
+
+        @Override
+        public Bucket concat(Streamer<?>[] streamers, List<Bucket> buckets) {
+            return concatColumnar(streamers, buckets);
+        }
+    },
+    COLUMNAR_COMPRESSED {
+        @Override
+        public BucketBuilder newBuilder(Streamer<?>[] streamers) {
+            return new ColumnarBucket.Builder(streamers, true);
+        }
+
+        @Override
+        public Bucket concat(Streamer<?>[] streamers, List<Bucket> buckets) {
+            return concatColumnar(streamers, buckets);
+        }
+    };
+
+    public abstract BucketBuilder newBuilder(Streamer<?>[] streamers);
+
+    /**
+     * combine buckets built by builders of this format into a single bucket
+     */
+    public abstract Bucket concat(Streamer<?>[] streamers, List<Bucket> buckets) throws IOException;
+
+    private static Bucket concatColumnar(Streamer<?>[] streamers, List<Bucket> buckets) {
+        List<ColumnarBucket> columnarBuckets = new ArrayList<>(buckets.size());
+        for (Bucket bucket : buckets) {
+            columnarBuckets.add((ColumnarBucket) bucket);
+        }
+        return ColumnarBucket.concat(streamers, columnarBuckets);
+    }
+
+    /**
+     * choose the format for a phase.
+     * The columnar format is only used if at least one column benefits from it and compression only
+     * if the buckets are sent over the network.
+     *
+     * @param hasRemoteDownstream true if at least one of the downstream nodes isn't the local node
+     */
+    public static BucketFormat forPhase(Streamer<?>[] streamers, boolean hasRemoteDownstream) {
+        if (!ColumnarBucket.hasCompactEncoding(streamers)) {
+            return ROW;
+        }
+        return hasRemoteDownstream ? COLUMNAR_COMPRESSED : COLUMNAR;
+    }
+}
@@ -22,8 +22,12 @@
 package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
+import io.crate.Version;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.ColumnarBucket;
 import io.crate.executor.transport.StreamBucket;
+import io.crate.executor.transport.StreamExtensions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
@@ -100,12 +104,15 @@ public class DistributedResultRequest extends TransportRequest {
         if (rows instanceof StreamBucket) {
             assert streamers != null : "streamers must not be null";
             ((StreamBucket) rows).streamers(streamers);
+        } else if (rows instanceof ColumnarBucket) {
+            assert streamers != null : "streamers must not be null";
+            ((ColumnarBucket) rows).streamers(streamers);
         }
         this.streamers = streamers;
     }
 
     public boolean rowsCanBeRead() {
-        if (rows instanceof StreamBucket) {
+        if (rows instanceof StreamBucket || rows instanceof ColumnarBucket) {
             return streamers != null;
         }
         return true;
@@ -131,40 +138,73 @@ public class DistributedResultRequest extends TransportRequest {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        jobId = new UUID(in.readLong(), in.readLong());
-        executionPhaseId = in.readVInt();
-        bucketIdx = in.readVInt();
-        isLast = in.readBoolean();
-        inputId = in.readByte();
-
-        boolean failure = in.readBoolean();
-        if (failure) {
-            throwable = in.readThrowable();
-            isKilled = in.readBoolean();
-        } else {
-            StreamBucket bucket = new StreamBucket(streamers);
-            bucket.readFrom(in);
-            rows = bucket;
+        org.elasticsearch.Version version = StreamExtensions.enable(this, in);
+        try {
+            jobId = new UUID(in.readLong(), in.readLong());
+            executionPhaseId = in.readVInt();
+            bucketIdx = in.readVInt();
+            isLast = in.readBoolean();
+            inputId = in.readByte();
+
+            boolean failure = in.readBoolean();
+            if (failure) {
+                throwable = in.readThrowable();
+                isKilled = in.readBoolean();
+            } else if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS) && in.readBoolean()) {
+                ColumnarBucket bucket = new ColumnarBucket(streamers);
+                bucket.readFrom(in);
+                rows = bucket;
+            } else {
+                StreamBucket bucket = new StreamBucket(streamers);
+                bucket.readFrom(in);
+                rows = bucket;
+            }
+        } finally {
+            in.setVersion(version);
         }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        out.writeLong(jobId.getMostSignificantBits());
-        out.writeLong(jobId.getLeastSignificantBits());
-        out.writeVInt(executionPhaseId);
-        out.writeVInt(bucketIdx);
-        out.writeBoolean(isLast);
-        out.writeByte(inputId);
-
-        boolean failure = throwable != null;
-        out.writeBoolean(failure);
-        if (failure) {
-            out.writeThrowable(throwable);
-            out.writeBoolean(isKilled);
+        org.elasticsearch.Version version = StreamExtensions.enable(this, out);
+        try {
+            out.writeLong(jobId.getMostSignificantBits());
+            out.writeLong(jobId.getLeastSignificantBits());
+            out.writeVInt(executionPhaseId);
+            out.writeVInt(bucketIdx);
+            out.writeBoolean(isLast);
+            out.writeByte(inputId);
+
+            boolean failure = throwable != null;
+            out.writeBoolean(failure);
+            if (failure) {
+                out.writeThrowable(throwable);
+                out.writeBoolean(isKilled);
+            } else if (out.getVersion().before(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+                // older nodes only understand the row format
+                writeAsRowBucket(out, streamers, rows);
+            } else if (rows instanceof ColumnarBucket) {
+                out.writeBoolean(true);
+                ((ColumnarBucket) rows).writeTo(out);
+            } else {
+                out.writeBoolean(false);
+                // TODO: we should not rely on another bucket in this class and instead write to the stream directly
+                StreamBucket.writeBucket(out, streamers, rows);
+            }
+        } finally {
+            out.setVersion(version);
+        }
+    }
+
+    private static void writeAsRowBucket(StreamOutput out, Streamer<?>[] streamers, Bucket rows) throws IOException {
+        if (rows instanceof ColumnarBucket && rows.size() > 0) {
+            StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
+            for (Row row : rows) {
+                builder.add(row);
+            }
+            builder.writeToStream(out);
         } else {
-            // TODO: we should not rely on another bucket in this class and instead write to the stream directly
             StreamBucket.writeBucket(out, streamers, rows);
         }
     }
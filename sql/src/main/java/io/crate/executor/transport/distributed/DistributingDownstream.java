@@ -22,14 +22,19 @@
 
 package io.crate.executor.transport.distributed;
 
+import com.twitter.jsr166e.LongAdder;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.ColumnarBucket;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.jobs.PhaseProfile;
 import io.crate.operation.projectors.*;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
@@ -100,7 +105,10 @@ public class DistributingDownstream implements RowReceiver {
     private final AtomicReference<ResumeHandle> resumeHandleRef = new AtomicReference<>(ResumeHandle.INVALID);
     private volatile boolean stop = false;
     private final AtomicReference<Throwable> failure = new AtomicReference<>(null);
-
+    @Nullable
+    private LongAdder sentRequests;
+    @Nullable
+    private LongAdder sentBytes;
 
     public DistributingDownstream(ESLogger logger,
                                   UUID jobId,
@@ -132,6 +140,15 @@ public class DistributingDownstream implements RowReceiver {
         traceEnabled = logger.isTraceEnabled();
     }
 
+    /**
+     * Enables profiling: the number of requests and the number of bytes of the buckets sent
+     * to the downstream nodes are counted in the profile.
+     */
+    public void profile(PhaseProfile profile) {
+        sentRequests = profile.counter("sentRequests");
+        sentBytes = profile.counter("sentBytes");
+    }
+
     @Override
     public Result setNextRow(Row row) {
         if (stop) {
@@ -282,6 +299,10 @@ public class DistributingDownstream implements RowReceiver {
         }
 
         void sendRequest(Bucket bucket, boolean isLast) {
+            if (sentRequests != null) {
+                sentRequests.increment();
+                sentBytes.add(sizeInBytes(bucket));
+            }
             distributedResultAction.pushResult(
                 downstreamNodeId,
                 new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, bucket, isLast),
@@ -305,6 +326,17 @@ public class DistributingDownstream implements RowReceiver {
         }
     }
 
+    private static long sizeInBytes(Bucket bucket) {
+        if (bucket instanceof StreamBucket) {
+            return ((StreamBucket) bucket).sizeInBytes();
+        }
+        if (bucket instanceof ColumnarBucket) {
+            return ((ColumnarBucket) bucket).sizeInBytes();
+        }
+        // not serialized, the downstream is on the same node
+        return 0;
+    }
+
     private static final ActionListener<DistributedResultResponse> NO_OP_ACTION_LISTENER = new ActionListener<DistributedResultResponse>() {
 
         private final ESLogger LOGGER = Loggers.getLogger(DistributingDownstream.class);
@@ -21,72 +21,65 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
-import io.crate.executor.transport.StreamBucket;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.StringHelper;
 
 import javax.annotation.Nullable;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * builds N buckets where N is passed in the CTOR.
  * The rows that are added via {@link #add(Row)} are assigned to the buckets by modulo calculation.
+ * <p>
+ * Rows can be added concurrently, see {@link BucketBuilderStripes}.
  */
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final List<StreamBucket.Builder> bucketBuilders;
+    private final BucketBuilderStripes stripes;
     private final int distributedByColumnIdx;
-    private volatile int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx) {
+        this(streamers, numBuckets, distributedByColumnIdx, BucketFormat.ROW);
+    }
+
+    public ModuloBucketBuilder(Streamer<?>[] streamers,
+                               int numBuckets,
+                               int distributedByColumnIdx,
+                               BucketFormat bucketFormat) {
+        this(streamers, numBuckets, distributedByColumnIdx, bucketFormat, false);
+    }
+
+    /**
+     * @param preserveOrder if true the rows of a bucket keep the order in which they were added
+     */
+    public ModuloBucketBuilder(Streamer<?>[] streamers,
+                               int numBuckets,
+                               int distributedByColumnIdx,
+                               BucketFormat bucketFormat,
+                               boolean preserveOrder) {
         this.numBuckets = numBuckets;
         this.distributedByColumnIdx = distributedByColumnIdx;
-        this.bucketBuilders = new ArrayList<>(numBuckets);
-        for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers));
-        }
+        this.stripes = new BucketBuilderStripes(streamers, bucketFormat, numBuckets, preserveOrder);
     }
 
     @Override
     public void add(Row row) {
-        final StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
-        try {
-            synchronized (this) {
-                builder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        stripes.add(getBucket(row), row);
     }
 
     @Override
     public int size() {
-        return size;
+        return stripes.size();
     }
 
     @Override
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        for (int i = 0; i < numBuckets; i++) {
-            try {
-                final StreamBucket.Builder builder = bucketBuilders.get(i);
-                buckets[i] = builder.build();
-                builder.reset();
-            } catch (IOException e) {
-                throw Throwables.propagate(e);
-            }
-        }
-        size = 0;
+        stripes.build(buckets);
     }
-
     /**
      * get bucket number by doing modulo hashcode of the defined row-element
      */
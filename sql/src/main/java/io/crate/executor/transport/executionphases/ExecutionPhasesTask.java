@@ -99,6 +99,7 @@ public class ExecutionPhasesTask extends JobTask {
     private ContextPreparer contextPreparer;
     private final JobContextService jobContextService;
     private final IndicesService indicesService;
+    private final boolean profile;
 
     private boolean hasDirectResponse;
 
@@ -110,7 +111,25 @@ public class ExecutionPhasesTask extends JobTask {
                                TransportJobAction transportJobAction,
                                TransportKillJobsNodeAction transportKillJobsNodeAction,
                                List<NodeOperationTree> nodeOperationTrees) {
+        this(jobId, clusterService, contextPreparer, jobContextService, indicesService,
+            transportJobAction, transportKillJobsNodeAction, nodeOperationTrees, false);
+    }
+
+    /**
+     * @param profile if true the runtime metrics of all phases are collected,
+     *                see {@link JobContextService#takeProfiles(UUID)}
+     */
+    public ExecutionPhasesTask(UUID jobId,
+                               ClusterService clusterService,
+                               ContextPreparer contextPreparer,
+                               JobContextService jobContextService,
+                               IndicesService indicesService,
+                               TransportJobAction transportJobAction,
+                               TransportKillJobsNodeAction transportKillJobsNodeAction,
+                               List<NodeOperationTree> nodeOperationTrees,
+                               boolean profile) {
         super(jobId);
+        this.profile = profile;
         this.clusterService = clusterService;
         this.contextPreparer = contextPreparer;
         this.jobContextService = jobContextService;
@@ -182,6 +201,8 @@ public class ExecutionPhasesTask extends JobTask {
         Collection<NodeOperation> localNodeOperations = operationByServer.remove(localNodeId);
         if (localNodeOperations == null) {
             localNodeOperations = Collections.emptyList();
+        } else {
+            transportJobAction.recordLocalSearchQueueSize(localNodeId);
         }
         // + 1 for localJobContext which is always created
         InitializationTracker initializationTracker = new InitializationTracker(operationByServer.size() + 1);
@@ -189,7 +210,7 @@ public class ExecutionPhasesTask extends JobTask {
         List<Tuple<ExecutionPhase, RowReceiver>> handlerPhaseAndReceiver = createHandlerPhaseAndReceivers(
             handlerPhases, handlerReceivers, initializationTracker);
 
-        JobExecutionContext.Builder builder = jobContextService.newBuilder(jobId(), localNodeId, operationByServer.keySet());
+        JobExecutionContext.Builder builder = jobContextService.newBuilder(jobId(), localNodeId, operationByServer.keySet(), profile);
         List<ListenableFuture<Bucket>> directResponseFutures = contextPreparer.prepareOnHandler(
             localNodeOperations, builder, handlerPhaseAndReceiver, new SharedShardContexts(indicesService));
         JobExecutionContext localJobContext = jobContextService.createContext(builder);
@@ -264,7 +285,7 @@ public class ExecutionPhasesTask extends JobTask {
                                  InitializationTracker initializationTracker) {
         for (Map.Entry<String, Collection<NodeOperation>> entry : operationByServer.entrySet()) {
             String serverNodeId = entry.getKey();
-            JobRequest request = new JobRequest(jobId(), localNodeId, entry.getValue());
+            JobRequest request = new JobRequest(jobId(), localNodeId, entry.getValue(), profile);
             if (hasDirectResponse) {
                 transportJobAction.execute(serverNodeId, request,
                     new SetBucketActionListener(pageBucketReceivers, bucketIdx, initializationTracker));
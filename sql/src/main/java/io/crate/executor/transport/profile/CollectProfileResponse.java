@@ -0,0 +1,87 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport.profile;
+
+import com.google.common.base.Function;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CollectProfileResponse extends TransportResponse {
+
+    static final MergeCollectProfileResponseFunction MERGE_FUNCTION = new MergeCollectProfileResponseFunction();
+
+    private List<Map<String, Object>> profiles;
+
+    CollectProfileResponse(List<Map<String, Object>> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * @return the phase profiles, see {@link io.crate.jobs.PhaseProfile#toMap()}.
+     * Each profile contains the id of the node it has been recorded on.
+     */
+    public List<Map<String, Object>> profiles() {
+        return profiles;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int numProfiles = in.readVInt();
+        profiles = new ArrayList<>(numProfiles);
+        for (int i = 0; i < numProfiles; i++) {
+            profiles.add(in.readMap());
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(profiles.size());
+        for (Map<String, Object> profile : profiles) {
+            out.writeMap(profile);
+        }
+    }
+
+    static class MergeCollectProfileResponseFunction implements Function<List<CollectProfileResponse>, CollectProfileResponse> {
+        @Override
+        public CollectProfileResponse apply(@Nullable List<CollectProfileResponse> input) {
+            if (input == null) {
+                return new CollectProfileResponse(Collections.<Map<String, Object>>emptyList());
+            }
+            List<Map<String, Object>> profiles = new ArrayList<>();
+            for (CollectProfileResponse response : input) {
+                profiles.addAll(response.profiles());
+            }
+            return new CollectProfileResponse(profiles);
+        }
+    }
+}
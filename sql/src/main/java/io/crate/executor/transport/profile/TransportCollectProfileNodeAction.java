@@ -0,0 +1,126 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport.profile;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.executor.MultiActionListener;
+import io.crate.executor.transport.DefaultTransportResponseHandler;
+import io.crate.executor.transport.NodeAction;
+import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobExecutionContext;
+import io.crate.jobs.PhaseProfile;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Collects the {@link PhaseProfile}s of a profiled job from a node.
+ * <p>
+ * The phases of a job may still be running on a node while the handler already received all rows
+ * (e.g. if a limit has been reached), so the profiles are returned once the job context on the node completed.
+ * If that doesn't happen within {@link #KILL_TIMEOUT} the job context is killed.
+ */
+@Singleton
+public class TransportCollectProfileNodeAction extends AbstractComponent
+    implements NodeAction<CollectProfileRequest, CollectProfileResponse> {
+
+    private static final String NAME = "crate/sql/collect_profile";
+    static final TimeValue KILL_TIMEOUT = TimeValue.timeValueSeconds(10);
+
+    private final JobContextService jobContextService;
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public TransportCollectProfileNodeAction(Settings settings,
+                                             JobContextService jobContextService,
+                                             ClusterService clusterService,
+                                             TransportService transportService,
+                                             ThreadPool threadPool) {
+        super(settings);
+        this.jobContextService = jobContextService;
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+        transportService.registerRequestHandler(NAME,
+            CollectProfileRequest::new,
+            ThreadPool.Names.GENERIC,
+            new NodeActionRequestHandler<CollectProfileRequest, CollectProfileResponse>(this) {});
+    }
+
+    @Override
+    public void nodeOperation(final CollectProfileRequest request, final ActionListener<CollectProfileResponse> listener) {
+        final JobExecutionContext context = jobContextService.getContextOrNull(request.jobId());
+        if (context == null) {
+            listener.onResponse(takeProfiles(request.jobId()));
+            return;
+        }
+        final ScheduledFuture<?> killFuture = threadPool.schedule(KILL_TIMEOUT, ThreadPool.Names.GENERIC, context::kill);
+        context.completionFuture().addListener(() -> {
+            killFuture.cancel(false);
+            listener.onResponse(takeProfiles(request.jobId()));
+        }, MoreExecutors.directExecutor());
+    }
+
+    private CollectProfileResponse takeProfiles(UUID jobId) {
+        String nodeId = clusterService.localNode().getId();
+        Collection<PhaseProfile> phaseProfiles = jobContextService.takeProfiles(jobId);
+        List<Map<String, Object>> profiles = new ArrayList<>(phaseProfiles.size());
+        for (PhaseProfile phaseProfile : phaseProfiles) {
+            Map<String, Object> profile = phaseProfile.toMap();
+            profile.put("nodeId", nodeId);
+            profiles.add(profile);
+        }
+        return new CollectProfileResponse(profiles);
+    }
+
+    /**
+     * Collects the profiles of the given job from all nodes in the cluster
+     */
+    public void broadcast(CollectProfileRequest request, ActionListener<CollectProfileResponse> listener) {
+        DiscoveryNode[] nodes = clusterService.state().nodes().nodes().values().toArray(DiscoveryNode.class);
+        listener = new MultiActionListener<>(nodes.length, CollectProfileResponse.MERGE_FUNCTION, listener);
+        DefaultTransportResponseHandler<CollectProfileResponse> responseHandler =
+            new DefaultTransportResponseHandler<CollectProfileResponse>(listener) {
+                @Override
+                public CollectProfileResponse newInstance() {
+                    return new CollectProfileResponse(Collections.<Map<String, Object>>emptyList());
+                }
+            };
+        for (DiscoveryNode node : nodes) {
+            transportService.sendRequest(node, NAME, request, responseHandler);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport.task;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.Row1;
+import io.crate.executor.JobTask;
+import io.crate.executor.Task;
+import io.crate.executor.transport.profile.CollectProfileRequest;
+import io.crate.executor.transport.profile.CollectProfileResponse;
+import io.crate.executor.transport.profile.TransportCollectProfileNodeAction;
+import io.crate.operation.projectors.*;
+import io.crate.planner.PlanPrinter;
+import io.crate.planner.node.management.ExplainPlan;
+import org.elasticsearch.action.ActionListener;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task for EXPLAIN ANALYZE.
+ * <p>
+ * Executes the (profiled) sub plan, discards its rows and returns the plan together with the runtime metrics
+ * of all phases which are collected from all nodes once the execution finished.
+ */
+public class ExplainAnalyzeTask extends JobTask {
+
+    private static final Comparator<Map<String, Object>> PHASE_ORDERING = new Comparator<Map<String, Object>>() {
+        @Override
+        public int compare(Map<String, Object> o1, Map<String, Object> o2) {
+            int cmp = Integer.compare((Integer) o1.get("phaseId"), (Integer) o2.get("phaseId"));
+            if (cmp != 0) {
+                return cmp;
+            }
+            return ((String) o1.get("nodeId")).compareTo((String) o2.get("nodeId"));
+        }
+    };
+
+    private final ExplainPlan explainPlan;
+    private final CompletableFuture<Task> subTask;
+    private final TransportCollectProfileNodeAction collectProfileNodeAction;
+
+    /**
+     * @param subTask the task of the sub plan, it must be created with profiling enabled
+     */
+    public ExplainAnalyzeTask(ExplainPlan explainPlan,
+                              CompletableFuture<Task> subTask,
+                              TransportCollectProfileNodeAction collectProfileNodeAction) {
+        super(explainPlan.jobId());
+        this.explainPlan = explainPlan;
+        this.subTask = subTask;
+        this.collectProfileNodeAction = collectProfileNodeAction;
+    }
+
+    @Override
+    public void execute(final RowReceiver rowReceiver, final Row parameters) {
+        final long startedNanos = System.nanoTime();
+        final DiscardingRowReceiver discardingRowReceiver = new DiscardingRowReceiver();
+        subTask.whenComplete((task, t) -> {
+            if (t == null) {
+                task.execute(discardingRowReceiver, parameters);
+            } else {
+                discardingRowReceiver.fail(t);
+            }
+        });
+        discardingRowReceiver.completionFuture.whenComplete((numRows, failure) -> {
+            final long durationNanos = System.nanoTime() - startedNanos;
+            // the profiles are collected in any case to release them on all nodes
+            collectProfileNodeAction.broadcast(new CollectProfileRequest(explainPlan.subPlan().jobId()),
+                new ActionListener<CollectProfileResponse>() {
+                    @Override
+                    public void onResponse(CollectProfileResponse response) {
+                        if (failure != null) {
+                            rowReceiver.fail(failure);
+                            return;
+                        }
+                        try {
+                            rowReceiver.setNextRow(new Row1(toMap(numRows, durationNanos, response.profiles())));
+                            rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+                        } catch (Throwable t) {
+                            rowReceiver.fail(t);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        rowReceiver.fail(failure == null ? e : failure);
+                    }
+                });
+        });
+    }
+
+    private Map<String, Object> toMap(long numRows, long durationNanos, List<Map<String, Object>> profiles) {
+        List<Map<String, Object>> phases = new ArrayList<>(profiles);
+        Collections.sort(phases, PHASE_ORDERING);
+        Map<String, Object> execution = new LinkedHashMap<>();
+        execution.put("duration", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        execution.put("rows", numRows);
+        execution.put("phases", phases);
+        return ImmutableMap.<String, Object>of(
+            "plan", PlanPrinter.objectMap(explainPlan.subPlan()),
+            "execution", execution
+        );
+    }
+
+    /**
+     * Counts the rows of the sub plan, the rows themselves aren't of interest.
+     */
+    private static class DiscardingRowReceiver implements RowReceiver {
+
+        private final CompletableFuture<Long> completionFuture = new CompletableFuture<>();
+        private long numRows = 0;
+
+        @Override
+        public Result setNextRow(Row row) {
+            numRows++;
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatable) {
+            completionFuture.complete(numRows);
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            completionFuture.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            completionFuture.completeExceptionally(throwable);
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return Requirements.NO_REQUIREMENTS;
+        }
+    }
+}
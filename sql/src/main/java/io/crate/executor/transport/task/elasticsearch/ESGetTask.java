@@ -40,6 +40,7 @@ import io.crate.jobs.JobExecutionContext;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.operation.projectors.*;
 import io.crate.planner.node.dql.ESGet;
 import io.crate.planner.projection.OrderedTopNProjection;
@@ -396,7 +397,7 @@ public class ESGetTask extends JobTask {
                         return new Function<GetResponse, Object>() {
                             @Override
                             public Object apply(GetResponse response) {
-                                return response.getSourceAsBytesRef().toBytesRef();
+                                return SourceFormat.toJson(response.getSourceAsBytesRef());
                             }
                         };
                     case "_doc":
@@ -21,6 +21,8 @@
 
 package io.crate.jobs;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.*;
 import io.crate.concurrent.CountdownFutureCallback;
@@ -38,6 +40,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 @Singleton
@@ -48,6 +51,14 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
     private final ConcurrentMap<UUID, JobExecutionContext> activeContexts =
         ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
+    /**
+     * profiles of finished profiled jobs, kept until they're collected by the handler node
+     */
+    private final Cache<UUID, Collection<PhaseProfile>> finishedProfiles = CacheBuilder.newBuilder()
+        .maximumSize(100)
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .build();
+
     private final List<KillAllListener> killAllListeners = Collections.synchronizedList(new ArrayList<KillAllListener>());
 
     @Inject
@@ -114,13 +125,35 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         return new JobExecutionContext.Builder(jobId, coordinatorNodeId, participatingNodes, statsTables);
     }
 
+    public JobExecutionContext.Builder newBuilder(UUID jobId,
+                                                  String coordinatorNodeId,
+                                                  Collection<String> participatingNodes,
+                                                  boolean profile) {
+        return new JobExecutionContext.Builder(jobId, coordinatorNodeId, participatingNodes, statsTables, profile);
+    }
+
+    /**
+     * Returns and removes the phase profiles of a finished profiled job.
+     *
+     * @return the profiles or an empty collection if the job wasn't profiled or
+     * didn't execute any phase on this node
+     */
+    public Collection<PhaseProfile> takeProfiles(UUID jobId) {
+        Collection<PhaseProfile> profiles = finishedProfiles.getIfPresent(jobId);
+        if (profiles == null) {
+            return Collections.emptyList();
+        }
+        finishedProfiles.invalidate(jobId);
+        return profiles;
+    }
+
     public JobExecutionContext createContext(JobExecutionContext.Builder contextBuilder) throws Exception {
         if (contextBuilder.isEmpty()) {
             throw new IllegalArgumentException("JobExecutionContext.Builder must at least contain 1 SubExecutionContext");
         }
         final UUID jobId = contextBuilder.jobId();
         JobExecutionContext newContext = contextBuilder.build();
-        Futures.addCallback(newContext.completionFuture(), new JobContextCallback(jobId));
+        Futures.addCallback(newContext.completionFuture(), new JobContextCallback(newContext));
         JobExecutionContext existing = activeContexts.putIfAbsent(jobId, newContext);
         if (existing != null) {
             throw new IllegalArgumentException(
@@ -197,13 +230,19 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
 
     private class JobContextCallback implements FutureCallback<Object> {
 
-        private UUID jobId;
+        private final UUID jobId;
+        private final JobExecutionContext context;
 
-        JobContextCallback(UUID jobId) {
-            this.jobId = jobId;
+        JobContextCallback(JobExecutionContext context) {
+            this.jobId = context.jobId();
+            this.context = context;
         }
 
         private void remove(@Nullable Throwable throwable) {
+            if (context.isProfiled()) {
+                // must be retained before the context is removed, see TransportCollectProfileNodeAction
+                finishedProfiles.put(jobId, context.profiles());
+            }
             activeContexts.remove(jobId);
             if (logger.isTraceEnabled()) {
                 logger.trace("JobExecutionContext closed for job {} removed it -" +
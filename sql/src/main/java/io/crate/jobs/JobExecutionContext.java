@@ -55,6 +55,8 @@ public class JobExecutionContext implements CompletionListenable {
     private final SettableFuture<Void> finishedFuture = SettableFuture.create();
     private final AtomicBoolean killSubContextsOngoing = new AtomicBoolean(false);
     private final Collection<String> participatedNodes;
+    @Nullable
+    private final ConcurrentMap<Integer, PhaseProfile> profiles;
     private volatile Throwable failure;
 
 
@@ -65,12 +67,40 @@ public class JobExecutionContext implements CompletionListenable {
         private final StatsTables statsTables;
         private final LinkedHashMap<Integer, ExecutionSubContext> subContexts = new LinkedHashMap<>();
         private final Collection<String> participatingNodes;
+        @Nullable
+        private final Map<Integer, PhaseProfile> profiles;
 
         Builder(UUID jobId, String coordinatorNode, Collection<String> participatingNodes, StatsTables statsTables) {
+            this(jobId, coordinatorNode, participatingNodes, statsTables, false);
+        }
+
+        Builder(UUID jobId,
+                String coordinatorNode,
+                Collection<String> participatingNodes,
+                StatsTables statsTables,
+                boolean profile) {
             this.jobId = jobId;
             this.coordinatorNode = coordinatorNode;
             this.participatingNodes = participatingNodes;
             this.statsTables = statsTables;
+            this.profiles = profile ? new HashMap<Integer, PhaseProfile>() : null;
+        }
+
+        /**
+         * @return the profile of the given phase or null if the job isn't profiled.
+         * The profile is created on the first call.
+         */
+        @Nullable
+        public PhaseProfile profile(int phaseId, String name) {
+            if (profiles == null) {
+                return null;
+            }
+            PhaseProfile profile = profiles.get(phaseId);
+            if (profile == null) {
+                profile = new PhaseProfile(phaseId, name);
+                profiles.put(phaseId, profile);
+            }
+            return profile;
         }
 
         public void addSubContext(ExecutionSubContext subContext) {
@@ -90,7 +120,7 @@ public class JobExecutionContext implements CompletionListenable {
         }
 
         JobExecutionContext build() throws Exception {
-            return new JobExecutionContext(jobId, coordinatorNode, participatingNodes, statsTables, subContexts);
+            return new JobExecutionContext(jobId, coordinatorNode, participatingNodes, statsTables, subContexts, profiles);
         }
     }
 
@@ -99,8 +129,10 @@ public class JobExecutionContext implements CompletionListenable {
                                 String coordinatorNodeId,
                                 Collection<String> participatingNodes,
                                 StatsTables statsTables,
-                                LinkedHashMap<Integer, ExecutionSubContext> contextMap) throws Exception {
+                                LinkedHashMap<Integer, ExecutionSubContext> contextMap,
+                                @Nullable Map<Integer, PhaseProfile> profiles) throws Exception {
         this.coordinatorNodeId = coordinatorNodeId;
+        this.profiles = profiles == null ? null : new ConcurrentHashMap<>(profiles);
         this.participatedNodes = participatingNodes;
         orderedContextIds = Lists.newArrayList(contextMap.keySet());
         this.jobId = jobId;
@@ -112,7 +144,7 @@ public class JobExecutionContext implements CompletionListenable {
 
         for (Map.Entry<Integer, ExecutionSubContext> entry : contextMap.entrySet()) {
             int subContextId = entry.getKey();
-            Futures.addCallback(entry.getValue().completionFuture(), new RemoveSubContextListener(subContextId));
+            Futures.addCallback(entry.getValue().completionFuture(), new RemoveSubContextListener(subContextId, getOrCreateProfile(subContextId, entry.getValue().name())));
             subContexts.put(entry.getKey(), entry.getValue());
             LOGGER.trace("adding subContext {}, now there are {} subContexts", subContextId, subContexts.size());
         }
@@ -131,12 +163,62 @@ public class JobExecutionContext implements CompletionListenable {
         return participatedNodes;
     }
 
+    /**
+     * @return true if the runtime metrics of the phases of this job are collected
+     */
+    public boolean isProfiled() {
+        return profiles != null;
+    }
+
+    /**
+     * @return the profiles of all phases of this job which have been executed on this node.
+     * Empty if the job isn't profiled.
+     */
+    public Collection<PhaseProfile> profiles() {
+        if (profiles == null) {
+            return Collections.emptyList();
+        }
+        return profiles.values();
+    }
+
+    /**
+     * @return the profile of the given phase or null if the job isn't profiled
+     */
+    @Nullable
+    public PhaseProfile profile(int phaseId) {
+        if (profiles == null) {
+            return null;
+        }
+        return profiles.get(phaseId);
+    }
+
+    @Nullable
+    private PhaseProfile getOrCreateProfile(int phaseId, String name) {
+        if (profiles == null) {
+            return null;
+        }
+        PhaseProfile profile = profiles.get(phaseId);
+        if (profile == null) {
+            // phases without counters (e.g. a CountContext) haven't created their profile during the setup
+            profile = new PhaseProfile(phaseId, name);
+            PhaseProfile existing = profiles.putIfAbsent(phaseId, profile);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return profile;
+    }
+
     private void prepare(Map<Integer, ExecutionSubContext> contextMap) throws Exception {
 
         for (int i = 0; i < orderedContextIds.size(); i++) {
             Integer id = orderedContextIds.get(i);
             ExecutionSubContext subContext = contextMap.get(id);
             statsTables.operationStarted(id, jobId, subContext.name());
+            PhaseProfile profile = getOrCreateProfile(id, subContext.name());
+            if (profile != null) {
+                profile.started();
+            }
             try {
                 subContext.prepare();
             } catch (Exception e) {
@@ -227,9 +309,12 @@ public class JobExecutionContext implements CompletionListenable {
     private class RemoveSubContextListener implements FutureCallback<CompletionState> {
 
         private final int id;
+        @Nullable
+        private final PhaseProfile profile;
 
-        private RemoveSubContextListener(int id) {
+        private RemoveSubContextListener(int id, @Nullable PhaseProfile profile) {
             this.id = id;
+            this.profile = profile;
         }
 
         private RemoveSubContextPosition remove() {
@@ -246,6 +331,9 @@ public class JobExecutionContext implements CompletionListenable {
         public void onSuccess(@Nullable CompletionState state) {
             assert state != null : "state must not be null";
             statsTables.operationFinished(id, jobId, null, state.bytesUsed());
+            if (profile != null) {
+                profile.finished(state.bytesUsed(), null);
+            }
             remove();
         }
 
@@ -253,6 +341,9 @@ public class JobExecutionContext implements CompletionListenable {
         public void onFailure(@Nonnull Throwable t) {
             failure = t;
             statsTables.operationFinished(id, jobId, Exceptions.messageOf(t), -1);
+            if (profile != null) {
+                profile.finished(-1, Exceptions.messageOf(t));
+            }
             if (remove() == RemoveSubContextPosition.LAST) {
                 return;
             }
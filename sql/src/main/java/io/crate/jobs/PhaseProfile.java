@@ -0,0 +1,175 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import com.twitter.jsr166e.LongAdder;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runtime metrics of a single execution phase on a single node.
+ * <p>
+ * Profiles are only created if a job is executed with profiling enabled (EXPLAIN ANALYZE).
+ * All counters are thread-safe as a phase may be executed by several threads concurrently (e.g. one per shard).
+ */
+public class PhaseProfile {
+
+    public static final String SHARD_CHAIN = "shard";
+    public static final String NODE_CHAIN = "node";
+
+    private final int phaseId;
+    private final String name;
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ProjectorChain> chains = new ConcurrentHashMap<>();
+
+    private volatile long startedNanos = -1;
+    private volatile long finishedNanos = -1;
+    private volatile long bytesUsed = -1;
+    private volatile String error;
+
+    public PhaseProfile(int phaseId, String name) {
+        this.phaseId = phaseId;
+        this.name = name;
+    }
+
+    public int phaseId() {
+        return phaseId;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return a counter of this phase, it is created on first use
+     */
+    public LongAdder counter(String counterName) {
+        LongAdder counter = counters.get(counterName);
+        if (counter == null) {
+            counter = new LongAdder();
+            LongAdder existing = counters.putIfAbsent(counterName, counter);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the row counters of a projector chain.
+     * Chains with the same name (e.g. the shard projections of different shards) share their counters.
+     *
+     * @param chainName name of the chain, e.g. {@link #SHARD_CHAIN} or {@link #NODE_CHAIN}
+     * @param projectors the names of the projectors of the chain
+     * @return one counter per projector, counting the rows it received,
+     * plus one for the rows received by the downstream of the chain
+     */
+    public LongAdder[] projectorRows(String chainName, List<String> projectors) {
+        ProjectorChain chain = chains.get(chainName);
+        if (chain == null) {
+            chain = new ProjectorChain(projectors);
+            ProjectorChain existing = chains.putIfAbsent(chainName, chain);
+            if (existing != null) {
+                chain = existing;
+            }
+        }
+        return chain.rows;
+    }
+
+    void started() {
+        startedNanos = System.nanoTime();
+    }
+
+    void finished(long bytesUsed, @Nullable String error) {
+        this.bytesUsed = bytesUsed;
+        this.error = error;
+        finishedNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the duration in nanoseconds between the preparation and the completion of the phase
+     * or -1 if the phase didn't complete yet
+     */
+    public long durationNanos() {
+        if (startedNanos == -1 || finishedNanos == -1) {
+            return -1;
+        }
+        return finishedNanos - startedNanos;
+    }
+
+    /**
+     * @return the metrics as a map which can be streamed using
+     * {@link org.elasticsearch.common.io.stream.StreamOutput#writeGenericValue(Object)}
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new TreeMap<>();
+        map.put("phaseId", phaseId);
+        map.put("name", name);
+        long durationNanos = durationNanos();
+        map.put("duration", durationNanos == -1 ? null : TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        map.put("usedBytes", bytesUsed == -1 ? null : bytesUsed);
+        map.put("error", error);
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().sum());
+        }
+        List<Map<String, Object>> projectors = new ArrayList<>();
+        for (String chainName : new TreeSet<>(chains.keySet())) {
+            ProjectorChain chain = chains.get(chainName);
+            for (int i = 0; i < chain.projectors.size(); i++) {
+                Map<String, Object> projector = new TreeMap<>();
+                projector.put("chain", chainName);
+                projector.put("type", chain.projectors.get(i));
+                projector.put("rowsIn", chain.rows[i].sum());
+                projector.put("rowsOut", chain.rows[i + 1].sum());
+                projectors.add(projector);
+            }
+        }
+        if (!projectors.isEmpty()) {
+            map.put("projectors", projectors);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseProfile{" + toMap() + '}';
+    }
+
+    private static class ProjectorChain {
+
+        private final List<String> projectors;
+        private final LongAdder[] rows;
+
+        ProjectorChain(List<String> projectors) {
+            this.projectors = projectors;
+            this.rows = new LongAdder[projectors.size() + 1];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -47,7 +47,8 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
                                  ProjectorFactory projectorFactory,
                                  List<Projection> projections,
                                  RowReceiver rowReceiver,
-                                 RamAccountingContext ramAccountingContext) {
+                                 RamAccountingContext ramAccountingContext,
+                                 @Nullable PhaseProfile profile) {
         super(id, LOGGER);
         this.name = name;
         ListenableRowReceiver listenableRowReceiver = RowReceivers.listenableRowReceiver(rowReceiver);
@@ -67,7 +68,9 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
             ramAccountingContext,
             projections,
             listenableRowReceiver,
-            jobId
+            jobId,
+            profile,
+            PhaseProfile.NODE_CHAIN
         );
         this.rowReceiver = projectorChain.firstProjector();
     }
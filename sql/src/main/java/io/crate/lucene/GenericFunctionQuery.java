@@ -22,8 +22,9 @@
 
 package io.crate.lucene;
 
-import com.google.common.base.Throwables;
 import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolType;
 import io.crate.operation.Input;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import io.crate.operation.projectors.InputCondition;
@@ -42,14 +43,23 @@ import java.util.Set;
 /**
  * Query implementation which filters docIds by evaluating {@code condition} on each docId to verify if it matches.
  *
- * This query is very slow.
+ * The condition is exposed as {@link TwoPhaseIterator} so that if this query is combined with other
+ * (index backed) queries the condition is only evaluated on docs which match those other queries.
+ *
+ * This query is still very slow if used on its own.
  */
 class GenericFunctionQuery extends Query {
 
+    /**
+     * matchCost of a condition that needs to load the source; this is way more expensive than evaluating any function
+     */
+    private static final float LOAD_SOURCE_COST = 1000f;
+
     private final Function function;
     private final LuceneCollectorExpression[] expressions;
     private final CollectorContext collectorContext;
     private final Input<Boolean> condition;
+    private final float matchCost;
 
     GenericFunctionQuery(Function function,
                          Collection<? extends LuceneCollectorExpression<?>> expressions,
@@ -60,6 +70,29 @@ class GenericFunctionQuery extends Query {
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
         this.collectorContext = collectorContext;
         this.condition = condition;
+        this.matchCost = matchCost(function, this.expressions.length, collectorContext.visitor());
+    }
+
+    /**
+     * estimate of the cost to evaluate the condition on a single doc.
+     * Lucene uses it to evaluate cheaper conditions of a conjunction first.
+     */
+    static float matchCost(Function function, int numExpressions, @Nullable CollectorFieldsVisitor fieldsVisitor) {
+        float cost = numFunctions(function) + numExpressions;
+        if (fieldsVisitor != null && fieldsVisitor.required()) {
+            cost += LOAD_SOURCE_COST;
+        }
+        return cost;
+    }
+
+    private static int numFunctions(Function function) {
+        int numFunctions = 1;
+        for (Symbol argument : function.arguments()) {
+            if (argument.symbolType() == SymbolType.FUNCTION) {
+                numFunctions += numFunctions((Function) argument);
+            }
+        }
+        return numFunctions;
     }
 
     @Override
@@ -120,28 +153,18 @@ class GenericFunctionQuery extends Query {
 
             @Override
             public Scorer scorer(LeafReaderContext context) throws IOException {
-                final DocIdSet set = getDocIdSet(context);
-                if (set == null) {
-                    return null;
-                }
-                // lucene 5.5.0 FilteredQuery switches to random-access logic if bits are present.
-                // this logic isn't part of this GenericFunctionQuery because FilteredDocIdSet never has bits
-                // this assertion is a safety measure - if bits() suddenly is no longer null this code here should be updated
-                assert set.bits() == null : "bits should never be set because getDocIdSet returns FilteredDocIdSet";
-                final DocIdSetIterator iterator = set.iterator();
-                if (iterator == null) {
-                    return null;
-                }
-                return new ConstantScoreScorer(this, 0f, iterator);
+                return new ConstantScoreScorer(this, 0f, getTwoPhaseIterator(context));
             }
         };
     }
 
-    private DocIdSet getDocIdSet(final LeafReaderContext context) {
+    private FilteredTwoPhaseIterator getTwoPhaseIterator(final LeafReaderContext context) {
         for (LuceneCollectorExpression expression : expressions) {
             expression.setNextReader(context);
         }
-        return new FilteredDocIdSet(context.reader(), collectorContext.visitor(), condition, expressions);
+        LeafReader reader = context.reader();
+        return new FilteredTwoPhaseIterator(
+            reader, collectorContext.visitor(), condition, expressions, matchCost);
     }
 
     @Override
@@ -149,39 +172,35 @@ class GenericFunctionQuery extends Query {
         return function.toString();
     }
 
-    private static class FilteredDocIdSet extends DocIdSet {
+    private static class FilteredTwoPhaseIterator extends TwoPhaseIterator {
 
         private final LeafReader reader;
         private final CollectorFieldsVisitor fieldsVisitor;
         private final Input<Boolean> condition;
         private final LuceneCollectorExpression[] expressions;
         private final boolean fieldsVisitorEnabled;
-
-        FilteredDocIdSet(LeafReader reader,
-                         @Nullable CollectorFieldsVisitor fieldsVisitor,
-                         Input<Boolean> condition,
-                         LuceneCollectorExpression[] expressions) {
+        private final float matchCost;
+
+        FilteredTwoPhaseIterator(LeafReader reader,
+                                 @Nullable CollectorFieldsVisitor fieldsVisitor,
+                                 Input<Boolean> condition,
+                                 LuceneCollectorExpression[] expressions,
+                                 float matchCost) {
+            super(DocIdSetIterator.all(reader.maxDoc()));
             this.reader = reader;
             this.fieldsVisitor = fieldsVisitor;
             this.fieldsVisitorEnabled = fieldsVisitor != null && fieldsVisitor.required();
             this.condition = condition;
             this.expressions = expressions;
+            this.matchCost = matchCost;
         }
 
         @Override
-        public DocIdSetIterator iterator() throws IOException {
-            final DocIdSetIterator docIdSetIt = DocIdSetIterator.all(reader.maxDoc());
-            return new FilteredDocIdSetIterator(docIdSetIt);
-        }
-
-        private boolean match(int doc) {
+        public boolean matches() throws IOException {
+            int doc = approximation.docID();
             if (fieldsVisitorEnabled) {
                 fieldsVisitor.reset();
-                try {
-                    reader.document(doc, fieldsVisitor);
-                } catch (IOException e) {
-                    throw Throwables.propagate(e);
-                }
+                reader.document(doc, fieldsVisitor);
             }
             for (LuceneCollectorExpression expression : expressions) {
                 expression.setNextDocId(doc);
@@ -190,47 +209,8 @@ class GenericFunctionQuery extends Query {
         }
 
         @Override
-        public long ramBytesUsed() {
-            return 0;
-        }
-
-        private class FilteredDocIdSetIterator extends DocIdSetIterator {
-
-            private final DocIdSetIterator docIdSetIt;
-            private int doc = -1;
-
-            FilteredDocIdSetIterator(DocIdSetIterator docIdSetIt) {
-                this.docIdSetIt = docIdSetIt;
-            }
-
-            @Override
-            public int docID() {
-                return doc;
-            }
-
-            @Override
-            public int nextDoc() throws IOException {
-                while ((doc = docIdSetIt.nextDoc()) != NO_MORE_DOCS) {
-                    if (match(doc)) {
-                        return doc;
-                    }
-                }
-                return doc;
-            }
-
-            @Override
-            public int advance(int target) throws IOException {
-                doc = docIdSetIt.advance(target);
-                if (doc == NO_MORE_DOCS || match(doc)) {
-                    return doc;
-                }
-                return nextDoc();
-            }
-
-            @Override
-            public long cost() {
-                return docIdSetIt.cost();
-            }
+        public float matchCost() {
+            return matchCost;
         }
     }
 }
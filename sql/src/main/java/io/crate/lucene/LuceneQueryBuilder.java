@@ -131,6 +131,7 @@ public class LuceneQueryBuilder {
             ctx.query = Queries.newMatchAllQuery();
         } else {
             ctx.query = VISITOR.process(whereClause.query(), ctx);
+            ctx.segmentFilter = SegmentRangeFilter.fromQuery(whereClause.query());
         }
         if (LOGGER.isTraceEnabled()) {
             if (whereClause.hasQuery()) {
@@ -175,6 +176,7 @@ public class LuceneQueryBuilder {
 
     public static class Context {
         Query query;
+        SegmentRangeFilter segmentFilter;
 
         final Map<String, Object> filteredFieldValues = new HashMap<>();
 
@@ -197,6 +199,14 @@ public class LuceneQueryBuilder {
             return this.query;
         }
 
+        /**
+         * @return a filter to skip segments which can't match the query or null if all segments have to be searched
+         */
+        @Nullable
+        public SegmentRangeFilter segmentFilter() {
+            return segmentFilter;
+        }
+
         @Nullable
         public Float minScore() {
             Object score = filteredFieldValues.get("_score");
@@ -0,0 +1,162 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.lucene;
+
+import io.crate.types.*;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.NumericUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Smallest and largest value of a numeric or timestamp column within a segment.
+ * <p>
+ * The values are read from the trie encoded terms of the column, which only requires a seek to the first and
+ * last full precision term instead of a pass over all doc values. They are cached per segment core and dropped
+ * once the core is closed.
+ * <p>
+ * Values are represented as sortable longs (see {@link #sortableLong(DataType, Object)}) so that the order of
+ * the encoded values is the same as the order of the column values, regardless of the column type.
+ * The values of deleted documents are included, so the range may be wider than the range of the live documents.
+ */
+public final class SegmentMinMax {
+
+    private static final SegmentMinMax UNKNOWN = new SegmentMinMax(Long.MIN_VALUE, Long.MAX_VALUE, false);
+    private static final ConcurrentMap<Object, ConcurrentMap<String, SegmentMinMax>> CACHE = new ConcurrentHashMap<>();
+
+    private final long min;
+    private final long max;
+    private final boolean allDocsHaveValue;
+
+    private SegmentMinMax(long min, long max, boolean allDocsHaveValue) {
+        this.min = min;
+        this.max = max;
+        this.allDocsHaveValue = allDocsHaveValue;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return false if the segment contains documents without a value for the column
+     */
+    public boolean allDocsHaveValue() {
+        return allDocsHaveValue;
+    }
+
+    public static boolean isSupported(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case FloatType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+            case DoubleType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isIntEncoded(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case FloatType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * encodes a value of a {@link #isSupported(DataType) supported} type into a long which sorts like the value
+     */
+    public static long sortableLong(DataType type, Object value) {
+        switch (type.id()) {
+            case FloatType.ID:
+                return NumericUtils.floatToSortableInt(((Number) value).floatValue());
+            case DoubleType.ID:
+                return NumericUtils.doubleToSortableLong(((Number) value).doubleValue());
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    /**
+     * @return the min/max values of the column in the segment or null if they are unknown,
+     *         e.g. because the column isn't indexed or there is no document with a value in the segment
+     */
+    @Nullable
+    public static SegmentMinMax of(LeafReader reader, String field, DataType type) throws IOException {
+        assert isSupported(type) : "type must be supported";
+        Object coreKey = reader.getCoreCacheKey();
+        ConcurrentMap<String, SegmentMinMax> fields = CACHE.get(coreKey);
+        if (fields == null) {
+            fields = new ConcurrentHashMap<>();
+            ConcurrentMap<String, SegmentMinMax> existing = CACHE.putIfAbsent(coreKey, fields);
+            if (existing == null) {
+                reader.addCoreClosedListener(CACHE::remove);
+            } else {
+                fields = existing;
+            }
+        }
+        SegmentMinMax minMax = fields.get(field);
+        if (minMax == null) {
+            minMax = load(reader, field, type);
+            fields.put(field, minMax);
+        }
+        return minMax == UNKNOWN ? null : minMax;
+    }
+
+    private static SegmentMinMax load(LeafReader reader, String field, DataType type) throws IOException {
+        Terms terms = reader.terms(field);
+        if (terms == null) {
+            return UNKNOWN;
+        }
+        Number min;
+        Number max;
+        if (isIntEncoded(type)) {
+            min = NumericUtils.getMinInt(terms);
+            max = NumericUtils.getMaxInt(terms);
+        } else {
+            min = NumericUtils.getMinLong(terms);
+            max = NumericUtils.getMaxLong(terms);
+        }
+        if (min == null || max == null) {
+            return UNKNOWN;
+        }
+        return new SegmentMinMax(min.longValue(), max.longValue(), terms.getDocCount() == reader.maxDoc());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.lucene;
+
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RowGranularity;
+import io.crate.operation.operator.*;
+import io.crate.types.DataType;
+import org.apache.lucene.index.LeafReader;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides if a segment can contain matches for a query based on the {@link SegmentMinMax} of the columns
+ * which are compared with a literal in the top-level conjunctions of the query.
+ * <p>
+ * E.g. for <code>ts &gt;= 1000 AND ts &lt; 2000 AND name = 'foo'</code> all segments which only contain
+ * <code>ts</code> values outside of <code>[1000, 2000)</code> are skipped without setting up a collector for them.
+ */
+public final class SegmentRangeFilter {
+
+    private final List<ColumnRange> ranges;
+
+    private SegmentRangeFilter(List<ColumnRange> ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * @return a filter or null if the query doesn't contain comparisons which can be used to skip segments
+     */
+    @Nullable
+    public static SegmentRangeFilter fromQuery(@Nullable Symbol query) {
+        if (query == null) {
+            return null;
+        }
+        List<Symbol> conjunctions = Operators.splitConjunctions(query);
+        List<ColumnRange> ranges = new ArrayList<>();
+        for (Symbol conjunction : conjunctions) {
+            ColumnRange range = ColumnRange.of(conjunction);
+            if (range != null) {
+                ranges.add(range);
+            }
+        }
+        if (ranges.isEmpty()) {
+            return null;
+        }
+        return new SegmentRangeFilter(ranges);
+    }
+
+    /**
+     * @return false if no document of the segment can match the query
+     */
+    public boolean canMatch(LeafReader reader) throws IOException {
+        for (ColumnRange range : ranges) {
+            SegmentMinMax minMax = SegmentMinMax.of(reader, range.field, range.type);
+            if (minMax != null && (minMax.max() < range.lower || minMax.min() > range.upper)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ColumnRange {
+
+        private final String field;
+        private final DataType type;
+        private final long lower;
+        private final long upper;
+
+        private ColumnRange(String field, DataType type, long lower, long upper) {
+            this.field = field;
+            this.type = type;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        @Nullable
+        static ColumnRange of(Symbol conjunction) {
+            if (!(conjunction instanceof Function)) {
+                return null;
+            }
+            Function function = (Function) conjunction;
+            if (function.arguments().size() != 2) {
+                return null;
+            }
+            String operatorName = function.info().ident().name();
+            Symbol left = function.arguments().get(0);
+            Symbol right = function.arguments().get(1);
+            if (left instanceof Literal && right instanceof Reference) {
+                operatorName = Operators.swapComparison(operatorName);
+                Symbol tmp = left;
+                left = right;
+                right = tmp;
+            }
+            if (operatorName == null || !(left instanceof Reference) || !(right instanceof Literal)) {
+                return null;
+            }
+            Reference ref = (Reference) left;
+            Object value = ((Literal) right).value();
+            DataType type = ref.valueType();
+            if (value == null
+                || ref.granularity() != RowGranularity.DOC
+                || ref.ident().columnIdent().name().startsWith("_")
+                || !type.equals(right.valueType())
+                || !SegmentMinMax.isSupported(type)) {
+                return null;
+            }
+            String field = ref.ident().columnIdent().fqn();
+            long encoded = SegmentMinMax.sortableLong(type, value);
+            switch (operatorName) {
+                case EqOperator.NAME:
+                    return new ColumnRange(field, type, encoded, encoded);
+                case LtOperator.NAME:
+                    return encoded == Long.MIN_VALUE ? empty(field, type) : new ColumnRange(field, type, Long.MIN_VALUE, encoded - 1);
+                case LteOperator.NAME:
+                    return new ColumnRange(field, type, Long.MIN_VALUE, encoded);
+                case GtOperator.NAME:
+                    return encoded == Long.MAX_VALUE ? empty(field, type) : new ColumnRange(field, type, encoded + 1, Long.MAX_VALUE);
+                case GteOperator.NAME:
+                    return new ColumnRange(field, type, encoded, Long.MAX_VALUE);
+                default:
+                    return null;
+            }
+        }
+
+        private static ColumnRange empty(String field, DataType type) {
+            return new ColumnRange(field, type, Long.MAX_VALUE, Long.MIN_VALUE);
+        }
+    }
+}
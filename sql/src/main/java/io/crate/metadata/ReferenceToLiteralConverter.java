@@ -63,6 +63,15 @@ public class ReferenceToLiteralConverter extends ReplacingSymbolVisitor<Referenc
 
 
         public Symbol resolveReferenceValue(Reference reference) {
+            DataType dataType = reference.valueType();
+            return Literal.of(dataType, resolveValue(reference));
+        }
+
+        /**
+         * @return the value of the reference in the current {@link #values(Object[])},
+         *         converted to the type of the reference.
+         */
+        public Object resolveValue(Reference reference) {
             assert values != null : "values must be set first";
 
             InputColumn inputColumn = referenceInputColumnMap.get(reference);
@@ -80,11 +89,10 @@ public class ReferenceToLiteralConverter extends ReplacingSymbolVisitor<Referenc
                 } else {
                     value = values[inputColumn.index()];
                 }
-                return Literal.of(dataType, dataType.value(value));
+                return dataType.value(value);
             }
 
-            DataType dataType = reference.valueType();
-            return Literal.of(dataType, dataType.value(null));
+            return reference.valueType().value(null);
         }
 
     }
@@ -30,6 +30,7 @@ import io.crate.analyze.WhereClause;
 import io.crate.analyze.symbol.DynamicReference;
 import io.crate.exceptions.ColumnUnknownException;
 import io.crate.exceptions.UnavailableShardsException;
+import io.crate.executor.transport.NodeResponseStats;
 import io.crate.metadata.*;
 import io.crate.metadata.sys.TableColumn;
 import io.crate.metadata.table.ColumnPolicy;
@@ -90,6 +91,7 @@ public class DocTableInfo implements TableInfo, ShardedTable {
     private final Set<Operation> supportedOperations;
 
     private final List<PartitionName> partitions;
+    private volatile PartitionValueIndex partitionValueIndex;
 
     private final boolean isAlias;
     private final boolean hasAutoGeneratedPrimaryKey;
@@ -97,6 +99,8 @@ public class DocTableInfo implements TableInfo, ShardedTable {
 
     private final ColumnPolicy columnPolicy;
     private final IndexNameExpressionResolver indexNameExpressionResolver;
+    @Nullable
+    private final NodeResponseStats nodeResponseStats;
 
     public DocTableInfo(TableIdent ident,
                         List<Reference> columns,
@@ -120,6 +124,40 @@ public class DocTableInfo implements TableInfo, ShardedTable {
                         ColumnPolicy columnPolicy,
                         Set<Operation> supportedOperations,
                         ExecutorService executorService) {
+        this(ident, columns, partitionedByColumns, generatedColumns, indexColumns, references, analyzers, primaryKeys,
+            clusteredBy, isAlias, hasAutoGeneratedPrimaryKey, concreteIndices, clusterService,
+            indexNameExpressionResolver, numberOfShards, numberOfReplicas, tableParameters, partitionedBy, partitions,
+            columnPolicy, supportedOperations, executorService, null);
+    }
+
+    /**
+     * @param nodeResponseStats used to choose the shard copies of a routing if no preference is given.
+     *                          If null the first copy returned by the operation routing is used.
+     */
+    public DocTableInfo(TableIdent ident,
+                        List<Reference> columns,
+                        List<Reference> partitionedByColumns,
+                        List<GeneratedReference> generatedColumns,
+                        ImmutableMap<ColumnIdent, IndexReference> indexColumns,
+                        ImmutableMap<ColumnIdent, Reference> references,
+                        ImmutableMap<ColumnIdent, String> analyzers,
+                        List<ColumnIdent> primaryKeys,
+                        ColumnIdent clusteredBy,
+                        boolean isAlias,
+                        boolean hasAutoGeneratedPrimaryKey,
+                        String[] concreteIndices,
+                        ClusterService clusterService,
+                        IndexNameExpressionResolver indexNameExpressionResolver,
+                        int numberOfShards,
+                        BytesRef numberOfReplicas,
+                        ImmutableMap<String, Object> tableParameters,
+                        List<ColumnIdent> partitionedBy,
+                        List<PartitionName> partitions,
+                        ColumnPolicy columnPolicy,
+                        Set<Operation> supportedOperations,
+                        ExecutorService executorService,
+                        @Nullable NodeResponseStats nodeResponseStats) {
+        this.nodeResponseStats = nodeResponseStats;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         assert (partitionedBy.size() ==
                 partitionedByColumns.size()) : "partitionedBy and partitionedByColumns must have same amount of items in list";
@@ -231,7 +269,7 @@ public class DocTableInfo implements TableInfo, ShardedTable {
             return new Routing(locations);
         }
 
-        fillLocationsFromShardIterators(locations, shardIterators, missingShards);
+        fillLocationsFromShardIterators(locations, shardIterators, preference, missingShards);
 
         if (missingShards.isEmpty()) {
             return new Routing(locations);
@@ -272,7 +310,7 @@ public class DocTableInfo implements TableInfo, ShardedTable {
                     }
 
                     final List<ShardId> missingShards = new ArrayList<>(0);
-                    fillLocationsFromShardIterators(locations, shardIterators, missingShards);
+                    fillLocationsFromShardIterators(locations, shardIterators, preference, missingShards);
 
                     return missingShards.isEmpty();
                 }
@@ -290,10 +328,12 @@ public class DocTableInfo implements TableInfo, ShardedTable {
 
     private void fillLocationsFromShardIterators(Map<String, Map<String, List<Integer>>> locations,
                                                  GroupShardsIterator shardIterators,
+                                                 @Nullable String preference,
                                                  List<ShardId> missingShards) {
+        boolean adaptive = preference == null && nodeResponseStats != null;
         ShardRouting shardRouting;
         for (ShardIterator shardIterator : shardIterators) {
-            shardRouting = shardIterator.nextOrNull();
+            shardRouting = adaptive ? nodeResponseStats.select(shardIterator) : shardIterator.nextOrNull();
             if (shardRouting != null) {
                 if (shardRouting.active()) {
                     processShardRouting(locations, shardRouting);
@@ -371,6 +411,20 @@ public class DocTableInfo implements TableInfo, ShardedTable {
         return partitions;
     }
 
+    /**
+     * index over the values of the {@linkplain #partitions()}, built on first access.
+     * A new DocTableInfo instance is created if the partitions change, so the index never has to be invalidated.
+     */
+    public PartitionValueIndex partitionValueIndex() {
+        assert isPartitioned : "partitionValueIndex is only available for partitioned tables";
+        PartitionValueIndex index = partitionValueIndex;
+        if (index == null) {
+            index = new PartitionValueIndex(partitionedByColumns, partitions);
+            partitionValueIndex = index;
+        }
+        return index;
+    }
+
     /**
      * returns <code>true</code> if this table is a partitioned table,
      * <code>false</code> otherwise
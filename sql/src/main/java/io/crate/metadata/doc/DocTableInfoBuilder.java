@@ -24,6 +24,7 @@ package io.crate.metadata.doc;
 import io.crate.Constants;
 import io.crate.exceptions.TableUnknownException;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.executor.transport.NodeResponseStats;
 import io.crate.metadata.Functions;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.TableIdent;
@@ -61,6 +62,7 @@ class DocTableInfoBuilder {
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final TransportPutIndexTemplateAction transportPutIndexTemplateAction;
     private final MetaData metaData;
+    private final NodeResponseStats nodeResponseStats;
     private String[] concreteIndices;
     private static final ESLogger logger = Loggers.getLogger(DocTableInfoBuilder.class);
 
@@ -70,6 +72,7 @@ class DocTableInfoBuilder {
                         IndexNameExpressionResolver indexNameExpressionResolver,
                         TransportPutIndexTemplateAction transportPutIndexTemplateAction,
                         ExecutorService executorService,
+                        NodeResponseStats nodeResponseStats,
                         boolean checkAliasSchema) {
         this.functions = functions;
         this.clusterService = clusterService;
@@ -77,6 +80,7 @@ class DocTableInfoBuilder {
         this.transportPutIndexTemplateAction = transportPutIndexTemplateAction;
         this.ident = ident;
         this.executorService = executorService;
+        this.nodeResponseStats = nodeResponseStats;
         this.state = clusterService.state();
         this.metaData = state.metaData();
         this.checkAliasSchema = checkAliasSchema;
@@ -202,6 +206,7 @@ class DocTableInfoBuilder {
             partitions,
             md.columnPolicy(),
             md.supportedOperations(),
-            executorService);
+            executorService,
+            nodeResponseStats);
     }
 }
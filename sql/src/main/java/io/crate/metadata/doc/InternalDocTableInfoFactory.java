@@ -23,6 +23,7 @@
 package io.crate.metadata.doc;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.crate.executor.transport.NodeResponseStats;
 import io.crate.metadata.Functions;
 import io.crate.metadata.TableIdent;
 import org.elasticsearch.action.admin.indices.template.put.TransportPutIndexTemplateAction;
@@ -42,27 +43,32 @@ public class InternalDocTableInfoFactory implements DocTableInfoFactory {
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final Provider<TransportPutIndexTemplateAction> putIndexTemplateActionProvider;
     private final ExecutorService executorService;
+    private final NodeResponseStats nodeResponseStats;
 
     @Inject
     public InternalDocTableInfoFactory(Functions functions,
                                        IndexNameExpressionResolver indexNameExpressionResolver,
                                        Provider<TransportPutIndexTemplateAction> putIndexTemplateActionProvider,
-                                       ThreadPool threadPool) {
+                                       ThreadPool threadPool,
+                                       NodeResponseStats nodeResponseStats) {
         this(functions,
             indexNameExpressionResolver,
             putIndexTemplateActionProvider,
-            (ExecutorService) threadPool.executor(ThreadPool.Names.SUGGEST));
+            (ExecutorService) threadPool.executor(ThreadPool.Names.SUGGEST),
+            nodeResponseStats);
     }
 
     @VisibleForTesting
     InternalDocTableInfoFactory(Functions functions,
                                 IndexNameExpressionResolver indexNameExpressionResolver,
                                 Provider<TransportPutIndexTemplateAction> transportPutIndexTemplateActionProvider,
-                                ExecutorService executorService) {
+                                ExecutorService executorService,
+                                NodeResponseStats nodeResponseStats) {
         this.functions = functions;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         putIndexTemplateActionProvider = transportPutIndexTemplateActionProvider;
         this.executorService = executorService;
+        this.nodeResponseStats = nodeResponseStats;
     }
 
     @Override
@@ -75,6 +81,7 @@ public class InternalDocTableInfoFactory implements DocTableInfoFactory {
             indexNameExpressionResolver,
             putIndexTemplateActionProvider.get(),
             executorService,
+            nodeResponseStats,
             checkAliasSchema
         );
         return builder.build();
@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.doc;
+
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.GtOperator;
+import io.crate.operation.operator.GteOperator;
+import io.crate.operation.operator.LtOperator;
+import io.crate.operation.operator.LteOperator;
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sorted values of the partition columns of a partitioned table.
+ * <p>
+ * Used to resolve equality and range comparisons on partition columns by binary search instead of
+ * evaluating the comparison for each partition. Partitions are referred to by their position in
+ * {@link DocTableInfo#partitions()}.
+ * <p>
+ * Partitions with a <code>null</code> value aren't part of the index because they can never match a comparison.
+ */
+public final class PartitionValueIndex {
+
+    private final Column[] columns;
+    private final int numPartitions;
+
+    PartitionValueIndex(List<Reference> partitionedByColumns, List<PartitionName> partitions) {
+        numPartitions = partitions.size();
+        columns = new Column[partitionedByColumns.size()];
+        for (int i = 0; i < columns.length; i++) {
+            DataType type = partitionedByColumns.get(i).valueType();
+            if (isIndexable(type)) {
+                columns[i] = new Column(type, i, partitions);
+            }
+        }
+    }
+
+    private static boolean isIndexable(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case FloatType.ID:
+            case DoubleType.ID:
+            case TimestampType.ID:
+            case StringType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if comparisons on the partition column with the given index can be resolved using {@link #matches}
+     */
+    public boolean isIndexed(int columnIdx, String operatorName) {
+        if (columns[columnIdx] == null) {
+            return false;
+        }
+        switch (operatorName) {
+            case EqOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param columnIdx    index of the partition column
+     * @param operatorName one of the comparison operators, see {@link #isIndexed(int, String)}
+     * @param value        right-hand side of <code>column operator value</code>,
+     *                     must be of the type of the partition column
+     * @return the positions of the partitions for which the comparison evaluates to true
+     */
+    public BitSet matches(int columnIdx, String operatorName, @Nullable Object value) {
+        Column column = columns[columnIdx];
+        assert column != null : "partition column must be indexed";
+        BitSet result = new BitSet(numPartitions);
+        if (value == null) {
+            return result;
+        }
+        int from;
+        int to;
+        switch (operatorName) {
+            case EqOperator.NAME:
+                from = column.lowerBound(value);
+                to = column.upperBound(value);
+                break;
+            case LtOperator.NAME:
+                from = 0;
+                to = column.lowerBound(value);
+                break;
+            case LteOperator.NAME:
+                from = 0;
+                to = column.upperBound(value);
+                break;
+            case GtOperator.NAME:
+                from = column.upperBound(value);
+                to = column.positions.length;
+                break;
+            case GteOperator.NAME:
+                from = column.lowerBound(value);
+                to = column.positions.length;
+                break;
+            default:
+                throw new IllegalArgumentException("Operator " + operatorName + " can't be resolved by a partition index");
+        }
+        for (int i = from; i < to; i++) {
+            result.set(column.positions[i]);
+        }
+        return result;
+    }
+
+    private static class Column {
+
+        private final Comparable[] values;
+        private final int[] positions;
+
+        @SuppressWarnings("unchecked")
+        Column(DataType type, int columnIdx, List<PartitionName> partitions) {
+            List<Integer> nonNull = new ArrayList<>(partitions.size());
+            final Comparable[] partitionValues = new Comparable[partitions.size()];
+            for (int i = 0; i < partitionValues.length; i++) {
+                Comparable value = (Comparable) type.value(partitions.get(i).values().get(columnIdx));
+                if (value != null) {
+                    partitionValues[i] = value;
+                    nonNull.add(i);
+                }
+            }
+            Integer[] sorted = nonNull.toArray(new Integer[nonNull.size()]);
+            Arrays.sort(sorted, (a, b) -> partitionValues[a].compareTo(partitionValues[b]));
+            values = new Comparable[sorted.length];
+            positions = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                positions[i] = sorted[i];
+                values[i] = partitionValues[sorted[i]];
+            }
+        }
+
+        /**
+         * @return index of the first value which is greater or equal to the given value
+         */
+        @SuppressWarnings("unchecked")
+        int lowerBound(Object value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid].compareTo(value) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return index of the first value which is greater than the given value
+         */
+        @SuppressWarnings("unchecked")
+        int upperBound(Object value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid].compareTo(value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.doc;
+
+import io.crate.metadata.settings.CrateTableSettings;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The format in which the _source of documents is stored, see {@link CrateTableSettings#SOURCE_FORMAT}.
+ * <p>
+ * Changing the format of a table only affects documents which are written afterwards.
+ * The format of each source is detected when it is read, so a table may contain sources of different formats.
+ */
+public final class SourceFormat {
+
+    private SourceFormat() {
+    }
+
+    public static XContentType contentType(Settings indexSettings) {
+        String format = CrateTableSettings.SOURCE_FORMAT.extract(indexSettings);
+        switch (format) {
+            case "json":
+                return XContentType.JSON;
+            case "smile":
+                return XContentType.SMILE;
+            case "cbor":
+                return XContentType.CBOR;
+            default:
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH, "Invalid source format: %s", format));
+        }
+    }
+
+    /**
+     * @return the source in the given format, the source itself if it is in that format already
+     */
+    public static BytesReference convert(BytesReference source, XContentType contentType) throws IOException {
+        if (XContentFactory.xContentType(source) == contentType) {
+            return source;
+        }
+        try (XContentParser parser = XContentFactory.xContent(source).createParser(source)) {
+            XContentBuilder builder = XContentFactory.contentBuilder(contentType);
+            parser.nextToken();
+            builder.copyCurrentStructure(parser);
+            return builder.bytes();
+        }
+    }
+
+    /**
+     * @return the (uncompressed) source as JSON, which is how the source is exposed to clients
+     */
+    public static BytesRef toJson(BytesReference source) {
+        try {
+            return convert(source, XContentType.JSON).toBytesRef();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert source to JSON", e);
+        }
+    }
+}
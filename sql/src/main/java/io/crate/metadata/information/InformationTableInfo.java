@@ -88,6 +88,8 @@ public class InformationTableInfo extends StaticTableInfo {
             ImmutableList.of("translog", "sync_interval"));
         public static final ColumnIdent TABLE_SETTINGS_REFRESH_INTERVAL = new ColumnIdent("settings",
             ImmutableList.of("refresh_interval"));
+        public static final ColumnIdent TABLE_SETTINGS_SOURCE_FORMAT = new ColumnIdent("settings",
+            ImmutableList.of("source_format"));
         public static final ColumnIdent TABLE_SETTINGS_UNASSIGNED = new ColumnIdent("settings",
             ImmutableList.of("unassigned"));
         public static final ColumnIdent TABLE_SETTINGS_UNASSIGNED_NODE_LEFT = new ColumnIdent("settings",
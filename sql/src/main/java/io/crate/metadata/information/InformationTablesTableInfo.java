@@ -49,6 +49,9 @@ public class InformationTablesTableInfo extends InformationTableInfo {
         public static final Reference TABLE_SETTINGS_REFRESH_INTERVAL = createRef(
             Columns.TABLE_SETTINGS_REFRESH_INTERVAL, DataTypes.LONG);
 
+        public static final Reference TABLE_SETTINGS_SOURCE_FORMAT = createRef(
+            Columns.TABLE_SETTINGS_SOURCE_FORMAT, DataTypes.STRING);
+
         public static final Reference TABLE_SETTINGS_BLOCKS = createRef(
             Columns.TABLE_SETTINGS_BLOCKS, DataTypes.OBJECT);
         public static final Reference TABLE_SETTINGS_BLOCKS_READ_ONLY = createRef(
@@ -133,6 +136,7 @@ public class InformationTablesTableInfo extends InformationTableInfo {
                 .put(Columns.TABLE_SETTINGS_TRANSLOG_INTERVAL, References.TABLE_SETTINGS_TRANSLOG_INTERVAL)
                 .put(Columns.TABLE_SETTINGS_TRANSLOG_SYNC_INTERVAL, References.TABLE_SETTINGS_TRANSLOG_SYNC_INTERVAL)
                 .put(Columns.TABLE_SETTINGS_REFRESH_INTERVAL, References.TABLE_SETTINGS_REFRESH_INTERVAL)
+                .put(Columns.TABLE_SETTINGS_SOURCE_FORMAT, References.TABLE_SETTINGS_SOURCE_FORMAT)
                 .put(Columns.TABLE_SETTINGS_ROUTING, References.TABLE_SETTINGS_ROUTING)
                 .put(Columns.TABLE_SETTINGS_ROUTING_ALLOCATION, References.TABLE_SETTINGS_ROUTING_ALLOCATION)
                 .put(Columns.TABLE_SETTINGS_ROUTING_ALLOCATION_ENABLE, References.TABLE_SETTINGS_ROUTING_ALLOCATION_ENABLE)
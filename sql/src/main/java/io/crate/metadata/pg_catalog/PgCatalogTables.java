@@ -28,19 +28,134 @@ import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.RowCollectExpression;
 import io.crate.metadata.RowContextCollectorExpression;
+import io.crate.metadata.TableIdent;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
+import io.crate.planner.ColumnStats;
+import io.crate.planner.TableStatsService;
 import io.crate.protocols.postgres.types.PGType;
 import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.inject.Inject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class PgCatalogTables {
 
+    private final TableStatsService tableStatsService;
+
+    @Inject
+    public PgCatalogTables(TableStatsService tableStatsService) {
+        this.tableStatsService = tableStatsService;
+    }
+
     public Supplier<Iterable<?>> pgTypes() {
         return Suppliers.<Iterable<?>>ofInstance(PGTypes.pgTypes());
     }
 
+    public Supplier<Iterable<?>> pgStats() {
+        return () -> {
+            List<PgStatsRow> rows = new ArrayList<>();
+            for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStats>> table : tableStatsService.columnStats().entrySet()) {
+                for (Map.Entry<ColumnIdent, ColumnStats> column : table.getValue().entrySet()) {
+                    rows.add(new PgStatsRow(table.getKey(), column.getKey(), column.getValue()));
+                }
+            }
+            return rows;
+        };
+    }
+
+    static class PgStatsRow {
+
+        private final TableIdent table;
+        private final ColumnIdent column;
+        private final ColumnStats stats;
+
+        PgStatsRow(TableIdent table, ColumnIdent column, ColumnStats stats) {
+            this.table = table;
+            this.column = column;
+            this.stats = stats;
+        }
+    }
+
+    public static Map<ColumnIdent, RowCollectExpressionFactory> pgStatsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(PgStatsTable.Columns.SCHEMANAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.table.schema());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.TABLENAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.table.name());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.ATTNAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.column.sqlFqn());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.NULL_FRAC, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, Float>() {
+                        @Override
+                        public Float value() {
+                            return (float) row.stats.nullFraction();
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.N_DISTINCT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, Float>() {
+                        @Override
+                        public Float value() {
+                            return (float) row.stats.numDistinct();
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.HISTOGRAM_BOUNDS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<PgStatsRow, BytesRef[]>() {
+                        @Override
+                        public BytesRef[] value() {
+                            List<Object> bounds = row.stats.histogramBounds();
+                            BytesRef[] values = new BytesRef[bounds.size()];
+                            for (int i = 0; i < values.length; i++) {
+                                values[i] = DataTypes.STRING.value(bounds.get(i));
+                            }
+                            return values;
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
     public static Map<ColumnIdent, RowCollectExpressionFactory> pgTypeExpressions() {
         return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
             .put(PgTypeTable.Columns.OID, new RowCollectExpressionFactory() {
@@ -71,6 +71,17 @@ public class CrateTableSettings {
         null
     );
 
+    public static final StringSetting SOURCE_FORMAT = new StringSetting(
+        TableParameterInfo.SOURCE_FORMAT,
+        ImmutableSet.of("json",
+            "smile",
+            "cbor"
+        ),
+        true,
+        "json",
+        null
+    );
+
     public static final StringSetting RECOVERY_INITIAL_SHARDS = new StringSetting(
         TableParameterInfo.RECOVERY_INITIAL_SHARDS, null, true, "quorum", null);
 
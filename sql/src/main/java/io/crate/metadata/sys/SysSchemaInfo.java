@@ -55,6 +55,8 @@ public class SysSchemaInfo implements SchemaInfo {
             .put(SysNodeChecksTableInfo.IDENT.name(), new SysNodeChecksTableInfo(clusterService))
             .put(SysRepositoriesTableInfo.IDENT.name(), new SysRepositoriesTableInfo(clusterService))
             .put(SysSnapshotsTableInfo.IDENT.name(), new SysSnapshotsTableInfo(clusterService))
+            .put(SysStatementCacheTableInfo.IDENT.name(), new SysStatementCacheTableInfo(clusterService, sysNodesTableInfo))
+            .put(SysStatementsTableInfo.IDENT.name(), new SysStatementsTableInfo(clusterService, sysNodesTableInfo))
             .put(SysSummitsTableInfo.IDENT.name(), new SysSummitsTableInfo(clusterService))
             .build();
     }
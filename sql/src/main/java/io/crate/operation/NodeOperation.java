@@ -22,9 +22,11 @@
 package io.crate.operation;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.Version;
 import io.crate.planner.distribution.UpstreamPhase;
 import io.crate.planner.node.ExecutionPhase;
 import io.crate.planner.node.ExecutionPhases;
+import io.crate.planner.node.dql.MergePhase;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -47,15 +49,25 @@ public class NodeOperation implements Streamable {
     private Collection<String> downstreamNodes;
     private int downstreamExecutionPhaseId = NO_DOWNSTREAM;
     private byte downstreamExecutionPhaseInputId;
+    private boolean downstreamOrdered = true;
 
     public NodeOperation(ExecutionPhase executionPhase,
                          Collection<String> downstreamNodes,
                          int downstreamExecutionPhaseId,
                          byte downstreamExecutionPhaseInputId) {
+        this(executionPhase, downstreamNodes, downstreamExecutionPhaseId, downstreamExecutionPhaseInputId, true);
+    }
+
+    public NodeOperation(ExecutionPhase executionPhase,
+                         Collection<String> downstreamNodes,
+                         int downstreamExecutionPhaseId,
+                         byte downstreamExecutionPhaseInputId,
+                         boolean downstreamOrdered) {
         this.executionPhase = executionPhase;
         this.downstreamNodes = downstreamNodes;
         this.downstreamExecutionPhaseId = downstreamExecutionPhaseId;
         this.downstreamExecutionPhaseInputId = downstreamExecutionPhaseInputId;
+        this.downstreamOrdered = downstreamOrdered;
     }
 
     public NodeOperation(StreamInput in) throws IOException {
@@ -94,10 +106,16 @@ public class NodeOperation implements Streamable {
                 executionPhase,
                 downstreamExecutionPhase.nodeIds(),
                 downstreamExecutionPhase.phaseId(),
-                inputId);
+                inputId,
+                isOrdered(downstreamExecutionPhase));
         }
     }
 
+    private static boolean isOrdered(ExecutionPhase downstreamExecutionPhase) {
+        return !(downstreamExecutionPhase instanceof MergePhase)
+               || ((MergePhase) downstreamExecutionPhase).orderByPositions() != null;
+    }
+
     public ExecutionPhase executionPhase() {
         return executionPhase;
     }
@@ -110,6 +128,13 @@ public class NodeOperation implements Streamable {
         return downstreamExecutionPhaseId;
     }
 
+    /**
+     * @return true if the downstream phase may rely on the order in which the rows are sent to it
+     */
+    public boolean downstreamOrdered() {
+        return downstreamOrdered;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         executionPhase = ExecutionPhases.fromStream(in);
@@ -122,6 +147,9 @@ public class NodeOperation implements Streamable {
             executionNodes.add(in.readString());
         }
         this.downstreamNodes = executionNodes;
+        if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+            downstreamOrdered = in.readBoolean();
+        }
     }
 
     @Override
@@ -134,6 +162,9 @@ public class NodeOperation implements Streamable {
         for (String executionNode : downstreamNodes) {
             out.writeString(executionNode);
         }
+        if (out.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+            out.writeBoolean(downstreamOrdered);
+        }
     }
 
     @Override
@@ -142,6 +173,7 @@ public class NodeOperation implements Streamable {
                ", downstreamNodes=" + downstreamNodes +
                ", downstreamPhase=" + downstreamExecutionPhaseId +
                ", downstreamInputId=" + downstreamExecutionPhaseInputId +
+               ", downstreamOrdered=" + downstreamOrdered +
                '}';
     }
 
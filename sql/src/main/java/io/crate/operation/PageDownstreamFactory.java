@@ -26,6 +26,7 @@ import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.TransportActionProvider;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReplaceMode;
 import io.crate.operation.merge.IteratorPageDownstream;
@@ -47,6 +48,8 @@ import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+
 import java.util.concurrent.Executor;
 
 @Singleton
@@ -86,13 +89,28 @@ public class PageDownstreamFactory {
                                                         boolean requiresRepeatSupport,
                                                         RamAccountingContext ramAccountingContext,
                                                         Optional<Executor> executorOptional) {
+        return createMergeNodePageDownstream(
+            mergePhase, downstream, requiresRepeatSupport, ramAccountingContext, executorOptional, null);
+    }
+
+    /**
+     * @param profile if not null the rows received by the projectors are counted
+     */
+    public PageDownstream createMergeNodePageDownstream(MergePhase mergePhase,
+                                                        RowReceiver downstream,
+                                                        boolean requiresRepeatSupport,
+                                                        RamAccountingContext ramAccountingContext,
+                                                        Optional<Executor> executorOptional,
+                                                        @Nullable PhaseProfile profile) {
         if (!mergePhase.projections().isEmpty()) {
             FlatProjectorChain projectorChain = FlatProjectorChain.withAttachedDownstream(
                 projectionToProjectorVisitor,
                 ramAccountingContext,
                 mergePhase.projections(),
                 downstream,
-                mergePhase.jobId()
+                mergePhase.jobId(),
+                profile,
+                PhaseProfile.NODE_CHAIN
             );
             downstream = projectorChain.firstProjector();
         }
@@ -24,6 +24,7 @@ package io.crate.operation.aggregation;
 import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.operation.Input;
+import io.crate.types.DataType;
 
 import java.util.Locale;
 
@@ -33,6 +34,7 @@ import java.util.Locale;
  */
 public class Aggregator {
 
+    private final RamAccountingContext ramAccountingContext;
     private final Input[] inputs;
     private final AggregationFunction aggregationFunction;
     private final FromImpl fromImpl;
@@ -72,6 +74,7 @@ public class Aggregator {
                 throw new UnsupportedOperationException(String.format(Locale.ENGLISH, "invalid to step %s", a.toStep().name()));
         }
 
+        this.ramAccountingContext = ramAccountingContext;
         this.inputs = inputs;
         this.aggregationFunction = aggregationFunction;
     }
@@ -89,6 +92,21 @@ public class Aggregator {
         return toImpl.finishCollect(state);
     }
 
+    /**
+     * merge two states of this aggregator, e.g. states of the same group which were created independently
+     */
+    @SuppressWarnings("unchecked")
+    public Object reduce(Object state1, Object state2) {
+        return aggregationFunction.reduce(ramAccountingContext, state1, state2);
+    }
+
+    /**
+     * the type of the states returned by {@link #prepareState()} and {@link #processRow(Object)}
+     */
+    public DataType partialType() {
+        return aggregationFunction.partialType();
+    }
+
     abstract class FromImpl {
 
         protected final RamAccountingContext ramAccountingContext;
@@ -0,0 +1,120 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.exceptions.CircuitBreakingException;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+/**
+ * Approximates the number of distinct values using {@link HyperLogLogState}.
+ * <p>
+ * <code>hyperloglog_distinct(value [, precision])</code>
+ */
+class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLogLogState, Long> {
+
+    static final String NAME = "hyperloglog_distinct";
+
+    private final FunctionInfo info;
+
+    static {
+        DataTypes.register(HyperLogLogStateType.ID, HyperLogLogStateType.INSTANCE);
+    }
+
+    public static void register(AggregationImplModule mod) {
+        for (DataType<?> t : DataTypes.PRIMITIVE_TYPES) {
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t, DataTypes.INTEGER)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t, DataTypes.LONG)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+        }
+    }
+
+    HyperLogLogDistinctAggregation(FunctionInfo info) {
+        this.info = info;
+    }
+
+    @Override
+    public FunctionInfo info() {
+        return info;
+    }
+
+    @Override
+    public HyperLogLogState newState(RamAccountingContext ramAccountingContext) {
+        return HyperLogLogState.createEmptyState();
+    }
+
+    @Override
+    public HyperLogLogState iterate(RamAccountingContext ramAccountingContext,
+                                    HyperLogLogState state,
+                                    Input... args) throws CircuitBreakingException {
+        if (state.isEmpty()) {
+            int precision = HyperLogLogState.DEFAULT_PRECISION;
+            if (args.length > 1) {
+                Number precisionValue = (Number) args[1].value();
+                if (precisionValue == null) {
+                    throw new IllegalArgumentException("precision of " + NAME + " must not be null");
+                }
+                precision = precisionValue.intValue();
+            }
+            state.init(precision);
+        }
+        Object value = args[0].value();
+        if (value != null) {
+            state.add(ramAccountingContext, value);
+        }
+        return state;
+    }
+
+    @Override
+    public HyperLogLogState reduce(RamAccountingContext ramAccountingContext,
+                                   HyperLogLogState state1,
+                                   HyperLogLogState state2) {
+        if (state1.isEmpty()) {
+            return state2;
+        }
+        state1.merge(ramAccountingContext, state2);
+        return state1;
+    }
+
+    @Override
+    public Long terminatePartial(RamAccountingContext ramAccountingContext, HyperLogLogState state) {
+        return state.cardinality();
+    }
+
+    @Override
+    public DataType partialType() {
+        return HyperLogLogStateType.INSTANCE;
+    }
+}
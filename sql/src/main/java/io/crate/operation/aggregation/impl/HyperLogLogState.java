@@ -0,0 +1,312 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import io.crate.breaker.RamAccountingContext;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * HyperLogLog++ sketch (Heule, Nunkesser, Hall: "HyperLogLog in Practice") used to estimate the number of
+ * distinct values.
+ * <p>
+ * As long as there are only few values the hashes are kept in a sparse representation with a precision of
+ * {@link #SPARSE_PRECISION} bits, which is estimated using linear counting.
+ * Once the sparse set would use more memory than the registers it is converted to the dense representation
+ * with one byte per register.
+ * <p>
+ * The empirical bias correction of the paper is not applied, so the thresholds of the paper can't be used either:
+ * the raw estimate is far too high up to a few times the number of registers. As in the original HyperLogLog,
+ * linear counting is used as long as the raw estimate is at most 2.5 times the number of registers.
+ * <p>
+ * Values are hashed using murmur3 so that states created on different nodes can be merged.
+ */
+class HyperLogLogState {
+
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+    static final int DEFAULT_PRECISION = 14;
+
+    private static final int SPARSE_PRECISION = 25;
+
+    /**
+     * estimated size of an entry of the sparse set including the free slots of the hash set
+     */
+    private static final int SPARSE_ENTRY_BYTES = 8;
+
+    private final MurmurHash3.Hash128 hash128 = new MurmurHash3.Hash128();
+
+    private int precision = 0;
+    private IntHashSet sparse;
+    private byte[] registers;
+
+    static HyperLogLogState createEmptyState() {
+        return new HyperLogLogState();
+    }
+
+    private HyperLogLogState() {
+    }
+
+    boolean isEmpty() {
+        return precision == 0;
+    }
+
+    int precision() {
+        return precision;
+    }
+
+    boolean isSparse() {
+        return registers == null;
+    }
+
+    void init(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "precision must be between %d and %d, got %d", MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        this.precision = precision;
+        this.sparse = new IntHashSet();
+    }
+
+    void add(RamAccountingContext ramAccountingContext, Object value) {
+        add(ramAccountingContext, hash(value));
+    }
+
+    private void add(RamAccountingContext ramAccountingContext, long hash) {
+        if (registers == null) {
+            if (sparse.add(encodeSparse(hash))) {
+                ramAccountingContext.addBytes(SPARSE_ENTRY_BYTES);
+                maybeConvertToDense(ramAccountingContext);
+            }
+        } else {
+            int idx = (int) (hash >>> (64 - precision));
+            byte rho = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+            if (registers[idx] < rho) {
+                registers[idx] = rho;
+            }
+        }
+    }
+
+    /**
+     * merge the other state into this state. Both states must use the same precision
+     */
+    void merge(RamAccountingContext ramAccountingContext, HyperLogLogState other) {
+        if (other.isEmpty()) {
+            return;
+        }
+        if (isEmpty()) {
+            init(other.precision);
+        }
+        if (precision != other.precision) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Cannot merge HyperLogLog states with precision %d and %d", precision, other.precision));
+        }
+        if (other.registers == null) {
+            if (registers == null) {
+                for (IntCursor cursor : other.sparse) {
+                    if (sparse.add(cursor.value)) {
+                        ramAccountingContext.addBytes(SPARSE_ENTRY_BYTES);
+                    }
+                }
+                maybeConvertToDense(ramAccountingContext);
+            } else {
+                for (IntCursor cursor : other.sparse) {
+                    addSparseToRegisters(cursor.value);
+                }
+            }
+        } else {
+            if (registers == null) {
+                convertToDense(ramAccountingContext);
+            }
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] < other.registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        }
+    }
+
+    long cardinality() {
+        if (isEmpty()) {
+            return 0L;
+        }
+        if (registers == null) {
+            int m = 1 << SPARSE_PRECISION;
+            return Math.round(linearCounting(m, m - sparse.size()));
+        }
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (zeros > 0 && estimate <= 2.5 * m) {
+            return Math.round(linearCounting(m, zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    private static double linearCounting(int m, int zeros) {
+        return m * Math.log((double) m / zeros);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    private void maybeConvertToDense(RamAccountingContext ramAccountingContext) {
+        if ((long) sparse.size() * SPARSE_ENTRY_BYTES > (1 << precision)) {
+            convertToDense(ramAccountingContext);
+        }
+    }
+
+    private void convertToDense(RamAccountingContext ramAccountingContext) {
+        ramAccountingContext.addBytes(1 << precision);
+        registers = new byte[1 << precision];
+        for (IntCursor cursor : sparse) {
+            addSparseToRegisters(cursor.value);
+        }
+        sparse = null;
+    }
+
+    /**
+     * Encodes the hash using the sparse precision.
+     * If the bits of the index which aren't part of the dense index are all zero the number of leading zeros
+     * can't be derived from the index alone, so it is stored in addition:
+     * <pre>
+     *     [ index (25 bits) | rho (6 bits) | 1 ]   or   [ 0...0 | index (25 bits) | 0 ]
+     * </pre>
+     */
+    private int encodeSparse(long hash) {
+        int idx = (int) (hash >>> (64 - SPARSE_PRECISION));
+        if ((idx & ((1 << (SPARSE_PRECISION - precision)) - 1)) == 0) {
+            int rho = Long.numberOfLeadingZeros((hash << SPARSE_PRECISION) | (1L << (SPARSE_PRECISION - 1))) + 1;
+            return (idx << 7) | (rho << 1) | 1;
+        }
+        return idx << 1;
+    }
+
+    private void addSparseToRegisters(int encoded) {
+        int sparseIdx;
+        byte rho;
+        if ((encoded & 1) == 1) {
+            sparseIdx = encoded >>> 7;
+            rho = (byte) (((encoded >>> 1) & 0x3f) + (SPARSE_PRECISION - precision));
+        } else {
+            sparseIdx = encoded >>> 1;
+            int remainder = sparseIdx & ((1 << (SPARSE_PRECISION - precision)) - 1);
+            rho = (byte) (Integer.numberOfLeadingZeros(remainder) - (32 - (SPARSE_PRECISION - precision)) + 1);
+        }
+        int idx = sparseIdx >>> (SPARSE_PRECISION - precision);
+        if (registers[idx] < rho) {
+            registers[idx] = rho;
+        }
+    }
+
+    private long hash(Object value) {
+        if (value instanceof BytesRef) {
+            BytesRef bytesRef = (BytesRef) value;
+            return MurmurHash3.hash128(bytesRef.bytes, bytesRef.offset, bytesRef.length, 0, hash128).h1;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return mix64(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        if (value instanceof Number) {
+            return mix64(((Number) value).longValue());
+        }
+        if (value instanceof Boolean) {
+            return mix64((Boolean) value ? 1L : 0L);
+        }
+        throw new IllegalArgumentException("Cannot hash value of type " + value.getClass().getSimpleName());
+    }
+
+    /**
+     * finalization mix of murmur3 (fmix64)
+     */
+    private static long mix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    static void write(HyperLogLogState state, StreamOutput out) throws IOException {
+        out.writeVInt(state.precision);
+        if (state.isEmpty()) {
+            return;
+        }
+        if (state.registers == null) {
+            out.writeBoolean(true);
+            out.writeVInt(state.sparse.size());
+            for (IntCursor cursor : state.sparse) {
+                out.writeInt(cursor.value);
+            }
+        } else {
+            out.writeBoolean(false);
+            out.writeBytes(state.registers);
+        }
+    }
+
+    static HyperLogLogState read(StreamInput in) throws IOException {
+        HyperLogLogState state = new HyperLogLogState();
+        int precision = in.readVInt();
+        if (precision == 0) {
+            return state;
+        }
+        state.init(precision);
+        if (in.readBoolean()) {
+            int size = in.readVInt();
+            state.sparse = new IntHashSet(size);
+            for (int i = 0; i < size; i++) {
+                state.sparse.add(in.readInt());
+            }
+        } else {
+            state.sparse = null;
+            state.registers = new byte[1 << precision];
+            in.readBytes(state.registers, 0, state.registers.length);
+        }
+        return state;
+    }
+}
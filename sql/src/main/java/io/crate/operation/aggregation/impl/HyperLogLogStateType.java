@@ -0,0 +1,80 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import io.crate.Streamer;
+import io.crate.types.DataType;
+import io.crate.types.DataTypeFactory;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+class HyperLogLogStateType extends DataType<HyperLogLogState> implements Streamer<HyperLogLogState>, DataTypeFactory {
+
+    static final int ID = 32768;
+    public static final HyperLogLogStateType INSTANCE = new HyperLogLogStateType();
+
+    private HyperLogLogStateType() {
+    }
+
+    @Override
+    public DataType<?> create() {
+        return INSTANCE;
+    }
+
+    @Override
+    public HyperLogLogState readValueFrom(StreamInput in) throws IOException {
+        return HyperLogLogState.read(in);
+    }
+
+    @Override
+    public void writeValueTo(StreamOutput out, Object v) throws IOException {
+        HyperLogLogState.write((HyperLogLogState) v, out);
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "hyperloglog_state";
+    }
+
+    @Override
+    public Streamer<?> streamer() {
+        return this;
+    }
+
+    @Override
+    public HyperLogLogState value(Object value) throws IllegalArgumentException, ClassCastException {
+        return (HyperLogLogState) value;
+    }
+
+    @Override
+    public int compareValueTo(HyperLogLogState val1, HyperLogLogState val2) {
+        return 0;
+    }
+}
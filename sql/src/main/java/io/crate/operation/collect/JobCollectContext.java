@@ -30,6 +30,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.action.job.SharedShardContexts;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.AbstractExecutionSubContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.RowGranularity;
 import io.crate.operation.projectors.ListenableRowReceiver;
 import io.crate.operation.projectors.RepeatHandle;
@@ -63,6 +64,8 @@ public class JobCollectContext extends AbstractExecutionSubContext {
     private final Object subContextLock = new Object();
     private final ListenableRowReceiver listenableRowReceiver;
     private final String threadPoolName;
+    @Nullable
+    private final PhaseProfile profile;
 
     private Collection<CrateCollector> collectors;
 
@@ -72,7 +75,19 @@ public class JobCollectContext extends AbstractExecutionSubContext {
                              RamAccountingContext queryPhaseRamAccountingContext,
                              final RowReceiver rowReceiver,
                              SharedShardContexts sharedShardContexts) {
+        this(collectPhase, collectOperation, localNodeId, queryPhaseRamAccountingContext, rowReceiver,
+            sharedShardContexts, null);
+    }
+
+    public JobCollectContext(final CollectPhase collectPhase,
+                             MapSideDataCollectOperation collectOperation,
+                             String localNodeId,
+                             RamAccountingContext queryPhaseRamAccountingContext,
+                             final RowReceiver rowReceiver,
+                             SharedShardContexts sharedShardContexts,
+                             @Nullable PhaseProfile profile) {
         super(collectPhase.phaseId(), LOGGER);
+        this.profile = profile;
         this.collectPhase = collectPhase;
         this.collectOperation = collectOperation;
         this.queryPhaseRamAccountingContext = queryPhaseRamAccountingContext;
@@ -196,6 +211,14 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         return queryPhaseRamAccountingContext;
     }
 
+    /**
+     * @return the profile of the collect phase or null if the job isn't profiled
+     */
+    @Nullable
+    public PhaseProfile profile() {
+        return profile;
+    }
+
     public SharedShardContexts sharedShardContexts() {
         return sharedShardContexts;
     }
@@ -33,6 +33,7 @@ import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.operation.InputFactory;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import io.crate.operation.collect.collectors.CrateDocCollector;
+import io.crate.operation.collect.collectors.DocRange;
 import io.crate.operation.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
 import io.crate.operation.projectors.Requirement;
@@ -51,13 +52,20 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Executor;
 
 public class LuceneShardCollectorProvider extends ShardCollectorProvider {
 
     private static final ESLogger LOGGER = Loggers.getLogger(LuceneShardCollectorProvider.class);
 
+    /**
+     * splitting a shard only pays off if each part has a decent amount of documents
+     */
+    private static final int MIN_DOCS_PER_PARTITION = 100_000;
+
     private final ThreadPool threadPool;
     private final String localNodeId;
     private final LuceneQueryBuilder luceneQueryBuilder;
@@ -88,33 +96,55 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     protected CrateCollector.Builder getBuilder(RoutedCollectPhase collectPhase,
                                                 Set<Requirement> downstreamRequirements,
                                                 JobCollectContext jobCollectContext) {
+        return getBuilders(collectPhase, downstreamRequirements, jobCollectContext, 1).get(0);
+    }
+
+    @Override
+    protected List<CrateCollector.Builder> getBuilders(RoutedCollectPhase collectPhase,
+                                                       Set<Requirement> downstreamRequirements,
+                                                       JobCollectContext jobCollectContext,
+                                                       int maxConcurrency) {
         SharedShardContext sharedShardContext = jobCollectContext.sharedShardContexts().getOrCreateContext(indexShard.shardId());
         Engine.Searcher searcher = sharedShardContext.acquireSearcher();
         IndexShard indexShard = sharedShardContext.indexShard();
         try {
-            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
-                collectPhase.whereClause(),
-                indexShard.mapperService(),
-                indexShard.indexFieldDataService(),
-                indexShard.indexService().cache()
-            );
+            List<List<DocRange>> partitions;
+            if (maxConcurrency > 1) {
+                partitions = DocRange.partition(searcher.reader().leaves(), maxConcurrency, MIN_DOCS_PER_PARTITION);
+            } else {
+                partitions = Collections.singletonList(null);
+            }
+            List<CrateCollector.Builder> builders = new ArrayList<>(partitions.size());
+            for (List<DocRange> partition : partitions) {
+                // the query and the expressions hold per collector state, so every partition needs its own
+                LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                    collectPhase.whereClause(),
+                    indexShard.mapperService(),
+                    indexShard.indexFieldDataService(),
+                    indexShard.indexService().cache()
+                );
+                InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
+                    docInputFactory.extractImplementations(collectPhase);
+                builders.add(new CrateDocCollector.Builder(
+                    indexShard.shardId(),
+                    searcher.searcher(),
+                    queryContext.query(),
+                    queryContext.minScore(),
+                    threadPool.executor(ThreadPool.Names.SEARCH),
+                    Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
+                    getCollectorContext(sharedShardContext.readerId(), docCtx),
+                    jobCollectContext.queryPhaseRamAccountingContext(),
+                    docCtx.topLevelInputs(),
+                    docCtx.expressions(),
+                    partitions.size() == 1 ? null : partition,
+                    queryContext.segmentFilter()
+                ));
+            }
             jobCollectContext.addSearcher(sharedShardContext.readerId(), searcher);
-            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
-                docInputFactory.extractImplementations(collectPhase);
-            Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
-
-            return new CrateDocCollector.Builder(
-                indexShard.shardId(),
-                searcher.searcher(),
-                queryContext.query(),
-                queryContext.minScore(),
-                executor,
-                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-                getCollectorContext(sharedShardContext.readerId(), docCtx),
-                jobCollectContext.queryPhaseRamAccountingContext(),
-                docCtx.topLevelInputs(),
-                docCtx.expressions()
-            );
+            if (LOGGER.isTraceEnabled() && builders.size() > 1) {
+                LOGGER.trace("[{}] collecting shard in {} partitions", indexShard.shardId(), builders.size());
+            }
+            return builders;
         } catch (Throwable t) {
             searcher.close();
             throw t;
@@ -168,7 +198,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             collectPhase.orderBy(),
             LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputFactory),
             ctx.topLevelInputs(),
-            ctx.expressions()
+            ctx.expressions(),
+            queryContext.segmentFilter()
         );
     }
 
@@ -26,6 +26,7 @@ import io.crate.action.job.SharedShardContext;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.TransportActionProvider;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.AbstractReferenceResolver;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReplaceMode;
@@ -46,7 +47,9 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -119,33 +122,68 @@ public abstract class ShardCollectorProvider {
     public CrateCollector.Builder getCollectorBuilder(RoutedCollectPhase collectPhase,
                                                       Set<Requirement> downstreamRequirements,
                                                       JobCollectContext jobCollectContext) throws Exception {
+        return getCollectorBuilders(collectPhase, downstreamRequirements, jobCollectContext, 1).get(0);
+    }
+
+    /**
+     * Like {@link #getCollectorBuilder(RoutedCollectPhase, Set, JobCollectContext)} but may split the shard into
+     * up to <code>maxConcurrency</code> parts which can be collected concurrently.
+     * <p>
+     * Each builder creates its own shard-level projectors, so the builders must only be used if the shard
+     * projections produce correct results on a subset of the shard.
+     */
+    public List<CrateCollector.Builder> getCollectorBuilders(RoutedCollectPhase collectPhase,
+                                                             Set<Requirement> downstreamRequirements,
+                                                             JobCollectContext jobCollectContext,
+                                                             int maxConcurrency) throws Exception {
         assert collectPhase.orderBy() ==
                null : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, null);
 
-        final CrateCollector.Builder builder;
+        final List<CrateCollector.Builder> builders;
         if (normalizedCollectNode.whereClause().noMatch()) {
-            builder = RowsCollector.emptyBuilder();
+            builders = Collections.singletonList(RowsCollector.emptyBuilder());
         } else {
             assert normalizedCollectNode.maxRowGranularity() == RowGranularity.DOC : "granularity must be DOC";
-            builder = getBuilder(normalizedCollectNode, downstreamRequirements, jobCollectContext);
+            if (maxConcurrency > 1) {
+                builders = getBuilders(normalizedCollectNode, downstreamRequirements, jobCollectContext, maxConcurrency);
+            } else {
+                builders = Collections.singletonList(
+                    getBuilder(normalizedCollectNode, downstreamRequirements, jobCollectContext));
+            }
         }
 
         Collection<? extends Projection> shardProjections = Projections.shardProjections(collectPhase.projections());
         if (shardProjections.isEmpty()) {
-            return builder;
-        } else {
-            final FlatProjectorChain.Builder chainBuilder = new FlatProjectorChain.Builder(
-                normalizedCollectNode.jobId(),
-                jobCollectContext.queryPhaseRamAccountingContext(),
-                projectorFactory,
-                shardProjections
-            );
-            return rowReceiver -> {
+            return builders;
+        }
+        final FlatProjectorChain.Builder chainBuilder = new FlatProjectorChain.Builder(
+            normalizedCollectNode.jobId(),
+            jobCollectContext.queryPhaseRamAccountingContext(),
+            projectorFactory,
+            shardProjections,
+            jobCollectContext.profile(),
+            PhaseProfile.SHARD_CHAIN
+        );
+        List<CrateCollector.Builder> buildersWithProjections = new ArrayList<>(builders.size());
+        for (final CrateCollector.Builder builder : builders) {
+            buildersWithProjections.add(rowReceiver -> {
                 FlatProjectorChain chain = chainBuilder.build(rowReceiver);
                 return builder.build(chain.firstProjector());
-            };
+            });
         }
+        return buildersWithProjections;
+    }
+
+    /**
+     * Create builders which collect disjoint parts of the shard.
+     * The default implementation doesn't split the shard.
+     */
+    protected List<CrateCollector.Builder> getBuilders(RoutedCollectPhase collectPhase,
+                                                       Set<Requirement> downstreamRequirements,
+                                                       JobCollectContext jobCollectContext,
+                                                       int maxConcurrency) {
+        return Collections.singletonList(getBuilder(collectPhase, downstreamRequirements, jobCollectContext));
     }
 
     protected abstract CrateCollector.Builder getBuilder(RoutedCollectPhase collectPhase,
@@ -0,0 +1,311 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import io.crate.action.sql.QueryLexer;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the statements executed on this node, aggregated by the fingerprint of the statement.
+ * <p>
+ * The fingerprint is the statement with all literals replaced by <code>?</code> and whitespace collapsed, so
+ * statements which only differ in their values share an entry.
+ * Each entry is updated under its own lock, so that statements of different shapes don't contend.
+ * <p>
+ * The number of entries is limited. Once the limit is reached the least recently executed entries are evicted
+ * to make room for new fingerprints; {@link #EVICTED_PERCENT} of the entries at once, so that the entries
+ * don't have to be scanned for each new fingerprint.
+ */
+@ThreadSafe
+public class StatementStats {
+
+    public final static String SIZE_SETTING = "node.sql.statement_stats.size";
+    public final static int DEFAULT_SIZE = 1000;
+
+    static final int EVICTED_PERCENT = 5;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    // logical clock to order the executions, the wall clock doesn't distinguish executions within the same millisecond
+    private final AtomicLong executions = new AtomicLong(0);
+    private final Object evictionLock = new Object();
+
+    public StatementStats(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public void record(String statement, long durationNanos, boolean failed, long rows, long usedBytes) {
+        String fingerprint = fingerprint(statement);
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                evictLeastRecentlyExecuted();
+            }
+            entry = new Entry(fingerprint, executions.incrementAndGet());
+            Entry existing = entries.putIfAbsent(fingerprint, entry);
+            if (existing != null) {
+                entry = existing;
+            }
+        }
+        entry.record(durationNanos, failed, rows, usedBytes, executions.incrementAndGet());
+    }
+
+    private void evictLeastRecentlyExecuted() {
+        synchronized (evictionLock) {
+            if (entries.size() < maxEntries) {
+                // another thread has already evicted entries
+                return;
+            }
+            // the execution of an entry may change while sorting, so it's sorted by a snapshot
+            List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                candidates.add(new EvictionCandidate(entry, entry.lastExecution()));
+            }
+            Collections.sort(candidates);
+            int numEvicted = Math.max(1, maxEntries * EVICTED_PERCENT / 100);
+            for (int i = 0; i < numEvicted && i < candidates.size(); i++) {
+                Entry entry = candidates.get(i).entry;
+                entries.remove(entry.fingerprint(), entry);
+            }
+        }
+    }
+
+    private static class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+        private final Entry entry;
+        private final long lastExecution;
+
+        EvictionCandidate(Entry entry, long lastExecution) {
+            this.entry = entry;
+            this.lastExecution = lastExecution;
+        }
+
+        @Override
+        public int compareTo(EvictionCandidate o) {
+            return Long.compare(lastExecution, o.lastExecution);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Iterable<Entry> entries() {
+        return entries.values();
+    }
+
+    /**
+     * @return the statement with string and numeric literals replaced by <code>?</code>,
+     * comments removed and whitespace collapsed into a single space
+     */
+    static String fingerprint(String statement) {
+        StringBuilder sb = new StringBuilder(statement.length());
+        boolean pendingSpace = false;
+        QueryLexer lexer = new QueryLexer(statement);
+        while (lexer.next()) {
+            QueryLexer.TokenType type = lexer.type();
+            if (type == QueryLexer.TokenType.WHITESPACE || type == QueryLexer.TokenType.COMMENT) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (type == QueryLexer.TokenType.STRING || type == QueryLexer.TokenType.NUMBER) {
+                sb.append('?');
+            } else {
+                sb.append(statement, lexer.start(), lexer.end());
+            }
+        }
+        int last = sb.length() - 1;
+        while (last >= 0 && (sb.charAt(last) == ';' || sb.charAt(last) == ' ')) {
+            sb.setLength(last);
+            last--;
+        }
+        return sb.toString();
+    }
+
+    public static class Entry {
+
+        private final String fingerprint;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private long calls = 0;
+        private long errors = 0;
+        private long totalNanos = 0;
+        private long minNanos = Long.MAX_VALUE;
+        private long maxNanos = 0;
+        private long rows = 0;
+        private long usedBytes = 0;
+        private long lastExecuted = 0;
+        private long lastExecution;
+
+        Entry(String fingerprint, long execution) {
+            this.fingerprint = fingerprint;
+            this.lastExecution = execution;
+        }
+
+        synchronized void record(long durationNanos, boolean failed, long rows, long usedBytes, long execution) {
+            calls++;
+            if (failed) {
+                errors++;
+            }
+            totalNanos += durationNanos;
+            minNanos = Math.min(minNanos, durationNanos);
+            maxNanos = Math.max(maxNanos, durationNanos);
+            this.rows += rows;
+            this.usedBytes += usedBytes;
+            lastExecuted = System.currentTimeMillis();
+            lastExecution = Math.max(lastExecution, execution);
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        }
+
+        public String fingerprint() {
+            return fingerprint;
+        }
+
+        public synchronized long calls() {
+            return calls;
+        }
+
+        public synchronized long errors() {
+            return errors;
+        }
+
+        /**
+         * @return the total execution time in milliseconds
+         */
+        public synchronized double totalTime() {
+            return toMillis(totalNanos);
+        }
+
+        public synchronized double meanTime() {
+            return calls == 0 ? 0.0 : toMillis(totalNanos) / calls;
+        }
+
+        public synchronized double minTime() {
+            return calls == 0 ? 0.0 : toMillis(minNanos);
+        }
+
+        public synchronized double maxTime() {
+            return toMillis(maxNanos);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the execution time in milliseconds which isn't exceeded by the given percentage of the calls
+         */
+        public synchronized double percentileTime(double percentile) {
+            return histogram.percentile(percentile) / 1000.0;
+        }
+
+        public synchronized long rows() {
+            return rows;
+        }
+
+        public synchronized long usedBytes() {
+            return usedBytes;
+        }
+
+        public synchronized long lastExecuted() {
+            return lastExecuted;
+        }
+
+        synchronized long lastExecution() {
+            return lastExecution;
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Histogram with logarithmic buckets, each power of two is split into {@link #SUB_BUCKETS} linear buckets.
+     * <p>
+     * This bounds the relative error of a percentile to 1 / {@link #SUB_BUCKETS} independent of the magnitude of
+     * the values while using a fixed amount of memory.
+     */
+    static class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // values below 2 * SUB_BUCKETS are recorded exactly
+        private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+        private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+
+        private final long[] counts = new long[LINEAR_BUCKETS + (64 - LINEAR_BITS) * SUB_BUCKETS];
+        private long total = 0;
+
+        void record(long value) {
+            counts[bucket(Math.max(0L, value))]++;
+            total++;
+        }
+
+        static int bucket(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_BUCKETS + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * @return the largest value which falls into the bucket
+         */
+        static long upperBound(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_BITS;
+            int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+            long lower = (1L << exponent) | ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+            return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        long percentile(double percentile) {
+            if (total == 0) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+    }
+}
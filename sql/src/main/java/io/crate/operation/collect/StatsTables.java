@@ -68,7 +68,9 @@ public class StatsTables {
     private final JobsIterableGetter jobsIterableGetter;
     private final OperationsIterableGetter operationsIterableGetter;
     private final OperationsLogIterableGetter operationsLogIterableGetter;
+    private final StatementsIterableGetter statementsIterableGetter;
     private final LongAdder activeRequests = new LongAdder();
+    private final StatementStats statementStats;
 
     protected final NodeSettingsService.Listener listener = new NodeSettingListener();
     private int initialOperationsLogSize;
@@ -83,6 +85,7 @@ public class StatsTables {
         int operationsLogSize = CrateSettings.STATS_OPERATIONS_LOG_SIZE.extract(settings);
         int jobsLogSize = CrateSettings.STATS_JOBS_LOG_SIZE.extract(settings);
         boolean isEnabled = CrateSettings.STATS_ENABLED.extract(settings);
+        statementStats = new StatementStats(settings.getAsInt(StatementStats.SIZE_SETTING, StatementStats.DEFAULT_SIZE));
 
         if (isEnabled) {
             setJobsLog(jobsLogSize);
@@ -104,6 +107,7 @@ public class StatsTables {
         jobsIterableGetter = new JobsIterableGetter();
         operationsIterableGetter = new OperationsIterableGetter();
         operationsLogIterableGetter = new OperationsLogIterableGetter();
+        statementsIterableGetter = new StatementsIterableGetter();
     }
 
     /**
@@ -141,6 +145,16 @@ public class StatsTables {
      * If {@link #isEnabled()} is false this method won't do anything.
      */
     public void logExecutionEnd(UUID jobId, @Nullable String errorMessage) {
+        logExecutionEnd(jobId, errorMessage, 0L);
+    }
+
+    /**
+     * mark a job as finished and add its duration, the number of returned rows and the bytes used by
+     * its operations on this node to the statistics of the statement (see {@link StatementStats}).
+     * <p>
+     * If {@link #isEnabled()} is false this method won't do anything.
+     */
+    public void logExecutionEnd(UUID jobId, @Nullable String errorMessage, long rows) {
         activeRequests.decrement();
         JobContext jobContext = jobsTable.remove(jobId);
         if (!isEnabled() || jobContext == null) {
@@ -148,6 +162,12 @@ public class StatsTables {
         }
         Queue<JobContextLog> jobContextLogs = jobsLog.get();
         jobContextLogs.offer(new JobContextLog(jobContext, errorMessage));
+        statementStats.record(
+            jobContext.stmt,
+            System.nanoTime() - jobContext.startedNanos,
+            errorMessage != null,
+            rows,
+            jobContext.usedBytes.longValue());
     }
 
     /**
@@ -181,6 +201,10 @@ public class StatsTables {
             return;
         }
         operationContext.usedBytes = usedBytes;
+        JobContext jobContext = jobsTable.get(jobId);
+        if (jobContext != null && usedBytes > 0) {
+            jobContext.usedBytes.add(usedBytes);
+        }
         Queue<OperationContextLog> operationContextLogs = operationsLog.get();
         operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
     }
@@ -202,6 +226,10 @@ public class StatsTables {
         return operationsLogIterableGetter;
     }
 
+    public Supplier<Iterable<?>> statementsGetter() {
+        return statementsIterableGetter;
+    }
+
     public long activeRequests() {
         return activeRequests.longValue();
     }
@@ -238,6 +266,14 @@ public class StatsTables {
         }
     }
 
+    private class StatementsIterableGetter implements Supplier<Iterable<?>> {
+
+        @Override
+        public Iterable<?> get() {
+            return statementStats.entries();
+        }
+    }
+
     private void setOperationsLog(int size) {
         if (size == 0) {
             operationsLog.set(NOOP_OPERATIONS_LOG);
@@ -283,6 +319,7 @@ public class StatsTables {
             } else if (wasEnabled) { // !becomesEnabled
                 setOperationsLog(0);
                 setJobsLog(0);
+                statementStats.clear();
                 lastIsEnabled = false;
 
                 lastOperationsLogSize = extractOperationsLogSize(settings);
@@ -25,6 +25,7 @@ package io.crate.operation.collect.collectors;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
+import io.crate.lucene.SegmentRangeFilter;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CollectionFinishedEarlyException;
@@ -65,6 +66,10 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     private final State state = new State();
     private final ExecutorResumeHandle resumeable;
     private final boolean doScores;
+    @Nullable
+    private final List<DocRange> docRanges;
+    @Nullable
+    private final SegmentRangeFilter segmentFilter;
 
     public static class Builder implements CrateCollector.Builder {
 
@@ -78,6 +83,10 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         private final RamAccountingContext ramAccountingContext;
         private final List<Input<?>> inputs;
         private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+        @Nullable
+        private final List<DocRange> docRanges;
+        @Nullable
+        private final SegmentRangeFilter segmentFilter;
 
         public Builder(ShardId shardId,
                        IndexSearcher indexSearcher,
@@ -89,6 +98,26 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                        RamAccountingContext ramAccountingContext,
                        List<Input<?>> inputs,
                        Collection<? extends LuceneCollectorExpression<?>> expressions) {
+            this(shardId, indexSearcher, query, minScore, executor, doScores, collectorContext, ramAccountingContext,
+                inputs, expressions, null, null);
+        }
+
+        /**
+         * @param docRanges     the doc ranges to collect, if null all documents of the searcher are collected
+         * @param segmentFilter used to skip segments which can't match the query, may be null
+         */
+        public Builder(ShardId shardId,
+                       IndexSearcher indexSearcher,
+                       Query query,
+                       Float minScore,
+                       Executor executor,
+                       boolean doScores,
+                       CollectorContext collectorContext,
+                       RamAccountingContext ramAccountingContext,
+                       List<Input<?>> inputs,
+                       Collection<? extends LuceneCollectorExpression<?>> expressions,
+                       @Nullable List<DocRange> docRanges,
+                       @Nullable SegmentRangeFilter segmentFilter) {
             this.shardId = shardId;
             this.indexSearcher = indexSearcher;
             this.query = query;
@@ -99,6 +128,8 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             this.ramAccountingContext = ramAccountingContext;
             this.inputs = inputs;
             this.expressions = expressions;
+            this.docRanges = docRanges;
+            this.segmentFilter = segmentFilter;
         }
 
         @Override
@@ -114,7 +145,9 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                 ramAccountingContext,
                 rowReceiver,
                 inputs,
-                expressions
+                expressions,
+                docRanges,
+                segmentFilter
             );
         }
     }
@@ -130,7 +163,26 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                              RowReceiver rowReceiver,
                              List<Input<?>> inputs,
                              Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(shardId, indexSearcher, query, minScore, executor, doScores, collectorContext, ramAccountingContext,
+            rowReceiver, inputs, expressions, null, null);
+    }
+
+    public CrateDocCollector(ShardId shardId,
+                             IndexSearcher indexSearcher,
+                             Query query,
+                             Float minScore,
+                             Executor executor,
+                             boolean doScores,
+                             CollectorContext collectorContext,
+                             RamAccountingContext ramAccountingContext,
+                             RowReceiver rowReceiver,
+                             List<Input<?>> inputs,
+                             Collection<? extends LuceneCollectorExpression<?>> expressions,
+                             @Nullable List<DocRange> docRanges,
+                             @Nullable SegmentRangeFilter segmentFilter) {
         this.shardId = shardId;
+        this.docRanges = docRanges;
+        this.segmentFilter = segmentFilter;
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.collectorContext = collectorContext;
@@ -152,7 +204,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             @Override
             public void run() {
                 traceLog("resume collect");
-                innerCollect(state.collector, state.weight, state.leaveIt, state.bulkScorer, state.leaf);
+                innerCollect(state.collector, state.weight, state.rangesIt, state.bulkScorer, state.leaf);
             }
         });
     }
@@ -181,10 +233,10 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         }
 
         Weight weight;
-        Iterator<LeafReaderContext> leavesIt;
+        Iterator<DocRange> rangesIt;
         try {
             weight = indexSearcher.createNormalizedWeight(query, doScores);
-            leavesIt = indexSearcher.getTopReaderContext().leaves().iterator();
+            rangesIt = docRanges().iterator();
         } catch (Throwable e) {
             fail(e);
             return;
@@ -192,15 +244,22 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         // these won't change anymore, so safe the state once in case there is a pause or resume
         state.collector = collector;
         state.weight = weight;
-        state.leaveIt = leavesIt;
+        state.rangesIt = rangesIt;
 
-        innerCollect(collector, weight, leavesIt, null, null);
+        innerCollect(collector, weight, rangesIt, null, null);
     }
 
-    private void innerCollect(SimpleCollector collector, Weight weight, Iterator<LeafReaderContext> leavesIt,
+    private List<DocRange> docRanges() {
+        if (docRanges == null) {
+            return DocRange.of(indexSearcher.getTopReaderContext().leaves());
+        }
+        return docRanges;
+    }
+
+    private void innerCollect(SimpleCollector collector, Weight weight, Iterator<DocRange> rangesIt,
                               @Nullable BulkScorer scorer, @Nullable LeafReaderContext leaf) {
         try {
-            if (collectLeaves(collector, weight, leavesIt, scorer, leaf) == RowReceiver.Result.PAUSE) {
+            if (collectLeaves(collector, weight, rangesIt, scorer, leaf) == RowReceiver.Result.PAUSE) {
                 traceLog("paused collect");
             } else {
                 finishCollect();
@@ -224,21 +283,25 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
 
     private RowReceiver.Result collectLeaves(SimpleCollector collector,
                                              Weight weight,
-                                             Iterator<LeafReaderContext> leaves,
+                                             Iterator<DocRange> ranges,
                                              @Nullable BulkScorer bulkScorer,
                                              @Nullable LeafReaderContext leaf) throws IOException {
         if (bulkScorer != null) {
             assert leaf != null : "leaf must not be null if bulkScorer isn't null";
             if (processScorer(collector, leaf, bulkScorer)) return RowReceiver.Result.PAUSE;
         }
-        while (leaves.hasNext()) {
-            leaf = leaves.next();
+        while (ranges.hasNext()) {
+            DocRange range = ranges.next();
+            leaf = range.leaf;
+            if (segmentFilter != null && !segmentFilter.canMatch(leaf.reader())) {
+                continue;
+            }
             LeafCollector leafCollector = collector.getLeafCollector(leaf);
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
             }
-            bulkScorer = new DefaultBulkScorer(scorer);
+            bulkScorer = new DefaultBulkScorer(scorer, range.minDoc, range.maxDoc);
             if (processScorer(leafCollector, leaf, bulkScorer)) return RowReceiver.Result.PAUSE;
         }
         return RowReceiver.Result.CONTINUE;
@@ -265,13 +328,13 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     @Override
     public void repeat() {
         debugLog("repeat collect");
-        Iterator<LeafReaderContext> iterator = indexSearcher.getTopReaderContext().leaves().iterator();
+        Iterator<DocRange> iterator = docRanges().iterator();
         innerCollect(state.collector, state.weight, iterator, null, null);
     }
 
     static class State {
         BulkScorer bulkScorer;
-        Iterator<LeafReaderContext> leaveIt;
+        Iterator<DocRange> rangesIt;
         SimpleCollector collector;
         Weight weight;
         LeafReaderContext leaf;
@@ -353,10 +416,14 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
 
         private final Scorer scorer;
         private final DocIdSetIterator iterator;
+        private final int minDoc;
+        private final int maxDoc;
 
-        DefaultBulkScorer(Scorer scorer) {
+        DefaultBulkScorer(Scorer scorer, int minDoc, int maxDoc) {
             this.scorer = scorer;
             this.iterator = scorer.iterator();
+            this.minDoc = minDoc;
+            this.maxDoc = maxDoc;
         }
 
         @Override
@@ -364,7 +431,9 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             // TODO: figure out if min/max can be used to optimize this and still work correctly with pause/resume
             // and also check if twoPhaseIterator can be used
             collector.setScorer(scorer);
-            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            // on resume the iterator is still positioned on the last collected doc
+            int doc = iterator.docID() == -1 ? iterator.advance(minDoc) : iterator.nextDoc();
+            for (; doc < maxDoc; doc = iterator.nextDoc()) {
                 if (acceptDocs == null || acceptDocs.get(doc)) {
                     collector.collect(doc);
                 }
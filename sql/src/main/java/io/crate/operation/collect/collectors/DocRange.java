@@ -0,0 +1,105 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A range of doc ids within a segment that is collected by a {@link CrateDocCollector}.
+ */
+public final class DocRange {
+
+    final LeafReaderContext leaf;
+    final int minDoc;
+    final int maxDoc;
+
+    DocRange(LeafReaderContext leaf, int minDoc, int maxDoc) {
+        assert minDoc < maxDoc : "range must not be empty";
+        this.leaf = leaf;
+        this.minDoc = minDoc;
+        this.maxDoc = maxDoc;
+    }
+
+    /**
+     * @return ranges covering all documents of the given leaves
+     */
+    public static List<DocRange> of(List<LeafReaderContext> leaves) {
+        List<DocRange> ranges = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            int maxDoc = leaf.reader().maxDoc();
+            if (maxDoc > 0) {
+                ranges.add(new DocRange(leaf, 0, maxDoc));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Splits the documents of the given leaves into up to <code>numPartitions</code> partitions of about the same size.
+     * Leaves which are larger than a partition are split into multiple ranges.
+     * <p>
+     * Each partition contains at least <code>minDocsPerPartition</code> documents,
+     * so small shards result in less partitions or a single one.
+     */
+    public static List<List<DocRange>> partition(List<LeafReaderContext> leaves, int numPartitions, int minDocsPerPartition) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        numPartitions = (int) Math.min(numPartitions, totalDocs / Math.max(1, minDocsPerPartition));
+        if (numPartitions <= 1) {
+            return Collections.singletonList(of(leaves));
+        }
+        long docsPerPartition = (totalDocs + numPartitions - 1) / numPartitions;
+        List<List<DocRange>> partitions = new ArrayList<>(numPartitions);
+        List<DocRange> partition = new ArrayList<>();
+        long remaining = docsPerPartition;
+        for (LeafReaderContext leaf : leaves) {
+            int maxDoc = leaf.reader().maxDoc();
+            int doc = 0;
+            while (doc < maxDoc) {
+                int end = (int) Math.min(maxDoc, doc + remaining);
+                partition.add(new DocRange(leaf, doc, end));
+                remaining -= end - doc;
+                doc = end;
+                if (remaining == 0) {
+                    partitions.add(partition);
+                    partition = new ArrayList<>();
+                    remaining = docsPerPartition;
+                }
+            }
+        }
+        if (!partition.isEmpty()) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    @Override
+    public String toString() {
+        return "DocRange{leaf=" + leaf.ord + ", minDoc=" + minDoc + ", maxDoc=" + maxDoc + '}';
+    }
+}
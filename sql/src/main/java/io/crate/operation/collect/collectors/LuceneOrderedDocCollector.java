@@ -28,12 +28,16 @@ import io.crate.analyze.OrderBy;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Row;
 import io.crate.lucene.QueryBuilderHelper;
+import io.crate.lucene.SegmentMinMax;
+import io.crate.lucene.SegmentRangeFilter;
 import io.crate.metadata.Reference;
+import io.crate.metadata.RowGranularity;
 import io.crate.operation.Input;
 import io.crate.operation.merge.KeyIterable;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneMissingValue;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.*;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -61,6 +65,10 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private final ScoreDocRowFunction rowFunction;
     private final DummyScorer scorer;
     private final IndexSearcher searcher;
+    @Nullable
+    private final SegmentRangeFilter segmentFilter;
+    @Nullable
+    private final Reference firstOrderColumn;
 
     private final Object[] missingValues;
 
@@ -77,7 +85,8 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
                                      OrderBy orderBy,
                                      Sort sort,
                                      List<Input<?>> inputs,
-                                     Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                                     Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                     @Nullable SegmentRangeFilter segmentFilter) {
         super(shardId);
         this.searcher = searcher;
         this.query = query;
@@ -89,6 +98,8 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         this.sort = sort;
         this.scorer = new DummyScorer();
         this.expressions = expressions;
+        this.segmentFilter = segmentFilter;
+        this.firstOrderColumn = segmentOrderColumn(orderBy);
         this.rowFunction = new ScoreDocRowFunction(
             searcher.getIndexReader(),
             inputs,
@@ -132,7 +143,8 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
-        searcher.search(query, collector);
+        // with a minScore not every document passed to the leaf collector is collected, so the hits can't be used as bound
+        search(query, collector, minScore == null);
         return scoreDocToIterable(topFieldCollector.topDocs().scoreDocs);
     }
 
@@ -142,8 +154,105 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
             return empty();
         }
         LOGGER.debug("searchMore from [{}]", lastDoc);
-        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), batchSize, sort, doDocsScores, false);
-        return scoreDocToIterable(topDocs.scoreDocs);
+        int numHits = Math.min(batchSize, Math.max(1, searcher.getIndexReader().maxDoc()));
+        TopFieldCollector topFieldCollector = TopFieldCollector.create(
+            sort, numHits, lastDoc, true, doDocsScores, false);
+        // the paging collector rejects documents which tie with lastDoc, so the hits can't be used as bound
+        search(query(lastDoc), topFieldCollector, false);
+        return scoreDocToIterable(topFieldCollector.topDocs().scoreDocs);
+    }
+
+    /**
+     * Like {@link IndexSearcher#search(Query, Collector)} but skips the segments which can't contain matches or
+     * can't contain any document which sorts before the documents already collected.
+     * <p>
+     * If the first ORDER BY symbol is a numeric column and at least {@link #batchSize} documents have been
+     * collected, the n-th document sorts at or before the worst value of the already visited segments.
+     * Any segment whose best value sorts strictly after that bound can't change the result.
+     * Segments are visited in index order to keep the tie-breaking on doc ids which paging relies on.
+     */
+    private void search(Query query, Collector collector, boolean useOrderBound) throws IOException {
+        Reference orderColumn = useOrderBound ? firstOrderColumn : null;
+        if (segmentFilter == null && orderColumn == null) {
+            searcher.search(query, collector);
+            return;
+        }
+        Weight weight = searcher.createNormalizedWeight(query, collector.needsScores());
+        boolean reverse = orderBy.reverseFlags()[0];
+        Boolean nullsFirst = orderBy.nullsFirst()[0];
+        boolean missingFirst = nullsFirst == null ? reverse : nullsFirst;
+        long bound = 0L;
+        long boundedHits = 0L;
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            if (segmentFilter != null && !segmentFilter.canMatch(leaf.reader())) {
+                continue;
+            }
+            SegmentMinMax minMax = null;
+            if (orderColumn != null) {
+                minMax = SegmentMinMax.of(leaf.reader(), orderColumn.ident().columnIdent().fqn(), orderColumn.valueType());
+            }
+            if (minMax != null && boundedHits >= batchSize && (minMax.allDocsHaveValue() || !missingFirst)) {
+                long best = reverse ? minMax.max() : minMax.min();
+                if (reverse ? best < bound : best > bound) {
+                    continue;
+                }
+            }
+            long hits = collectLeaf(weight, leaf, collector);
+            if (minMax != null && (minMax.allDocsHaveValue() || missingFirst) && hits > 0) {
+                long worst = reverse ? minMax.min() : minMax.max();
+                if (boundedHits == 0) {
+                    bound = worst;
+                } else {
+                    bound = reverse ? Math.min(bound, worst) : Math.max(bound, worst);
+                }
+                boundedHits += hits;
+            }
+        }
+    }
+
+    private static long collectLeaf(Weight weight, LeafReaderContext leaf, Collector collector) throws IOException {
+        final LeafCollector leafCollector;
+        try {
+            leafCollector = collector.getLeafCollector(leaf);
+        } catch (CollectionTerminatedException e) {
+            return 0L;
+        }
+        BulkScorer scorer = weight.bulkScorer(leaf);
+        if (scorer == null) {
+            return 0L;
+        }
+        final long[] hits = new long[1];
+        LeafCollector countingCollector = new FilterLeafCollector(leafCollector) {
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                hits[0]++;
+            }
+        };
+        try {
+            scorer.score(countingCollector, leaf.reader().getLiveDocs());
+        } catch (CollectionTerminatedException e) {
+            // collection of this leaf was terminated early
+        }
+        return hits[0];
+    }
+
+    /**
+     * @return the first ORDER BY column if it can be used to skip segments
+     */
+    @Nullable
+    private static Reference segmentOrderColumn(OrderBy orderBy) {
+        Symbol first = orderBy.orderBySymbols().get(0);
+        if (!(first instanceof Reference)) {
+            return null;
+        }
+        Reference ref = (Reference) first;
+        if (ref.granularity() != RowGranularity.DOC
+            || ref.ident().columnIdent().name().startsWith("_")
+            || !SegmentMinMax.isSupported(ref.valueType())) {
+            return null;
+        }
+        return ref;
     }
 
     private KeyIterable<ShardId, Row> scoreDocToIterable(ScoreDoc[] scoreDocs) {
@@ -44,5 +44,14 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * @return the size of the file in bytes or -1 if it is unknown.
+     *         If a size is returned {@link InputStream#skip(long)} on the stream returned by {@link #getStream(URI)}
+     *         must be cheap, as it is used to read a file in multiple parts.
+     */
+    default long size(URI uri) throws IOException {
+        return -1;
+    }
+
     boolean sharedStorageDefault();
 }
@@ -26,6 +26,8 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CrateCollector;
@@ -36,13 +38,10 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -59,7 +58,11 @@ public class FileReadingCollector implements CrateCollector {
     private final Boolean shared;
     private final int numReaders;
     private final int readerNumber;
-    private final InputRow row;
+    private final int numSplits;
+    private final int splitNumber;
+    private final long minSplitSize;
+    private final List<Input<?>> inputs;
+    private final Row row;
     private final RowReceiver downstream;
     private final boolean compressed;
     private final Iterable<LineCollectorExpression<?>> collectorExpressions;
@@ -82,15 +85,48 @@ public class FileReadingCollector implements CrateCollector {
                                 Boolean shared,
                                 int numReaders,
                                 int readerNumber) {
+        this(fileUris, inputs, collectorExpressions, downstream, compression, fileInputFactories, shared,
+            numReaders, readerNumber, 1, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param numSplits    number of collectors on this node which read the same fileUris concurrently.
+     *                     Each of them reads a different set of files or a different part of uncompressed files
+     *                     with a size of at least <code>minSplitSize * 2</code>
+     * @param splitNumber  the number of this collector, between 0 and numSplits
+     * @param minSplitSize minimum number of bytes a collector reads from a file that is split
+     */
+    public FileReadingCollector(Collection<String> fileUris,
+                                List<Input<?>> inputs,
+                                Iterable<LineCollectorExpression<?>> collectorExpressions,
+                                RowReceiver downstream,
+                                String compression,
+                                Map<String, FileInputFactory> fileInputFactories,
+                                Boolean shared,
+                                int numReaders,
+                                int readerNumber,
+                                int numSplits,
+                                int splitNumber,
+                                long minSplitSize) {
         this.fileUris = getUrisWithGlob(fileUris);
         this.downstream = downstream;
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
-        this.row = new InputRow(inputs);
+        this.inputs = inputs;
+        if (numSplits > 1) {
+            // evaluate the inputs (and so parse the lines) in this thread
+            // instead of in the downstream which is shared between the collectors of all splits
+            this.row = new RowN(inputs.size());
+        } else {
+            this.row = new InputRow(inputs);
+        }
         this.collectorExpressions = collectorExpressions;
         this.fileInputFactories = fileInputFactories;
         this.shared = shared;
         this.numReaders = numReaders;
         this.readerNumber = readerNumber;
+        this.numSplits = numSplits;
+        this.splitNumber = splitNumber;
+        this.minSplitSize = minSplitSize;
     }
 
     private static class UriWithGlob {
@@ -192,12 +228,28 @@ public class FileReadingCollector implements CrateCollector {
                 return;
             }
 
-            Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
+            boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
+            Predicate<URI> uriPredicate = generateUriPredicate(sharedStorage, fileUri.globPredicate);
             List<URI> uris;
             try {
                 uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
                 for (URI uri : uris) {
-                    if (!readLines(fileInput, collectorContext, uri, 0, 0)) {
+                    long size = compressed || numSplits == 1 ? -1 : fileInput.size(uri);
+                    int numRanges = size < 0 ? 1 : (int) Math.min(numSplits, Math.max(1, size / minSplitSize));
+                    long start = 0;
+                    long end = Long.MAX_VALUE;
+                    if (numRanges > 1) {
+                        if (splitNumber >= numRanges) {
+                            continue;
+                        }
+                        start = size / numRanges * splitNumber;
+                        if (splitNumber < numRanges - 1) {
+                            end = size / numRanges * (splitNumber + 1);
+                        }
+                    } else if (split(uri, sharedStorage) != splitNumber) {
+                        continue;
+                    }
+                    if (!readLines(fileInput, collectorContext, uri, start, end, 0, 0)) {
                         // break out nested loop and finish normally
                         break fileUriLoop;
                     }
@@ -215,9 +267,15 @@ public class FileReadingCollector implements CrateCollector {
         downstream.kill(throwable);
     }
 
+    /**
+     * read the lines which start within the byte range [start, end) of the file.
+     * If start is not 0 the line containing the byte before start is skipped, it is read by the previous range.
+     */
     private boolean readLines(FileInput fileInput,
                               CollectorContext collectorContext,
                               URI uri,
+                              long start,
+                              long end,
                               long startLine,
                               int retry) throws IOException {
         InputStream inputStream = fileInput.getStream(uri);
@@ -225,19 +283,28 @@ public class FileReadingCollector implements CrateCollector {
             return true;
         }
 
-        String line;
+        byte[] line;
         long linesRead = 0L;
-        try (BufferedReader reader = createReader(inputStream)) {
+        try (LineReader reader = createReader(inputStream)) {
+            long offset = 0L;
+            if (start > 0) {
+                offset = start - 1;
+                skipFully(inputStream, offset);
+                reader.readLine();
+            }
             while ((line = reader.readLine()) != null) {
+                if (offset + reader.lineStart() >= end) {
+                    break;
+                }
                 linesRead++;
                 if (linesRead < startLine) {
                     continue;
                 }
-                if (line.length() == 0) { // skip empty lines
+                if (line.length == 0) { // skip empty lines
                     continue;
                 }
-                collectorContext.lineContext().rawSource(line.getBytes(StandardCharsets.UTF_8));
-                RowReceiver.Result result = downstream.setNextRow(row);
+                collectorContext.lineContext().rawSource(line);
+                RowReceiver.Result result = downstream.setNextRow(materialize());
                 switch (result) {
                     case CONTINUE:
                         continue;
@@ -253,12 +320,13 @@ public class FileReadingCollector implements CrateCollector {
                 LOGGER.info("Timeout during COPY FROM '{}' after {} retries", e, uri.toString(), retry);
                 throw e;
             } else {
-                return readLines(fileInput, collectorContext, uri, linesRead + 1, retry + 1);
+                return readLines(fileInput, collectorContext, uri, start, end, linesRead + 1, retry + 1);
             }
         } catch (ElasticsearchParseException e) {
+            String lineNumber = start == 0 ? Long.toString(linesRead) : linesRead + " after byte " + start;
             throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
-                "Failed to parse JSON in line: %d in file: \"%s\"%n" +
-                "Original error message: %s", linesRead, uri, e.getMessage()), e);
+                "Failed to parse JSON in line: %s in file: \"%s\"%n" +
+                "Original error message: %s", lineNumber, uri, e.getMessage()), e);
         } catch (Exception e) {
             // it's nice to know which exact file/uri threw an error
             // when COPY FROM returns less rows than expected
@@ -268,15 +336,35 @@ public class FileReadingCollector implements CrateCollector {
         return true;
     }
 
-    private BufferedReader createReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
+    private Row materialize() {
+        if (row instanceof RowN) {
+            Object[] cells = new Object[inputs.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = inputs.get(i).value();
+            }
+            ((RowN) row).cells(cells);
+        }
+        return row;
+    }
+
+    private LineReader createReader(InputStream inputStream) throws IOException {
         if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return new LineReader(new GZIPInputStream(inputStream));
+        }
+        return new LineReader(inputStream);
+    }
+
+    private static void skipFully(InputStream inputStream, long n) throws IOException {
+        while (n > 0) {
+            long skipped = inputStream.skip(n);
+            if (skipped <= 0) {
+                if (inputStream.read() < 0) {
+                    return;
+                }
+                skipped = 1;
+            }
+            n -= skipped;
         }
-        return reader;
     }
 
     private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
@@ -291,18 +379,36 @@ public class FileReadingCollector implements CrateCollector {
         return uris;
     }
 
-    private Predicate<URI> generateUriPredicate(FileInput fileInput, @Nullable Predicate<URI> globPredicate) {
+    private static int positiveHash(URI uri) {
+        int hash = uri.hashCode();
+        if (hash == Integer.MIN_VALUE) {
+            hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+        }
+        return Math.abs(hash);
+    }
+
+    /**
+     * @return the number of the split which reads the whole file
+     */
+    private int split(URI uri, boolean sharedStorage) {
+        if (numSplits == 1) {
+            return 0;
+        }
+        int hash = positiveHash(uri);
+        if (sharedStorage) {
+            // the remainder is used to distribute the files across the nodes
+            hash = hash / numReaders;
+        }
+        return hash % numSplits;
+    }
+
+    private Predicate<URI> generateUriPredicate(boolean sharedStorage, @Nullable Predicate<URI> globPredicate) {
         Predicate<URI> moduloPredicate;
-        boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
         if (sharedStorage) {
             moduloPredicate = new Predicate<URI>() {
                 @Override
                 public boolean apply(URI input) {
-                    int hash = input.hashCode();
-                    if (hash == Integer.MIN_VALUE) {
-                        hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
-                    }
-                    return Math.abs(hash) % numReaders == readerNumber;
+                    return positiveHash(input) % numReaders == readerNumber;
                 }
             };
         } else {
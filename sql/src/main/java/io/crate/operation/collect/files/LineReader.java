@@ -0,0 +1,129 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads lines from an {@link InputStream} as UTF-8 encoded bytes without decoding them into Strings.
+ * <p>
+ * Lines are terminated by <code>\n</code>, <code>\r</code> or <code>\r\n</code>, the same as
+ * in {@link java.io.BufferedReader#readLine()}.
+ */
+class LineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos = 0;
+    private int bufferLength = 0;
+
+    private long position = 0;
+    private long lineStart = 0;
+    private boolean skipLF = false;
+
+    LineReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * @return the next line without line terminator or null if the end of the stream has been reached
+     */
+    byte[] readLine() throws IOException {
+        byte[] line = null;
+        int lineLength = 0;
+        if (skipLF) {
+            if (!fill()) {
+                return null;
+            }
+            if (buffer[bufferPos] == '\n') {
+                bufferPos++;
+                position++;
+            }
+            skipLF = false;
+        }
+        lineStart = position;
+        while (fill()) {
+            int start = bufferPos;
+            int end = start;
+            boolean terminated = false;
+            while (end < bufferLength) {
+                byte b = buffer[end];
+                if (b == '\n' || b == '\r') {
+                    terminated = true;
+                    skipLF = b == '\r';
+                    break;
+                }
+                end++;
+            }
+            int length = end - start;
+            if (line == null) {
+                line = Arrays.copyOfRange(buffer, start, end);
+            } else {
+                line = Arrays.copyOf(line, lineLength + length);
+                System.arraycopy(buffer, start, line, lineLength, length);
+            }
+            lineLength += length;
+            if (terminated) {
+                bufferPos = end + 1;
+                position += length + 1;
+                return line;
+            }
+            bufferPos = end;
+            position += length;
+        }
+        return line;
+    }
+
+    /**
+     * @return the offset in bytes of the last line returned by {@link #readLine()}, relative to the
+     *         position of the stream at the time this reader was created
+     */
+    long lineStart() {
+        return lineStart;
+    }
+
+    private boolean fill() throws IOException {
+        if (bufferPos < bufferLength) {
+            return true;
+        }
+        int read;
+        do {
+            read = inputStream.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        bufferPos = 0;
+        bufferLength = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
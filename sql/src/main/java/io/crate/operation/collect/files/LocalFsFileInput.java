@@ -81,6 +81,15 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    @Override
+    public long size(URI uri) {
+        File file = new File(uri);
+        if (file.isFile()) {
+            return file.length();
+        }
+        return -1;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
@@ -32,6 +32,7 @@ import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.files.FileInputFactory;
 import io.crate.operation.collect.files.FileReadingCollector;
 import io.crate.operation.collect.files.LineCollectorExpression;
+import io.crate.operation.projectors.MultiUpstreamRowReceiver;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
 import io.crate.planner.node.dql.CollectPhase;
@@ -41,21 +42,39 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.util.*;
 
 @Singleton
 public class FileCollectSource implements CollectSource {
 
+    /**
+     * number of collectors which read the files of a COPY FROM concurrently on each node
+     */
+    public static final String READERS_PER_NODE_SETTING = "copy_from.readers_per_node";
+
+    /**
+     * uncompressed files are split into parts of at least this size which are read by different collectors
+     */
+    static final long MIN_SPLIT_SIZE = new ByteSizeValue(64, ByteSizeUnit.MB).bytes();
+
     private final ClusterService clusterService;
     private final Map<String, FileInputFactory> fileInputFactoryMap;
     private final InputFactory inputFactory;
+    private final int readersPerNode;
 
     @Inject
-    public FileCollectSource(Functions functions, ClusterService clusterService, Map<String, FileInputFactory> fileInputFactoryMap) {
+    public FileCollectSource(Settings settings,
+                             Functions functions,
+                             ClusterService clusterService,
+                             Map<String, FileInputFactory> fileInputFactoryMap) {
         this.fileInputFactoryMap = fileInputFactoryMap;
         inputFactory = new InputFactory(functions);
         this.clusterService = clusterService;
+        this.readersPerNode = settings.getAsInt(READERS_PER_NODE_SETTING, 1);
     }
 
     @Override
@@ -71,17 +90,45 @@ public class FileCollectSource implements CollectSource {
 
         List<String> fileUris;
         fileUris = targetUriToStringList(fileUriCollectPhase.targetUri());
-        return ImmutableList.of(new FileReadingCollector(
-            fileUris,
-            ctx.topLevelInputs(),
-            ctx.expressions(),
-            downstream,
-            fileUriCollectPhase.compression(),
-            fileInputFactoryMap,
-            fileUriCollectPhase.sharedStorage(),
-            readers.length,
-            Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId())
-        ));
+        int readerNumber = Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId());
+        if (readersPerNode == 1) {
+            return ImmutableList.of(new FileReadingCollector(
+                fileUris,
+                ctx.topLevelInputs(),
+                ctx.expressions(),
+                downstream,
+                fileUriCollectPhase.compression(),
+                fileInputFactoryMap,
+                fileUriCollectPhase.sharedStorage(),
+                readers.length,
+                readerNumber
+            ));
+        }
+
+        // each collector needs its own expressions; MultiUpstreamRowReceiver synchronizes the downstream
+        MultiUpstreamRowReceiver multiUpstreamRowReceiver = new MultiUpstreamRowReceiver(downstream);
+        List<CrateCollector> collectors = new ArrayList<>(readersPerNode);
+        for (int i = 0; i < readersPerNode; i++) {
+            if (i > 0) {
+                ctx = inputFactory.ctxForRefs(FileLineReferenceResolver.INSTANCE);
+                ctx.add(collectPhase.toCollect());
+            }
+            collectors.add(new FileReadingCollector(
+                fileUris,
+                ctx.topLevelInputs(),
+                ctx.expressions(),
+                multiUpstreamRowReceiver.newRowReceiver(),
+                fileUriCollectPhase.compression(),
+                fileInputFactoryMap,
+                fileUriCollectPhase.sharedStorage(),
+                readers.length,
+                readerNumber,
+                readersPerNode,
+                i,
+                MIN_SPLIT_SIZE
+            ));
+        }
+        return collectors;
     }
 
     private static List<String> targetUriToStringList(Symbol targetUri) {
@@ -21,6 +21,7 @@
 
 package io.crate.operation.collect.sources;
 
+import io.crate.jobs.PhaseProfile;
 import io.crate.operation.collect.CrateCollector;
 import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.projectors.FlatProjectorChain;
@@ -50,7 +51,9 @@ public class ProjectorSetupCollectSource implements CollectSource {
             jobCollectContext.queryPhaseRamAccountingContext(),
             collectPhase.projections(),
             downstream,
-            collectPhase.jobId()
+            collectPhase.jobId(),
+            jobCollectContext.profile(),
+            PhaseProfile.NODE_CHAIN
         );
         return sourceDelegate.getCollectors(collectPhase, projectorChain.firstProjector(), jobCollectContext);
     }
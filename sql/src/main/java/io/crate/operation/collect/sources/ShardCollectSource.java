@@ -30,6 +30,7 @@ import io.crate.action.job.SharedShardContext;
 import io.crate.action.job.SharedShardContexts;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.analyze.OrderBy;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.blob.v2.BlobIndicesService;
 import io.crate.blob.v2.BlobShard;
@@ -37,6 +38,7 @@ import io.crate.core.collections.Buckets;
 import io.crate.core.collections.Row;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.executor.transport.TransportActionProvider;
+import io.crate.jobs.PhaseProfile;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
@@ -53,6 +55,9 @@ import io.crate.operation.reference.sys.node.local.NodeSysReferenceResolver;
 import io.crate.planner.consumer.OrderByPositionVisitor;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.Projections;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
@@ -110,6 +115,12 @@ import static io.crate.blob.v2.BlobIndex.isBlobIndex;
 @Singleton
 public class ShardCollectSource extends AbstractComponent implements CollectSource {
 
+    /**
+     * Number of collectors which may collect a single shard concurrently.
+     * Only used if the shard projections allow it, see {@link #supportsConcurrentCollect(Collection)}
+     */
+    public static final String CONCURRENCY_PER_SHARD_SETTING = "collect.concurrency_per_shard";
+
     private final Schemas schemas;
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final IndicesService indicesService;
@@ -127,6 +138,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
     private final Map<ShardId, ShardCollectorProvider> shards = new ConcurrentHashMap<>();
     private final Functions functions;
     private final LuceneQueryBuilder luceneQueryBuilder;
+    private final int concurrencyPerShard;
 
 
     @Inject
@@ -159,6 +171,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         this.executor = MoreExecutors.listeningDecorator((ExecutorService) threadPool.executor(ThreadPool.Names.SEARCH));
         this.blobIndicesService = blobIndicesService;
         this.functions = functions;
+        this.concurrencyPerShard = settings.getAsInt(CONCURRENCY_PER_SHARD_SETTING, 1);
         NodeSysReferenceResolver referenceResolver = new NodeSysReferenceResolver(nodeSysExpression);
         nodeNormalizer = new EvaluatingNormalizer(
             functions,
@@ -235,7 +248,9 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             jobCollectContext.queryPhaseRamAccountingContext(),
             Projections.nodeProjections(normalizedPhase.projections()),
             lastRR,
-            collectPhase.jobId());
+            collectPhase.jobId(),
+            jobCollectContext.profile(),
+            PhaseProfile.NODE_CHAIN);
 
         if (normalizedPhase.maxRowGranularity() == RowGranularity.SHARD) {
             // it's possible to use FlatProjectorChain instead of ShardProjectorChain as a shortcut because
@@ -262,8 +277,15 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
 
         Map<String, List<Integer>> indexShards = locations.get(localNodeId);
         if (indexShards != null) {
+            // splitting a shard results in multiple upstreams which is only supported without repeat
+            int maxConcurrency = 1;
+            if (concurrencyPerShard > 1
+                && !lastRR.requirements().contains(Requirement.REPEAT)
+                && supportsConcurrentCollect(Projections.shardProjections(normalizedPhase.projections()))) {
+                maxConcurrency = concurrencyPerShard;
+            }
             builders.addAll(
-                getDocCollectors(jobCollectContext, normalizedPhase, lastRR.requirements(), indexShards));
+                getDocCollectors(jobCollectContext, normalizedPhase, lastRR.requirements(), indexShards, maxConcurrency));
         }
 
         RowReceiver firstNodeRR = chain.firstProjector();
@@ -291,6 +313,51 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         }
     }
 
+    /**
+     * A shard may only be collected by multiple collectors if the shard projections produce a result
+     * which is still correct if they only see a part of the shard.
+     * This is the case for partial aggregations, but not for final ones (which are used if the data is
+     * grouped by the routing column), a limit or a writer which writes one file per shard.
+     */
+    static boolean supportsConcurrentCollect(Collection<? extends Projection> shardProjections) {
+        if (shardProjections.isEmpty()) {
+            // without shard projections the rows are consumed by a single node level projector anyway
+            return false;
+        }
+        for (Projection projection : shardProjections) {
+            switch (projection.projectionType()) {
+                case FILTER:
+                case EVAL:
+                    break;
+                case GROUP:
+                    if (!isPartial(((GroupProjection) projection).values())) {
+                        return false;
+                    }
+                    break;
+                case AGGREGATION:
+                    if (!isPartial(((AggregationProjection) projection).aggregations())) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPartial(List<Aggregation> aggregations) {
+        if (aggregations.isEmpty()) {
+            return false;
+        }
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation.toStep() != Aggregation.Step.PARTIAL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private CrateCollector createMultiShardScoreDocCollector(RoutedCollectPhase collectPhase,
                                                              FlatProjectorChain flatProjectorChain,
                                                              JobCollectContext jobCollectContext,
@@ -351,7 +418,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
     private Collection<CrateCollector.Builder> getDocCollectors(JobCollectContext jobCollectContext,
                                                                 RoutedCollectPhase collectPhase,
                                                                 Set<Requirement> downstreamRequirements,
-                                                                Map<String, List<Integer>> indexShards) {
+                                                                Map<String, List<Integer>> indexShards,
+                                                                int maxConcurrency) {
 
         List<CrateCollector.Builder> crateCollectors = new ArrayList<>();
         for (Map.Entry<String, List<Integer>> entry : indexShards.entrySet()) {
@@ -368,12 +436,12 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                 ShardId shardId = new ShardId(indexName, shardNum);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    CrateCollector.Builder collector = shardCollectorProvider.getCollectorBuilder(
+                    crateCollectors.addAll(shardCollectorProvider.getCollectorBuilders(
                         collectPhase,
                         downstreamRequirements,
-                        jobCollectContext
-                    );
-                    crateCollectors.add(collector);
+                        jobCollectContext,
+                        maxConcurrency
+                    ));
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     // If toCollect contains a docId it means that this is a QueryThenFetch operation.
                     // In such a case RemoteCollect cannot be used because on that node the FetchContext is missing
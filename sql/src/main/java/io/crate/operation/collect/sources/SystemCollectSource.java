@@ -25,6 +25,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import io.crate.action.sql.StatementCache;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.core.collections.Row;
 import io.crate.metadata.Functions;
@@ -32,6 +33,7 @@ import io.crate.metadata.ReplaceMode;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.information.*;
 import io.crate.metadata.pg_catalog.PgCatalogTables;
+import io.crate.metadata.pg_catalog.PgStatsTable;
 import io.crate.metadata.pg_catalog.PgTypeTable;
 import io.crate.metadata.sys.*;
 import io.crate.operation.InputFactory;
@@ -82,7 +84,8 @@ public class SystemCollectSource implements CollectSource {
                                Set<SysNodeCheck> sysNodeChecks,
                                SysRepositoriesService sysRepositoriesService,
                                SysSnapshots sysSnapshots,
-                               PgCatalogTables pgCatalogTables) {
+                               PgCatalogTables pgCatalogTables,
+                               StatementCache statementCache) {
         this.clusterService = clusterService;
         inputFactory = new InputFactory(functions);
         this.functions = functions;
@@ -105,7 +108,10 @@ public class SystemCollectSource implements CollectSource {
             .put(SysRepositoriesTableInfo.IDENT.fqn(), sysRepositoriesService)
             .put(SysSnapshotsTableInfo.IDENT.fqn(), sysSnapshots)
             .put(SysSummitsTableInfo.IDENT.fqn(), new SummitsIterable())
+            .put(SysStatementCacheTableInfo.IDENT.fqn(), statementCache.statsGetter())
+            .put(SysStatementsTableInfo.IDENT.fqn(), statsTables.statementsGetter())
             .put(PgTypeTable.IDENT.fqn(), pgCatalogTables.pgTypes())
+            .put(PgStatsTable.IDENT.fqn(), pgCatalogTables.pgStats())
             .build();
     }
 
@@ -119,7 +125,7 @@ public class SystemCollectSource implements CollectSource {
     @Override
     public Collection<CrateCollector> getCollectors(CollectPhase phase, RowReceiver downstream, JobCollectContext jobCollectContext) {
         RoutedCollectPhase collectPhase = (RoutedCollectPhase) phase;
-        // sys.operations can contain a _node column - these refs need to be normalized into literals
+        // sys.operations, sys.statement_cache and sys.statements can contain a _node column - these refs need to be normalized into literals
         EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
             functions, RowGranularity.DOC, ReplaceMode.COPY, new NodeSysReferenceResolver(nodeSysExpression), null);
         collectPhase = collectPhase.normalize(normalizer, null);
@@ -26,8 +26,11 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.analyze.WhereClause;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.SegmentRangeFilter;
 import io.crate.metadata.PartitionName;
 import io.crate.operation.ThreadPools;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.index.IndexNotFoundException;
@@ -107,10 +110,28 @@ public class InternalCountOperation implements CountOperation {
             if (Thread.interrupted()) {
                 throw new InterruptedException("thread interrupted during count-operation");
             }
-            return searcher.searcher().count(queryCtx.query());
+            return count(searcher.searcher(), queryCtx.query(), queryCtx.segmentFilter());
         }
     }
 
+    static long count(IndexSearcher searcher, Query query, @Nullable SegmentRangeFilter segmentFilter) throws IOException {
+        if (segmentFilter == null) {
+            return searcher.count(query);
+        }
+        Weight weight = searcher.createNormalizedWeight(query, false);
+        TotalHitCountCollector collector = new TotalHitCountCollector();
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            if (!segmentFilter.canMatch(leaf.reader())) {
+                continue;
+            }
+            BulkScorer scorer = weight.bulkScorer(leaf);
+            if (scorer != null) {
+                scorer.score(collector.getLeafCollector(leaf), leaf.reader().getLiveDocs());
+            }
+        }
+        return collector.getTotalHits();
+    }
+
     private static class MergePartialCountFunction implements Function<List<Long>, Long> {
         @Nullable
         @Override
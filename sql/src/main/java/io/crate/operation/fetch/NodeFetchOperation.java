@@ -25,16 +25,19 @@ import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import com.twitter.jsr166e.LongAdder;
 import io.crate.Streamer;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.exceptions.Exceptions;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.Reference;
 import io.crate.metadata.TableIdent;
 import io.crate.operation.collect.StatsTables;
@@ -118,6 +121,14 @@ public class NodeFetchOperation {
         if (closeContextOnFinish) {
             Futures.addCallback(resultFuture, new CloseContextCallback(fetchContext));
         }
+        PhaseProfile profile = context.profile(phaseId);
+        if (profile != null) {
+            profile.counter("fetchRequests").increment();
+            LongAdder fetchedRows = profile.counter("fetchedRows");
+            for (ObjectCursor<? extends IntContainer> cursor : docIdsToFetch.values()) {
+                fetchedRows.add(cursor.value.size());
+            }
+        }
         try {
             doFetch(fetchContext, resultFuture, docIdsToFetch);
         } catch (Throwable t) {
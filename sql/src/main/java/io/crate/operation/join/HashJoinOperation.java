@@ -0,0 +1,697 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.core.collections.RowNull;
+import io.crate.operation.projectors.*;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.types.DataType;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push based hash join for join conditions which contain at least one equality between the two sides:
+ * <pre>
+ *     for (buildRow in build) {
+ *         table.add(key(buildRow), buildRow)
+ *     }
+ *     for (probeRow in probe) {
+ *         for (buildRow in table.get(key(probeRow))) {
+ *             if matched
+ *                  emit(left + right)
+ *         }
+ *     }
+ * </pre>
+ * The build side is consumed completely before the first probe row is processed;
+ * if the probe side starts first its upstream is paused until the hash table is complete.
+ * <p>
+ * Outer joins are supported in the same way as in {@link NestedLoopOperation}:
+ * probe rows without a match are emitted with the build side nulled directly,
+ * build rows which never matched are emitted with the probe side nulled once the probe side is finished.
+ * <p>
+ * <h2>Spilling</h2>
+ * The build rows are accounted using the {@link RamAccountingContext}. If {@link SpillSettings} are given and the
+ * query breaker gets close to its limit the hash table is dropped and the rows of both sides are written into
+ * {@link #NUM_PARTITIONS} partitions by the hash of their key. Once both sides are finished the partitions are
+ * joined one after another; only the build rows of a single partition are held in memory.
+ * The rows are then emitted partition by partition, so a join whose output must keep the order of the
+ * probe side is never spilled.
+ */
+public class HashJoinOperation implements JoinOperation {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(HashJoinOperation.class);
+
+    static final int NUM_PARTITIONS = 16;
+    private static final int PARTITION_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(NUM_PARTITIONS);
+
+    /**
+     * bytes accounted for each row in addition to the row itself: the chain entry and the map entry
+     */
+    private static final long ROW_OVERHEAD = 32L;
+
+    private final SettableFuture<Void> completionFuture = SettableFuture.create();
+
+    private final int phaseId;
+    private final RowReceiver downstream;
+    private final Predicate<Row> joinPredicate;
+    private final boolean buildLeft;
+    private final boolean emitUnmatchedProbe;
+    private final boolean emitUnmatchedBuild;
+    private final JoinKeyExtractor buildKeys;
+    private final JoinKeyExtractor probeKeys;
+    private final List<? extends DataType> buildTypes;
+    private final List<? extends DataType> probeTypes;
+    private final SizeEstimator<Object>[] sizeEstimators;
+    private final RamAccountingContext ramAccountingContext;
+    @Nullable
+    private final SpillSettings spillSettings;
+
+    private final BuildRowReceiver build;
+    private final ProbeRowReceiver probe;
+    private final Row buildNullRow;
+    private final Row probeNullRow;
+    private final CombinedRow combinedRow = new CombinedRow();
+
+    private final JoinHashTable table;
+    @Nullable
+    private final LuceneLongBitSetWrapper matched;
+    private long bufferedBytes = 0L;
+
+    // both are set once the hash table has been spilled
+    private JoinPartitionSpiller buildSpiller;
+    private JoinPartitionSpiller probeSpiller;
+
+    /**
+     * counted down by the build side once it is finished and by the probe side once it has been paused waiting for
+     * the build side; the one who reaches 0 starts probing
+     */
+    private final AtomicInteger probeStartGate = new AtomicInteger(2);
+    private final AtomicInteger remainingUpstreams = new AtomicInteger(2);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean buildFinished = false;
+    private volatile boolean stop = false;
+    private volatile Throwable failure;
+
+    /**
+     * @param joinPredicate the part of the join condition which isn't covered by the join keys;
+     *                      it is evaluated on the combined left + right row
+     * @param buildLeft     if true the hash table is built from the rows of the left side, otherwise from the right side
+     * @param probeOrdered  if true the rows are emitted in the order of the probe side; the hash table isn't spilled
+     * @param leftKeys      extracts the join key from the rows of the left side
+     * @param rightKeys     extracts the join key from the rows of the right side
+     * @param leftTypes     the types of the columns of the left rows
+     * @param rightTypes    the types of the columns of the right rows
+     * @param spillSettings if not null and the probe side isn't ordered, the rows are partitioned and written to disk
+     *                      instead of tripping the query breaker
+     */
+    @SuppressWarnings("unchecked")
+    public HashJoinOperation(int phaseId,
+                             RowReceiver rowReceiver,
+                             Predicate<Row> joinPredicate,
+                             JoinType joinType,
+                             boolean buildLeft,
+                             boolean probeOrdered,
+                             JoinKeyExtractor leftKeys,
+                             JoinKeyExtractor rightKeys,
+                             List<? extends DataType> leftTypes,
+                             List<? extends DataType> rightTypes,
+                             RamAccountingContext ramAccountingContext,
+                             @Nullable SpillSettings spillSettings) {
+        assert joinType != JoinType.CROSS : "a cross join has no join keys";
+        this.phaseId = phaseId;
+        this.downstream = rowReceiver;
+        this.joinPredicate = joinPredicate;
+        this.buildLeft = buildLeft;
+        boolean emitUnmatchedLeft = joinType == JoinType.LEFT || joinType == JoinType.FULL;
+        boolean emitUnmatchedRight = joinType == JoinType.RIGHT || joinType == JoinType.FULL;
+        this.emitUnmatchedBuild = buildLeft ? emitUnmatchedLeft : emitUnmatchedRight;
+        this.emitUnmatchedProbe = buildLeft ? emitUnmatchedRight : emitUnmatchedLeft;
+        this.buildKeys = buildLeft ? leftKeys : rightKeys;
+        this.probeKeys = buildLeft ? rightKeys : leftKeys;
+        this.buildTypes = buildLeft ? leftTypes : rightTypes;
+        this.probeTypes = buildLeft ? rightTypes : leftTypes;
+        this.ramAccountingContext = ramAccountingContext;
+        // spilled partitions are joined one after another which doesn't preserve the order of the probe side
+        this.spillSettings = probeOrdered ? null : spillSettings;
+
+        sizeEstimators = new SizeEstimator[buildTypes.size()];
+        for (int i = 0; i < sizeEstimators.length; i++) {
+            sizeEstimators[i] = SizeEstimatorFactory.create(buildTypes.get(i));
+        }
+        buildNullRow = new RowNull(buildTypes.size());
+        probeNullRow = new RowNull(probeTypes.size());
+        table = new JoinHashTable(buildKeys.keyTypes());
+        matched = emitUnmatchedBuild ? new LuceneLongBitSetWrapper() : null;
+        build = new BuildRowReceiver();
+        probe = new ProbeRowReceiver();
+    }
+
+    @Override
+    public ListenableFuture<?> completionFuture() {
+        return completionFuture;
+    }
+
+    @Override
+    public ListenableRowReceiver leftRowReceiver() {
+        return buildLeft ? build : probe;
+    }
+
+    @Override
+    public ListenableRowReceiver rightRowReceiver() {
+        return buildLeft ? probe : build;
+    }
+
+    private Row combine(Row probeRow, Row buildRow) {
+        if (buildLeft) {
+            combinedRow.outerRow = buildRow;
+            combinedRow.innerRow = probeRow;
+        } else {
+            combinedRow.outerRow = probeRow;
+            combinedRow.innerRow = buildRow;
+        }
+        return combinedRow;
+    }
+
+    private int partition(@Nullable Object key) {
+        if (key == null) {
+            return 0;
+        }
+        // use the high bits, the low bits are used by the hash table
+        return table.hash(key) >>> PARTITION_SHIFT;
+    }
+
+    private void addBuildRow(Row row) {
+        Object[] cells = row.materialize();
+        RowN materializedRow = new RowN(cells);
+        Object key = buildKeys.key(materializedRow);
+        if (key == null && !emitUnmatchedBuild) {
+            return;
+        }
+        if (buildSpiller != null) {
+            buildSpiller.add(partition(key), materializedRow);
+            return;
+        }
+        table.add(key, cells);
+        long rowBytes = RamAccountingContext.roundUp(rowSize(cells));
+        ramAccountingContext.addBytes(rowBytes);
+        // the context is shared with the merge phases, only the bytes accounted here may be released
+        bufferedBytes += rowBytes;
+        if (spillSettings != null && spillSettings.shouldSpill(ramAccountingContext, bufferedBytes)) {
+            spillTable();
+        }
+    }
+
+    private long rowSize(Object[] cells) {
+        long rowSize = ROW_OVERHEAD + 16L + 8L * cells.length; // array header + references
+        for (int i = 0; i < cells.length; i++) {
+            rowSize += sizeEstimators[i].estimateSize(cells[i]);
+        }
+        return rowSize;
+    }
+
+    private void spillTable() {
+        assert spillSettings != null : "spillSettings must not be null if spilling";
+        buildSpiller = new JoinPartitionSpiller(spillSettings, streamers(buildTypes), NUM_PARTITIONS, "crate-join-build-");
+        probeSpiller = new JoinPartitionSpiller(spillSettings, streamers(probeTypes), NUM_PARTITIONS, "crate-join-probe-");
+        RowN row = new RowN(buildTypes.size());
+        for (Object[] cells : table.rows()) {
+            row.cells(cells);
+            buildSpiller.add(partition(buildKeys.key(row)), row);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("phase={} spilled hash table with {} rows", phaseId, table.size());
+        }
+        table.clear();
+        ramAccountingContext.releaseBytes(bufferedBytes);
+        bufferedBytes = 0L;
+    }
+
+    private static Streamer<?>[] streamers(List<? extends DataType> types) {
+        Streamer<?>[] streamers = new Streamer[types.size()];
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i] = types.get(i).streamer();
+        }
+        return streamers;
+    }
+
+    private void upstreamFinished() {
+        if (remainingUpstreams.decrementAndGet() == 0) {
+            finishJoin();
+        }
+    }
+
+    /**
+     * called once both upstreams are finished; emits the remaining rows and finishes the downstream
+     */
+    private void finishJoin() {
+        Throwable t = failure;
+        if (t != null) {
+            failDownstream(t);
+            return;
+        }
+        Iterable<Row> remainingRows;
+        if (stop) {
+            remainingRows = Collections.emptyList();
+        } else if (buildSpiller != null) {
+            buildSpiller.finishWriting();
+            probeSpiller.finishWriting();
+            remainingRows = new Iterable<Row>() {
+                @Override
+                public Iterator<Row> iterator() {
+                    return new SpilledPartitionsIterator();
+                }
+            };
+        } else if (emitUnmatchedBuild) {
+            remainingRows = new Iterable<Row>() {
+                @Override
+                public Iterator<Row> iterator() {
+                    return new Matcher(table, matched).unmatchedBuildRows();
+                }
+            };
+        } else {
+            remainingRows = Collections.emptyList();
+        }
+        new IterableRowEmitter(new ForwardingRowReceiver(downstream) {
+
+            @Override
+            public void finish(RepeatHandle repeatHandle) {
+                close();
+                downstream.finish(RepeatHandle.UNSUPPORTED);
+                completionFuture.set(null);
+                build.finished.set(null);
+                probe.finished.set(null);
+            }
+
+            @Override
+            public void fail(Throwable throwable) {
+                failDownstream(throwable);
+            }
+        }, remainingRows).run();
+    }
+
+    private void failDownstream(Throwable t) {
+        close();
+        downstream.fail(t);
+        completionFuture.setException(t);
+        build.finished.setException(t);
+        probe.finished.setException(t);
+    }
+
+    private void close() {
+        if (closed.compareAndSet(false, true)) {
+            if (buildSpiller != null) {
+                buildSpiller.close();
+                probeSpiller.close();
+            }
+        }
+    }
+
+    private abstract class AbstractRowReceiver implements ListenableRowReceiver {
+
+        final SettableFuture<Void> finished = SettableFuture.create();
+
+        @Override
+        public ListenableFuture<Void> finishFuture() {
+            return finished;
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            LOGGER.trace("phase={} side={} method=fail error={}", phaseId, getClass().getSimpleName(), throwable);
+            failure = throwable;
+            stop = true;
+            finish(RepeatHandle.UNSUPPORTED);
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            Throwable f = failure; // local variable to avoid multiple volatile reads
+            if (f != null) {
+                throwable = f; // prefer original upstream failure over kill exception
+            }
+            stop = true;
+            close();
+            downstream.kill(throwable);
+            completionFuture.setException(throwable);
+            build.finished.setException(throwable);
+            probe.finished.setException(throwable);
+        }
+    }
+
+    private class BuildRowReceiver extends AbstractRowReceiver {
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            addBuildRow(row);
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+            throw new AssertionError("build side is never paused");
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatHandle) {
+            LOGGER.trace("phase={} side=build method=finish", phaseId);
+            buildFinished = true;
+            if (probeStartGate.decrementAndGet() == 0) {
+                probe.startProbing();
+            }
+            upstreamFinished();
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return Requirements.NO_REQUIREMENTS;
+        }
+    }
+
+    private class ProbeRowReceiver extends AbstractRowReceiver {
+
+        private final Set<Requirement> requirements;
+        private final Matcher matcher;
+        private final RowN spareRow;
+
+        private boolean waitingForBuild = false;
+        private Row pendingRow;
+        private ResumeHandle pendingResumeHandle;
+
+        ProbeRowReceiver() {
+            requirements = Requirements.remove(downstream.requirements(), Requirement.REPEAT);
+            matcher = new Matcher(table, matched);
+            spareRow = new RowN(probeTypes.size());
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            if (!buildFinished) {
+                LOGGER.trace("phase={} side=probe method=setNextRow action=waitForBuild->pause", phaseId);
+                waitingForBuild = true;
+                pendingRow = new RowN(row.materialize());
+                return Result.PAUSE;
+            }
+            return probeRow(row);
+        }
+
+        private Result probeRow(Row row) {
+            if (probeSpiller != null) {
+                spareRow.cells(row.materialize());
+                Object key = probeKeys.key(spareRow);
+                if (key != null || emitUnmatchedProbe) {
+                    probeSpiller.add(partition(key), spareRow);
+                }
+                return Result.CONTINUE;
+            }
+            matcher.reset(row);
+            return emitMatches();
+        }
+
+        private Result emitMatches() {
+            Row row;
+            while ((row = matcher.next()) != null) {
+                Result result = downstream.setNextRow(row);
+                switch (result) {
+                    case CONTINUE:
+                        continue;
+                    case PAUSE:
+                        matcher.materializeProbeRow();
+                        return result;
+                    case STOP:
+                        stop = true;
+                        return result;
+                }
+                throw new AssertionError("Unrecognized setNextRow result: " + result);
+            }
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeHandle) {
+            if (waitingForBuild) {
+                waitingForBuild = false;
+                pendingResumeHandle = resumeHandle;
+                if (probeStartGate.decrementAndGet() == 0) {
+                    startProbing();
+                }
+            } else {
+                downstream.pauseProcessed(new EmitMatchesResumeHandle(resumeHandle));
+            }
+        }
+
+        /**
+         * process the row the probe side has been paused on while waiting for the build side and resume it
+         */
+        void startProbing() {
+            LOGGER.trace("phase={} side=probe method=startProbing", phaseId);
+            Row row = pendingRow;
+            pendingRow = null;
+            ResumeHandle resumeHandle = pendingResumeHandle;
+            pendingResumeHandle = null;
+            if (!stop) {
+                try {
+                    if (probeRow(row) == Result.PAUSE) {
+                        downstream.pauseProcessed(new EmitMatchesResumeHandle(resumeHandle));
+                        return;
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                    stop = true;
+                }
+            }
+            // if stop is set the upstream will receive STOP on the next row
+            resumeHandle.resume(false);
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatHandle) {
+            LOGGER.trace("phase={} side=probe method=finish", phaseId);
+            upstreamFinished();
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return requirements;
+        }
+
+        /**
+         * emits the remaining matches of the current probe row once the downstream resumes and then resumes the probe side
+         */
+        private class EmitMatchesResumeHandle implements ResumeHandle {
+
+            private final ResumeHandle delegate;
+
+            EmitMatchesResumeHandle(ResumeHandle delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void resume(boolean async) {
+                try {
+                    if (emitMatches() == Result.PAUSE) {
+                        downstream.pauseProcessed(this);
+                        return;
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                    stop = true;
+                }
+                delegate.resume(async);
+            }
+        }
+    }
+
+    /**
+     * Looks up the build rows matching a probe row
+     */
+    private class Matcher {
+
+        private final JoinHashTable table;
+        @Nullable
+        private final LuceneLongBitSetWrapper matched;
+        private final RowN buildRow;
+
+        private Row probeRow;
+        private int nextPosition = JoinHashTable.END;
+        private boolean matchedAny;
+        private boolean exhausted = true;
+
+        Matcher(JoinHashTable table, @Nullable LuceneLongBitSetWrapper matched) {
+            this.table = table;
+            this.matched = matched;
+            buildRow = new RowN(buildTypes.size());
+        }
+
+        void reset(Row probeRow) {
+            this.probeRow = probeRow;
+            nextPosition = table.first(probeKeys.key(probeRow));
+            matchedAny = false;
+            exhausted = false;
+        }
+
+        void materializeProbeRow() {
+            probeRow = new RowN(probeRow.materialize());
+        }
+
+        /**
+         * @return the next joined row of the current probe row or null if there are no more
+         */
+        @Nullable
+        Row next() {
+            while (nextPosition != JoinHashTable.END) {
+                int position = nextPosition;
+                nextPosition = table.next(position);
+                buildRow.cells(table.row(position));
+                Row row = combine(probeRow, buildRow);
+                if (joinPredicate.apply(row)) {
+                    matchedAny = true;
+                    if (matched != null) {
+                        matched.set(position);
+                    }
+                    return row;
+                }
+            }
+            if (!exhausted) {
+                exhausted = true;
+                if (!matchedAny && emitUnmatchedProbe) {
+                    return combine(probeRow, buildNullRow);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the build rows which never matched, joined with a nulled probe row
+         */
+        Iterator<Row> unmatchedBuildRows() {
+            assert matched != null : "matched must not be null if unmatched build rows are emitted";
+            return new AbstractIterator<Row>() {
+
+                private int position = 0;
+
+                @Override
+                protected Row computeNext() {
+                    while (position < table.size()) {
+                        int current = position++;
+                        if (!matched.get(current)) {
+                            buildRow.cells(table.row(current));
+                            return combine(probeNullRow, buildRow);
+                        }
+                    }
+                    return endOfData();
+                }
+            };
+        }
+    }
+
+    /**
+     * Joins the spilled partitions one after another
+     */
+    private class SpilledPartitionsIterator extends AbstractIterator<Row> {
+
+        private final RowN probeRow = new RowN(probeTypes.size());
+        private final RowN spareBuildRow = new RowN(buildTypes.size());
+        private int partition = -1;
+        private JoinHashTable partitionTable;
+        private long partitionBytes = 0L;
+        private Matcher matcher;
+        private Iterator<Object[]> probeRows = Collections.emptyIterator();
+        private Iterator<Row> unmatchedBuildRows = Collections.emptyIterator();
+
+        @Override
+        protected Row computeNext() {
+            while (true) {
+                Row row = matcher == null ? null : matcher.next();
+                if (row != null) {
+                    return row;
+                }
+                if (probeRows.hasNext()) {
+                    probeRow.cells(probeRows.next());
+                    matcher.reset(probeRow);
+                    continue;
+                }
+                if (unmatchedBuildRows.hasNext()) {
+                    return unmatchedBuildRows.next();
+                }
+                if (!nextPartition()) {
+                    return endOfData();
+                }
+            }
+        }
+
+        private boolean nextPartition() {
+            releasePartition();
+            partition++;
+            if (partition == NUM_PARTITIONS) {
+                return false;
+            }
+            partitionTable = new JoinHashTable(buildKeys.keyTypes());
+            Iterator<Object[]> buildRows = buildSpiller.rows(partition);
+            while (buildRows.hasNext()) {
+                Object[] cells = buildRows.next();
+                spareBuildRow.cells(cells);
+                partitionTable.add(buildKeys.key(spareBuildRow), cells);
+                long rowBytes = RamAccountingContext.roundUp(rowSize(cells));
+                ramAccountingContext.addBytes(rowBytes);
+                partitionBytes += rowBytes;
+            }
+            matcher = new Matcher(partitionTable, emitUnmatchedBuild ? new LuceneLongBitSetWrapper() : null);
+            probeRows = probeSpiller.rows(partition);
+            // evaluated lazily, once all probe rows of the partition have been processed
+            unmatchedBuildRows = emitUnmatchedBuild ? matcher.unmatchedBuildRows() : Collections.<Row>emptyIterator();
+            return true;
+        }
+
+        private void releasePartition() {
+            if (partitionTable != null) {
+                partitionTable.clear();
+                partitionTable = null;
+                ramAccountingContext.releaseBytes(partitionBytes);
+                partitionBytes = 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.operation.projectors.grouping.CompositeKey;
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash table over the rows of the build side of a hash join.
+ * <p>
+ * Rows are stored in insertion order and addressed by their position. The map points from a key to the
+ * position of the last row added with that key, all other rows with the same key are chained using
+ * {@link #next(int)}. Single integral keys are stored unboxed in a {@link LongIntHashMap}.
+ * <p>
+ * Rows with a <code>null</code> key are stored as well (they are required for outer joins) but can never be found.
+ */
+class JoinHashTable {
+
+    static final int END = -1;
+
+    private final boolean longKeys;
+    private final List<Object[]> rows = new ArrayList<>();
+    private final IntArrayList chain = new IntArrayList();
+
+    private LongIntHashMap longMap;
+    private ObjectIntHashMap<Object> objectMap;
+
+    /**
+     * @param keyTypes the types of the join keys of the build side
+     */
+    JoinHashTable(List<? extends DataType> keyTypes) {
+        longKeys = keyTypes.size() == 1 && isIntegral(keyTypes.get(0));
+        init();
+    }
+
+    private void init() {
+        if (longKeys) {
+            longMap = new LongIntHashMap();
+        } else {
+            objectMap = new ObjectIntHashMap<>();
+        }
+    }
+
+    private static boolean isIntegral(DataType type) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param key a key as returned by {@link JoinKeyExtractor#key(io.crate.core.collections.Row)};
+     *            a {@link CompositeKey} is copied
+     * @return the position of the row
+     */
+    int add(@Nullable Object key, Object[] row) {
+        int position = rows.size();
+        rows.add(row);
+        if (key == null) {
+            chain.add(END);
+            return position;
+        }
+        if (longKeys) {
+            long longKey = ((Number) key).longValue();
+            int index = longMap.indexOf(longKey);
+            if (longMap.indexExists(index)) {
+                chain.add(longMap.indexGet(index));
+                longMap.indexReplace(index, position);
+            } else {
+                chain.add(END);
+                longMap.indexInsert(index, longKey, position);
+            }
+        } else {
+            if (key instanceof CompositeKey) {
+                key = ((CompositeKey) key).copy();
+            }
+            int index = objectMap.indexOf(key);
+            if (objectMap.indexExists(index)) {
+                chain.add(objectMap.indexGet(index));
+                objectMap.indexReplace(index, position);
+            } else {
+                chain.add(END);
+                objectMap.indexInsert(index, key, position);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return the position of the first row with the given key or {@link #END}
+     */
+    int first(@Nullable Object key) {
+        if (key == null) {
+            return END;
+        }
+        if (longKeys) {
+            return longMap.getOrDefault(((Number) key).longValue(), END);
+        }
+        return objectMap.getOrDefault(key, END);
+    }
+
+    /**
+     * @return the position of the next row with the same key as the row at <code>position</code> or {@link #END}
+     */
+    int next(int position) {
+        return chain.get(position);
+    }
+
+    Object[] row(int position) {
+        return rows.get(position);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * @return the rows in the order they've been added
+     */
+    List<Object[]> rows() {
+        return rows;
+    }
+
+    /**
+     * a hash of the key which is consistent with the key equality of this table; used to partition rows
+     */
+    int hash(Object key) {
+        if (longKeys) {
+            return BitMixer.mix(((Number) key).longValue());
+        }
+        return BitMixer.mix(key.hashCode());
+    }
+
+    /**
+     * remove all rows and release the memory of the underlying map
+     */
+    void clear() {
+        rows.clear();
+        chain.release();
+        init();
+    }
+}
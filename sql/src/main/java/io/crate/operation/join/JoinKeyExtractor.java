@@ -0,0 +1,87 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.grouping.CompositeKey;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Extracts the join key of a row of one side of a hash join.
+ */
+public class JoinKeyExtractor {
+
+    private final List<? extends DataType> keyTypes;
+    private final List<? extends Input<?>> keyInputs;
+    private final Collection<? extends CollectExpression<Row, ?>> expressions;
+    @Nullable
+    private final CompositeKey spareKey;
+
+    /**
+     * @param keyTypes    the types of the key columns
+     * @param keyInputs   an input for each key column
+     * @param expressions the expressions the <code>keyInputs</code> are based on
+     */
+    public JoinKeyExtractor(List<? extends DataType> keyTypes,
+                            List<? extends Input<?>> keyInputs,
+                            Collection<? extends CollectExpression<Row, ?>> expressions) {
+        assert keyTypes.size() == keyInputs.size() : "need a type for each key input";
+        assert !keyInputs.isEmpty() : "need at least one key input";
+        this.keyTypes = keyTypes;
+        this.keyInputs = keyInputs;
+        this.expressions = expressions;
+        spareKey = keyInputs.size() == 1 ? null : new CompositeKey(keyTypes);
+    }
+
+    public List<? extends DataType> keyTypes() {
+        return keyTypes;
+    }
+
+    /**
+     * @return the key of the row or null if any of the key columns is null; as <code>null = null</code> is
+     * never true rows with such a key never match.
+     * If there are multiple key columns the returned {@link CompositeKey} is re-used on the next call.
+     */
+    @Nullable
+    public Object key(Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        if (spareKey == null) {
+            return keyInputs.get(0).value();
+        }
+        for (int i = 0; i < keyInputs.size(); i++) {
+            Object value = keyInputs.get(i).value();
+            if (value == null) {
+                return null;
+            }
+            spareKey.set(i, value);
+        }
+        return spareKey;
+    }
+}
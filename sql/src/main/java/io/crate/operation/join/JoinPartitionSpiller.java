@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.projectors.SpillSettings;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes the rows of one side of a hash join into a fixed number of partition files, so that each
+ * partition can be joined on its own once the whole input has been received.
+ * <p>
+ * Uses the same file format as {@link io.crate.operation.projectors.sorting.SortedRunSpiller}:
+ * a sequence of {@link StreamBucket}s terminated by an empty bucket.
+ */
+class JoinPartitionSpiller implements Closeable {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(JoinPartitionSpiller.class);
+
+    static final int ROWS_PER_BUCKET = 1024;
+
+    private final SpillSettings spillSettings;
+    private final Streamer<?>[] streamers;
+    private final String prefix;
+    private final Path[] files;
+    private final StreamOutput[] outputs;
+    private final StreamBucket.Builder[] builders;
+    private final int[] rowsInBucket;
+    private final List<StreamInput> openInputs = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param streamers a streamer for each column of the rows
+     * @param prefix    prefix of the partition file names
+     */
+    JoinPartitionSpiller(SpillSettings spillSettings, Streamer<?>[] streamers, int numPartitions, String prefix) {
+        this.spillSettings = spillSettings;
+        this.streamers = streamers;
+        this.prefix = prefix;
+        files = new Path[numPartitions];
+        outputs = new StreamOutput[numPartitions];
+        builders = new StreamBucket.Builder[numPartitions];
+        rowsInBucket = new int[numPartitions];
+    }
+
+    void add(int partition, Row row) {
+        try {
+            StreamBucket.Builder builder = builders[partition];
+            if (builder == null) {
+                files[partition] = Files.createTempFile(spillSettings.directory(), prefix, ".part");
+                outputs[partition] = new OutputStreamStreamOutput(
+                    new BufferedOutputStream(Files.newOutputStream(files[partition])));
+                builder = builders[partition] = new StreamBucket.Builder(streamers);
+            }
+            builder.add(row);
+            rowsInBucket[partition]++;
+            if (rowsInBucket[partition] == ROWS_PER_BUCKET) {
+                builder.writeToStream(outputs[partition]);
+                builder.reset();
+                rowsInBucket[partition] = 0;
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * flush and close all partition files; must be called before {@link #rows(int)}
+     */
+    void finishWriting() {
+        try {
+            for (int i = 0; i < outputs.length; i++) {
+                StreamOutput out = outputs[i];
+                if (out == null) {
+                    continue;
+                }
+                if (rowsInBucket[i] > 0) {
+                    builders[i].writeToStream(out);
+                }
+                out.writeVInt(0);
+                out.close();
+                outputs[i] = null;
+                builders[i] = null;
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("spilled join partition into {}", files[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * @return the rows of the given partition; each row is a new array
+     */
+    Iterator<Object[]> rows(int partition) {
+        Path file = files[partition];
+        if (file == null) {
+            return Collections.emptyIterator();
+        }
+        final StreamInput in;
+        try {
+            in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file)));
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        openInputs.add(in);
+        return new AbstractIterator<Object[]>() {
+
+            private Iterator<Row> bucketIt = null;
+
+            @Override
+            protected Object[] computeNext() {
+                while (bucketIt == null || !bucketIt.hasNext()) {
+                    StreamBucket bucket = new StreamBucket(streamers);
+                    try {
+                        bucket.readFrom(in);
+                    } catch (IOException e) {
+                        throw Throwables.propagate(e);
+                    }
+                    if (bucket.size() == 0) {
+                        return endOfData();
+                    }
+                    bucketIt = bucket.iterator();
+                }
+                return bucketIt.next().materialize();
+            }
+        };
+    }
+
+    /**
+     * closes all open partition files and deletes them
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (StreamOutput out : outputs) {
+            closeQuietly(out);
+        }
+        for (StreamInput in : openInputs) {
+            closeQuietly(in);
+        }
+        openInputs.clear();
+        for (Path file : files) {
+            if (file == null) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("could not delete partition file {}", e, file);
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOGGER.warn("could not close partition file", e);
+        }
+    }
+}
@@ -40,13 +40,15 @@ class LuceneLongBitSetWrapper {
 
     void set(long idx) {
         if (idx >= size) {
-            size *= 2;
+            while (idx >= size) {
+                size *= 2;
+            }
             bitSet = LongBitSet.ensureCapacity(bitSet, size);
         }
         bitSet.set(idx);
     }
 
     boolean get(long idx) {
-        return bitSet.get(idx);
+        return idx < size && bitSet.get(idx);
     }
 }
@@ -25,7 +25,6 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
-import io.crate.concurrent.CompletionListenable;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.RowN;
 import io.crate.core.collections.RowNull;
@@ -138,7 +137,7 @@ import java.util.concurrent.atomic.AtomicReference;
  *              [... same as before ...]
  * </pre>
  */
-public class NestedLoopOperation implements CompletionListenable {
+public class NestedLoopOperation implements JoinOperation {
 
     private final static ESLogger LOGGER = Loggers.getLogger(NestedLoopOperation.class);
     private final boolean traceEnabled = LOGGER.isTraceEnabled();
@@ -184,10 +183,12 @@ public class NestedLoopOperation implements CompletionListenable {
         }
     }
 
+    @Override
     public ListenableRowReceiver leftRowReceiver() {
         return left;
     }
 
+    @Override
     public ListenableRowReceiver rightRowReceiver() {
         return right;
     }
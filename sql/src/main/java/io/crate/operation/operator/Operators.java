@@ -22,8 +22,14 @@
 package io.crate.operation.operator;
 
 import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
 import io.crate.operation.predicate.NotPredicate;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Operators {
 
     public static final ImmutableSet<String> LOGICAL_OPERATORS = ImmutableSet.of(
@@ -35,4 +41,45 @@ public class Operators {
         GtOperator.NAME, GteOperator.NAME,
         LtOperator.NAME, LteOperator.NAME
     );
+
+    /**
+     * @return the operands of nested <code>AND</code> functions, or the symbol itself if it isn't an <code>AND</code>
+     */
+    public static List<Symbol> splitConjunctions(Symbol symbol) {
+        List<Symbol> conjunctions = new ArrayList<>();
+        addConjunctions(symbol, conjunctions);
+        return conjunctions;
+    }
+
+    private static void addConjunctions(Symbol symbol, List<Symbol> conjunctions) {
+        if (symbol instanceof Function && ((Function) symbol).info().ident().name().equals(AndOperator.NAME)) {
+            for (Symbol arg : ((Function) symbol).arguments()) {
+                addConjunctions(arg, conjunctions);
+            }
+        } else {
+            conjunctions.add(symbol);
+        }
+    }
+
+    /**
+     * @return the comparison operator to use if the arguments of a comparison are swapped,
+     * or null if the operator isn't a comparison operator
+     */
+    @Nullable
+    public static String swapComparison(String operatorName) {
+        switch (operatorName) {
+            case EqOperator.NAME:
+                return EqOperator.NAME;
+            case LtOperator.NAME:
+                return GtOperator.NAME;
+            case LteOperator.NAME:
+                return GteOperator.NAME;
+            case GtOperator.NAME:
+                return LtOperator.NAME;
+            case GteOperator.NAME:
+                return LteOperator.NAME;
+            default:
+                return null;
+        }
+    }
 }
@@ -24,6 +24,7 @@ package io.crate.operation.projectors;
 import com.google.common.collect.Lists;
 import io.crate.Streamer;
 import io.crate.executor.transport.distributed.*;
+import io.crate.jobs.PhaseProfile;
 import io.crate.operation.NodeOperation;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.ExecutionPhases;
@@ -36,6 +37,7 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.UUID;
@@ -61,6 +63,17 @@ public class DistributingDownstreamFactory extends AbstractComponent {
                               DistributionInfo distributionInfo,
                               UUID jobId,
                               int pageSize) {
+        return create(nodeOperation, distributionInfo, jobId, pageSize, null);
+    }
+
+    /**
+     * @param profile if not null the sent requests and bytes are counted, see {@link DistributingDownstream#profile(PhaseProfile)}
+     */
+    public RowReceiver create(NodeOperation nodeOperation,
+                              DistributionInfo distributionInfo,
+                              UUID jobId,
+                              int pageSize,
+                              @Nullable PhaseProfile profile) {
         Streamer<?>[] streamers = StreamerVisitor.streamersFromOutputs(nodeOperation.executionPhase());
         assert !ExecutionPhases.hasDirectResponseDownstream(nodeOperation.downstreamNodes())
             : "trying to build a DistributingDownstream but nodeOperation has a directResponse downstream";
@@ -69,26 +82,36 @@ public class DistributingDownstreamFactory extends AbstractComponent {
         // TODO: set bucketIdx properly
         ArrayList<String> server = Lists.newArrayList(nodeOperation.executionPhase().nodeIds());
         Collections.sort(server);
-        int bucketIdx = Math.max(server.indexOf(clusterService.localNode().getId()), 0);
+        String localNodeId = clusterService.localNode().getId();
+        int bucketIdx = Math.max(server.indexOf(localNodeId), 0);
+
+        boolean hasRemoteDownstream = false;
+        for (String downstreamNode : nodeOperation.downstreamNodes()) {
+            hasRemoteDownstream |= !downstreamNode.equals(localNodeId);
+        }
+        BucketFormat bucketFormat = BucketFormat.forPhase(streamers, hasRemoteDownstream);
+        boolean preserveOrder = nodeOperation.downstreamOrdered();
 
         MultiBucketBuilder multiBucketBuilder;
         switch (distributionInfo.distributionType()) {
             case MODULO:
                 if (nodeOperation.downstreamNodes().size() == 1) {
-                    multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                    multiBucketBuilder = new BroadcastingBucketBuilder(
+                        streamers, nodeOperation.downstreamNodes().size(), bucketFormat, preserveOrder);
                 } else {
-                    multiBucketBuilder = new ModuloBucketBuilder(streamers,
-                        nodeOperation.downstreamNodes().size(), distributionInfo.distributeByColumn());
+                    multiBucketBuilder = new ModuloBucketBuilder(streamers, nodeOperation.downstreamNodes().size(),
+                        distributionInfo.distributeByColumn(), bucketFormat, preserveOrder);
                 }
                 break;
             case BROADCAST:
-                multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                multiBucketBuilder = new BroadcastingBucketBuilder(
+                    streamers, nodeOperation.downstreamNodes().size(), bucketFormat, preserveOrder);
                 break;
             default:
                 throw new UnsupportedOperationException("Can't handle distributionInfo: " + distributionInfo);
         }
 
-        return new DistributingDownstream(
+        DistributingDownstream distributingDownstream = new DistributingDownstream(
             distributingDownstreamLogger,
             jobId,
             multiBucketBuilder,
@@ -100,5 +123,9 @@ public class DistributingDownstreamFactory extends AbstractComponent {
             streamers,
             pageSize
         );
+        if (profile != null) {
+            distributingDownstream.profile(profile);
+        }
+        return distributingDownstream;
     }
 }
@@ -23,9 +23,12 @@ package io.crate.operation.projectors;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.twitter.jsr166e.LongAdder;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.planner.projection.Projection;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -60,15 +63,29 @@ public class FlatProjectorChain {
         private final RamAccountingContext ramAccountingContext;
         private final ProjectorFactory projectorFactory;
         private final Collection<? extends Projection> projections;
+        @Nullable
+        private final PhaseProfile profile;
+        private final String chainName;
 
         public Builder(UUID jobId,
                        RamAccountingContext ramAccountingContext,
                        ProjectorFactory projectorFactory,
                        Collection<? extends Projection> projections) {
+            this(jobId, ramAccountingContext, projectorFactory, projections, null, PhaseProfile.NODE_CHAIN);
+        }
+
+        public Builder(UUID jobId,
+                       RamAccountingContext ramAccountingContext,
+                       ProjectorFactory projectorFactory,
+                       Collection<? extends Projection> projections,
+                       @Nullable PhaseProfile profile,
+                       String chainName) {
             this.jobId = jobId;
             this.ramAccountingContext = ramAccountingContext;
             this.projectorFactory = projectorFactory;
             this.projections = projections;
+            this.profile = profile;
+            this.chainName = chainName;
         }
 
         public FlatProjectorChain build(RowReceiver rowReceiver) {
@@ -77,7 +94,9 @@ public class FlatProjectorChain {
                 ramAccountingContext,
                 projections,
                 rowReceiver,
-                jobId
+                jobId,
+                profile,
+                chainName
             );
         }
     }
@@ -87,18 +106,45 @@ public class FlatProjectorChain {
                                                             Collection<? extends Projection> projections,
                                                             RowReceiver downstream,
                                                             UUID jobId) {
+        return withAttachedDownstream(
+            projectorFactory, ramAccountingContext, projections, downstream, jobId, null, PhaseProfile.NODE_CHAIN);
+    }
+
+    /**
+     * @param profile if not null the rows received by each projector and by the downstream are counted
+     * @param chainName name under which the counters are registered in the profile
+     */
+    public static FlatProjectorChain withAttachedDownstream(final ProjectorFactory projectorFactory,
+                                                            final RamAccountingContext ramAccountingContext,
+                                                            Collection<? extends Projection> projections,
+                                                            RowReceiver downstream,
+                                                            UUID jobId,
+                                                            @Nullable PhaseProfile profile,
+                                                            String chainName) {
         if (projections.isEmpty()) {
             return new FlatProjectorChain(Collections.singletonList(downstream));
         }
+        LongAdder[] rowCounters = null;
+        if (profile != null) {
+            List<String> projectorNames = new ArrayList<>(projections.size());
+            for (Projection projection : projections) {
+                projectorNames.add(projection.projectionType().name());
+            }
+            rowCounters = profile.projectorRows(chainName, projectorNames);
+            downstream = new CountingRowReceiver(downstream, rowCounters[projections.size()]);
+        }
         List<RowReceiver> rowReceivers = new ArrayList<>(projections.size() + 1);
         Projector previousProjector = null;
+        int idx = 0;
         for (Projection projection : projections) {
             Projector projector = projectorFactory.create(projection, ramAccountingContext, jobId);
-            rowReceivers.add(projector);
+            RowReceiver receiver = rowCounters == null ? projector : new CountingRowReceiver(projector, rowCounters[idx]);
+            rowReceivers.add(receiver);
             if (previousProjector != null) {
-                previousProjector.downstream(projector);
+                previousProjector.downstream(receiver);
             }
             previousProjector = projector;
+            idx++;
         }
         if (previousProjector != null) {
             rowReceivers.add(downstream);
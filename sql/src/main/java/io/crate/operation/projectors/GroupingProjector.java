@@ -21,10 +21,13 @@
 
 package io.crate.operation.projectors;
 
+import com.carrotsearch.hppc.ObjectObjectHashMap;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import io.crate.breaker.OperationRamAccountingContext;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
@@ -34,6 +37,9 @@ import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.Aggregator;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.grouping.CompositeKey;
+import io.crate.operation.projectors.grouping.GroupSpiller;
+import io.crate.operation.projectors.grouping.SingleKeyStatesMap;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -62,14 +68,28 @@ public class GroupingProjector extends AbstractProjector {
                              CollectExpression[] collectExpressions,
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext, null);
+    }
+
+    /**
+     * @param spillSettings if not null, groups are written to disk instead of tripping the query breaker
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             @Nullable SpillSettings spillSettings) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
         this.ramAccountingContext = ramAccountingContext;
+        // keeps track of the bytes of the groups, including the aggregation states, so that they can be spilled
+        OperationRamAccountingContext groupsRamAccountingContext = new OperationRamAccountingContext(ramAccountingContext);
 
         Aggregator[] aggregators = new Aggregator[aggregations.length];
         for (int i = 0; i < aggregations.length; i++) {
             aggregators[i] = new Aggregator(
-                ramAccountingContext,
+                groupsRamAccountingContext,
                 aggregations[i].symbol(),
                 aggregations[i].function(),
                 aggregations[i].inputs()
@@ -77,9 +97,15 @@ public class GroupingProjector extends AbstractProjector {
         }
 
         if (keyInputs.size() == 1) {
-            grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
+            GroupSpiller spiller = spillSettings == null ? null : new GroupSpiller(
+                spillSettings, GroupSpiller.singleKeyCodec(keyTypes.get(0)), aggregators, groupsRamAccountingContext);
+            grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators,
+                groupsRamAccountingContext, spiller);
         } else {
-            grouper = new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+            GroupSpiller spiller = spillSettings == null ? null : new GroupSpiller(
+                spillSettings, GroupSpiller.compositeKeyCodec(keyTypes), aggregators, groupsRamAccountingContext);
+            grouper = new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators,
+                groupsRamAccountingContext, spiller);
         }
     }
 
@@ -117,36 +143,37 @@ public class GroupingProjector extends AbstractProjector {
 
     @Override
     public void fail(Throwable throwable) {
+        grouper.close();
         downstream.fail(throwable);
     }
 
     /**
-     * transform map entry into pre-allocated object array.
+     * transform group key and states into pre-allocated object array.
      */
-    private static void transformToRow(Map.Entry<List<Object>, Object[]> entry,
+    private static void transformToRow(CompositeKey key,
+                                       Object[] states,
                                        Object[] row,
                                        Aggregator[] aggregators) {
         int c = 0;
 
-        for (Object o : entry.getKey()) {
-            row[c] = o;
+        for (int i = 0; i < key.size(); i++) {
+            row[c] = key.get(i);
             c++;
         }
 
-        Object[] states = entry.getValue();
         for (int i = 0; i < states.length; i++) {
             row[c] = aggregators[i].finishCollect(states[i]);
             c++;
         }
     }
 
-    private static void singleTransformToRow(Map.Entry<Object, Object[]> entry,
+    private static void singleTransformToRow(SingleKeyStatesMap.Entry entry,
                                              Object[] row,
                                              Aggregator[] aggregators) {
         int c = 0;
-        row[c] = entry.getKey();
+        row[c] = entry.key();
         c++;
-        Object[] states = entry.getValue();
+        Object[] states = entry.states();
         for (int i = 0; i < states.length; i++) {
             row[c] = aggregators[i].finishCollect(states[i]);
             c++;
@@ -159,25 +186,151 @@ public class GroupingProjector extends AbstractProjector {
         void finish();
 
         void kill(Throwable t);
+
+        @Override
+        void close();
     }
 
-    private class SingleKeyGrouper implements Grouper {
+    /**
+     * Base for the groupers which takes care of emitting the groups and of spilling them to disk
+     * if a {@link GroupSpiller} is used.
+     */
+    private abstract class AbstractGrouper implements Grouper {
+
+        protected final Aggregator[] aggregators;
+        protected final CollectExpression[] collectExpressions;
+        private final OperationRamAccountingContext groupsRamAccountingContext;
+        @Nullable
+        private final GroupSpiller spiller;
+        private volatile IterableRowEmitter rowEmitter = null;
+
+        AbstractGrouper(CollectExpression[] collectExpressions,
+                        Aggregator[] aggregators,
+                        OperationRamAccountingContext groupsRamAccountingContext,
+                        @Nullable GroupSpiller spiller) {
+            this.collectExpressions = collectExpressions;
+            this.aggregators = aggregators;
+            this.groupsRamAccountingContext = groupsRamAccountingContext;
+            this.spiller = spiller;
+        }
+
+        protected Object[] newStates() {
+            Object[] states = new Object[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                Object state = aggregators[i].prepareState();
+                states[i] = aggregators[i].processRow(state);
+            }
+            return states;
+        }
+
+        protected void processRow(Object[] states) {
+            for (int i = 0; i < aggregators.length; i++) {
+                states[i] = aggregators[i].processRow(states[i]);
+            }
+        }
 
-        private final Map<Object, Object[]> result;
-        private final Aggregator[] aggregators;
+        /**
+         * account the memory used by the key of a new group.
+         * The aggregators account the memory of the states in the same context, so that both are released
+         * if the groups are spilled; the ramAccountingContext is shared with other operations of the same phase.
+         */
+        protected void addBytes(long bytes) {
+            groupsRamAccountingContext.addBytes(bytes);
+        }
+
+        /**
+         * must be called after a group has been added
+         */
+        protected void groupAdded() {
+            if (spiller != null && spiller.shouldSpill()) {
+                spill();
+            }
+        }
+
+        private void spill() {
+            assert spiller != null : "spiller must not be null";
+            int size = tableSize();
+            Object[] keys = new Object[size];
+            Object[][] states = new Object[size][];
+            moveGroupsTo(keys, states);
+            spiller.spill(keys, states, size);
+        }
+
+        protected abstract int tableSize();
+
+        /**
+         * move all groups of the table into the given arrays and clear the table
+         */
+        protected abstract void moveGroupsTo(Object[] keys, Object[][] states);
+
+        protected abstract Iterable<Row> tableRows();
+
+        @Override
+        public void finish() {
+            if (spiller != null && spiller.hasSpilled()) {
+                if (tableSize() > 0) {
+                    spill();
+                }
+                rowEmitter = new IterableRowEmitter(new ForwardingRowReceiver(downstream) {
+
+                    @Override
+                    public void finish(RepeatHandle repeatHandle) {
+                        spiller.close();
+                        super.finish(repeatHandle);
+                    }
+
+                    @Override
+                    public void fail(Throwable throwable) {
+                        spiller.close();
+                        super.fail(throwable);
+                    }
+
+                    @Override
+                    public void kill(Throwable throwable) {
+                        spiller.close();
+                        super.kill(throwable);
+                    }
+                }, spiller.mergedRows());
+            } else {
+                rowEmitter = new IterableRowEmitter(downstream, tableRows());
+            }
+            rowEmitter.run();
+        }
+
+        @Override
+        public void kill(Throwable t) {
+            IterableRowEmitter emitter = rowEmitter;
+            if (emitter == null) {
+                close();
+                downstream.kill(t);
+            } else {
+                emitter.kill(t);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (spiller != null) {
+                spiller.close();
+            }
+        }
+    }
+
+    private class SingleKeyGrouper extends AbstractGrouper {
+
+        private final SingleKeyStatesMap result;
         private final Input keyInput;
-        private final CollectExpression[] collectExpressions;
         private final SizeEstimator<Object> sizeEstimator;
-        private volatile IterableRowEmitter rowEmitter = null;
 
         public SingleKeyGrouper(Input keyInput,
                                 DataType keyInputType,
                                 CollectExpression[] collectExpressions,
-                                Aggregator[] aggregators) {
-            this.collectExpressions = collectExpressions;
-            this.result = new HashMap<>();
+                                Aggregator[] aggregators,
+                                OperationRamAccountingContext groupsRamAccountingContext,
+                                @Nullable GroupSpiller spiller) {
+            super(collectExpressions, aggregators, groupsRamAccountingContext, spiller);
+            this.result = SingleKeyStatesMap.forType(keyInputType);
             this.keyInput = keyInput;
-            this.aggregators = aggregators;
             sizeEstimator = SizeEstimatorFactory.create(keyInputType);
         }
 
@@ -191,77 +344,77 @@ public class GroupingProjector extends AbstractProjector {
 
             Object[] states = result.get(key);
             if (states == null) {
-                states = new Object[aggregators.length];
-                for (int i = 0; i < aggregators.length; i++) {
-                    Object state = aggregators[i].prepareState();
-                    states[i] = aggregators[i].processRow(state);
-                }
-                ramAccountingContext.addBytes(
+                states = newStates();
+                addBytes(
                     RamAccountingContext.roundUp(sizeEstimator.estimateSize(key) + 36L) // key size + 32 bytes for entry + 4 bytes for increased capacity
                 );
                 result.put(key, states);
+                groupAdded();
             } else {
-                for (int i = 0; i < aggregators.length; i++) {
-                    states[i] = aggregators[i].processRow(states[i]);
-                }
+                processRow(states);
             }
 
             return CONTINUE;
         }
 
         @Override
-        public void finish() {
-            rowEmitter = new IterableRowEmitter(
-                downstream, Iterables.transform(result.entrySet(), new Function<Map.Entry<Object, Object[]>, Row>() {
+        protected int tableSize() {
+            return result.size();
+        }
+
+        @Override
+        protected void moveGroupsTo(Object[] keys, Object[][] states) {
+            int i = 0;
+            for (SingleKeyStatesMap.Entry entry : result) {
+                keys[i] = entry.key();
+                states[i] = entry.states();
+                i++;
+            }
+            result.clear();
+        }
+
+        @Override
+        protected Iterable<Row> tableRows() {
+            return Iterables.transform(result, new Function<SingleKeyStatesMap.Entry, Row>() {
 
                 RowN row = new RowN(1 + aggregators.length); // 1 for key
                 Object[] cells = new Object[row.size()];
 
                 @Nullable
                 @Override
-                public Row apply(@Nullable Map.Entry<Object, Object[]> input) {
+                public Row apply(@Nullable SingleKeyStatesMap.Entry input) {
                     assert input != null : "input must not be null";
                     singleTransformToRow(input, cells, aggregators);
                     row.cells(cells);
                     return row;
                 }
-            }));
-            rowEmitter.run();
-        }
-
-        @Override
-        public void kill(Throwable t) {
-            IterableRowEmitter emitter = rowEmitter;
-            if (emitter == null) {
-                downstream.kill(t);
-            } else {
-                emitter.kill(t);
-            }
+            });
         }
 
         @Override
-        public void close() throws Exception {
+        public void close() {
+            super.close();
             result.clear();
         }
     }
 
-    private class ManyKeyGrouper implements Grouper {
+    private class ManyKeyGrouper extends AbstractGrouper {
 
-        private final Aggregator[] aggregators;
-        private final Map<List<Object>, Object[]> result;
+        private final ObjectObjectHashMap<CompositeKey, Object[]> result;
         private final List<Input<?>> keyInputs;
-        private final CollectExpression[] collectExpressions;
         private final List<SizeEstimator<Object>> sizeEstimators;
-        private IterableRowEmitter rowEmitter = null;
+        private final CompositeKey spareKey;
 
         ManyKeyGrouper(List<Input<?>> keyInputs,
                        List<? extends DataType> keyTypes,
                        CollectExpression[] collectExpressions,
-                       Aggregator[] aggregators) {
-            this.collectExpressions = collectExpressions;
-            this.result = new HashMap<>();
+                       Aggregator[] aggregators,
+                       OperationRamAccountingContext groupsRamAccountingContext,
+                       @Nullable GroupSpiller spiller) {
+            super(collectExpressions, aggregators, groupsRamAccountingContext, spiller);
+            this.result = new ObjectObjectHashMap<>();
             this.keyInputs = keyInputs;
-            this.aggregators = aggregators;
+            this.spareKey = new CompositeKey(keyTypes);
             sizeEstimators = new ArrayList<>(keyTypes.size());
             for (DataType dataType : keyTypes) {
                 sizeEstimators.add(SizeEstimatorFactory.create(dataType));
@@ -274,73 +427,67 @@ public class GroupingProjector extends AbstractProjector {
                 collectExpression.setNextRow(row);
             }
 
-            // TODO: use something with better equals() performance for the keys
-            List<Object> key = new ArrayList<>(keyInputs.size());
-            int keyIdx = 0;
-            for (Input keyInput : keyInputs) {
-                Object keyInputValue = keyInput.value();
-                key.add(keyInputValue);
-                // estimate key size, overhead is accounted below
-                ramAccountingContext.addBytes(
-                    RamAccountingContext.roundUp(
-                        sizeEstimators.get(keyIdx).estimateSize(keyInputValue)
-                    )
-                );
-                keyIdx++;
+            // the spare key is only used for the lookup, it is copied if a new group is created
+            for (int i = 0; i < keyInputs.size(); i++) {
+                spareKey.set(i, keyInputs.get(i).value());
             }
 
-            Object[] states = result.get(key);
+            Object[] states = result.get(spareKey);
             if (states == null) {
-                states = new Object[aggregators.length];
-                for (int i = 0; i < aggregators.length; i++) {
-                    Object state = aggregators[i].prepareState();
-                    state = aggregators[i].processRow(state);
-                    states[i] = state;
+                states = newStates();
+                long keySize = 0L;
+                for (int i = 0; i < keyInputs.size(); i++) {
+                    keySize += sizeEstimators.get(i).estimateSize(spareKey.get(i));
                 }
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(36L)); // 32 bytes for entry + 4 bytes for increased capacity
-                result.put(key, states);
+                // key size + 32 bytes for entry + 4 bytes for increased capacity
+                addBytes(RamAccountingContext.roundUp(keySize + 36L));
+                result.put(spareKey.copy(), states);
+                groupAdded();
             } else {
-                for (int i = 0; i < aggregators.length; i++) {
-                    states[i] = aggregators[i].processRow(states[i]);
-                }
+                processRow(states);
             }
 
             return CONTINUE;
         }
 
         @Override
-        public void finish() {
-            rowEmitter = new IterableRowEmitter(
-                downstream, Iterables.transform(result.entrySet(), new Function<Map.Entry<List<Object>, Object[]>, Row>() {
+        protected int tableSize() {
+            return result.size();
+        }
+
+        @Override
+        protected void moveGroupsTo(Object[] keys, Object[][] states) {
+            int i = 0;
+            for (ObjectObjectCursor<CompositeKey, Object[]> cursor : result) {
+                keys[i] = cursor.key;
+                states[i] = cursor.value;
+                i++;
+            }
+            result.release();
+        }
+
+        @Override
+        protected Iterable<Row> tableRows() {
+            return Iterables.transform(result, new Function<ObjectObjectCursor<CompositeKey, Object[]>, Row>() {
 
                 RowN row = new RowN(keyInputs.size() + aggregators.length);
                 Object[] cells = new Object[row.size()];
 
                 @Nullable
                 @Override
-                public Row apply(@Nullable Map.Entry<List<Object>, Object[]> input) {
+                public Row apply(@Nullable ObjectObjectCursor<CompositeKey, Object[]> input) {
                     assert input != null : "input must not be null";
-                    transformToRow(input, cells, aggregators);
+                    transformToRow(input.key, input.value, cells, aggregators);
                     row.cells(cells);
                     return row;
                 }
-            }));
-            rowEmitter.run();
+            });
         }
 
         @Override
-        public void kill(Throwable t) {
-            IterableRowEmitter emitter = rowEmitter;
-            if (emitter == null) {
-                downstream.kill(t);
-            } else {
-                emitter.kill(t);
-            }
-        }
-
-        @Override
-        public void close() throws Exception {
-            result.clear();
+        public void close() {
+            super.close();
+            result.release();
         }
     }
 
@@ -24,6 +24,7 @@ package io.crate.operation.projectors;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.analyze.symbol.Literal;
@@ -82,6 +83,8 @@ public class ProjectionToProjectorVisitor
 
     @Nullable
     private final ShardId shardId;
+    @Nullable
+    private final SpillSettings spillSettings;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
                                         Functions functions,
@@ -103,6 +106,7 @@ public class ProjectionToProjectorVisitor
         this.inputFactory = inputFactory;
         this.normalizer = normalizer;
         this.shardId = shardId;
+        this.spillSettings = SpillSettings.fromSettings(settings);
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -164,7 +168,11 @@ public class ProjectionToProjectorVisitor
             ctx.expressions(),
             numOutputs,
             OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-            projection.offset()
+            projection.offset(),
+            context.ramAccountingContext,
+            Lists.newArrayList(Iterables.concat(
+                Symbols.extractTypes(projection.outputs()), Symbols.extractTypes(projection.orderBy()))),
+            spillSettings
         );
     }
 
@@ -198,7 +206,8 @@ public class ProjectionToProjectorVisitor
             keyInputs,
             Iterables.toArray(ctx.expressions(), CollectExpression.class),
             ctx.aggregations().toArray(new AggregationContext[0]),
-            context.ramAccountingContext
+            context.ramAccountingContext,
+            spillSettings
         );
     }
 
@@ -22,12 +22,22 @@
 package io.crate.operation.projectors;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.breaker.OperationRamAccountingContext;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.collections.Buckets;
 import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.sorting.SortedRunSpiller;
+import io.crate.types.DataType;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -35,6 +45,9 @@ import java.util.*;
  * <p>
  * Compared to {@link SortingTopNProjector} this projector does not support limiting,
  * while the {@link SortingTopNProjector} does not work WITHOUT a limit.
+ * <p>
+ * If {@link SpillSettings} are given the rows are accounted and, once they use a large enough share of the
+ * query breaker limit, written to disk as a sorted run. On finish all runs are merged, see {@link SortedRunSpiller}.
  */
 class SortingProjector extends AbstractProjector {
 
@@ -45,9 +58,16 @@ class SortingProjector extends AbstractProjector {
     private final Ordering<Object[]> ordering;
     private final int offset;
     private final int numOutputs;
-    private final List<Object[]> rows = new ArrayList<>();
+    private List<Object[]> rows = new ArrayList<>();
     private IterableRowEmitter rowEmitter = null;
 
+    @Nullable
+    private final OperationRamAccountingContext ramAccountingContext;
+    @Nullable
+    private final SizeEstimator<Object>[] sizeEstimators;
+    @Nullable
+    private final SortedRunSpiller spiller;
+
     /**
      * @param inputs             contains output {@link io.crate.operation.Input}s and orderBy {@link io.crate.operation.Input}s
      * @param collectExpressions gathered from outputs and orderBy inputs
@@ -60,12 +80,47 @@ class SortingProjector extends AbstractProjector {
                      int numOutputs,
                      Ordering<Object[]> ordering,
                      int offset) {
+        this(inputs, collectExpressions, numOutputs, ordering, offset, null, null, null);
+    }
+
+    /**
+     * @param ramAccountingContext used to account the rows if spilling is enabled
+     * @param inputTypes           the types of the <code>inputs</code>
+     * @param spillSettings        if not null, sorted runs are written to disk instead of tripping the query breaker
+     */
+    @SuppressWarnings("unchecked")
+    SortingProjector(Collection<? extends Input<?>> inputs,
+                     Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                     int numOutputs,
+                     Ordering<Object[]> ordering,
+                     int offset,
+                     @Nullable RamAccountingContext ramAccountingContext,
+                     @Nullable List<? extends DataType> inputTypes,
+                     @Nullable SpillSettings spillSettings) {
         Preconditions.checkArgument(offset >= 0, "invalid offset %s", offset);
         this.numOutputs = numOutputs;
         this.inputs = inputs;
         this.collectExpressions = collectExpressions;
         this.ordering = ordering;
         this.offset = offset;
+        if (spillSettings == null) {
+            this.ramAccountingContext = null;
+            this.sizeEstimators = null;
+            this.spiller = null;
+        } else {
+            assert ramAccountingContext != null : "ramAccountingContext is required for spilling";
+            assert inputTypes != null && inputTypes.size() == inputs.size() : "need a type for each input";
+            // the context is shared with other operations, only the bytes of the buffered rows may be released
+            this.ramAccountingContext = new OperationRamAccountingContext(ramAccountingContext);
+            this.sizeEstimators = new SizeEstimator[inputTypes.size()];
+            Streamer<?>[] streamers = new Streamer[inputTypes.size()];
+            for (int i = 0; i < streamers.length; i++) {
+                DataType type = inputTypes.get(i);
+                sizeEstimators[i] = SizeEstimatorFactory.create(type);
+                streamers[i] = type.streamer();
+            }
+            this.spiller = new SortedRunSpiller(spillSettings, streamers);
+        }
     }
 
     @Override
@@ -79,19 +134,80 @@ class SortingProjector extends AbstractProjector {
             newRow[i++] = input.value();
         }
         rows.add(newRow);
+        if (spiller != null) {
+            accountAndMaybeSpill(newRow);
+        }
         return Result.CONTINUE;
     }
 
+    private void accountAndMaybeSpill(Object[] row) {
+        assert ramAccountingContext != null && sizeEstimators != null : "must be set if spilling is enabled";
+        long rowSize = 16L + 8L * row.length; // array header + references
+        for (int i = 0; i < row.length; i++) {
+            rowSize += sizeEstimators[i].estimateSize(row[i]);
+        }
+        rowSize = RamAccountingContext.roundUp(rowSize);
+        ramAccountingContext.addBytes(rowSize);
+        if (spiller.spillSettings().shouldSpill(ramAccountingContext, ramAccountingContext.totalBytes())) {
+            Collections.sort(rows, sortOrdering());
+            spiller.spill(rows);
+            rows = new ArrayList<>();
+            ramAccountingContext.releaseAll();
+        }
+    }
+
+    /**
+     * we must reverse the order (back to original one) because order was reserved for used on queues
+     */
+    private Ordering<Object[]> sortOrdering() {
+        return ordering.reverse();
+    }
+
     @Override
     public void finish(RepeatHandle repeatHandle) {
-        // sort, we must reverse the order (back to original one) because order was reserved for used on queues
-        Collections.sort(rows, Collections.reverseOrder(ordering));
+        Collections.sort(rows, sortOrdering());
 
         // emit
-        rowEmitter = createRowEmitter();
+        if (spiller != null && spiller.hasSpilled()) {
+            rowEmitter = createMergingRowEmitter();
+        } else {
+            rowEmitter = createRowEmitter();
+        }
         rowEmitter.run();
     }
 
+    private IterableRowEmitter createMergingRowEmitter() {
+        assert spiller != null : "spiller must not be null";
+        final Iterator<Object[]> mergedRows = spiller.mergedRows(rows, sortOrdering());
+        Iterable<Row> sortedRows = new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                Iterators.advance(mergedRows, offset);
+                return Iterators.transform(mergedRows, Buckets.arrayToRowFunction(numOutputs));
+            }
+        };
+        return new IterableRowEmitter(new ForwardingRowReceiver(downstream) {
+
+            @Override
+            public void finish(RepeatHandle repeatHandle) {
+                spiller.close();
+                super.finish(repeatHandle);
+            }
+
+            @Override
+            public void fail(Throwable throwable) {
+                spiller.close();
+                super.fail(throwable);
+            }
+
+            @Override
+            public void kill(Throwable throwable) {
+                spiller.close();
+                super.kill(throwable);
+            }
+        }, sortedRows);
+    }
+
     private IterableRowEmitter createRowEmitter() {
         CollectionBucket collectionBucket;
         // process offset
@@ -108,6 +224,9 @@ class SortingProjector extends AbstractProjector {
     public void kill(Throwable throwable) {
         IterableRowEmitter emitter = rowEmitter;
         if (emitter == null) {
+            if (spiller != null) {
+                spiller.close();
+            }
             downstream.kill(throwable);
         } else {
             emitter.kill(throwable);
@@ -116,6 +235,9 @@ class SortingProjector extends AbstractProjector {
 
     @Override
     public void fail(Throwable t) {
+        if (spiller != null) {
+            spiller.close();
+        }
         downstream.fail(t);
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.RamAccountingContext;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
+/**
+ * Settings for projectors which write intermediate data to disk instead of tripping the query breaker,
+ * see {@link io.crate.operation.projectors.grouping.GroupSpiller} and
+ * {@link io.crate.operation.projectors.sorting.SortedRunSpiller}
+ */
+public class SpillSettings {
+
+    /**
+     * data smaller than this is never spilled; spilling it wouldn't free a relevant amount of memory
+     */
+    public static final long MIN_SPILL_BYTES = RamAccountingContext.FLUSH_BUFFER_SIZE;
+
+    private final Path directory;
+    private final double breakerThreshold;
+
+    /**
+     * @return the spill settings or null if spilling is disabled
+     */
+    @Nullable
+    public static SpillSettings fromSettings(Settings settings) {
+        double threshold = settings.getAsDouble(
+            CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING,
+            CrateCircuitBreakerService.DEFAULT_QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD);
+        if (threshold <= 0.0) {
+            return null;
+        }
+        // run files are short-lived and deleted once the groups are merged, so the JVM temp directory is sufficient
+        return new SpillSettings(PathUtils.get(System.getProperty("java.io.tmpdir")), threshold);
+    }
+
+    public SpillSettings(Path directory, double breakerThreshold) {
+        assert breakerThreshold > 0.0 : "breakerThreshold must be greater than 0";
+        this.directory = directory;
+        this.breakerThreshold = breakerThreshold;
+    }
+
+    /**
+     * the directory in which the run files are created
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * fraction of the query breaker limit; if the bytes accounted by an operation exceed it, its data is spilled
+     */
+    public double breakerThreshold() {
+        return breakerThreshold;
+    }
+
+    /**
+     * The decision is based on the bytes of the operation alone. The breaker is shared by all queries,
+     * so its overall usage says nothing about how much memory spilling this data would free.
+     *
+     * @param bytes the bytes the operation has accounted for the data which would be spilled
+     * @return true if the operation uses a large enough share of the query breaker limit to spill its data
+     */
+    public boolean shouldSpill(RamAccountingContext ramAccountingContext, long bytes) {
+        if (bytes < MIN_SPILL_BYTES) {
+            return false;
+        }
+        long limit = ramAccountingContext.limit();
+        return limit > 0 && bytes >= limit * breakerThreshold;
+    }
+}
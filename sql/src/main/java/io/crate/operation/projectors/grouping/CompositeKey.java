@@ -0,0 +1,195 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Group key of a GROUP BY on multiple columns.
+ * <p>
+ * Values of fixed width types are packed into a <code>long[]</code>, all other values are kept as objects.
+ * The key is mutable so that a single spare instance can be used to look up the group of each row;
+ * only if a new group is created the key has to be {@link #copy() copied}.
+ */
+public final class CompositeKey {
+
+    private final int[] typeIds;
+    private final long[] packed;
+    private final long[] nulls;
+    @Nullable
+    private final Object[] objects;
+
+    private int hash;
+    private boolean hashValid = false;
+
+    public CompositeKey(List<? extends DataType> types) {
+        typeIds = new int[types.size()];
+        boolean allPacked = true;
+        for (int i = 0; i < typeIds.length; i++) {
+            typeIds[i] = types.get(i).id();
+            allPacked &= isPacked(typeIds[i]);
+        }
+        packed = new long[typeIds.length];
+        nulls = new long[(typeIds.length + 63) >>> 6];
+        objects = allPacked ? null : new Object[typeIds.length];
+    }
+
+    private CompositeKey(CompositeKey other) {
+        typeIds = other.typeIds;
+        packed = other.packed.clone();
+        nulls = other.nulls.clone();
+        objects = other.objects == null ? null : other.objects.clone();
+        hash = other.hash;
+        hashValid = other.hashValid;
+    }
+
+    private static boolean isPacked(int typeId) {
+        switch (typeId) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+            case DoubleType.ID:
+            case FloatType.ID:
+            case BooleanType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public int size() {
+        return typeIds.length;
+    }
+
+    public void set(int idx, @Nullable Object value) {
+        hashValid = false;
+        if (value == null) {
+            nulls[idx >>> 6] |= 1L << idx;
+            packed[idx] = 0L;
+            if (objects != null) {
+                objects[idx] = null;
+            }
+            return;
+        }
+        nulls[idx >>> 6] &= ~(1L << idx);
+        switch (typeIds[idx]) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                packed[idx] = ((Number) value).longValue();
+                break;
+            case DoubleType.ID:
+                packed[idx] = Double.doubleToLongBits(((Number) value).doubleValue());
+                break;
+            case FloatType.ID:
+                packed[idx] = Float.floatToIntBits(((Number) value).floatValue());
+                break;
+            case BooleanType.ID:
+                packed[idx] = (Boolean) value ? 1L : 0L;
+                break;
+            default:
+                assert objects != null : "objects must not be null if there are non-packed types";
+                objects[idx] = value;
+        }
+    }
+
+    @Nullable
+    public Object get(int idx) {
+        if ((nulls[idx >>> 6] & (1L << idx)) != 0) {
+            return null;
+        }
+        long value = packed[idx];
+        switch (typeIds[idx]) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return value;
+            case IntegerType.ID:
+                return (int) value;
+            case ShortType.ID:
+                return (short) value;
+            case ByteType.ID:
+                return (byte) value;
+            case DoubleType.ID:
+                return Double.longBitsToDouble(value);
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) value);
+            case BooleanType.ID:
+                return value == 1L;
+            default:
+                assert objects != null : "objects must not be null if there are non-packed types";
+                return objects[idx];
+        }
+    }
+
+    /**
+     * @return a copy of this key which is not affected by further {@link #set(int, Object)} calls on this key
+     */
+    public CompositeKey copy() {
+        return new CompositeKey(this);
+    }
+
+    @Override
+    public int hashCode() {
+        if (!hashValid) {
+            int h = Arrays.hashCode(packed);
+            h = 31 * h + Arrays.hashCode(nulls);
+            if (objects != null) {
+                h = 31 * h + Arrays.hashCode(objects);
+            }
+            hash = h;
+            hashValid = true;
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CompositeKey other = (CompositeKey) obj;
+        return hashCode() == other.hashCode()
+               && Arrays.equals(packed, other.packed)
+               && Arrays.equals(nulls, other.nulls)
+               && Arrays.equals(objects, other.objects);
+    }
+
+    @Override
+    public String toString() {
+        Object[] values = new Object[typeIds.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(i);
+        }
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.CountingInputStream;
+import io.crate.Streamer;
+import io.crate.breaker.OperationRamAccountingContext;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.projectors.SpillSettings;
+import io.crate.types.DataType;
+import org.apache.lucene.util.IntroSorter;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes groups (key and partial aggregation states) of a GROUP BY to disk once the grouping operation uses
+ * a large enough share of the query breaker limit, and merges them back once all rows have been aggregated.
+ * <p>
+ * Each spill writes the whole group table into a run file, sorted by the hash code of the keys.
+ * A key is contained at most once in a run, but may be contained in several runs. On {@link #mergedRows()}
+ * the runs are merged by hash code; groups with the same key are reduced using {@link Aggregator#reduce(Object, Object)}.
+ * At most {@link #MAX_MERGE_FAN_IN} runs are opened at once. If there are more runs, the oldest ones are merged
+ * into new runs in additional passes first.
+ * So apart from the read buffers only the groups sharing a hash code have to be held in memory while merging,
+ * these are accounted in the ramAccountingContext of the grouping operation until they have been emitted.
+ * <p>
+ * The hash codes are only used within the same JVM, so they don't need to be stable across nodes.
+ */
+public class GroupSpiller implements Closeable {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(GroupSpiller.class);
+
+    /**
+     * the maximum number of runs which are merged at once
+     */
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private final SpillSettings spillSettings;
+    private final KeyCodec keyCodec;
+    private final Aggregator[] aggregators;
+    private final Streamer[] stateStreamers;
+    private final OperationRamAccountingContext ramAccountingContext;
+    private final int mergeFanIn;
+    private final List<Path> runs = new ArrayList<>();
+    @Nullable
+    private RunMerger merger = null;
+    private boolean closed = false;
+
+    /**
+     * @param ramAccountingContext the context of the grouping operation; the aggregators must account
+     *                             their states in it as well
+     */
+    public GroupSpiller(SpillSettings spillSettings,
+                        KeyCodec keyCodec,
+                        Aggregator[] aggregators,
+                        OperationRamAccountingContext ramAccountingContext) {
+        this(spillSettings, keyCodec, aggregators, ramAccountingContext, MAX_MERGE_FAN_IN);
+    }
+
+    GroupSpiller(SpillSettings spillSettings,
+                 KeyCodec keyCodec,
+                 Aggregator[] aggregators,
+                 OperationRamAccountingContext ramAccountingContext,
+                 int mergeFanIn) {
+        assert mergeFanIn > 1 : "mergeFanIn must be greater than 1";
+        this.spillSettings = spillSettings;
+        this.keyCodec = keyCodec;
+        this.aggregators = aggregators;
+        this.ramAccountingContext = ramAccountingContext;
+        this.mergeFanIn = mergeFanIn;
+        stateStreamers = new Streamer[aggregators.length];
+        for (int i = 0; i < aggregators.length; i++) {
+            stateStreamers[i] = aggregators[i].partialType().streamer();
+        }
+    }
+
+    /**
+     * @return true if the grouping operation uses a large enough share of the query breaker limit
+     * to spill its group table
+     */
+    public boolean shouldSpill() {
+        return spillSettings.shouldSpill(ramAccountingContext, ramAccountingContext.totalBytes());
+    }
+
+    public boolean hasSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * write the given groups into a new run file and release the bytes accounted for them.
+     * The arrays are re-ordered in the process.
+     */
+    public void spill(final Object[] keys, final Object[][] states, int size) {
+        final int[] hashes = new int[size];
+        for (int i = 0; i < size; i++) {
+            hashes[i] = Objects.hashCode(keys[i]);
+        }
+        new IntroSorter() {
+
+            private int pivot;
+
+            @Override
+            protected void swap(int i, int j) {
+                int tmpHash = hashes[i];
+                hashes[i] = hashes[j];
+                hashes[j] = tmpHash;
+                Object tmpKey = keys[i];
+                keys[i] = keys[j];
+                keys[j] = tmpKey;
+                Object[] tmpStates = states[i];
+                states[i] = states[j];
+                states[j] = tmpStates;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return Integer.compare(hashes[i], hashes[j]);
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                pivot = hashes[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return Integer.compare(pivot, hashes[j]);
+            }
+        }.sort(0, size);
+
+        try {
+            Path run = newRun();
+            try (StreamOutput out = newRunOutput(run)) {
+                for (int i = 0; i < size; i++) {
+                    writeGroup(out, hashes[i], keys[i], states[i]);
+                }
+                out.writeBoolean(false);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("spilled {} groups into {}", size, run);
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        // the keys and states of the group table are on disk now
+        ramAccountingContext.releaseAll();
+    }
+
+    private Path newRun() throws IOException {
+        Path run = Files.createTempFile(spillSettings.directory(), "crate-groups-", ".run");
+        runs.add(run);
+        return run;
+    }
+
+    private static StreamOutput newRunOutput(Path run) throws IOException {
+        return new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(run)));
+    }
+
+    private void writeGroup(StreamOutput out, int hash, @Nullable Object key, Object[] states) throws IOException {
+        out.writeBoolean(true);
+        out.writeInt(hash);
+        keyCodec.write(out, key);
+        for (int s = 0; s < stateStreamers.length; s++) {
+            stateStreamers[s].writeValueTo(out, states[s]);
+        }
+    }
+
+    /**
+     * merge all runs and return the final rows (key columns followed by the aggregation results).
+     * Once the iterator is exhausted the run files are deleted.
+     */
+    public Iterable<Row> mergedRows() {
+        return new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                try {
+                    while (runs.size() > mergeFanIn) {
+                        mergeOldestRuns();
+                    }
+                    return new MergingIterator(openMerger(new ArrayList<>(runs)));
+                } catch (IOException e) {
+                    close();
+                    throw Throwables.propagate(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * merge the oldest {@link #mergeFanIn} runs into a new run
+     */
+    private void mergeOldestRuns() throws IOException {
+        List<Path> mergedRuns = new ArrayList<>(runs.subList(0, mergeFanIn));
+        Path run = newRun();
+        int numGroups = 0;
+        try (RunMerger runMerger = openMerger(mergedRuns);
+             StreamOutput out = newRunOutput(run)) {
+            while (runMerger.nextHash()) {
+                for (int i = 0; i < runMerger.keys.size(); i++) {
+                    writeGroup(out, runMerger.hash, runMerger.keys.get(i), runMerger.states.get(i));
+                    numGroups++;
+                }
+            }
+            out.writeBoolean(false);
+        }
+        runs.removeAll(mergedRuns);
+        for (Path mergedRun : mergedRuns) {
+            Files.deleteIfExists(mergedRun);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("merged {} runs into {} with {} groups", mergedRuns.size(), run, numGroups);
+        }
+    }
+
+    private RunMerger openMerger(List<Path> runsToMerge) throws IOException {
+        assert merger == null : "only one merger may be open at a time";
+        merger = new RunMerger(runsToMerge.size());
+        for (Path run : runsToMerge) {
+            merger.add(new RunReader(run));
+        }
+        return merger;
+    }
+
+    /**
+     * closes all open run files, deletes them and releases the bytes of the groups which are being merged
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (merger != null) {
+            merger.close();
+        }
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                LOGGER.warn("could not delete run file {}", e, run);
+            }
+        }
+        runs.clear();
+    }
+
+    private class RunReader implements Closeable {
+
+        private final CountingInputStream countingIn;
+        private final StreamInput in;
+
+        private int hash;
+        private Object key;
+        private Object[] states;
+        private long groupBytes;
+
+        RunReader(Path run) throws IOException {
+            countingIn = new CountingInputStream(new BufferedInputStream(Files.newInputStream(run)));
+            in = new InputStreamStreamInput(countingIn);
+        }
+
+        /**
+         * read the next group
+         *
+         * @return false if there are no more groups in this run
+         */
+        boolean next() throws IOException {
+            long position = countingIn.getCount();
+            if (!in.readBoolean()) {
+                return false;
+            }
+            hash = in.readInt();
+            key = keyCodec.read(in);
+            states = new Object[stateStreamers.length];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = stateStreamers[i].readValueFrom(in);
+            }
+            // the serialized size is used as an estimate of the size of the group on the heap
+            groupBytes = RamAccountingContext.roundUp(countingIn.getCount() - position);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Merges runs and provides all groups sharing the next hash code at a time,
+     * groups with the same key are reduced.
+     */
+    private class RunMerger implements Closeable {
+
+        private final PriorityQueue<RunReader> queue;
+        private final List<RunReader> readers = new ArrayList<>();
+        private final List<Object> keys = new ArrayList<>();
+        private final List<Object[]> states = new ArrayList<>();
+        private int hash;
+
+        RunMerger(int numRuns) {
+            queue = new PriorityQueue<RunReader>(numRuns) {
+                @Override
+                protected boolean lessThan(RunReader a, RunReader b) {
+                    return a.hash < b.hash;
+                }
+            };
+        }
+
+        void add(RunReader reader) throws IOException {
+            readers.add(reader);
+            if (reader.next()) {
+                queue.add(reader);
+            }
+        }
+
+        /**
+         * read all groups with the next hash code.
+         * The bytes of the previous groups are released, they must have been consumed at this point.
+         *
+         * @return false if all groups have been read
+         */
+        boolean nextHash() throws IOException {
+            keys.clear();
+            states.clear();
+            ramAccountingContext.releaseAll();
+
+            RunReader top = queue.top();
+            if (top == null) {
+                return false;
+            }
+            hash = top.hash;
+            while (top != null && top.hash == hash) {
+                ramAccountingContext.addBytes(top.groupBytes);
+                addGroup(top.key, top.states);
+                if (top.next()) {
+                    queue.updateTop();
+                } else {
+                    queue.pop();
+                }
+                top = queue.top();
+            }
+            return true;
+        }
+
+        private void addGroup(@Nullable Object key, Object[] groupStates) {
+            for (int i = 0; i < keys.size(); i++) {
+                if (Objects.equals(keys.get(i), key)) {
+                    Object[] existingStates = states.get(i);
+                    for (int s = 0; s < existingStates.length; s++) {
+                        existingStates[s] = aggregators[s].reduce(existingStates[s], groupStates[s]);
+                    }
+                    return;
+                }
+            }
+            keys.add(key);
+            states.add(groupStates);
+        }
+
+        @Override
+        public void close() {
+            for (RunReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    LOGGER.warn("could not close run file", e);
+                }
+            }
+            readers.clear();
+            keys.clear();
+            states.clear();
+            ramAccountingContext.releaseAll();
+            merger = null;
+        }
+    }
+
+    private class MergingIterator extends AbstractIterator<Row> {
+
+        private final RunMerger runMerger;
+        private final RowN row;
+        private final Object[] cells;
+        private int groupIdx = 0;
+
+        MergingIterator(RunMerger runMerger) {
+            this.runMerger = runMerger;
+            row = new RowN(keyCodec.numColumns() + aggregators.length);
+            cells = new Object[row.size()];
+        }
+
+        @Override
+        protected Row computeNext() {
+            if (groupIdx == runMerger.keys.size()) {
+                try {
+                    if (!runMerger.nextHash()) {
+                        close();
+                        return endOfData();
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw Throwables.propagate(e);
+                }
+                groupIdx = 0;
+            }
+            Object key = runMerger.keys.get(groupIdx);
+            Object[] states = runMerger.states.get(groupIdx);
+            groupIdx++;
+
+            keyCodec.copyTo(key, cells);
+            int c = keyCodec.numColumns();
+            for (int i = 0; i < states.length; i++) {
+                cells[c] = aggregators[i].finishCollect(states[i]);
+                c++;
+            }
+            row.cells(cells);
+            return row;
+        }
+    }
+
+    /**
+     * Serializes the keys of a group table and copies them into the cells of the result rows.
+     */
+    public interface KeyCodec {
+
+        int numColumns();
+
+        void write(StreamOutput out, @Nullable Object key) throws IOException;
+
+        Object read(StreamInput in) throws IOException;
+
+        void copyTo(@Nullable Object key, Object[] cells);
+    }
+
+    public static KeyCodec singleKeyCodec(DataType keyType) {
+        final Streamer<?> streamer = keyType.streamer();
+        return new KeyCodec() {
+            @Override
+            public int numColumns() {
+                return 1;
+            }
+
+            @Override
+            public void write(StreamOutput out, @Nullable Object key) throws IOException {
+                streamer.writeValueTo(out, key);
+            }
+
+            @Override
+            public Object read(StreamInput in) throws IOException {
+                return streamer.readValueFrom(in);
+            }
+
+            @Override
+            public void copyTo(@Nullable Object key, Object[] cells) {
+                cells[0] = key;
+            }
+        };
+    }
+
+    public static KeyCodec compositeKeyCodec(final List<? extends DataType> keyTypes) {
+        final Streamer[] streamers = new Streamer[keyTypes.size()];
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i] = keyTypes.get(i).streamer();
+        }
+        return new KeyCodec() {
+            @Override
+            public int numColumns() {
+                return streamers.length;
+            }
+
+            @Override
+            public void write(StreamOutput out, @Nullable Object key) throws IOException {
+                assert key != null : "composite key must not be null";
+                CompositeKey compositeKey = (CompositeKey) key;
+                for (int i = 0; i < streamers.length; i++) {
+                    streamers[i].writeValueTo(out, compositeKey.get(i));
+                }
+            }
+
+            @Override
+            public Object read(StreamInput in) throws IOException {
+                CompositeKey key = new CompositeKey(keyTypes);
+                for (int i = 0; i < streamers.length; i++) {
+                    key.set(i, streamers[i].readValueFrom(in));
+                }
+                return key;
+            }
+
+            @Override
+            public void copyTo(@Nullable Object key, Object[] cells) {
+                assert key != null : "composite key must not be null";
+                CompositeKey compositeKey = (CompositeKey) key;
+                for (int i = 0; i < streamers.length; i++) {
+                    cells[i] = compositeKey.get(i);
+                }
+            }
+        };
+    }
+}
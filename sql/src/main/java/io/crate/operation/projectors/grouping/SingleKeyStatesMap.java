@@ -0,0 +1,296 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.ObjectObjectHashMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Holds the aggregation states of a GROUP BY on a single key.
+ * <p>
+ * Depending on the key type the states are stored in a hppc open-addressing map which
+ * keeps primitive keys unboxed. Compared to a {@link java.util.HashMap} this avoids an entry
+ * object per group and the equals/hashCode calls on boxed keys.
+ * <code>null</code> keys are stored outside of the map.
+ */
+public abstract class SingleKeyStatesMap implements Iterable<SingleKeyStatesMap.Entry> {
+
+    private Object[] nullKeyStates = null;
+
+    public static SingleKeyStatesMap forType(DataType keyType) {
+        switch (keyType.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return new LongKeyStatesMap();
+            case IntegerType.ID:
+                return new IntKeyStatesMap();
+            case DoubleType.ID:
+                return new DoubleKeyStatesMap();
+            default:
+                // BytesRef provides a murmur3 based hashCode, so string and ip keys are fine in here as well
+                return new ObjectKeyStatesMap();
+        }
+    }
+
+    /**
+     * @return the states of the group or null if the key hasn't been added yet
+     */
+    @Nullable
+    public Object[] get(@Nullable Object key) {
+        if (key == null) {
+            return nullKeyStates;
+        }
+        return getNonNull(key);
+    }
+
+    public void put(@Nullable Object key, Object[] states) {
+        if (key == null) {
+            nullKeyStates = states;
+        } else {
+            putNonNull(key, states);
+        }
+    }
+
+    public int size() {
+        return nonNullSize() + (nullKeyStates == null ? 0 : 1);
+    }
+
+    /**
+     * remove all groups and release the memory of the underlying map
+     */
+    public void clear() {
+        nullKeyStates = null;
+        clearNonNull();
+    }
+
+    /**
+     * iterate over all groups. The returned {@link Entry} instance is re-used.
+     */
+    @Override
+    public Iterator<Entry> iterator() {
+        if (nullKeyStates == null) {
+            return nonNullIterator();
+        }
+        Entry nullEntry = new Entry();
+        nullEntry.states = nullKeyStates;
+        return Iterators.concat(nonNullIterator(), Collections.singletonList(nullEntry).iterator());
+    }
+
+    protected abstract Object[] getNonNull(Object key);
+
+    protected abstract void putNonNull(Object key, Object[] states);
+
+    protected abstract int nonNullSize();
+
+    protected abstract void clearNonNull();
+
+    protected abstract Iterator<Entry> nonNullIterator();
+
+    public static class Entry {
+
+        private Object key;
+        private Object[] states;
+
+        public Object key() {
+            return key;
+        }
+
+        public Object[] states() {
+            return states;
+        }
+    }
+
+    private static class LongKeyStatesMap extends SingleKeyStatesMap {
+
+        private final LongObjectHashMap<Object[]> map = new LongObjectHashMap<>();
+
+        @Override
+        protected Object[] getNonNull(Object key) {
+            return map.get(((Number) key).longValue());
+        }
+
+        @Override
+        protected void putNonNull(Object key, Object[] states) {
+            map.put(((Number) key).longValue(), states);
+        }
+
+        @Override
+        protected int nonNullSize() {
+            return map.size();
+        }
+
+        @Override
+        protected void clearNonNull() {
+            map.release();
+        }
+
+        @Override
+        protected Iterator<Entry> nonNullIterator() {
+            final Entry entry = new Entry();
+            return Iterators.transform(map.iterator(), new Function<LongObjectCursor<Object[]>, Entry>() {
+                @Nullable
+                @Override
+                public Entry apply(@Nullable LongObjectCursor<Object[]> input) {
+                    assert input != null : "input must not be null";
+                    entry.key = input.key;
+                    entry.states = input.value;
+                    return entry;
+                }
+            });
+        }
+    }
+
+    private static class IntKeyStatesMap extends SingleKeyStatesMap {
+
+        private final IntObjectHashMap<Object[]> map = new IntObjectHashMap<>();
+
+        @Override
+        protected Object[] getNonNull(Object key) {
+            return map.get(((Number) key).intValue());
+        }
+
+        @Override
+        protected void putNonNull(Object key, Object[] states) {
+            map.put(((Number) key).intValue(), states);
+        }
+
+        @Override
+        protected int nonNullSize() {
+            return map.size();
+        }
+
+        @Override
+        protected void clearNonNull() {
+            map.release();
+        }
+
+        @Override
+        protected Iterator<Entry> nonNullIterator() {
+            final Entry entry = new Entry();
+            return Iterators.transform(map.iterator(), new Function<IntObjectCursor<Object[]>, Entry>() {
+                @Nullable
+                @Override
+                public Entry apply(@Nullable IntObjectCursor<Object[]> input) {
+                    assert input != null : "input must not be null";
+                    entry.key = input.key;
+                    entry.states = input.value;
+                    return entry;
+                }
+            });
+        }
+    }
+
+    private static class DoubleKeyStatesMap extends SingleKeyStatesMap {
+
+        /**
+         * keys are stored as {@link Double#doubleToLongBits(double)} which has the same semantics
+         * regarding NaN and -0.0 as {@link Double#equals(Object)}
+         */
+        private final LongObjectHashMap<Object[]> map = new LongObjectHashMap<>();
+
+        @Override
+        protected Object[] getNonNull(Object key) {
+            return map.get(Double.doubleToLongBits(((Number) key).doubleValue()));
+        }
+
+        @Override
+        protected void putNonNull(Object key, Object[] states) {
+            map.put(Double.doubleToLongBits(((Number) key).doubleValue()), states);
+        }
+
+        @Override
+        protected int nonNullSize() {
+            return map.size();
+        }
+
+        @Override
+        protected void clearNonNull() {
+            map.release();
+        }
+
+        @Override
+        protected Iterator<Entry> nonNullIterator() {
+            final Entry entry = new Entry();
+            return Iterators.transform(map.iterator(), new Function<LongObjectCursor<Object[]>, Entry>() {
+                @Nullable
+                @Override
+                public Entry apply(@Nullable LongObjectCursor<Object[]> input) {
+                    assert input != null : "input must not be null";
+                    entry.key = Double.longBitsToDouble(input.key);
+                    entry.states = input.value;
+                    return entry;
+                }
+            });
+        }
+    }
+
+    private static class ObjectKeyStatesMap extends SingleKeyStatesMap {
+
+        private final ObjectObjectHashMap<Object, Object[]> map = new ObjectObjectHashMap<>();
+
+        @Override
+        protected Object[] getNonNull(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        protected void putNonNull(Object key, Object[] states) {
+            map.put(key, states);
+        }
+
+        @Override
+        protected int nonNullSize() {
+            return map.size();
+        }
+
+        @Override
+        protected void clearNonNull() {
+            map.release();
+        }
+
+        @Override
+        protected Iterator<Entry> nonNullIterator() {
+            final Entry entry = new Entry();
+            return Iterators.transform(map.iterator(), new Function<ObjectObjectCursor<Object, Object[]>, Entry>() {
+                @Nullable
+                @Override
+                public Entry apply(@Nullable ObjectObjectCursor<Object, Object[]> input) {
+                    assert input != null : "input must not be null";
+                    entry.key = input.key;
+                    entry.states = input.value;
+                    return entry;
+                }
+            });
+        }
+    }
+}
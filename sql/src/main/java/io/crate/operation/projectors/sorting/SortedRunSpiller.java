@@ -0,0 +1,276 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.sorting;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.merge.KeyIterable;
+import io.crate.operation.merge.SortedPagingIterator;
+import io.crate.operation.projectors.SpillSettings;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes sorted runs of rows to disk and merges them back, used to sort more rows than fit into memory.
+ * <p>
+ * A run file is a sequence of {@link StreamBucket}s of at most {@link #ROWS_PER_BUCKET} rows each,
+ * terminated by an empty bucket. While merging only one bucket per run is held in memory.
+ * At most {@link #MAX_MERGE_FAN_IN} runs are merged at once. If there are more, the oldest runs are merged
+ * into new runs in additional passes first.
+ */
+public class SortedRunSpiller implements Closeable {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(SortedRunSpiller.class);
+
+    static final int ROWS_PER_BUCKET = 1024;
+
+    /**
+     * the maximum number of runs which are merged at once, including the run which is still in memory
+     */
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private final SpillSettings spillSettings;
+    private final Streamer<?>[] streamers;
+    private final int mergeFanIn;
+    private final List<Path> runs = new ArrayList<>();
+    private final List<StreamInput> openInputs = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param streamers a streamer for each column of the rows
+     */
+    public SortedRunSpiller(SpillSettings spillSettings, Streamer<?>[] streamers) {
+        this(spillSettings, streamers, MAX_MERGE_FAN_IN);
+    }
+
+    SortedRunSpiller(SpillSettings spillSettings, Streamer<?>[] streamers, int mergeFanIn) {
+        assert mergeFanIn > 1 : "mergeFanIn must be greater than 1";
+        this.spillSettings = spillSettings;
+        this.streamers = streamers;
+        this.mergeFanIn = mergeFanIn;
+    }
+
+    public SpillSettings spillSettings() {
+        return spillSettings;
+    }
+
+    public boolean hasSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * write the given rows, which must already be sorted, into a new run file
+     */
+    public void spill(List<Object[]> sortedRows) {
+        try {
+            Path run = newRun();
+            writeRun(run, sortedRows.iterator());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("spilled {} sorted rows into {}", sortedRows.size(), run);
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private Path newRun() throws IOException {
+        Path run = Files.createTempFile(spillSettings.directory(), "crate-sort-", ".run");
+        runs.add(run);
+        return run;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    private long writeRun(Path run, Iterator<Object[]> sortedRows) throws IOException {
+        long numRows = 0;
+        try (StreamOutput out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
+            RowN row = new RowN(streamers.length);
+            int rowsInBucket = 0;
+            while (sortedRows.hasNext()) {
+                row.cells(sortedRows.next());
+                builder.add(row);
+                rowsInBucket++;
+                numRows++;
+                if (rowsInBucket == ROWS_PER_BUCKET) {
+                    builder.writeToStream(out);
+                    builder.reset();
+                    rowsInBucket = 0;
+                }
+            }
+            if (rowsInBucket > 0) {
+                builder.writeToStream(out);
+            }
+            out.writeVInt(0);
+        }
+        return numRows;
+    }
+
+    /**
+     * merge all runs and the given in-memory run.
+     *
+     * @param lastRun  rows which haven't been spilled, sorted by <code>ordering</code>
+     * @param ordering the ordering of the runs
+     * @return the merged rows; each row is a new array
+     */
+    public Iterator<Object[]> mergedRows(Iterable<Object[]> lastRun, Ordering<Object[]> ordering) {
+        List<KeyIterable<Integer, Object[]>> iterables = new ArrayList<>(runs.size() + 1);
+        try {
+            // the in-memory run takes one slot of the final merge
+            while (runs.size() >= mergeFanIn) {
+                mergeOldestRuns(ordering);
+            }
+            for (int i = 0; i < runs.size(); i++) {
+                iterables.add(new KeyIterable<Integer, Object[]>(i, new RunIterable(runs.get(i))));
+            }
+        } catch (IOException e) {
+            close();
+            throw Throwables.propagate(e);
+        }
+        iterables.add(new KeyIterable<>(runs.size(), lastRun));
+        return merge(iterables, ordering);
+    }
+
+    private static Iterator<Object[]> merge(List<KeyIterable<Integer, Object[]>> iterables, Ordering<Object[]> ordering) {
+        SortedPagingIterator<Integer, Object[]> mergingIterator = new SortedPagingIterator<>(ordering, false);
+        mergingIterator.merge(iterables);
+        mergingIterator.finish();
+        return mergingIterator;
+    }
+
+    /**
+     * merge the oldest {@link #mergeFanIn} runs into a new run
+     */
+    private void mergeOldestRuns(Ordering<Object[]> ordering) throws IOException {
+        List<Path> mergedRuns = new ArrayList<>(runs.subList(0, mergeFanIn));
+        List<KeyIterable<Integer, Object[]>> iterables = new ArrayList<>(mergedRuns.size());
+        List<RunIterable> runIterables = new ArrayList<>(mergedRuns.size());
+        Path run = newRun();
+        long numRows;
+        try {
+            for (int i = 0; i < mergedRuns.size(); i++) {
+                RunIterable runIterable = new RunIterable(mergedRuns.get(i));
+                runIterables.add(runIterable);
+                iterables.add(new KeyIterable<Integer, Object[]>(i, runIterable));
+            }
+            numRows = writeRun(run, merge(iterables, ordering));
+        } finally {
+            for (RunIterable runIterable : runIterables) {
+                runIterable.close();
+            }
+        }
+        runs.removeAll(mergedRuns);
+        for (Path mergedRun : mergedRuns) {
+            Files.deleteIfExists(mergedRun);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("merged {} runs into {} with {} rows", mergedRuns.size(), run, numRows);
+        }
+    }
+
+    /**
+     * closes all open run files and deletes them
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (StreamInput in : openInputs) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                LOGGER.warn("could not close run file", e);
+            }
+        }
+        openInputs.clear();
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                LOGGER.warn("could not delete run file {}", e, run);
+            }
+        }
+        runs.clear();
+    }
+
+    private class RunIterable implements Iterable<Object[]> {
+
+        private final StreamInput in;
+
+        RunIterable(Path run) throws IOException {
+            in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(run)));
+            openInputs.add(in);
+        }
+
+        void close() throws IOException {
+            openInputs.remove(in);
+            in.close();
+        }
+
+        @Override
+        public Iterator<Object[]> iterator() {
+            return new AbstractIterator<Object[]>() {
+
+                private Iterator<Row> bucketIt = null;
+
+                @Override
+                protected Object[] computeNext() {
+                    while (bucketIt == null || !bucketIt.hasNext()) {
+                        StreamBucket bucket = new StreamBucket(streamers);
+                        try {
+                            bucket.readFrom(in);
+                        } catch (IOException e) {
+                            throw Throwables.propagate(e);
+                        }
+                        if (bucket.size() == 0) {
+                            return endOfData();
+                        }
+                        bucketIt = bucket.iterator();
+                    }
+                    return bucketIt.next().materialize();
+                }
+            };
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.operation.reference.doc.lucene;
 
 import io.crate.metadata.doc.DocSysColumns;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.compress.CompressorFactory;
@@ -43,7 +44,7 @@ public class RawCollectorExpression extends LuceneCollectorExpression<BytesRef>
     @Override
     public BytesRef value() {
         try {
-            return CompressorFactory.uncompressIfNeeded(visitor.source()).toBytesRef();
+            return SourceFormat.toJson(CompressorFactory.uncompressIfNeeded(visitor.source()));
         } catch (IOException e) {
             throw new RuntimeException("Failed to uncompress source", e);
         }
@@ -42,5 +42,6 @@ public class ColumnExtractingLineExpression extends LineCollectorExpression<Obje
     @Override
     public void startCollect(CollectorContext context) {
         this.context = context.lineContext();
+        this.context.addColumn(columnIdent);
     }
 }
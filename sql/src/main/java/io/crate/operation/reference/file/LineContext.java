@@ -23,17 +23,32 @@ package io.crate.operation.reference.file;
 
 import io.crate.metadata.ColumnIdent;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 
 import javax.annotation.Nullable;
-import java.util.LinkedList;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 public class LineContext {
 
+    private final Set<String> columnsToExtract = new HashSet<>();
+
     private byte[] rawSource;
     private Map<String, Object> parsedSource;
+    private boolean fullyParsed = false;
+
+    /**
+     * register a column which will be retrieved using {@link #get(ColumnIdent)}.
+     * If all retrieved columns are registered only those are extracted from the source instead of parsing it
+     * into a complete map.
+     */
+    public void addColumn(ColumnIdent columnIdent) {
+        columnsToExtract.add(columnIdent.name());
+    }
 
     @Nullable
     public BytesRef sourceAsBytesRef() {
@@ -44,28 +59,31 @@ public class LineContext {
     }
 
     public Map<String, Object> sourceAsMap() {
-        if (parsedSource == null) {
-            try {
-                parsedSource = XContentHelper.convertToMap(new BytesArray(rawSource), false).v2();
-            } catch (NullPointerException e) {
+        if (!fullyParsed) {
+            if (rawSource == null) {
                 return null;
             }
+            parsedSource = XContentHelper.convertToMap(new BytesArray(rawSource), false).v2();
+            fullyParsed = true;
         }
         return parsedSource;
     }
 
     public Object get(ColumnIdent columnIdent) {
-        // TODO: change interface in order to not compute the path for every row
         if (parsedSource == null) {
-            // TODO: optimize if collectorContext has prefetchColumns
-
-            try {
-                parsedSource = XContentHelper.convertToMap(new BytesArray(rawSource), false).v2();
-            } catch (NullPointerException e) {
+            if (rawSource == null) {
                 return null;
             }
+            if (columnsToExtract.contains(columnIdent.name())) {
+                parsedSource = extractColumns(rawSource, columnsToExtract);
+            } else {
+                sourceAsMap();
+            }
+        } else if (!fullyParsed && !columnsToExtract.contains(columnIdent.name())) {
+            sourceAsMap();
         }
 
+        // TODO: change interface in order to not compute the path for every row
         LinkedList<String> path = new LinkedList<>(columnIdent.path());
         path.add(0, columnIdent.name());
         Map parentMap = parsedSource;
@@ -86,8 +104,46 @@ public class LineContext {
         return o;
     }
 
+    /**
+     * parse the top-level columns contained in {@code columns} from the JSON source.
+     * Values of all other columns are skipped without being materialized.
+     */
+    static Map<String, Object> extractColumns(byte[] source, Set<String> columns) {
+        Map<String, Object> values = new HashMap<>(columns.size());
+        try (XContentParser parser = JsonXContent.jsonXContent.createParser(source)) {
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to parse content to map, expected an object but got {}", token);
+            }
+            while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                token = parser.nextToken();
+                if (columns.contains(fieldName)) {
+                    values.put(fieldName, readValue(parser, token));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+        return values;
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            default:
+                return parser.objectText();
+        }
+    }
+
     public void rawSource(byte[] bytes) {
         this.rawSource = bytes;
         this.parsedSource = null;
+        this.fullyParsed = false;
     }
 }
@@ -30,6 +30,7 @@ import org.elasticsearch.common.lucene.BytesRefs;
 public class TablesSettingsExpression extends AbstractTablesSettingsExpression {
 
     public static final String REFRESH_INTERVAL = "refresh_interval";
+    public static final String SOURCE_FORMAT = "source_format";
 
     public TablesSettingsExpression() {
         addChildImplementations();
@@ -38,6 +39,7 @@ public class TablesSettingsExpression extends AbstractTablesSettingsExpression {
     private void addChildImplementations() {
 
         childImplementations.put(REFRESH_INTERVAL, new TableParameterExpression(TableParameterInfo.REFRESH_INTERVAL));
+        childImplementations.put(SOURCE_FORMAT, new BytesRefTableParameterExpression(TableParameterInfo.SOURCE_FORMAT));
         childImplementations.put(TablesSettingsBlocksExpression.NAME, new TablesSettingsBlocksExpression());
         childImplementations.put(TablesSettingsRoutingExpression.NAME, new TablesSettingsRoutingExpression());
         childImplementations.put(TablesSettingsRecoveryExpression.NAME, new TablesSettingsRecoveryExpression());
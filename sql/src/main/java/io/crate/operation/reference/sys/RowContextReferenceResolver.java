@@ -24,13 +24,16 @@ package io.crate.operation.reference.sys;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import io.crate.action.sql.StatementCache;
 import io.crate.metadata.*;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
 import io.crate.metadata.expressions.WriteableRowContextExpression;
 import io.crate.metadata.information.*;
 import io.crate.metadata.pg_catalog.PgCatalogTables;
+import io.crate.metadata.pg_catalog.PgStatsTable;
 import io.crate.metadata.pg_catalog.PgTypeTable;
 import io.crate.metadata.sys.*;
+import io.crate.operation.collect.StatementStats;
 import io.crate.operation.collect.files.SummitsContext;
 import io.crate.operation.reference.ReferenceResolver;
 import io.crate.operation.reference.information.InformationSchemaExpressionFactories;
@@ -72,6 +75,8 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysRepositoriesTableInfo.IDENT, getSysRepositoriesExpressions());
         tableFactories.put(SysSnapshotsTableInfo.IDENT, getSysSnapshotsExpressions());
         tableFactories.put(SysSummitsTableInfo.IDENT, getSummitsExpressions());
+        tableFactories.put(SysStatementCacheTableInfo.IDENT, getSysStatementCacheExpressions());
+        tableFactories.put(SysStatementsTableInfo.IDENT, getSysStatementsExpressions());
 
         tableFactories.put(InformationSchemataTableInfo.IDENT, InformationSchemaExpressionFactories.schemataFactories());
         tableFactories.put(InformationRoutinesTableInfo.IDENT, InformationSchemaExpressionFactories.routineFactories());
@@ -85,6 +90,7 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysShardsTableInfo.IDENT, UnassignedShardsExpressionFactories.getSysShardsTableInfoFactories());
 
         tableFactories.put(PgTypeTable.IDENT, PgCatalogTables.pgTypeExpressions());
+        tableFactories.put(PgStatsTable.IDENT, PgCatalogTables.pgStatsExpressions());
     }
 
     private Map<ColumnIdent, RowCollectExpressionFactory> getSysOperationLogExpressions() {
@@ -236,6 +242,203 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
             .build();
     }
 
+    private Map<ColumnIdent, RowCollectExpressionFactory> getSysStatementCacheExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(SysStatementCacheTableInfo.Columns.SIZE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.size();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.HITS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.hits();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.MISSES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.misses();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.EVICTIONS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.evictions();
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
+    private Map<ColumnIdent, RowCollectExpressionFactory> getSysStatementsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(SysStatementsTableInfo.Columns.STMT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.fingerprint());
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.CALLS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.calls();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.ERRORS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.errors();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.TOTAL_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.totalTime();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.MEAN_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.meanTime();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.MIN_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.minTime();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.MAX_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.maxTime();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.P50_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.percentileTime(50.0);
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.P95_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.percentileTime(95.0);
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.P99_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.percentileTime(99.0);
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.ROWS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.rows();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.USED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.usedBytes();
+                        }
+                    };
+                }
+            })
+            .put(SysStatementsTableInfo.Columns.LAST_EXECUTED, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementStats.Entry, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.lastExecuted();
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
     private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysJobsLogExpressions() {
         return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
             .put(SysJobsLogTableInfo.Columns.ID, new RowCollectExpressionFactory() {
@@ -21,6 +21,8 @@
 
 package io.crate.operation.reference.sys.job;
 
+import com.twitter.jsr166e.LongAdder;
+
 import java.util.UUID;
 
 public class JobContext {
@@ -28,6 +30,11 @@ public class JobContext {
     public final UUID id;
     public final String stmt;
     public final long started;
+    public final long startedNanos = System.nanoTime();
+    /**
+     * bytes accounted by the operations of the job which ran on this node
+     */
+    public final LongAdder usedBytes = new LongAdder();
 
     public JobContext(UUID id, String stmt, long started) {
         this.id = id;
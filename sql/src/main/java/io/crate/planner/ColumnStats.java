@@ -0,0 +1,196 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.planner;
+
+import io.crate.Streamer;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Statistics of a column which are computed from a sample of its values by <code>ANALYZE</code>,
+ * see {@link TableStatsService#analyze(io.crate.metadata.doc.DocTableInfo)}.
+ */
+public final class ColumnStats {
+
+    static final int MAX_HISTOGRAM_BUCKETS = 100;
+
+    private final DataType type;
+    private final double nullFraction;
+    private final double numDistinct;
+    private final List<Object> histogramBounds;
+
+    public ColumnStats(DataType type, double nullFraction, double numDistinct, List<Object> histogramBounds) {
+        this.type = type;
+        this.nullFraction = nullFraction;
+        this.numDistinct = numDistinct;
+        this.histogramBounds = histogramBounds;
+    }
+
+    /**
+     * @param samples the sampled values of the column, including nulls
+     * @param numRows the number of rows of the table the samples have been taken from
+     */
+    @SuppressWarnings("unchecked")
+    static ColumnStats fromSamples(DataType type, List<Object> samples, long numRows) {
+        List<Object> values = new ArrayList<>(samples.size());
+        for (Object sample : samples) {
+            if (sample != null) {
+                values.add(sample);
+            }
+        }
+        if (samples.isEmpty()) {
+            return new ColumnStats(type, 0.0, 0.0, Collections.emptyList());
+        }
+        double nullFraction = (samples.size() - values.size()) / (double) samples.size();
+        Comparator<Object> comparator = type::compareValueTo;
+        values.sort(comparator);
+
+        int distinct = 0;
+        int singletons = 0;
+        int i = 0;
+        while (i < values.size()) {
+            int j = i + 1;
+            while (j < values.size() && comparator.compare(values.get(i), values.get(j)) == 0) {
+                j++;
+            }
+            distinct++;
+            if (j - i == 1) {
+                singletons++;
+            }
+            i = j;
+        }
+        double totalValues = Math.max(numRows, samples.size()) * (1.0 - nullFraction);
+        return new ColumnStats(
+            type,
+            nullFraction,
+            estimateNumDistinct(values.size(), distinct, singletons, totalValues),
+            histogramBounds(values, comparator));
+    }
+
+    /**
+     * Estimates the number of distinct values of a column with the Duj1 estimator of Haas and Stokes
+     * which is also used by PostgreSQL: <code>n * d / (n - f1 + f1 * n / N)</code>
+     *
+     * @param sampled     the number of non-null values in the sample (n)
+     * @param distinct    the number of distinct values in the sample (d)
+     * @param singletons  the number of values which occur exactly once in the sample (f1)
+     * @param totalValues the number of non-null values of the column (N)
+     */
+    static double estimateNumDistinct(int sampled, int distinct, int singletons, double totalValues) {
+        if (sampled == 0) {
+            return 0.0;
+        }
+        if (sampled >= totalValues || singletons == 0) {
+            // the whole column has been sampled or each value has been seen more than once,
+            // so it is likely that all values have been seen
+            return distinct;
+        }
+        double estimate = (double) sampled * distinct / (sampled - singletons + (double) singletons * sampled / totalValues);
+        return Math.min(Math.max(estimate, distinct), totalValues);
+    }
+
+    /**
+     * @return the bounds of up to {@link #MAX_HISTOGRAM_BUCKETS} buckets which contain about the same number of
+     * values each, starting with the minimum and ending with the maximum value
+     */
+    private static List<Object> histogramBounds(List<Object> sortedValues, Comparator<Object> comparator) {
+        if (sortedValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int numBuckets = Math.max(1, Math.min(MAX_HISTOGRAM_BUCKETS, sortedValues.size() - 1));
+        List<Object> bounds = new ArrayList<>(numBuckets + 1);
+        for (int i = 0; i <= numBuckets; i++) {
+            Object bound = sortedValues.get((int) ((long) i * (sortedValues.size() - 1) / numBuckets));
+            if (bounds.isEmpty() || comparator.compare(bounds.get(bounds.size() - 1), bound) != 0) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    public DataType type() {
+        return type;
+    }
+
+    /**
+     * @return the fraction of rows in which the column is null
+     */
+    public double nullFraction() {
+        return nullFraction;
+    }
+
+    /**
+     * @return the estimated number of distinct non-null values
+     */
+    public double numDistinct() {
+        return numDistinct;
+    }
+
+    /**
+     * @return the sorted bounds of an equi-depth histogram over the non-null values
+     */
+    public List<Object> histogramBounds() {
+        return histogramBounds;
+    }
+
+    public static ColumnStats fromStream(StreamInput in) throws IOException {
+        DataType type = DataTypes.fromStream(in);
+        double nullFraction = in.readDouble();
+        double numDistinct = in.readDouble();
+        Streamer<?> streamer = type.streamer();
+        int numBounds = in.readVInt();
+        List<Object> histogramBounds = new ArrayList<>(numBounds);
+        for (int i = 0; i < numBounds; i++) {
+            histogramBounds.add(streamer.readValueFrom(in));
+        }
+        return new ColumnStats(type, nullFraction, numDistinct, histogramBounds);
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        DataTypes.toStream(type, out);
+        out.writeDouble(nullFraction);
+        out.writeDouble(numDistinct);
+        Streamer<?> streamer = type.streamer();
+        out.writeVInt(histogramBounds.size());
+        for (Object bound : histogramBounds) {
+            streamer.writeValueTo(out, bound);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{" +
+               "type=" + type +
+               ", nullFraction=" + nullFraction +
+               ", numDistinct=" + numDistinct +
+               ", histogramBounds=" + histogramBounds.size() +
+               '}';
+    }
+}
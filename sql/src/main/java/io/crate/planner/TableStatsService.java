@@ -26,13 +26,20 @@ package io.crate.planner;
 import com.carrotsearch.hppc.ObjectLongHashMap;
 import com.carrotsearch.hppc.ObjectLongMap;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
 import io.crate.core.collections.Row;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
 import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -45,9 +52,9 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.*;
 
 @Singleton
 public class TableStatsService extends AbstractComponent implements NodeSettingsService.Listener, Runnable {
@@ -56,11 +63,16 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
     static final int DEFAULT_SOFT_LIMIT = 10_000;
     static final String STMT =
         "select cast(sum(num_docs) as long), schema_name, table_name from sys.shards group by 2, 3";
+    /**
+     * the number of rows which are sampled to compute the column statistics of a table
+     */
+    static final int SAMPLE_SIZE = 30_000;
 
     private final ClusterService clusterService;
     private final Provider<SQLOperations> sqlOperationsProvider;
     private final ThreadPool threadPool;
     private volatile ObjectLongMap<TableIdent> tableStats = null;
+    private volatile Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats = Collections.emptyMap();
     private TimeValue initialRefreshInterval;
     @VisibleForTesting
     ThreadPool.Cancellable refreshScheduledTask = null;
@@ -122,6 +134,7 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
         @Override
         public void allFinished() {
             tableStats = statsFromRows(rows);
+            removeColumnStatsOfDroppedTables();
             super.allFinished();
         }
 
@@ -156,6 +169,109 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
         return -1;
     }
 
+    /**
+     * Computes the statistics of the primitive columns of a table from a random sample of its rows.
+     * The statistics aren't stored, see {@link #updateColumnStats(Map)}.
+     */
+    public ListenableFuture<Map<ColumnIdent, ColumnStats>> analyze(DocTableInfo table) {
+        final List<Reference> columns = new ArrayList<>();
+        for (Reference column : table.columns()) {
+            if (DataTypes.isPrimitive(column.valueType())) {
+                columns.add(column);
+            }
+        }
+        if (columns.isEmpty()) {
+            return Futures.immediateFuture(Collections.emptyMap());
+        }
+        final long numDocs = numDocs(table.ident());
+        final SampleResultReceiver resultReceiver = new SampleResultReceiver();
+        SQLOperations.Session session =
+            sqlOperationsProvider.get().createSession(table.ident().schema(), Option.NONE, SAMPLE_SIZE);
+        try {
+            session.parse(UNNAMED, sampleStatement(table.ident(), columns, numDocs), Collections.<DataType>emptyList());
+            session.bind(UNNAMED, UNNAMED, Collections.emptyList(), null);
+            session.execute(UNNAMED, 0, resultReceiver);
+            session.sync();
+        } catch (Throwable t) {
+            return Futures.immediateFailedFuture(t);
+        }
+        return Futures.transform(resultReceiver.completionFuture(),
+            (Function<Object, Map<ColumnIdent, ColumnStats>>)
+                ignored -> columnStatsFromSamples(columns, resultReceiver.rows, numDocs));
+    }
+
+    /**
+     * @return a statement which selects a Bernoulli sample of about {@link #SAMPLE_SIZE} rows
+     */
+    static String sampleStatement(TableIdent table, List<Reference> columns, long numDocs) {
+        StringJoiner stmt = new StringJoiner(", ", "select ", " from " + table.sqlFqn());
+        for (Reference column : columns) {
+            stmt.add(column.ident().columnIdent().quotedOutputName());
+        }
+        String result = stmt.toString();
+        if (numDocs > SAMPLE_SIZE) {
+            result += " where random() < " + BigDecimal.valueOf(SAMPLE_SIZE / (double) numDocs).toPlainString();
+        }
+        return result + " limit " + SAMPLE_SIZE;
+    }
+
+    static Map<ColumnIdent, ColumnStats> columnStatsFromSamples(List<Reference> columns, List<Object[]> rows, long numDocs) {
+        Map<ColumnIdent, ColumnStats> stats = new HashMap<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            List<Object> samples = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                samples.add(row[i]);
+            }
+            Reference column = columns.get(i);
+            stats.put(column.ident().columnIdent(), ColumnStats.fromSamples(column.valueType(), samples, numDocs));
+        }
+        return stats;
+    }
+
+    private static class SampleResultReceiver extends BaseResultReceiver {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void setNextRow(Row row) {
+            rows.add(row.materialize());
+        }
+    }
+
+    /**
+     * replaces the column statistics of the given tables
+     */
+    public synchronized void updateColumnStats(Map<TableIdent, Map<ColumnIdent, ColumnStats>> tableColumnStats) {
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> newColumnStats = new HashMap<>(columnStats);
+        newColumnStats.putAll(tableColumnStats);
+        columnStats = newColumnStats;
+    }
+
+    private synchronized void removeColumnStatsOfDroppedTables() {
+        ObjectLongMap<TableIdent> stats = tableStats;
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> newColumnStats = new HashMap<>(columnStats);
+        if (newColumnStats.keySet().removeIf(table -> !stats.containsKey(table))) {
+            columnStats = newColumnStats;
+        }
+    }
+
+    /**
+     * Returns the statistics of a column which have been computed by the last <code>ANALYZE</code> of its table,
+     * or null if the table hasn't been analyzed or the column has no statistics.
+     */
+    @Nullable
+    public ColumnStats columnStats(TableIdent tableIdent, ColumnIdent column) {
+        Map<ColumnIdent, ColumnStats> tableColumnStats = columnStats.get(tableIdent);
+        return tableColumnStats == null ? null : tableColumnStats.get(column);
+    }
+
+    /**
+     * @return the statistics of all analyzed tables, by table and column
+     */
+    public Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats() {
+        return columnStats;
+    }
+
     @Override
     public void onRefreshSettings(Settings settings) {
         TimeValue newRefreshInterval = extractRefreshInterval(settings);
@@ -0,0 +1,193 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.consumer;
+
+import io.crate.analyze.symbol.*;
+import io.crate.metadata.ReplaceMode;
+import io.crate.metadata.ReplacingSymbolVisitor;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.Operators;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a join condition into equalities between the two sides, which can be used as keys of a hash join,
+ * and the remaining condition.
+ * <p>
+ * The join condition must be based on {@link InputColumn}s; the first <code>numLeftOutputs</code> columns are the
+ * outputs of the left side, followed by the outputs of the right side.
+ * The extracted keys are {@link InputColumn}s relative to the rows of their side.
+ */
+class HashJoinConditions {
+
+    private final List<Symbol> leftKeys = new ArrayList<>();
+    private final List<Symbol> rightKeys = new ArrayList<>();
+    @Nullable
+    private final Symbol remainingCondition;
+
+    private HashJoinConditions(Symbol joinCondition, int numLeftOutputs) {
+        List<Symbol> conjunctions = Operators.splitConjunctions(joinCondition);
+        List<Symbol> remaining = new ArrayList<>();
+        for (Symbol conjunction : conjunctions) {
+            if (!addKeys(conjunction, numLeftOutputs)) {
+                remaining.add(conjunction);
+            }
+        }
+        remainingCondition = remaining.isEmpty() ? null : AndOperator.join(remaining);
+    }
+
+    /**
+     * @return the equi-join conditions or null if the join condition doesn't contain an equality between the sides
+     */
+    @Nullable
+    static HashJoinConditions extract(@Nullable Symbol joinCondition, int numLeftOutputs) {
+        if (joinCondition == null) {
+            return null;
+        }
+        HashJoinConditions conditions = new HashJoinConditions(joinCondition, numLeftOutputs);
+        if (conditions.leftKeys.isEmpty()) {
+            return null;
+        }
+        return conditions;
+    }
+
+    List<Symbol> leftKeys() {
+        return leftKeys;
+    }
+
+    List<Symbol> rightKeys() {
+        return rightKeys;
+    }
+
+    /**
+     * @return the part of the join condition which isn't covered by the keys or null if there is none
+     */
+    @Nullable
+    Symbol remainingCondition() {
+        return remainingCondition;
+    }
+
+    private boolean addKeys(Symbol conjunction, int numLeftOutputs) {
+        if (!(conjunction instanceof Function)) {
+            return false;
+        }
+        Function function = (Function) conjunction;
+        if (!function.info().ident().name().equals(EqOperator.NAME)) {
+            return false;
+        }
+        Symbol first = function.arguments().get(0);
+        Symbol second = function.arguments().get(1);
+        // values of other types, like arrays, don't provide a hashCode which is consistent with their equality
+        if (!DataTypes.isPrimitive(first.valueType()) || !first.valueType().equals(second.valueType())) {
+            return false;
+        }
+        Side firstSide = Side.of(first, numLeftOutputs);
+        Side secondSide = Side.of(second, numLeftOutputs);
+        if (firstSide == Side.LEFT && secondSide == Side.RIGHT) {
+            leftKeys.add(first);
+            rightKeys.add(ShiftingVisitor.shift(second, numLeftOutputs));
+            return true;
+        }
+        if (firstSide == Side.RIGHT && secondSide == Side.LEFT) {
+            leftKeys.add(second);
+            rightKeys.add(ShiftingVisitor.shift(first, numLeftOutputs));
+            return true;
+        }
+        return false;
+    }
+
+    private enum Side {
+        NONE,
+        LEFT,
+        RIGHT,
+        BOTH;
+
+        static Side of(Symbol symbol, int numLeftOutputs) {
+            return SideVisitor.INSTANCE.process(symbol, numLeftOutputs);
+        }
+
+        Side and(Side other) {
+            if (this == NONE) {
+                return other;
+            }
+            if (other == NONE || other == this) {
+                return this;
+            }
+            return BOTH;
+        }
+    }
+
+    /**
+     * determines which side the input columns of a symbol belong to;
+     * symbols other than functions, literals and input columns are treated as if they belonged to both sides
+     */
+    private static class SideVisitor extends SymbolVisitor<Integer, Side> {
+
+        static final SideVisitor INSTANCE = new SideVisitor();
+
+        @Override
+        public Side visitFunction(Function symbol, Integer numLeftOutputs) {
+            Side side = Side.NONE;
+            for (Symbol arg : symbol.arguments()) {
+                side = side.and(process(arg, numLeftOutputs));
+            }
+            return side;
+        }
+
+        @Override
+        public Side visitInputColumn(InputColumn inputColumn, Integer numLeftOutputs) {
+            return inputColumn.index() < numLeftOutputs ? Side.LEFT : Side.RIGHT;
+        }
+
+        @Override
+        public Side visitLiteral(Literal symbol, Integer numLeftOutputs) {
+            return Side.NONE;
+        }
+
+        @Override
+        protected Side visitSymbol(Symbol symbol, Integer numLeftOutputs) {
+            return Side.BOTH;
+        }
+    }
+
+    private static class ShiftingVisitor extends ReplacingSymbolVisitor<Integer> {
+
+        private static final ShiftingVisitor INSTANCE = new ShiftingVisitor();
+
+        private ShiftingVisitor() {
+            super(ReplaceMode.COPY);
+        }
+
+        static Symbol shift(Symbol symbol, int offset) {
+            return INSTANCE.process(symbol, offset);
+        }
+
+        @Override
+        public Symbol visitInputColumn(InputColumn inputColumn, Integer offset) {
+            return new InputColumn(inputColumn.index() - offset, inputColumn.valueType());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.consumer;
+
+import io.crate.analyze.relations.JoinPair;
+import io.crate.analyze.relations.JoinPairs;
+import io.crate.sql.tree.QualifiedName;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Finds the order in which relations are joined, assuming that a left-based join tree is built:
+ * <code>join(join(join(r0, r1), r2), r3)</code>
+ * <p>
+ * The cost of an order is the sum of the estimated number of rows of all intermediate join results.
+ * The number of rows of a join is estimated per group of relations which are connected by join conditions.
+ * The relations of a group are added one after the other: if the selectivity of a join condition between the
+ * added relation and the group is known (see {@link #order(Collection, Set, List, List, Map, Map)}) the rows are
+ * multiplied with the rows of the relation and the selectivity, otherwise the relations are assumed to be joined
+ * on keys, so the result has as many rows as the larger side. Groups which aren't connected result in a
+ * cross product.
+ * <p>
+ * Up to {@link #MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH} relations the cheapest order is found by dynamic programming
+ * over the subsets of the relations, above a greedy heuristic is used. Orders with the same costs are resolved in
+ * favour of the order in which the relations were given.
+ */
+final class JoinOrdering {
+
+    /**
+     * used for relations whose number of rows isn't known, e.g. sub-selects or tables without stats
+     */
+    static final long DEFAULT_NUM_ROWS = 1000L;
+    static final int MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH = 12;
+    private static final int MAX_RELATIONS = 64;
+
+    private final List<QualifiedName> names;
+    private final int numRelations;
+    private final double[] numRows;
+    /**
+     * bit set of the relations which are connected to a relation by a join condition
+     */
+    private final long[] connected;
+    /**
+     * bit set of the relations which are the right side of an explicit join with a relation
+     */
+    private final long[] explicitlyJoined;
+    private final long outerJoinRelations;
+    /**
+     * the selectivity of the join conditions between two relations, 0 if it isn't known
+     */
+    private final double[][] selectivity;
+
+    private JoinOrdering(Collection<QualifiedName> relations,
+                         Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                         List<JoinPair> joinPairs,
+                         Map<QualifiedName, Long> relationNumRows,
+                         Map<? extends Set<QualifiedName>, Double> joinSelectivity) {
+        names = new ArrayList<>(relations);
+        numRelations = names.size();
+        numRows = new double[numRelations];
+        connected = new long[numRelations];
+        explicitlyJoined = new long[numRelations];
+        selectivity = new double[numRelations][numRelations];
+        for (int i = 0; i < numRelations; i++) {
+            Long rows = relationNumRows.get(names.get(i));
+            numRows[i] = rows == null || rows < 0 ? DEFAULT_NUM_ROWS : Math.max(rows, 1L);
+        }
+        for (Map.Entry<? extends Set<QualifiedName>, Double> entry : joinSelectivity.entrySet()) {
+            if (entry.getKey().size() == 2 && entry.getValue() > 0.0) {
+                Iterator<QualifiedName> it = entry.getKey().iterator();
+                int a = names.indexOf(it.next());
+                int b = names.indexOf(it.next());
+                if (a >= 0 && b >= 0 && a != b) {
+                    connect(connected, a, b);
+                    selectivity[a][b] = Math.min(entry.getValue(), 1.0);
+                    selectivity[b][a] = selectivity[a][b];
+                }
+            }
+        }
+        for (Set<QualifiedName> pair : implicitJoinedRelations) {
+            if (pair.size() == 2) {
+                Iterator<QualifiedName> it = pair.iterator();
+                connect(connected, names.indexOf(it.next()), names.indexOf(it.next()));
+            }
+        }
+        for (JoinPair joinPair : joinPairs) {
+            int left = names.indexOf(joinPair.left());
+            int right = names.indexOf(joinPair.right());
+            if (left >= 0 && right >= 0) {
+                explicitlyJoined[left] |= 1L << right;
+            }
+            if (joinPair.condition() != null) {
+                connect(connected, left, right);
+            }
+        }
+        long outer = 0L;
+        for (QualifiedName name : JoinPairs.outerJoinRelations(joinPairs)) {
+            int idx = names.indexOf(name);
+            if (idx >= 0) {
+                outer |= 1L << idx;
+            }
+        }
+        outerJoinRelations = outer;
+    }
+
+    private static void connect(long[] bitSets, int a, int b) {
+        if (a >= 0 && b >= 0 && a != b) {
+            bitSets[a] |= 1L << b;
+            bitSets[b] |= 1L << a;
+        }
+    }
+
+    /**
+     * @param preSorted the order has to start with these relations
+     * @return the relations in the cheapest order or null if there is no valid order
+     */
+    @Nullable
+    static List<QualifiedName> order(Collection<QualifiedName> relations,
+                                     Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                                     List<JoinPair> joinPairs,
+                                     List<QualifiedName> preSorted,
+                                     Map<QualifiedName, Long> numRows) {
+        return order(relations, implicitJoinedRelations, joinPairs, preSorted, numRows, Collections.emptyMap());
+    }
+
+    /**
+     * @param preSorted       the order has to start with these relations
+     * @param joinSelectivity the fraction of the cross product of two relations which matches the join conditions
+     *                        between them, e.g. estimated from the number of distinct values of the join columns
+     * @return the relations in the cheapest order or null if there is no valid order
+     */
+    @Nullable
+    static List<QualifiedName> order(Collection<QualifiedName> relations,
+                                     Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                                     List<JoinPair> joinPairs,
+                                     List<QualifiedName> preSorted,
+                                     Map<QualifiedName, Long> numRows,
+                                     Map<? extends Set<QualifiedName>, Double> joinSelectivity) {
+        if (relations.size() > MAX_RELATIONS) {
+            return null;
+        }
+        JoinOrdering ordering = new JoinOrdering(relations, implicitJoinedRelations, joinPairs, numRows, joinSelectivity);
+        int[] prefix = new int[preSorted.size()];
+        for (int i = 0; i < prefix.length; i++) {
+            prefix[i] = ordering.names.indexOf(preSorted.get(i));
+            if (prefix[i] < 0) {
+                return null;
+            }
+        }
+        int[] order;
+        if (relations.size() <= MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH) {
+            order = ordering.exhaustive(prefix);
+        } else {
+            order = ordering.greedy(prefix);
+        }
+        if (order == null) {
+            return null;
+        }
+        List<QualifiedName> result = new ArrayList<>(order.length);
+        for (int idx : order) {
+            result.add(ordering.names.get(idx));
+        }
+        return result;
+    }
+
+    /**
+     * relations which are part of an outer join can only be next to each other if they're explicitly joined
+     * in that order
+     */
+    private boolean canFollow(int previous, int next) {
+        return (explicitlyJoined[previous] & (1L << next)) != 0
+               || ((outerJoinRelations & (1L << previous)) == 0 && (outerJoinRelations & (1L << next)) == 0);
+    }
+
+    /**
+     * @return the estimated number of rows of the join of the relations in the given bit set
+     */
+    double estimateNumRows(long relations) {
+        double result = 1.0;
+        long remaining = relations;
+        while (remaining != 0) {
+            // add the relations connected to the lowest remaining relation to its group, one after the other
+            long group = Long.lowestOneBit(remaining);
+            double groupRows = numRows[Long.numberOfTrailingZeros(group)];
+            long candidates = neighbours(group) & relations & ~group;
+            while (candidates != 0) {
+                int next = Long.numberOfTrailingZeros(candidates);
+                groupRows = joinNumRows(groupRows, group, next);
+                group |= 1L << next;
+                candidates = neighbours(group) & relations & ~group;
+            }
+            result *= groupRows;
+            remaining &= ~group;
+        }
+        return result;
+    }
+
+    private long neighbours(long relations) {
+        long result = 0L;
+        for (long it = relations; it != 0; it &= it - 1) {
+            result |= connected[Long.numberOfTrailingZeros(it)];
+        }
+        return result;
+    }
+
+    /**
+     * @return the estimated number of rows of the join of a group of relations with a relation connected to it
+     */
+    private double joinNumRows(double groupRows, long group, int relation) {
+        double minSelectivity = 0.0;
+        for (long it = group & connected[relation]; it != 0; it &= it - 1) {
+            double s = selectivity[relation][Long.numberOfTrailingZeros(it)];
+            if (s > 0.0 && (minSelectivity == 0.0 || s < minSelectivity)) {
+                minSelectivity = s;
+            }
+        }
+        if (minSelectivity == 0.0) {
+            return Math.max(groupRows, numRows[relation]);
+        }
+        return Math.max(groupRows * numRows[relation] * minSelectivity, 1.0);
+    }
+
+    /**
+     * number of relations in the bit set which were given after relation <code>idx</code>;
+     * used to prefer the given order if costs are equal.
+     */
+    private static int inversions(long relations, int idx) {
+        return Long.bitCount(relations & (-1L << idx << 1));
+    }
+
+    @Nullable
+    private int[] exhaustive(int[] prefix) {
+        int numSets = 1 << numRelations;
+        double[] setRows = new double[numSets];
+        double[][] costs = new double[numSets][numRelations];
+        int[][] inversions = new int[numSets][numRelations];
+        int[][] previous = new int[numSets][numRelations];
+        for (int set = 1; set < numSets; set++) {
+            setRows[set] = estimateNumRows(set);
+            Arrays.fill(costs[set], Double.POSITIVE_INFINITY);
+        }
+        for (int i = 0; i < numRelations; i++) {
+            if (prefix.length == 0 || prefix[0] == i) {
+                costs[1 << i][i] = 0.0;
+                previous[1 << i][i] = -1;
+            }
+        }
+        for (int set = 1; set < numSets; set++) {
+            int position = Integer.bitCount(set);
+            for (int last = 0; last < numRelations; last++) {
+                double cost = costs[set][last];
+                if (cost == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int next = 0; next < numRelations; next++) {
+                    if ((set & (1 << next)) != 0
+                        || (position < prefix.length && prefix[position] != next)
+                        || !canFollow(last, next)) {
+                        continue;
+                    }
+                    int newSet = set | (1 << next);
+                    double newCost = cost + setRows[newSet];
+                    int newInversions = inversions[set][last] + inversions(set, next);
+                    if (newCost < costs[newSet][next]
+                        || (newCost == costs[newSet][next] && newInversions < inversions[newSet][next])) {
+                        costs[newSet][next] = newCost;
+                        inversions[newSet][next] = newInversions;
+                        previous[newSet][next] = last;
+                    }
+                }
+            }
+        }
+        int allRelations = numSets - 1;
+        int last = -1;
+        for (int i = 0; i < numRelations; i++) {
+            double cost = costs[allRelations][i];
+            if (cost != Double.POSITIVE_INFINITY
+                && (last == -1 || cost < costs[allRelations][last]
+                    || (cost == costs[allRelations][last] && inversions[allRelations][i] < inversions[allRelations][last]))) {
+                last = i;
+            }
+        }
+        if (last == -1) {
+            return null;
+        }
+        int[] order = new int[numRelations];
+        int set = allRelations;
+        for (int pos = numRelations - 1; pos >= 0; pos--) {
+            order[pos] = last;
+            int prev = previous[set][last];
+            set &= ~(1 << last);
+            last = prev;
+        }
+        return order;
+    }
+
+    @Nullable
+    private int[] greedy(int[] prefix) {
+        int[] order = new int[numRelations];
+        long set = 0L;
+        for (int pos = 0; pos < numRelations; pos++) {
+            int best = -1;
+            double bestRows = Double.POSITIVE_INFINITY;
+            for (int next = 0; next < numRelations; next++) {
+                if ((set & (1L << next)) != 0
+                    || (pos < prefix.length && prefix[pos] != next)
+                    || (pos > 0 && !canFollow(order[pos - 1], next))) {
+                    continue;
+                }
+                double rows = estimateNumRows(set | (1L << next));
+                if (rows < bestRows) {
+                    best = next;
+                    bestRows = rows;
+                }
+            }
+            if (best == -1) {
+                return null;
+            }
+            order[pos] = best;
+            set |= 1L << best;
+        }
+        return order;
+    }
+}
@@ -29,10 +29,15 @@ import io.crate.analyze.*;
 import io.crate.analyze.relations.*;
 import io.crate.analyze.symbol.*;
 import io.crate.exceptions.ValidationException;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.ReplaceMode;
 import io.crate.metadata.ReplacingSymbolVisitor;
 import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.Operators;
+import io.crate.planner.ColumnStats;
 import io.crate.planner.Plan;
+import io.crate.planner.TableStatsService;
 import io.crate.sql.tree.QualifiedName;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -46,8 +51,8 @@ public class ManyTableConsumer implements Consumer {
 
     private final Visitor visitor;
 
-    ManyTableConsumer() {
-        this.visitor = new Visitor();
+    ManyTableConsumer(TableStatsService tableStatsService) {
+        this.visitor = new Visitor(tableStatsService);
     }
 
     @Override
@@ -69,6 +74,36 @@ public class ManyTableConsumer implements Consumer {
                                                            Set<? extends Set<QualifiedName>> implicitJoinedRelations,
                                                            List<JoinPair> joinPairs,
                                                            Collection<QualifiedName> preSorted) {
+        return orderByJoinConditions(relations, implicitJoinedRelations, joinPairs, preSorted, ImmutableMap.of());
+    }
+
+    /**
+     * returns a new collection with the same items as relations contains but in the order with the lowest
+     * estimated costs, see {@link JoinOrdering}.
+     *
+     * @param numRows the number of rows of the relations, if known
+     */
+    static Collection<QualifiedName> orderByJoinConditions(Collection<QualifiedName> relations,
+                                                           Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                                                           List<JoinPair> joinPairs,
+                                                           Collection<QualifiedName> preSorted,
+                                                           Map<QualifiedName, Long> numRows) {
+        return orderByJoinConditions(relations, implicitJoinedRelations, joinPairs, preSorted, numRows, ImmutableMap.of());
+    }
+
+    /**
+     * returns a new collection with the same items as relations contains but in the order with the lowest
+     * estimated costs, see {@link JoinOrdering}.
+     *
+     * @param numRows         the number of rows of the relations, if known
+     * @param joinSelectivity the selectivity of the join conditions between two relations, if known
+     */
+    static Collection<QualifiedName> orderByJoinConditions(Collection<QualifiedName> relations,
+                                                           Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                                                           List<JoinPair> joinPairs,
+                                                           Collection<QualifiedName> preSorted,
+                                                           Map<QualifiedName, Long> numRows,
+                                                           Map<Set<QualifiedName>, Double> joinSelectivity) {
         if (relations.size() == preSorted.size()) {
             return preSorted;
         }
@@ -77,52 +112,106 @@ public class ManyTableConsumer implements Consumer {
             qualifiedNames.addAll(relations);
             return qualifiedNames;
         }
+        List<QualifiedName> bestOrder = JoinOrdering.order(
+            relations, implicitJoinedRelations, joinPairs, ImmutableList.copyOf(preSorted), numRows, joinSelectivity);
+        if (bestOrder == null) {
+            return relations;
+        }
+        return bestOrder;
+    }
 
-        // Create a Copy to ensure equals works correctly for the subList check below.
-        preSorted = ImmutableList.copyOf(preSorted);
-        Set<QualifiedName> pair = new HashSet<>(2);
-        Set<QualifiedName> outerJoinRelations = JoinPairs.outerJoinRelations(joinPairs);
-        Collection<QualifiedName> bestOrder = null;
-        int best = -1;
-        outerloop:
-        for (List<QualifiedName> permutation : Collections2.permutations(relations)) {
-            if (!preSorted.equals(permutation.subList(0, preSorted.size()))) {
+    /**
+     * @return the number of docs of all table relations for which stats are available
+     */
+    private static Map<QualifiedName, Long> numRows(MultiSourceSelect mss, TableStatsService tableStatsService) {
+        Map<QualifiedName, Long> numRows = new HashMap<>(mss.sources().size());
+        for (Map.Entry<QualifiedName, RelationSource> entry : mss.sources().entrySet()) {
+            AnalyzedRelation relation = entry.getValue().relation();
+            if (relation instanceof AbstractTableRelation) {
+                long numDocs = tableStatsService.numDocs(((AbstractTableRelation) relation).tableInfo().ident());
+                if (numDocs >= 0) {
+                    numRows.put(entry.getKey(), numDocs);
+                }
+            }
+        }
+        return numRows;
+    }
+
+    /**
+     * Estimates the selectivity of the equality conditions between columns of two tables which have been analyzed,
+     * the fields of the conditions must have been replaced with {@link RelationColumn}s.
+     * Assuming that each value of the column with fewer distinct values has a match,
+     * <code>col1 = col2</code> matches <code>1 / max(ndv(col1), ndv(col2))</code> of the cross product;
+     * if only one column has statistics, its number of distinct values is used.
+     * The selectivities of several conditions between the same tables are multiplied.
+     */
+    static Map<Set<QualifiedName>, Double> joinSelectivity(MultiSourceSelect mss, TableStatsService tableStatsService) {
+        List<Symbol> conditions = new ArrayList<>();
+        if (mss.querySpec().where().hasQuery()) {
+            conditions.addAll(Operators.splitConjunctions(mss.querySpec().where().query()));
+        }
+        for (JoinPair joinPair : mss.joinPairs()) {
+            if (joinPair.condition() != null) {
+                conditions.addAll(Operators.splitConjunctions(joinPair.condition()));
+            }
+        }
+        Map<Set<QualifiedName>, Double> joinSelectivity = new HashMap<>();
+        for (Symbol condition : conditions) {
+            if (!(condition instanceof io.crate.analyze.symbol.Function)) {
                 continue;
             }
-            int joinPushDowns = 0;
-            for (int i = 0; i < permutation.size() - 1; i++) {
-                QualifiedName a = permutation.get(i);
-                QualifiedName b = permutation.get(i + 1);
-
-                JoinPair joinPair = JoinPairs.ofRelations(a, b, joinPairs, false);
-                if (joinPair == null) {
-                    // relations are not directly joined, lets check if they are part of an outer join
-                    if (outerJoinRelations.contains(a) || outerJoinRelations.contains(b)) {
-                        // part of an outer join, don't change pairs, permutation not possible
-                        continue outerloop;
-                    } else {
-                        pair.clear();
-                        pair.add(a);
-                        pair.add(b);
-                        joinPushDowns += implicitJoinedRelations.contains(pair) ? 1 : 0;
-                    }
-                } else {
-                    // relations are directly joined
-                    joinPushDowns += 1;
-                }
+            io.crate.analyze.symbol.Function function = (io.crate.analyze.symbol.Function) condition;
+            if (!function.info().ident().name().equals(EqOperator.NAME)) {
+                continue;
             }
-            if (joinPushDowns == relations.size() - 1) {
-                return permutation;
+            List<Symbol> arguments = function.arguments();
+            if (arguments.size() != 2
+                || !(arguments.get(0) instanceof RelationColumn) || !(arguments.get(1) instanceof RelationColumn)) {
+                continue;
             }
-            if (joinPushDowns > best) {
-                best = joinPushDowns;
-                bestOrder = permutation;
+            RelationColumn left = (RelationColumn) arguments.get(0);
+            RelationColumn right = (RelationColumn) arguments.get(1);
+            QualifiedName leftName = left.relationName();
+            QualifiedName rightName = right.relationName();
+            if (leftName.equals(rightName)) {
+                continue;
+            }
+            ColumnStats leftStats = columnStats(mss, left, tableStatsService);
+            ColumnStats rightStats = columnStats(mss, right, tableStatsService);
+            if (leftStats == null && rightStats == null) {
+                continue;
+            }
+            double numDistinct = 0.0;
+            double matchingFraction = 1.0;
+            for (ColumnStats stats : Arrays.asList(leftStats, rightStats)) {
+                if (stats != null) {
+                    numDistinct = Math.max(numDistinct, stats.numDistinct());
+                    // null values never match
+                    matchingFraction *= 1.0 - stats.nullFraction();
+                }
+            }
+            if (numDistinct >= 1.0) {
+                joinSelectivity.merge(
+                    ImmutableSet.of(leftName, rightName), matchingFraction / numDistinct, (a, b) -> a * b);
             }
         }
-        if (bestOrder == null) {
-            bestOrder = relations;
+        return joinSelectivity;
+    }
+
+    @Nullable
+    private static ColumnStats columnStats(MultiSourceSelect mss,
+                                           RelationColumn relationColumn,
+                                           TableStatsService tableStatsService) {
+        RelationSource source = mss.sources().get(relationColumn.relationName());
+        if (source == null || !(source.relation() instanceof AbstractTableRelation)) {
+            return null;
         }
-        return bestOrder;
+        Symbol output = source.querySpec().outputs().get(relationColumn.index());
+        if (output instanceof Field && ((Field) output).path() instanceof ColumnIdent) {
+            return tableStatsService.columnStats(
+                ((AbstractTableRelation) source.relation()).tableInfo().ident(), (ColumnIdent) ((Field) output).path());
+        }
+        return null;
     }
 
     private static Collection<QualifiedName> getNamesFromOrderBy(OrderBy orderBy) {
@@ -137,13 +226,16 @@ public class ManyTableConsumer implements Consumer {
     }
 
     private static Collection<QualifiedName> getOrderedRelationNames(MultiSourceSelect statement,
-                                                                     Set<? extends Set<QualifiedName>> relationPairs) {
+                                                                     Set<? extends Set<QualifiedName>> relationPairs,
+                                                                     Map<QualifiedName, Long> numRows,
+                                                                     Map<Set<QualifiedName>, Double> joinSelectivity) {
         Collection<QualifiedName> orderedRelations = ImmutableList.of();
         Optional<OrderBy> orderBy = statement.querySpec().orderBy();
         if (orderBy.isPresent()) {
             orderedRelations = getNamesFromOrderBy(orderBy.get());
         }
-        return orderByJoinConditions(statement.sources().keySet(), relationPairs, statement.joinPairs(), orderedRelations);
+        return orderByJoinConditions(
+            statement.sources().keySet(), relationPairs, statement.joinPairs(), orderedRelations, numRows, joinSelectivity);
     }
 
     /**
@@ -182,13 +274,31 @@ public class ManyTableConsumer implements Consumer {
      * </code>
      */
     static TwoTableJoin buildTwoTableJoinTree(MultiSourceSelect mss) {
+        return buildTwoTableJoinTree(mss, ImmutableMap.of());
+    }
+
+    static TwoTableJoin buildTwoTableJoinTree(MultiSourceSelect mss, Map<QualifiedName, Long> numRows) {
+        return buildTwoTableJoinTree(mss, numRows, ImmutableMap.of());
+    }
+
+    /**
+     * build a TwoTableJoin tree, see {@link #buildTwoTableJoinTree(MultiSourceSelect)}.
+     *
+     * @param numRows         the number of rows of the relations which are used to find the cheapest join order
+     * @param joinSelectivity the selectivity of the join conditions between two relations, if known,
+     *                        see {@link #joinSelectivity(MultiSourceSelect, TableStatsService)}
+     */
+    static TwoTableJoin buildTwoTableJoinTree(MultiSourceSelect mss,
+                                              Map<QualifiedName, Long> numRows,
+                                              Map<Set<QualifiedName>, Double> joinSelectivity) {
         Map<Set<QualifiedName>, Symbol> splitQuery = ImmutableMap.of();
         if (mss.querySpec().where().hasQuery()) {
             splitQuery = QuerySplitter.split(mss.querySpec().where().query());
             mss.querySpec().where(WhereClause.MATCH_ALL);
         }
 
-        Collection<QualifiedName> orderedRelationNames = getOrderedRelationNames(mss, splitQuery.keySet());
+        Collection<QualifiedName> orderedRelationNames =
+            getOrderedRelationNames(mss, splitQuery.keySet(), numRows, joinSelectivity);
         Iterator<QualifiedName> it = orderedRelationNames.iterator();
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("relations={} orderedRelations={}", mss.sources().keySet(), orderedRelationNames);
@@ -328,7 +438,8 @@ public class ManyTableConsumer implements Consumer {
 
     static TwoTableJoin twoTableJoin(MultiSourceSelect mss) {
         assert mss.sources().size() == 2 : "number of mss.sources() must be 2";
-        Iterator<QualifiedName> it = getOrderedRelationNames(mss, ImmutableSet.of()).iterator();
+        Iterator<QualifiedName> it =
+            getOrderedRelationNames(mss, ImmutableSet.of(), ImmutableMap.of(), ImmutableMap.of()).iterator();
         QualifiedName left = it.next();
         QualifiedName right = it.next();
         JoinPair joinPair = JoinPairs.ofRelationsWithMergedConditions(left, right, mss.joinPairs(), true);
@@ -354,6 +465,12 @@ public class ManyTableConsumer implements Consumer {
 
     private static class Visitor extends RelationPlanningVisitor {
 
+        private final TableStatsService tableStatsService;
+
+        Visitor(TableStatsService tableStatsService) {
+            this.tableStatsService = tableStatsService;
+        }
+
         @Override
         public Plan visitMultiSourceSelect(MultiSourceSelect mss, ConsumerContext context) {
             if (isUnsupportedStatement(mss, context)) return null;
@@ -361,7 +478,8 @@ public class ManyTableConsumer implements Consumer {
             if (mss.sources().size() == 2) {
                 return planSubRelation(context, twoTableJoin(mss));
             }
-            return planSubRelation(context, buildTwoTableJoinTree(mss));
+            return planSubRelation(context, buildTwoTableJoinTree(
+                mss, numRows(mss, tableStatsService), joinSelectivity(mss, tableStatsService)));
         }
 
 
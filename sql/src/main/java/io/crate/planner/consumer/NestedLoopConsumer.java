@@ -27,12 +27,15 @@ import io.crate.analyze.*;
 import io.crate.analyze.relations.*;
 import io.crate.analyze.symbol.*;
 import io.crate.exceptions.ValidationException;
+import io.crate.executor.transport.StreamExtensions;
 import io.crate.metadata.Functions;
 import io.crate.metadata.TableIdent;
 import io.crate.operation.projectors.TopN;
 import io.crate.planner.*;
 import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.node.dql.join.HashJoinSpec;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
@@ -41,6 +44,7 @@ import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.builder.InputCreatingVisitor;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.sql.tree.QualifiedName;
+import io.crate.types.DataType;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -156,12 +160,63 @@ class NestedLoopConsumer implements Consumer {
             Plan leftPlan = context.plannerContext().planSubRelation(left, context);
             Plan rightPlan = context.plannerContext().planSubRelation(right, context);
             context.requiredPageSize(null);
+            // the relations might be swapped below, but the hash join keys refer to the original sides
+            int numLeftOutputs = statement.left().querySpec().outputs().size();
+            long leftNumDocs = numDocs(left);
+            long rightNumDocs = numDocs(right);
+            // the hash join emits the rows in the order of the probe side, so an ordered left side must be probed
+            boolean buildLeft = leftNumDocs >= 0 && leftNumDocs < rightNumDocs
+                                && !left.querySpec().orderBy().isPresent();
+            boolean probeOrdered = (buildLeft ? right : left).querySpec().orderBy().isPresent();
 
+            List<Projection> projections = new ArrayList<>();
+            HashJoinConditions hashJoinConditions = null;
+            // nodes of older versions can't execute hash joins
+            boolean hashJoinSupported = StreamExtensions.supportedByAll(clusterService.state().nodes());
+            if (filterNeeded) {
+                InputCreatingVisitor.Context inputVisitorContext = new InputCreatingVisitor.Context(nlOutputs);
+                Symbol filterSymbol = InputCreatingVisitor.INSTANCE.process(where.query(), inputVisitorContext);
+                assert filterSymbol instanceof Function : "Only function symbols are allowed for filtering";
+                if (hashJoinSupported && joinType == JoinType.CROSS && joinCondition == null) {
+                    // a cross join filtered by equalities between both sides is an inner join on these equalities
+                    hashJoinConditions = HashJoinConditions.extract(filterSymbol, numLeftOutputs);
+                    if (hashJoinConditions != null) {
+                        joinType = JoinType.INNER;
+                        filterSymbol = hashJoinConditions.remainingCondition();
+                    }
+                }
+                if (filterSymbol != null) {
+                    projections.add(new FilterProjection(filterSymbol));
+                }
+            }
+            if (joinCondition != null) {
+                InputCreatingVisitor.Context inputVisitorContext = new InputCreatingVisitor.Context(nlOutputs);
+                joinCondition = InputCreatingVisitor.INSTANCE.process(joinCondition, inputVisitorContext);
+                assert joinCondition instanceof Function : "Only function symbols are valid join conditions";
+                if (hashJoinSupported && joinType != JoinType.CROSS) {
+                    hashJoinConditions = HashJoinConditions.extract(joinCondition, numLeftOutputs);
+                    if (hashJoinConditions != null) {
+                        joinCondition = hashJoinConditions.remainingCondition();
+                    }
+                }
+            }
 
             ResultDescription leftResultDesc = leftPlan.resultDescription();
             ResultDescription rightResultDesc = rightPlan.resultDescription();
-            isDistributed = isDistributed &&
-                            (!leftResultDesc.nodeIds().isEmpty() && !rightResultDesc.nodeIds().isEmpty());
+            boolean executedOnNodes = !leftResultDesc.nodeIds().isEmpty() && !rightResultDesc.nodeIds().isEmpty();
+            isDistributed = isDistributed && executedOnNodes;
+            boolean shuffle = false;
+            int shuffleKeyIdx = hashJoinConditions == null ? -1 : shuffleKeyIdx(hashJoinConditions);
+            if (shuffleKeyIdx >= 0 && executedOnNodes
+                && left instanceof QueriedDocTable && right instanceof QueriedDocTable) {
+                if (!joinType.isOuter() && isBroadcastCheaper(leftNumDocs, leftResultDesc, rightNumDocs, rightResultDesc)) {
+                    isDistributed = true;
+                } else {
+                    // both sides are partitioned by the join key, so each node can join its partition locally
+                    isDistributed = false;
+                    shuffle = true;
+                }
+            }
             boolean broadcastLeftTable = false;
             if (isDistributed) {
                 broadcastLeftTable = isLeftSmallerThanRight(left, right);
@@ -182,45 +237,77 @@ class NestedLoopConsumer implements Consumer {
 
             MergePhase leftMerge = null;
             MergePhase rightMerge = null;
-            if (isDistributed) {
-                leftPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
-                nlExecutionNodes = leftResultDesc.nodeIds();
+            if (shuffle) {
+                Set<String> executionNodes = new TreeSet<>(leftResultDesc.nodeIds());
+                executionNodes.addAll(rightResultDesc.nodeIds());
+                nlExecutionNodes = new ArrayList<>(executionNodes);
+                leftPlan.setDistributionInfo(new DistributionInfo(
+                    DistributionType.MODULO, ((InputColumn) hashJoinConditions.leftKeys().get(shuffleKeyIdx)).index()));
+                rightPlan.setDistributionInfo(new DistributionInfo(
+                    DistributionType.MODULO, ((InputColumn) hashJoinConditions.rightKeys().get(shuffleKeyIdx)).index()));
+                leftMerge = new MergePhase(
+                    context.plannerContext().jobId(),
+                    context.plannerContext().nextExecutionPhaseId(),
+                    "hash-join-merge",
+                    leftResultDesc.nodeIds().size(),
+                    nlExecutionNodes,
+                    leftResultDesc.streamOutputs(),
+                    Collections.emptyList(),
+                    DistributionInfo.DEFAULT_SAME_NODE,
+                    PositionalOrderBy.of(left.querySpec().orderBy().orElse(null), left.querySpec().outputs())
+                );
+                rightMerge = new MergePhase(
+                    context.plannerContext().jobId(),
+                    context.plannerContext().nextExecutionPhaseId(),
+                    "hash-join-merge",
+                    rightResultDesc.nodeIds().size(),
+                    nlExecutionNodes,
+                    rightResultDesc.streamOutputs(),
+                    Collections.emptyList(),
+                    DistributionInfo.DEFAULT_SAME_NODE,
+                    PositionalOrderBy.of(right.querySpec().orderBy().orElse(null), right.querySpec().outputs())
+                );
             } else {
-                if (isMergePhaseNeeded(nlExecutionNodes, leftResultDesc.nodeIds(), false)) {
-                    leftMerge = new MergePhase(
-                        context.plannerContext().jobId(),
-                        context.plannerContext().nextExecutionPhaseId(),
-                        "nl-merge",
-                        leftResultDesc.nodeIds().size(),
-                        nlExecutionNodes,
-                        leftResultDesc.streamOutputs(),
-                        Collections.emptyList(),
-                        DistributionInfo.DEFAULT_SAME_NODE,
-                        PositionalOrderBy.of(left.querySpec().orderBy().orElse(null), left.querySpec().outputs())
-                    );
+                if (isDistributed) {
+                    leftPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+                    nlExecutionNodes = leftResultDesc.nodeIds();
+                } else {
+                    if (isMergePhaseNeeded(nlExecutionNodes, leftResultDesc.nodeIds(), false)) {
+                        leftMerge = new MergePhase(
+                            context.plannerContext().jobId(),
+                            context.plannerContext().nextExecutionPhaseId(),
+                            "nl-merge",
+                            leftResultDesc.nodeIds().size(),
+                            nlExecutionNodes,
+                            leftResultDesc.streamOutputs(),
+                            Collections.emptyList(),
+                            DistributionInfo.DEFAULT_SAME_NODE,
+                            PositionalOrderBy.of(left.querySpec().orderBy().orElse(null), left.querySpec().outputs())
+                        );
+                    }
                 }
-            }
-            if (nlExecutionNodes.size() == 1
-                && nlExecutionNodes.equals(rightResultDesc.nodeIds())) {
-                // if the left and the right plan are executed on the same single node the mergePhase
-                // should be omitted. This is the case if the left and right table have only one shards which
-                // are on the same node
-                rightPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
-            } else {
-                if (isMergePhaseNeeded(nlExecutionNodes, rightResultDesc.nodeIds(), isDistributed)) {
-                    rightMerge = new MergePhase(
-                        context.plannerContext().jobId(),
-                        context.plannerContext().nextExecutionPhaseId(),
-                        "nl-merge",
-                        rightResultDesc.nodeIds().size(),
-                        nlExecutionNodes,
-                        rightResultDesc.streamOutputs(),
-                        Collections.emptyList(),
-                        DistributionInfo.DEFAULT_SAME_NODE,
-                        PositionalOrderBy.of(right.querySpec().orderBy().orElse(null), right.querySpec().outputs())
-                    );
+                if (nlExecutionNodes.size() == 1
+                    && nlExecutionNodes.equals(rightResultDesc.nodeIds())) {
+                    // if the left and the right plan are executed on the same single node the mergePhase
+                    // should be omitted. This is the case if the left and right table have only one shards which
+                    // are on the same node
+                    rightPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+                } else {
+                    if (isMergePhaseNeeded(nlExecutionNodes, rightResultDesc.nodeIds(), isDistributed)) {
+                        rightMerge = new MergePhase(
+                            context.plannerContext().jobId(),
+                            context.plannerContext().nextExecutionPhaseId(),
+                            "nl-merge",
+                            rightResultDesc.nodeIds().size(),
+                            nlExecutionNodes,
+                            rightResultDesc.streamOutputs(),
+                            Collections.emptyList(),
+                            DistributionInfo.DEFAULT_SAME_NODE,
+                            PositionalOrderBy.of(right.querySpec().orderBy().orElse(null), right.querySpec().outputs())
+                        );
+                    }
+                    rightPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
                 }
-                rightPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
             }
 
 
@@ -233,18 +320,19 @@ class NestedLoopConsumer implements Consumer {
                 leftResultDesc = leftPlan.resultDescription();
                 rightResultDesc = rightPlan.resultDescription();
             }
-            List<Projection> projections = new ArrayList<>();
-
-            if (filterNeeded) {
-                InputCreatingVisitor.Context inputVisitorContext = new InputCreatingVisitor.Context(nlOutputs);
-                Symbol filterSymbol = InputCreatingVisitor.INSTANCE.process(where.query(), inputVisitorContext);
-                assert filterSymbol instanceof Function : "Only function symbols are allowed for filtering";
-                projections.add(new FilterProjection(filterSymbol));
-            }
-            if (joinCondition != null) {
-                InputCreatingVisitor.Context inputVisitorContext = new InputCreatingVisitor.Context(nlOutputs);
-                joinCondition = InputCreatingVisitor.INSTANCE.process(joinCondition, inputVisitorContext);
-                assert joinCondition instanceof Function : "Only function symbols are valid join conditions";
+            // from here on a shuffled join is executed like any other distributed join
+            isDistributed |= shuffle;
+            HashJoinSpec hashJoinSpec = null;
+            if (hashJoinConditions != null) {
+                List<DataType> nlOutputTypes = Symbols.extractTypes(nlOutputs);
+                hashJoinSpec = new HashJoinSpec(
+                    hashJoinConditions.leftKeys(),
+                    hashJoinConditions.rightKeys(),
+                    nlOutputTypes.subList(0, numLeftOutputs),
+                    nlOutputTypes.subList(numLeftOutputs, nlOutputTypes.size()),
+                    buildLeft,
+                    probeOrdered
+                );
             }
 
             List<Symbol> postNLOutputs = Lists.newArrayList(querySpec.outputs());
@@ -274,7 +362,7 @@ class NestedLoopConsumer implements Consumer {
             NestedLoopPhase nl = new NestedLoopPhase(
                 context.plannerContext().jobId(),
                 context.plannerContext().nextExecutionPhaseId(),
-                isDistributed ? "distributed-nested-loop" : "nested-loop",
+                shuffle ? "distributed-hash-join" : isDistributed ? "distributed-nested-loop" : "nested-loop",
                 projections,
                 leftMerge,
                 rightMerge,
@@ -282,7 +370,8 @@ class NestedLoopConsumer implements Consumer {
                 joinType,
                 joinCondition,
                 left.querySpec().outputs().size(),
-                right.querySpec().outputs().size()
+                right.querySpec().outputs().size(),
+                hashJoinSpec
             );
             if (isDistributed) {
                 return new NestedLoop(
@@ -311,6 +400,50 @@ class NestedLoopConsumer implements Consumer {
             }
         }
 
+        /**
+         * @return the number of docs of the table of the relation or -1 if unknown
+         */
+        private long numDocs(QueriedRelation relation) {
+            if (relation instanceof QueriedTableRelation) {
+                return tableStatsService.numDocs(((QueriedTableRelation) relation).tableRelation().tableInfo().ident());
+            }
+            return -1;
+        }
+
+        /**
+         * The rows can only be distributed by a key which is a column on both sides,
+         * keys which are functions would have to be evaluated before the rows are distributed.
+         *
+         * @return the index of the first key pair which consists of columns or -1 if there is none
+         */
+        private static int shuffleKeyIdx(HashJoinConditions hashJoinConditions) {
+            List<Symbol> leftKeys = hashJoinConditions.leftKeys();
+            List<Symbol> rightKeys = hashJoinConditions.rightKeys();
+            for (int i = 0; i < leftKeys.size(); i++) {
+                if (leftKeys.get(i) instanceof InputColumn && rightKeys.get(i) instanceof InputColumn) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Broadcasting sends the smaller side to every node of the larger side, while shuffling sends (almost)
+         * all rows of both sides over the network once.
+         */
+        private static boolean isBroadcastCheaper(long leftNumDocs,
+                                                  ResultDescription leftResultDesc,
+                                                  long rightNumDocs,
+                                                  ResultDescription rightResultDesc) {
+            if (leftNumDocs < 0 || rightNumDocs < 0) {
+                return false;
+            }
+            if (leftNumDocs < rightNumDocs) {
+                return leftNumDocs * rightResultDesc.nodeIds().size() <= rightNumDocs;
+            }
+            return rightNumDocs * leftResultDesc.nodeIds().size() <= leftNumDocs;
+        }
+
         private boolean isLeftSmallerThanRight(QueriedRelation qrLeft, QueriedRelation qrRight) {
             if (qrLeft instanceof QueriedTableRelation && qrRight instanceof QueriedTableRelation) {
                 return isLeftSmallerThanRight(
@@ -0,0 +1,140 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.node.dql.join;
+
+import com.google.common.base.MoreObjects;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes how a {@link NestedLoopPhase} is executed as a hash join.
+ * <p>
+ * The join keys are {@link io.crate.analyze.symbol.InputColumn}s relative to the rows of their side;
+ * <code>leftKeys[i] = rightKeys[i]</code> is part of the join condition for each i.
+ */
+public class HashJoinSpec {
+
+    private final List<Symbol> leftKeys;
+    private final List<Symbol> rightKeys;
+    private final List<DataType> leftTypes;
+    private final List<DataType> rightTypes;
+    private final boolean buildLeft;
+    private final boolean probeOrdered;
+
+    /**
+     * @param leftTypes    the types of the rows of the left side
+     * @param rightTypes   the types of the rows of the right side
+     * @param buildLeft    if true the hash table is built from the left side, otherwise from the right side
+     * @param probeOrdered if true the rows must be emitted in the order of the probe side
+     */
+    public HashJoinSpec(List<Symbol> leftKeys,
+                        List<Symbol> rightKeys,
+                        List<DataType> leftTypes,
+                        List<DataType> rightTypes,
+                        boolean buildLeft,
+                        boolean probeOrdered) {
+        assert leftKeys.size() == rightKeys.size() : "need the same number of keys on both sides";
+        assert !leftKeys.isEmpty() : "need at least one join key";
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.leftTypes = leftTypes;
+        this.rightTypes = rightTypes;
+        this.buildLeft = buildLeft;
+        this.probeOrdered = probeOrdered;
+    }
+
+    public List<Symbol> leftKeys() {
+        return leftKeys;
+    }
+
+    public List<Symbol> rightKeys() {
+        return rightKeys;
+    }
+
+    public List<DataType> leftTypes() {
+        return leftTypes;
+    }
+
+    public List<DataType> rightTypes() {
+        return rightTypes;
+    }
+
+    public boolean buildLeft() {
+        return buildLeft;
+    }
+
+    public boolean probeOrdered() {
+        return probeOrdered;
+    }
+
+    public static HashJoinSpec fromStream(StreamInput in) throws IOException {
+        List<Symbol> leftKeys = Symbols.listFromStream(in);
+        List<Symbol> rightKeys = Symbols.listFromStream(in);
+        List<DataType> leftTypes = typesFromStream(in);
+        List<DataType> rightTypes = typesFromStream(in);
+        boolean buildLeft = in.readBoolean();
+        return new HashJoinSpec(leftKeys, rightKeys, leftTypes, rightTypes, buildLeft, in.readBoolean());
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        Symbols.toStream(leftKeys, out);
+        Symbols.toStream(rightKeys, out);
+        typesToStream(leftTypes, out);
+        typesToStream(rightTypes, out);
+        out.writeBoolean(buildLeft);
+        out.writeBoolean(probeOrdered);
+    }
+
+    private static List<DataType> typesFromStream(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        List<DataType> types = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            types.add(DataTypes.fromStream(in));
+        }
+        return types;
+    }
+
+    private static void typesToStream(List<DataType> types, StreamOutput out) throws IOException {
+        out.writeVInt(types.size());
+        for (DataType type : types) {
+            DataTypes.toStream(type, out);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("leftKeys", leftKeys)
+            .add("rightKeys", rightKeys)
+            .add("buildLeft", buildLeft)
+            .add("probeOrdered", probeOrdered)
+            .toString();
+    }
+}
@@ -24,6 +24,7 @@ package io.crate.planner.node.dql.join;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import io.crate.Version;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.planner.distribution.DistributionInfo;
@@ -56,6 +57,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
     private Symbol joinCondition;
     private int numLeftOutputs;
     private int numRightOutputs;
+    @Nullable
+    private HashJoinSpec hashJoinSpec;
 
     public NestedLoopPhase() {
     }
@@ -71,6 +74,27 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
                            @Nullable Symbol joinCondition,
                            int numLeftOutputs,
                            int numRightOutputs) {
+        this(jobId, executionNodeId, name, projections, leftMergePhase, rightMergePhase, executionNodes,
+            joinType, joinCondition, numLeftOutputs, numRightOutputs, null);
+    }
+
+    /**
+     * @param joinCondition if a <code>hashJoinSpec</code> is given, the part of the join condition which isn't
+     *                      covered by the join keys
+     * @param hashJoinSpec  if not null, the join is executed as a hash join instead of a nested loop
+     */
+    public NestedLoopPhase(UUID jobId,
+                           int executionNodeId,
+                           String name,
+                           List<Projection> projections,
+                           @Nullable MergePhase leftMergePhase,
+                           @Nullable MergePhase rightMergePhase,
+                           Collection<String> executionNodes,
+                           JoinType joinType,
+                           @Nullable Symbol joinCondition,
+                           int numLeftOutputs,
+                           int numRightOutputs,
+                           @Nullable HashJoinSpec hashJoinSpec) {
         super(jobId, executionNodeId, name, projections);
         Projection lastProjection = Iterables.getLast(projections, null);
         assert lastProjection != null : "lastProjection must not be null";
@@ -82,6 +106,7 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         this.joinCondition = joinCondition;
         this.numLeftOutputs = numLeftOutputs;
         this.numRightOutputs = numRightOutputs;
+        this.hashJoinSpec = hashJoinSpec;
     }
 
     @Override
@@ -125,6 +150,14 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         return numRightOutputs;
     }
 
+    /**
+     * @return the join keys if the join is executed as a hash join, otherwise null
+     */
+    @Nullable
+    public HashJoinSpec hashJoinSpec() {
+        return hashJoinSpec;
+    }
+
     @Override
     public <C, R> R accept(ExecutionPhaseVisitor<C, R> visitor, C context) {
         return visitor.visitNestedLoopPhase(this, context);
@@ -158,6 +191,9 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         joinType = JoinType.values()[in.readVInt()];
         numLeftOutputs = in.readVInt();
         numRightOutputs = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS) && in.readBoolean()) {
+            hashJoinSpec = HashJoinSpec.fromStream(in);
+        }
     }
 
     @Override
@@ -198,6 +234,17 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         out.writeVInt(joinType.ordinal());
         out.writeVInt(numLeftOutputs);
         out.writeVInt(numRightOutputs);
+        if (out.getVersion().onOrAfter(Version.STREAM_VERSION_JOB_EXTENSIONS)) {
+            if (hashJoinSpec == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                hashJoinSpec.writeTo(out);
+            }
+        } else if (hashJoinSpec != null) {
+            // the planner only plans hash joins if all nodes support them
+            throw new IllegalStateException("Hash joins can't be executed on nodes of older versions");
+        }
     }
 
     @Override
@@ -207,6 +254,7 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
             .add("name", name())
             .add("joinType", joinType)
             .add("joinCondition", joinCondition)
+            .add("hashJoinSpec", hashJoinSpec)
             .add("outputTypes", outputTypes)
             .add("jobId", jobId())
             .add("executionNodes", executionNodes);
@@ -31,9 +31,15 @@ import java.util.UUID;
 public class ExplainPlan extends UnnestablePlan {
 
     private final Plan subPlan;
+    private final boolean analyze;
 
     public ExplainPlan(Plan subPlan) {
+        this(subPlan, false);
+    }
+
+    public ExplainPlan(Plan subPlan, boolean analyze) {
         this.subPlan = subPlan;
+        this.analyze = analyze;
     }
 
     @Override
@@ -49,4 +55,11 @@ public class ExplainPlan extends UnnestablePlan {
     public Plan subPlan() {
         return subPlan;
     }
+
+    /**
+     * @return true if the sub plan has to be executed with profiling enabled
+     */
+    public boolean isAnalyze() {
+        return analyze;
+    }
 }
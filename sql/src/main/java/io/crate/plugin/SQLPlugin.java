@@ -23,11 +23,13 @@ package io.crate.plugin;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.Constants;
+import io.crate.analyze.TableParameterInfo;
 import io.crate.analyze.repositories.RepositorySettingsModule;
 import io.crate.breaker.CircuitBreakerModule;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
+import io.crate.executor.transport.StreamExtensions;
 import io.crate.executor.transport.TransportExecutorModule;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobModule;
@@ -94,6 +96,9 @@ public class SQLPlugin extends Plugin {
         // partitions explicitly
         settingsBuilder.put("action.auto_create_index", false);
 
+        // Advertise to other nodes that this node understands the extended job streams
+        settingsBuilder.put(StreamExtensions.SETTING, true);
+
         return settingsBuilder.build();
     }
 
@@ -174,6 +179,9 @@ public class SQLPlugin extends Plugin {
 
         registerSettings(clusterModule, CrateSettings.CRATE_SETTINGS);
 
+        // validation is done by the TablePropertiesAnalyzer
+        clusterModule.registerIndexDynamicSetting(TableParameterInfo.SOURCE_FORMAT, Validator.EMPTY);
+
         clusterModule.registerAllocationDecider(DecommissionAllocationDecider.class);
     }
 
@@ -285,13 +285,16 @@ class Messages {
      * <p>
      * ByteN
      * The value of the column, in the format indicated by the associated format code. n is the above length.
+     * <p>
+     * The message is appended to the given buffer instead of being written to the channel.
+     * This allows to send multiple rows with a single write.
      */
-    static void sendDataRow(Channel channel, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
+    static void writeDataRow(ChannelBuffer buffer, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
         int length = 4 + 2;
         assert columnTypes.size() == row.size()
             : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
 
-        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        int startIdx = buffer.writerIndex();
         buffer.writeByte('D');
         buffer.writeInt(0); // will be set at the end
         buffer.writeShort(row.size());
@@ -319,8 +322,7 @@ class Messages {
             }
         }
 
-        buffer.setInt(1, length);
-        channel.write(buffer);
+        buffer.setInt(startIdx + 1, length);
     }
 
     static void writeCString(ChannelBuffer buffer, byte[] valBytes) {
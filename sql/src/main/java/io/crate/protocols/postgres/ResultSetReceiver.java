@@ -22,17 +22,33 @@
 
 package io.crate.protocols.postgres;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.BackpressuredResultReceiver;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.core.collections.Row;
 import io.crate.exceptions.Exceptions;
 import io.crate.types.DataType;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
 
-class ResultSetReceiver extends BaseResultReceiver {
+/**
+ * Sends the rows of a result set as DataRow messages.
+ * <p>
+ * Rows are encoded into a buffer which is written to the channel once it exceeds {@link #FLUSH_THRESHOLD_BYTES}
+ * or if the batch is complete. If the channel isn't writable anymore {@link #writable()} will cause the upstream
+ * to pause until the pending writes have been sent.
+ */
+class ResultSetReceiver extends BaseResultReceiver implements BackpressuredResultReceiver {
+
+    static final int FLUSH_THRESHOLD_BYTES = 32 * 1024;
 
     private final String query;
     private final Channel channel;
@@ -43,6 +59,11 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     private long rowCount = 0;
 
+    @Nullable
+    private ChannelBuffer buffer = null;
+    @Nullable
+    private ChannelFuture lastWrite = null;
+
     ResultSetReceiver(String query,
                       Channel channel,
                       List<? extends DataType> columnTypes,
@@ -56,23 +77,57 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void setNextRow(Row row) {
         rowCount++;
-        Messages.sendDataRow(channel, row, columnTypes, formatCodes);
+        if (buffer == null) {
+            buffer = ChannelBuffers.dynamicBuffer(FLUSH_THRESHOLD_BYTES);
+        }
+        Messages.writeDataRow(buffer, row, columnTypes, formatCodes);
+        if (buffer.readableBytes() >= FLUSH_THRESHOLD_BYTES) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (buffer != null) {
+            lastWrite = channel.write(buffer);
+            buffer = null;
+        }
+    }
+
+    @Nullable
+    @Override
+    public ListenableFuture<?> writable() {
+        if (lastWrite == null || lastWrite.isDone() || channel.isWritable()) {
+            return null;
+        }
+        // once the last write has completed all previous writes are done as well, so the write queue is drained
+        final SettableFuture<Void> writableFuture = SettableFuture.create();
+        lastWrite.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                // resume on failure as well, otherwise the upstream would never finish
+                writableFuture.set(null);
+            }
+        });
+        return writableFuture;
     }
 
     @Override
     public void batchFinished() {
+        flush();
         Messages.sendPortalSuspended(channel);
         Messages.sendReadyForQuery(channel);
     }
 
     @Override
     public void allFinished() {
+        flush();
         Messages.sendCommandComplete(channel, query, rowCount);
         super.allFinished();
     }
 
     @Override
     public void fail(@Nonnull Throwable throwable) {
+        flush();
         Messages.sendErrorResponse(channel, Exceptions.createSQLActionException(throwable));
         super.fail(throwable);
     }
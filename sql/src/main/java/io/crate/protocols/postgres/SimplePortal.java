@@ -25,6 +25,7 @@ package io.crate.protocols.postgres;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Constants;
+import io.crate.action.sql.BackpressuredResultReceiver;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.RowReceiverToResultReceiver;
 import io.crate.action.sql.SessionContext;
@@ -167,7 +168,11 @@ public class SimplePortal extends AbstractPortal {
         }
         statsTables.logExecutionStart(jobId, query);
 
-        Futures.addCallback(resultReceiver.completionFuture(), new StatsTablesUpdateListener(jobId, statsTables));
+        // a suspended portal continues with the same rowReceiver, only the rows of this execution are counted
+        final RowReceiverToResultReceiver previousRowReceiver = rowReceiver;
+        final long previousRowCount = rowReceiver == null ? 0L : rowReceiver.rowCount();
+        Futures.addCallback(resultReceiver.completionFuture(), new StatsTablesUpdateListener(
+            jobId, statsTables, () -> rowsSince(previousRowReceiver, previousRowCount)));
 
         if (!analysis.analyzedStatement().isWriteOperation()) {
             resultReceiver = new ResultReceiverRetryWrapper(
@@ -197,6 +202,16 @@ public class SimplePortal extends AbstractPortal {
         }
     }
 
+    private long rowsSince(@Nullable RowReceiverToResultReceiver previousRowReceiver, long previousRowCount) {
+        if (rowReceiver == null) {
+            return 0L;
+        }
+        if (rowReceiver == previousRowReceiver) {
+            return rowReceiver.rowCount() - previousRowCount;
+        }
+        return rowReceiver.rowCount();
+    }
+
     private boolean resumeIfSuspended() {
         LOGGER.trace("method=resumeIfSuspended");
         if (rowReceiver == null) {
@@ -224,7 +239,7 @@ public class SimplePortal extends AbstractPortal {
         }
         return analysis.rootRelation().fields();
     }
-    private static class ResultReceiverRetryWrapper implements ResultReceiver {
+    private static class ResultReceiverRetryWrapper implements BackpressuredResultReceiver {
 
         private final ResultReceiver delegate;
         private final SimplePortal portal;
@@ -256,6 +271,15 @@ public class SimplePortal extends AbstractPortal {
             delegate.setNextRow(row);
         }
 
+        @Nullable
+        @Override
+        public ListenableFuture<?> writable() {
+            if (delegate instanceof BackpressuredResultReceiver) {
+                return ((BackpressuredResultReceiver) delegate).writable();
+            }
+            return null;
+        }
+
         @Override
         public void batchFinished() {
             delegate.batchFinished();
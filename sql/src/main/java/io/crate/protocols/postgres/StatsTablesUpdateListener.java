@@ -29,24 +29,34 @@ import io.crate.operation.collect.StatsTables;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.UUID;
+import java.util.function.LongSupplier;
 
 public class StatsTablesUpdateListener implements FutureCallback<Object> {
 
     private final UUID jobId;
     private final StatsTables statsTables;
+    private final LongSupplier rows;
 
     public StatsTablesUpdateListener(UUID jobId, StatsTables statsTables) {
+        this(jobId, statsTables, () -> 0L);
+    }
+
+    /**
+     * @param rows provides the number of rows the job returned, called once the job has finished
+     */
+    public StatsTablesUpdateListener(UUID jobId, StatsTables statsTables, LongSupplier rows) {
         this.jobId = jobId;
         this.statsTables = statsTables;
+        this.rows = rows;
     }
 
     @Override
     public void onSuccess(@Nullable Object result) {
-        statsTables.logExecutionEnd(jobId, null);
+        statsTables.logExecutionEnd(jobId, null, rows.getAsLong());
     }
 
     @Override
     public void onFailure(@Nonnull Throwable t) {
-        statsTables.logExecutionEnd(jobId, Exceptions.messageOf(t));
+        statsTables.logExecutionEnd(jobId, Exceptions.messageOf(t), rows.getAsLong());
     }
 }
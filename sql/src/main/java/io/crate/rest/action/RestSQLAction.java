@@ -29,6 +29,7 @@ import io.crate.action.sql.parser.SQLXContentSourceContext;
 import io.crate.action.sql.parser.SQLXContentSourceParser;
 import io.crate.analyze.symbol.Field;
 import io.crate.exceptions.SQLParseException;
+import io.crate.http.netty.ChunkedResponseWriter;
 import io.crate.types.DataType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.inject.Inject;
@@ -49,6 +50,7 @@ public class RestSQLAction extends BaseRestHandler {
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
     private static final int DEFAULT_SOFT_LIMIT = 10_000;
+    private static final String PARAM_STREAM = "stream";
 
     private final SQLOperations sqlOperations;
 
@@ -95,19 +97,30 @@ public class RestSQLAction extends BaseRestHandler {
         }
     }
 
-    private static Set<Option> toOptions(RestRequest request) {
+    private static Set<Option> toOptions(RestRequest request, boolean parameterizeLiterals) {
+        Set<Option> options = EnumSet.noneOf(Option.class);
         String user = request.header(REQUEST_HEADER_USER);
         if (user != null && !user.isEmpty() && user.toLowerCase(Locale.ENGLISH).contains("odbc")) {
-            return EnumSet.of(Option.ALLOW_QUOTED_SUBSCRIPT);
+            options.add(Option.ALLOW_QUOTED_SUBSCRIPT);
         }
-        return Option.NONE;
+        if (parameterizeLiterals) {
+            options.add(Option.PARAMETERIZE_LITERALS);
+        }
+        return options;
     }
 
     private void executeSimpleRequest(SQLXContentSourceContext context, final RestRequest request, final RestChannel channel) {
+        ChunkedResponseWriter writer = null;
+        if (request.paramAsBoolean(PARAM_STREAM, false)) {
+            writer = ChunkedResponseWriter.forRequest(request);
+        }
+        // literals of requests without args are turned into parameters so that they share a statement cache entry
+        boolean parameterizeLiterals = context.args() == null || context.args().length == 0;
+        // a streamed response isn't held in memory, so there is no need for an implicit limit
         SQLOperations.Session session = sqlOperations.createSession(
             request.header(REQUEST_HEADER_SCHEMA),
-            toOptions(request),
-            DEFAULT_SOFT_LIMIT);
+            toOptions(request, parameterizeLiterals),
+            writer == null ? DEFAULT_SOFT_LIMIT : 0);
         try {
             final long startTime = System.nanoTime();
             session.parse(UNNAMED, context.stmt(), Collections.<DataType>emptyList());
@@ -119,8 +132,13 @@ public class RestSQLAction extends BaseRestHandler {
                     = new RestRowCountReceiver(channel, startTime, request.paramAsBoolean("types", false));
                 session.execute(UNNAMED, 1, resultReceiver);
             } else {
-                ResultReceiver resultReceiver =
-                    new RestResultSetReceiver(channel, outputFields, startTime, request.paramAsBoolean("types", false));
+                boolean includeTypes = request.paramAsBoolean("types", false);
+                ResultReceiver resultReceiver;
+                if (writer == null) {
+                    resultReceiver = new RestResultSetReceiver(channel, outputFields, startTime, includeTypes);
+                } else {
+                    resultReceiver = new RestStreamingResultSetReceiver(channel, writer, outputFields, startTime, includeTypes);
+                }
                 session.execute(UNNAMED, 0, resultReceiver);
             }
             session.sync();
@@ -132,7 +150,7 @@ public class RestSQLAction extends BaseRestHandler {
     private void executeBulkRequest(SQLXContentSourceContext context, final RestRequest request, final RestChannel channel) {
         SQLOperations.Session session = sqlOperations.createSession(
             request.header(REQUEST_HEADER_SCHEMA),
-            toOptions(request),
+            toOptions(request, false),
             DEFAULT_SOFT_LIMIT);
         try {
             final long startTime = System.nanoTime();
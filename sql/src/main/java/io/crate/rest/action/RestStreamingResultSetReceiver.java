@@ -0,0 +1,187 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.rest.action;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.BackpressuredResultReceiver;
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.SQLActionException;
+import io.crate.analyze.symbol.Field;
+import io.crate.core.collections.Row;
+import io.crate.http.netty.ChunkedResponseWriter;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestChannel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+
+import static io.crate.exceptions.Exceptions.createSQLActionException;
+import static org.elasticsearch.ExceptionsHelper.detailedMessage;
+
+/**
+ * Like {@link RestResultSetReceiver} but sends the response using chunked transfer encoding.
+ * <p>
+ * The header is sent together with the first row, so that clients can start to process the result right away.
+ * After that the rows are written whenever more than {@link #FLUSH_THRESHOLD_BYTES} have been accumulated,
+ * so the memory usage doesn't depend on the size of the result. The upstream is paused while the channel isn't writable.
+ * <p>
+ * Once the first chunk has been sent the status code can't be changed anymore; an error is then added to the
+ * response as <code>error</code> property instead.
+ */
+class RestStreamingResultSetReceiver extends BaseResultReceiver implements BackpressuredResultReceiver {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(RestStreamingResultSetReceiver.class);
+
+    static final int FLUSH_THRESHOLD_BYTES = 32 * 1024;
+
+    private final RestChannel channel;
+    private final ChunkedResponseWriter writer;
+    private final int numColumns;
+    private final long startTime;
+    private final BytesStreamOutput out = new BytesStreamOutput();
+    private final XContentBuilder xContentBuilder;
+    private final ResultToXContentBuilder builder;
+    private long rowCount = 0;
+    private boolean started = false;
+    private volatile boolean failed = false;
+
+    RestStreamingResultSetReceiver(RestChannel channel,
+                                   ChunkedResponseWriter writer,
+                                   List<Field> outputFields,
+                                   long startTime,
+                                   boolean includeTypesOnResponse) throws IOException {
+        this.channel = channel;
+        this.writer = writer;
+        this.numColumns = outputFields.size();
+        this.startTime = startTime;
+        xContentBuilder = XContentFactory.jsonBuilder(out);
+        builder = ResultToXContentBuilder.builder(xContentBuilder);
+        builder.cols(outputFields);
+        if (includeTypesOnResponse) {
+            builder.colTypes(outputFields);
+        }
+        builder.startRows();
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        if (failed) {
+            // the response has already been finished with an error
+            return;
+        }
+        try {
+            builder.addRow(row, numColumns);
+            rowCount++;
+            xContentBuilder.flush();
+            if (!started || out.size() >= FLUSH_THRESHOLD_BYTES) {
+                sendChunk();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void sendChunk() throws IOException {
+        writer.write(XContentType.JSON.restContentType(), out.bytes().toBytes());
+        out.reset();
+        started = true;
+    }
+
+    @Nullable
+    @Override
+    public ListenableFuture<?> writable() {
+        ChannelFuture lastWrite = writer.lastWrite();
+        if (lastWrite == null || lastWrite.isDone() || writer.channel().isWritable()) {
+            return null;
+        }
+        final SettableFuture<Void> writableFuture = SettableFuture.create();
+        lastWrite.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                writableFuture.set(null);
+            }
+        });
+        return writableFuture;
+    }
+
+    @Override
+    public void allFinished() {
+        if (failed) {
+            return;
+        }
+        try {
+            builder
+                .finishRows()
+                .rowCount(rowCount)
+                .duration(startTime)
+                .build();
+            xContentBuilder.close();
+            sendChunk();
+            writer.finish();
+            super.allFinished();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        if (failed) {
+            return;
+        }
+        failed = true;
+        try {
+            if (started) {
+                finishWithError(createSQLActionException(t));
+            } else {
+                channel.sendResponse(new CrateThrowableRestResponse(channel, createSQLActionException(t)));
+            }
+        } catch (Throwable e) {
+            LOGGER.error("failed to send failure response", e);
+            writer.channel().close();
+        } finally {
+            super.fail(t);
+        }
+    }
+
+    private void finishWithError(SQLActionException e) throws IOException {
+        builder.finishRows();
+        xContentBuilder.startObject("error")
+            .field("message", detailedMessage(e))
+            .field("code", e.errorCode())
+            .endObject();
+        builder.build();
+        xContentBuilder.close();
+        sendChunk();
+        writer.finish();
+    }
+}
@@ -22,9 +22,19 @@
 
 package io.crate.action.job;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.crate.executor.transport.StreamExtensions;
 import io.crate.operation.NodeOperation;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.MergePhase;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
 import org.junit.Test;
 
 import java.util.Collections;
@@ -35,6 +45,12 @@ import static org.junit.Assert.assertThat;
 
 public class JobRequestTest {
 
+    private static final DiscoveryNode NODE = new DiscoveryNode("n1", "n1", DummyTransportAddress.INSTANCE,
+        ImmutableMap.of(StreamExtensions.ATTRIBUTE, "true"), Version.V_2_4_2);
+
+    // crate 1.0.x nodes run on the same elasticsearch version but don't advertise the extensions
+    private static final DiscoveryNode NODE_1_0 = new DiscoveryNode("n2", DummyTransportAddress.INSTANCE, Version.V_2_4_2);
+
     @Test
     public void testJobRequestStreaming() throws Exception {
         JobRequest r1 = new JobRequest(UUID.randomUUID(), "n1", Collections.<NodeOperation>emptyList());
@@ -49,4 +65,52 @@ public class JobRequestTest {
         assertThat(r1.jobId(), is(r2.jobId()));
         assertThat(r1.nodeOperations().isEmpty(), is(true));
     }
+
+    @Test
+    public void testProfileFlagIsOnlyStreamedToNodesWhichSupportIt() throws Exception {
+        JobRequest r1 = new JobRequest(UUID.randomUUID(), "n1", Collections.<NodeOperation>emptyList(), true);
+
+        assertThat(streamed(r1, NODE).profile(), is(true));
+        assertThat(streamed(r1, NODE_1_0).profile(), is(false));
+    }
+
+    @Test
+    public void testDownstreamOrderingIsOnlyStreamedToNodesWhichSupportIt() throws Exception {
+        MergePhase mergePhase = new MergePhase(
+            UUID.randomUUID(),
+            1,
+            "merge",
+            1,
+            Collections.emptyList(),
+            ImmutableList.<DataType>of(DataTypes.STRING),
+            ImmutableList.of(),
+            DistributionInfo.DEFAULT_BROADCAST,
+            null
+        );
+        NodeOperation nodeOperation = new NodeOperation(
+            mergePhase, Collections.singletonList("n2"), 2, (byte) 0, false);
+        JobRequest r1 = new JobRequest(UUID.randomUUID(), "n1", Collections.singletonList(nodeOperation));
+
+        NodeOperation streamed = streamed(r1, NODE).nodeOperations().iterator().next();
+        assertThat(streamed.downstreamOrdered(), is(false));
+
+        streamed = streamed(r1, NODE_1_0).nodeOperations().iterator().next();
+        assertThat(streamed.downstreamOrdered(), is(true));
+    }
+
+    private static JobRequest streamed(JobRequest request, DiscoveryNode receiver) throws Exception {
+        JobRequest marked = new JobRequest(
+            request.jobId(), request.coordinatorNodeId(), request.nodeOperations(), request.profile());
+        StreamExtensions.markIfSupported(receiver, marked);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(receiver.version());
+        marked.writeTo(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(receiver.version());
+        JobRequest streamed = new JobRequest();
+        streamed.readFrom(in);
+        assertThat(in.available(), is(0));
+        return streamed;
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class LiteralParameterizerTest extends CrateUnitTest {
+
+    private static LiteralParameterizer.Result parameterize(String query) {
+        return LiteralParameterizer.parameterize(query);
+    }
+
+    @Test
+    public void testLiteralsInWhereClauseAreReplaced() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select name from users where id = 10 and name = 'Arthur' and weight > 1.5");
+        assertThat(result.query(), is("select name from users where id = ? and name = ? and weight > ?"));
+        assertThat(result.parameters(), contains((Object) 10L, "Arthur", 1.5d));
+    }
+
+    @Test
+    public void testLiteralsOutsideOfWhereClauseAreKept() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select 1, 'foo', x + 2 from t where x = 3 group by 1, 2, 3 order by 1 limit 10 offset 5");
+        assertThat(result.query(),
+            is("select 1, 'foo', x + 2 from t where x = ? group by 1, 2, 3 order by 1 limit 10 offset 5"));
+        assertThat(result.parameters(), contains((Object) 3L));
+    }
+
+    @Test
+    public void testEscapedQuotesAndQuotedIdentifiers() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select \"where\" from t where \"x\"\"1\" = 'it''s' -- 'comment'\n and /* 1 */ y = 2");
+        assertThat(result.query(), is("select \"where\" from t where \"x\"\"1\" = ? -- 'comment'\n and /* 1 */ y = ?"));
+        assertThat(result.parameters(), contains((Object) "it's", 2L));
+    }
+
+    @Test
+    public void testSubscriptsArraysAndObjectsAreKept() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select * from t where o['a'] = 1 and x = any([1, 2]) and y in (3, 4)");
+        assertThat(result.query(), is("select * from t where o['a'] = ? and x = any([1, 2]) and y in (?, ?)"));
+        assertThat(result.parameters(), contains((Object) 1L, 3L, 4L));
+    }
+
+    @Test
+    public void testTypedLiteralsAndPrecisionAreKept() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select * from t where ts > timestamp '2016-01-01' and ts < current_timestamp(3) and x = 1");
+        assertThat(result.query(),
+            is("select * from t where ts > timestamp '2016-01-01' and ts < current_timestamp(3) and x = ?"));
+    }
+
+    @Test
+    public void testSubSelectInWhereClause() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select * from t where x = (select 1 from t2 where y = 2 limit 1) and z = 3");
+        assertThat(result.query(), is("select * from t where x = (select 1 from t2 where y = ? limit 1) and z = ?"));
+        assertThat(result.parameters(), contains((Object) 2L, 3L));
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "select * from t where a = 1e3 and b = .5 and c = 99999999999999999999 and d = -2 and t1.x = 4");
+        assertThat(result.query(),
+            is("select * from t where a = ? and b = ? and c = 99999999999999999999 and d = -? and t1.x = ?"));
+        assertThat(result.parameters(), contains((Object) 1000.0d, 0.5d, 2L, 4L));
+    }
+
+    @Test
+    public void testInsertValues() throws Exception {
+        LiteralParameterizer.Result result = parameterize(
+            "insert into t (a, b, c) values (1, 'foo', [1, 2]) on duplicate key update a = a + 1");
+        assertThat(result.query(),
+            is("insert into t (a, b, c) values (?, ?, [1, 2]) on duplicate key update a = a + 1"));
+        assertThat(result.parameters(), contains((Object) 1L, "foo"));
+    }
+
+    @Test
+    public void testUpdateSetAndDeleteWhere() throws Exception {
+        LiteralParameterizer.Result result = parameterize("update t set a = 1, o['x'] = 'y' where id = 2");
+        assertThat(result.query(), is("update t set a = ?, o['x'] = ? where id = ?"));
+        assertThat(result.parameters(), contains((Object) 1L, "y", 2L));
+
+        result = parameterize("delete from t where id = 1");
+        assertThat(result.query(), is("delete from t where id = ?"));
+        assertThat(result.parameters(), contains((Object) 1L));
+    }
+
+    @Test
+    public void testQueriesThatAreNotParameterized() throws Exception {
+        for (String query : Arrays.asList(
+            "select * from t where x = ?",
+            "select * from t where x = $1 and y = 1",
+            "select 1",
+            "create table t (x int) with (number_of_replicas = 0)",
+            "set global stats.enabled = true",
+            "select * from t where x = 'unterminated")) {
+            assertThat(query, parameterize(query), nullValue());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class QueryLexerTest extends CrateUnitTest {
+
+    private static List<String> tokens(String query) {
+        List<String> tokens = new ArrayList<>();
+        QueryLexer lexer = new QueryLexer(query);
+        while (lexer.next()) {
+            tokens.add(lexer.type() + ":" + lexer.text());
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testTokensCoverTheQuery() throws Exception {
+        assertThat(tokens("select \"a b\", x1 from t where s = 'it''s' and n > -2.5e3 -- c\nand p = $1"), contains(
+            "WORD:select", "WHITESPACE: ", "QUOTED_IDENTIFIER:\"a b\"", "SYMBOL:,", "WHITESPACE: ", "WORD:x1",
+            "WHITESPACE: ", "WORD:from", "WHITESPACE: ", "WORD:t", "WHITESPACE: ", "WORD:where", "WHITESPACE: ",
+            "WORD:s", "WHITESPACE: ", "SYMBOL:=", "WHITESPACE: ", "STRING:'it''s'", "WHITESPACE: ", "WORD:and",
+            "WHITESPACE: ", "WORD:n", "WHITESPACE: ", "SYMBOL:>", "WHITESPACE: ", "SYMBOL:-", "NUMBER:2.5e3",
+            "WHITESPACE: ", "COMMENT:-- c", "WHITESPACE:\n", "WORD:and", "WHITESPACE: ", "WORD:p", "WHITESPACE: ",
+            "SYMBOL:=", "WHITESPACE: ", "PARAMETER:$1"));
+    }
+
+    @Test
+    public void testStringValue() throws Exception {
+        QueryLexer lexer = new QueryLexer("'it''s'");
+        assertThat(lexer.next(), is(true));
+        assertThat(lexer.stringValue(), is("it's"));
+        assertThat(lexer.isTerminated(), is(true));
+        assertThat(lexer.next(), is(false));
+    }
+
+    @Test
+    public void testUnterminatedString() throws Exception {
+        QueryLexer lexer = new QueryLexer("select 'foo");
+        lexer.next();
+        lexer.next();
+        assertThat(lexer.next(), is(true));
+        assertThat(lexer.type(), is(QueryLexer.TokenType.STRING));
+        assertThat(lexer.isTerminated(), is(false));
+        assertThat(lexer.stringValue(), is("foo"));
+    }
+}
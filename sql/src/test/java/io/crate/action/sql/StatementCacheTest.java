@@ -0,0 +1,105 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StatementCacheTest extends CrateUnitTest {
+
+    @Test
+    public void testSameQueryReturnsSameStatement() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        Statement statement = cache.parse("select * from t where x = ?");
+        assertThat(cache.parse("select * from t where x = ?"), sameInstance(statement));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void testInvalidStatementIsNotCached() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        try {
+            cache.parse("select * from");
+            fail("parsing an invalid statement must fail");
+        } catch (ParsingException e) {
+            assertThat(cache.size(), is(0L));
+        }
+    }
+
+    @Test
+    public void testCacheWithSizeZeroDoesNotCache() throws Exception {
+        StatementCache cache = new StatementCache(0);
+        Statement statement = cache.parse("select 1");
+        assertThat(cache.parse("select 1"), is(statement));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testQueriesWhichOnlyDifferInLiteralsShareAStatement() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        StatementCache.ParameterizedStatement first = cache.parseParameterized("select * from t where x = 1");
+        StatementCache.ParameterizedStatement second = cache.parseParameterized("select * from t where x = 2");
+
+        assertThat(second.statement(), sameInstance(first.statement()));
+        assertThat(first.parameters(), is(Collections.<Object>singletonList(1L)));
+        assertThat(second.parameters(), is(Collections.<Object>singletonList(2L)));
+        assertThat(cache.size(), is(1L));
+        assertThat(cache.parse("select * from t where x = ?"), sameInstance(first.statement()));
+    }
+
+    @Test
+    public void testParameterizedFallsBackToOriginalQueryIfNormalizedQueryIsInvalid() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        expectedException.expect(ParsingException.class);
+        expectedException.expectMessage("extraneous input '2'");
+        cache.parseParameterized("select * from t where x = 1 2");
+    }
+
+    @Test
+    public void testParameterizedWithoutLiterals() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        StatementCache.ParameterizedStatement statement = cache.parseParameterized("select * from t");
+        assertThat(statement.parameters().isEmpty(), is(true));
+        assertThat(cache.parse("select * from t"), sameInstance(statement.statement()));
+    }
+
+    @Test
+    public void testStatsCountHitsAndMisses() throws Exception {
+        StatementCache cache = new StatementCache(10);
+        cache.parse("select 1");
+        cache.parse("select 1");
+        cache.parse("select 2");
+
+        StatementCache.Stats stats = (StatementCache.Stats) cache.statsGetter().get().iterator().next();
+        assertThat(stats.size(), is(2L));
+        assertThat(stats.hits(), is(1L));
+        assertThat(stats.misses(), is(2L));
+        assertThat(stats.evictions(), is(0L));
+    }
+}
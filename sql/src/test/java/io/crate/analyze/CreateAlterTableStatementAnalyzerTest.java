@@ -794,6 +794,27 @@ public class CreateAlterTableStatementAnalyzerTest extends CrateUnitTest {
         e.analyze("alter table users set (\"routing.allocation.enable\"=\"foo\")");
     }
 
+    @Test
+    public void testCreateTableWithSourceFormat() throws Exception {
+        CreateTableAnalyzedStatement analysis = e.analyze(
+            "create table foo (id int) with (source_format = 'smile')");
+        assertThat(analysis.tableParameter().settings().get(TableParameterInfo.SOURCE_FORMAT), is("smile"));
+    }
+
+    @Test
+    public void testChangeSourceFormat() throws Exception {
+        AlterTableAnalyzedStatement analysis =
+            e.analyze("alter table users set (source_format = 'cbor')");
+        assertThat(analysis.tableParameter().settings().get(TableParameterInfo.SOURCE_FORMAT), is("cbor"));
+    }
+
+    @Test
+    public void testSourceFormatValidation() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("'yaml' is not an allowed value. Allowed values are: json, smile, cbor");
+        e.analyze("alter table users set (source_format = 'yaml')");
+    }
+
     @Test
     public void testRecoveryShardsWithString() throws Exception {
         AlterTableAnalyzedStatement analysis =
@@ -31,6 +31,7 @@ import org.junit.Test;
 
 import static io.crate.testing.SymbolMatchers.isField;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 
 public class ExplainAnalyzerTest extends CrateUnitTest {
 
@@ -50,6 +51,21 @@ public class ExplainAnalyzerTest extends CrateUnitTest {
         assertThat(stmt.fields(), Matchers.contains(isField("EXPLAIN COPY \"users\" FROM '/tmp/*' WITH (\n   shared = true\n)")));
     }
 
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        ExplainAnalyzedStatement stmt = e.analyze("explain analyze select id from sys.cluster");
+        assertThat(stmt.isAnalyze(), is(true));
+        assertThat(stmt.statement(), instanceOf(SelectAnalyzedStatement.class));
+        assertThat(stmt.fields(), Matchers.contains(isField("EXPLAIN ANALYZE SELECT \"id\"\nFROM \"sys\".\"cluster\"\n")));
+    }
+
+    @Test
+    public void testExplainAnalyzeCopyFromUnsupported() throws Exception {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage("EXPLAIN ANALYZE is not supported for CopyFrom");
+        e.analyze("explain analyze copy users from '/tmp/*'");
+    }
+
     @Test
     public void testExplainRefreshUnsupported() throws Exception {
         expectedException.expect(UnsupportedFeatureException.class);
@@ -1055,6 +1055,22 @@ public class InsertFromValuesAnalyzerTest extends CrateUnitTest {
             Matchers.arrayContaining(626603400000L, ImmutableMap.<String, Object>of("name", new BytesRef("Egon")), 626572800000L, new BytesRef("Egonbar"))));
     }
 
+    @Test
+    public void testInsertWithGeneratedColumnAndBulkArgs() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "INSERT INTO generated_column (ts, user) values (?, ?)",
+            new Object[][]{
+                new Object[]{"1970-01-01", new HashMap<>(ImmutableMap.of("name", "Johnny"))},
+                new Object[]{626603400000L, new HashMap<>(ImmutableMap.of("name", "Egon"))},
+                new Object[]{null, new HashMap<>(ImmutableMap.of("name", "Arthur"))}
+            });
+        assertThat(analysis.columns(), contains(isReference("ts"), isReference("user"), isReference("day"), isReference("name")));
+        assertThat(analysis.sourceMaps(), contains(
+            Matchers.arrayContaining(0L, ImmutableMap.<String, Object>of("name", "Johnny"), 0L, new BytesRef("Johnnybar")),
+            Matchers.arrayContaining(626603400000L, ImmutableMap.<String, Object>of("name", "Egon"), 626572800000L, new BytesRef("Egonbar")),
+            Matchers.arrayContaining(null, ImmutableMap.<String, Object>of("name", "Arthur"), null, new BytesRef("Arthurbar"))));
+    }
+
     @Test
     public void testInsertMultipleValuesWithGeneratedColumnGiven() throws Exception {
         InsertFromValuesAnalyzedStatement analysis = e.analyze(
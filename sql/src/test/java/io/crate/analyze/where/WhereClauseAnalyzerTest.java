@@ -37,6 +37,7 @@ import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocSchemaInfo;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.TestingTableInfo;
+import io.crate.operation.operator.EqOperator;
 import io.crate.operation.operator.any.AnyEqOperator;
 import io.crate.operation.operator.any.AnyLikeOperator;
 import io.crate.test.integration.CrateUnitTest;
@@ -583,6 +584,27 @@ public class WhereClauseAnalyzerTest extends CrateUnitTest {
         assertFalse(whereClause.noMatch());
     }
 
+    @Test
+    public void testSelectFromPartitionedTableWithRangeAndNonPartitionCondition() throws Exception {
+        String partition1 = new PartitionName("parted", Arrays.asList(new BytesRef("1395874800000"))).asIndexName();
+        String partition2 = new PartitionName("parted", Arrays.asList(new BytesRef("1395961200000"))).asIndexName();
+
+        WhereClause whereClause = analyzeSelectWhere(
+            "select id, name from parted where date > 1395874800000 and date <= 1395961200000 and id = 1");
+        assertThat(whereClause.partitions(), contains(partition2));
+        assertThat(whereClause.query(), isFunction(EqOperator.NAME));
+
+        // the remaining condition on the partition column is evaluated for the partitions matched by the index
+        whereClause = analyzeSelectWhere(
+            "select id, name from parted where date >= 1395874800000 and date / 1000 = 1395874800");
+        assertThat(whereClause.partitions(), contains(partition1));
+        assertFalse(whereClause.hasQuery());
+
+        whereClause = analyzeSelectWhere(
+            "select id, name from parted where date > 1395874800000 and date < 1395961200000 and id = 1");
+        assertThat(whereClause.noMatch(), is(true));
+    }
+
     @Test
     public void testSelectFromPartitionedTableUnsupported() throws Exception {
         // these queries won't work because we would have to execute 2 separate ESSearch tasks
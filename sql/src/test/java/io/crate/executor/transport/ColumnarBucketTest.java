@@ -0,0 +1,156 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ColumnarBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.LONG.streamer(),
+        DataTypes.INTEGER.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.DOUBLE.streamer()
+    };
+
+    private static ColumnarBucket streamed(ColumnarBucket bucket) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        ColumnarBucket streamed = new ColumnarBucket(null);
+        streamed.readFrom(in);
+        // receiving side sets the streamers after the bucket has been read
+        streamed.streamers(STREAMERS);
+        return streamed;
+    }
+
+    private static List<Object[]> materialize(Bucket bucket) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Row row : bucket) {
+            rows.add(row.materialize());
+        }
+        return rows;
+    }
+
+    private static void assertRowsEqual(List<Object[]> actual, List<Object[]> expected) {
+        assertThat(actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(Arrays.asList(actual.get(i)), is(Arrays.asList(expected.get(i))));
+        }
+    }
+
+    @Test
+    public void testStreamingWithNullsAndNegativeDeltas() throws Exception {
+        List<Object[]> rows = Arrays.asList(
+            new Object[]{10L, 1, new BytesRef("foo"), 1.5d},
+            new Object[]{null, null, null, null},
+            new Object[]{-3L, Integer.MIN_VALUE, new BytesRef("bar"), -0.0d},
+            new Object[]{Long.MAX_VALUE, Integer.MAX_VALUE, new BytesRef(""), Double.NaN},
+            new Object[]{Long.MIN_VALUE, 0, new BytesRef("foo"), null}
+        );
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, false);
+        for (Object[] row : rows) {
+            builder.add(new RowN(row));
+        }
+        ColumnarBucket bucket = builder.build();
+        assertRowsEqual(materialize(bucket), rows);
+        assertRowsEqual(materialize(streamed(bucket)), rows);
+    }
+
+    @Test
+    public void testRepeatedStringsAreCompressed() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, true);
+        StreamBucket.Builder rowBuilder = new StreamBucket.Builder(STREAMERS);
+        List<Object[]> rows = new ArrayList<>();
+        BytesRef spare = new BytesRef();
+        for (int i = 0; i < 10_000; i++) {
+            // the builder must copy the BytesRef because it is re-used
+            spare.bytes = ("value_" + (i % 10)).getBytes("UTF-8");
+            spare.length = spare.bytes.length;
+            RowN row = new RowN(new Object[]{1_000_000L + i, i % 7, spare, (double) i});
+            rows.add(new Object[]{1_000_000L + i, i % 7, BytesRef.deepCopyOf(spare), (double) i});
+            builder.add(row);
+            rowBuilder.add(row);
+        }
+        ColumnarBucket bucket = builder.build();
+
+        BytesStreamOutput columnarOut = new BytesStreamOutput();
+        bucket.writeTo(columnarOut);
+        BytesStreamOutput rowOut = new BytesStreamOutput();
+        rowBuilder.build().writeTo(rowOut);
+        assertThat(columnarOut.size(), lessThan(rowOut.size() / 2));
+
+        assertRowsEqual(materialize(streamed(bucket)), rows);
+    }
+
+    @Test
+    public void testResetAndEmptyBucket() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, true);
+        builder.add(new RowN(new Object[]{null, 1, new BytesRef("a"), 2.0d}));
+        assertThat(builder.build().size(), is(1));
+        builder.reset();
+
+        ColumnarBucket empty = builder.build();
+        assertThat(empty.size(), is(0));
+        assertThat(streamed(empty).size(), is(0));
+        assertThat(streamed(empty).iterator().hasNext(), is(false));
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{5L, null, new BytesRef("b"), null});
+        builder.add(new RowN(rows.get(0)));
+        assertRowsEqual(materialize(streamed(builder.build())), rows);
+    }
+
+    @Test
+    public void testConcat() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, false);
+        List<Object[]> rows = new ArrayList<>();
+        List<ColumnarBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Object[] row = new Object[]{(long) i, i, new BytesRef("v" + i), null};
+            rows.add(row);
+            builder.add(new RowN(row));
+            buckets.add(builder.build());
+            builder.reset();
+        }
+        ColumnarBucket bucket = ColumnarBucket.concat(STREAMERS, buckets);
+        assertThat(bucket.size(), is(3));
+        assertRowsEqual(materialize(bucket), rows);
+        assertRowsEqual(materialize(streamed(bucket)), rows);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.crate.metadata.*;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.SourceFormat;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.is;
+
+public class InsertSourceGenTest extends CrateUnitTest {
+
+    private Functions functions;
+    private DocTableInfo tableInfo;
+
+    @Before
+    public void prepare() throws Exception {
+        functions = getFunctions();
+        tableInfo = new TestingTableInfo.Builder(
+            new TableIdent(null, "generated_column"), new Routing(Collections.emptyMap()))
+            .add("ts", DataTypes.TIMESTAMP, null)
+            .add("user", DataTypes.OBJECT, null)
+            .add("user", DataTypes.STRING, Arrays.asList("name"))
+            .add("p", DataTypes.INTEGER, null, true)
+            .addGeneratedColumn("day", DataTypes.TIMESTAMP, "date_trunc('day', ts)", false)
+            .addGeneratedColumn("name", DataTypes.STRING, "concat(user['name'], 'bar')", false)
+            .build(functions);
+    }
+
+    private InsertSourceGen sourceGen(boolean validateConstraints, String... columns) {
+        return sourceGen(XContentType.JSON, validateConstraints, columns);
+    }
+
+    private InsertSourceGen sourceGen(XContentType contentType, boolean validateConstraints, String... columns) {
+        Reference[] insertColumns = new Reference[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            insertColumns[i] = tableInfo.getReference(ColumnIdent.fromPath(columns[i]));
+        }
+        return new InsertSourceGen(
+            functions, tableInfo, insertColumns, validateConstraints, ImmutableList.of(), contentType);
+    }
+
+    @Test
+    public void testPartitionColumnsAreNotWrittenToTheSource() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(false, "ts", "p");
+
+        BytesReference source = sourceGen.generateSource(new Object[]{1448274317000L, 1});
+        assertThat(source.toUtf8(), is("{\"ts\":1448274317000,\"day\":1448236800000}"));
+    }
+
+    @Test
+    public void testGeneratedColumnsAreEvaluated() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(true, "ts", "user");
+
+        Map<String, Object> user = ImmutableMap.<String, Object>of("name", new BytesRef("Ford"));
+        BytesReference source = sourceGen.generateSource(new Object[]{1448274317000L, user});
+        assertThat(source.toUtf8(), is(XContentFactory.jsonBuilder().startObject()
+            .field("ts", 1448274317000L)
+            .field("user", user)
+            .field("day", 1448236800000L)
+            .field("name", new BytesRef("Fordbar"))
+            .endObject().bytes().toUtf8()));
+    }
+
+    @Test
+    public void testGeneratedColumnWithoutInsertedReferencesIsOmitted() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(true, "user.name");
+
+        BytesReference source = sourceGen.generateSource(new Object[]{new BytesRef("Trillian")});
+        assertThat(source.toUtf8(), is(XContentFactory.jsonBuilder().startObject()
+            .field("user.name", new BytesRef("Trillian"))
+            .field("name", new BytesRef("Trillianbar"))
+            .endObject().bytes().toUtf8()));
+    }
+
+    @Test
+    public void testGivenGeneratedValueIsValidated() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(true, "ts", "day");
+
+        BytesReference source = sourceGen.generateSource(new Object[]{1448274317000L, 1448236800000L});
+        assertThat(source.toUtf8(), is("{\"ts\":1448274317000,\"day\":1448236800000}"));
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(
+            "Given value 1448274317000 for generated column does not match defined generated expression value 1448236800000");
+        sourceGen.generateSource(new Object[]{1448274317000L, 1448274317000L});
+    }
+
+    @Test
+    public void testGivenNullValueOfGeneratedColumnIsReplaced() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(true, "ts", "day");
+
+        BytesReference source = sourceGen.generateSource(new Object[]{1448274317000L, null});
+        assertThat(source.toUtf8(), is("{\"ts\":1448274317000,\"day\":1448236800000}"));
+    }
+
+    @Test
+    public void testSourcesOfPreviousItemsAreNotModified() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(false, "ts");
+
+        BytesReference first = sourceGen.generateSource(new Object[]{1448274317000L});
+        BytesReference second = sourceGen.generateSource(new Object[]{0L});
+        assertThat(first.toUtf8(), is("{\"ts\":1448274317000,\"day\":1448236800000}"));
+        assertThat(second.toUtf8(), is("{\"ts\":0,\"day\":0}"));
+    }
+
+    @Test
+    public void testSourceIsWrittenInTheGivenFormat() throws Exception {
+        InsertSourceGen sourceGen = sourceGen(XContentType.SMILE, false, "ts");
+
+        BytesReference source = sourceGen.generateSource(new Object[]{1448274317000L});
+        assertThat(XContentFactory.xContentType(source), is(XContentType.SMILE));
+        assertThat(SourceFormat.toJson(source).utf8ToString(), is("{\"ts\":1448274317000,\"day\":1448236800000}"));
+    }
+}
@@ -26,20 +26,39 @@ import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.IntHashSet;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import io.crate.Streamer;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.RowN;
 import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.transport.TransportRequest;
 import org.junit.Test;
 
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class NodeFetchResponseTest {
 
+    private static final DiscoveryNode NODE = new DiscoveryNode("n1", "n1", DummyTransportAddress.INSTANCE,
+        ImmutableMap.of(StreamExtensions.ATTRIBUTE, "true"), Version.V_2_4_2);
+
+    // crate 1.0.x nodes run on the same elasticsearch version but don't advertise the extensions
+    private static final DiscoveryNode NODE_1_0 = new DiscoveryNode("n2", DummyTransportAddress.INSTANCE, Version.V_2_4_2);
+
+    private static void markAsResponseFrom(DiscoveryNode node, NodeFetchResponse response) {
+        TransportRequest.Empty request = new TransportRequest.Empty();
+        StreamExtensions.markIfSupported(node, request);
+        StreamExtensions.markLike(request, response);
+    }
+
     @Test
     public void testStreaming() throws Exception {
 
@@ -56,17 +75,41 @@ public class NodeFetchResponseTest {
         fetched.put(1, builder.build());
 
         NodeFetchResponse orig = NodeFetchResponse.forSending(fetched);
+        orig.searchQueueSize(7);
+        markAsResponseFrom(NODE, orig);
 
         BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(NODE.version());
         orig.writeTo(out);
 
 
         StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(NODE.version());
 
         // receiving side is required to set the streamers
         NodeFetchResponse streamed = NodeFetchResponse.forReceiveing(streamers);
         streamed.readFrom(in);
 
         assertThat((Row) Iterables.getOnlyElement(streamed.fetched().get(1)), isRow(true));
+        assertThat(streamed.searchQueueSize(), is(7));
+    }
+
+    @Test
+    public void testSearchQueueSizeIsNotStreamedToOlderNodes() throws Exception {
+        NodeFetchResponse orig = NodeFetchResponse.forSending(new IntObjectHashMap<StreamBucket>(0));
+        orig.searchQueueSize(7);
+        markAsResponseFrom(NODE_1_0, orig);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(NODE_1_0.version());
+        orig.writeTo(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(NODE_1_0.version());
+        NodeFetchResponse streamed = NodeFetchResponse.forReceiveing(new IntObjectHashMap<Streamer[]>(0));
+        streamed.readFrom(in);
+
+        assertThat(streamed.searchQueueSize(), is(0));
+        assertThat(streamed.fetched(), nullValue());
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Functions;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.routing.*;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class NodeResponseStatsTest extends CrateUnitTest {
+
+    private NodeResponseStats stats;
+    private ShardRouting copyOnN1;
+    private ShardRouting copyOnN2;
+
+    @Before
+    public void setUpStats() throws Exception {
+        stats = new NodeResponseStats();
+        copyOnN1 = startedShard("n1", true);
+        copyOnN2 = startedShard("n2", false);
+    }
+
+    private static ShardRouting startedShard(String nodeId, boolean primary) {
+        ShardRouting shardRouting = ShardRouting.newUnassigned(
+            "t1", 0, null, primary, new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        ShardRoutingHelper.initialize(shardRouting, nodeId);
+        ShardRoutingHelper.moveToStarted(shardRouting);
+        return shardRouting;
+    }
+
+    private ShardRouting select(ShardRouting... copies) {
+        return stats.select(new PlainShardIterator(new ShardId("t1", 0), Arrays.asList(copies)));
+    }
+
+    @Test
+    public void testFirstCopyIsUsedWithoutStats() throws Exception {
+        assertThat(select(copyOnN2, copyOnN1), sameInstance(copyOnN2));
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN1));
+    }
+
+    @Test
+    public void testNodeWithoutStatsIsRankedWithAverageResponseTime() throws Exception {
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        assertThat(select(copyOnN2, copyOnN1), sameInstance(copyOnN2));
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN1));
+
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(1), 10);
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN2));
+    }
+
+    @Test
+    public void testSearchQueueSizeWithoutResponseTimeIsTakenIntoAccount() throws Exception {
+        // e.g. the local node which executes its operations without a job request
+        stats.updateSearchQueueSize("n1", 10);
+        stats.update("n2", TimeUnit.MILLISECONDS.toNanos(1), 0);
+
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN2));
+    }
+
+    @Test
+    public void testCopyOnFasterNodeIsUsed() throws Exception {
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        stats.update("n2", TimeUnit.MILLISECONDS.toNanos(50), 0);
+
+        assertThat(select(copyOnN2, copyOnN1), sameInstance(copyOnN1));
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN1));
+    }
+
+    @Test
+    public void testQueueSizeIsTakenIntoAccount() throws Exception {
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(2), 10);
+        stats.update("n2", TimeUnit.MILLISECONDS.toNanos(4), 0);
+
+        assertThat(select(copyOnN1, copyOnN2), sameInstance(copyOnN2));
+    }
+
+    @Test
+    public void testOnlySearchQueueSizeIsRecordedByTrackingListener() throws Exception {
+        ActionListener<Integer> listener = mock(ActionListener.class);
+        ActionListener<Integer> trackingListener = stats.track("n1", listener, Functions.<Integer>identity());
+        trackingListener.onResponse(3);
+        verify(listener).onResponse(3);
+        // job responses are sent before the work is done, their response time isn't comparable
+        assertThat(Double.isNaN(stats.rank("n1", System.nanoTime())), is(true));
+
+        stats.update("n2", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        assertThat(stats.rank("n1", System.nanoTime()), is(TimeUnit.MILLISECONDS.toNanos(1) * 4.0 * 4.0 * 4.0));
+    }
+
+    @Test
+    public void testResponseTimeIsRecordedByTrackingListener() throws Exception {
+        ActionListener<Integer> listener = mock(ActionListener.class);
+        ActionListener<Integer> trackingListener = stats.trackWithResponseTime("n1", listener, Functions.<Integer>identity());
+        assertThat(Double.isNaN(stats.rank("n1", System.nanoTime())), is(true));
+
+        trackingListener.onResponse(3);
+        verify(listener).onResponse(3);
+        assertThat(stats.rank("n1", System.nanoTime()) > 0, is(true));
+    }
+
+    @Test
+    public void testOutstandingRequestsIncreaseRank() throws Exception {
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        double rank = stats.rank("n1", System.nanoTime());
+
+        ActionListener<Integer> listener = mock(ActionListener.class);
+        stats.trackWithResponseTime("n1", listener, Functions.<Integer>identity());
+        assertThat(stats.rank("n1", System.nanoTime()) > rank, is(true));
+    }
+
+    @Test
+    public void testStaleStatsAreIgnored() throws Exception {
+        stats.update("n1", TimeUnit.MILLISECONDS.toNanos(1), 0);
+        long later = System.nanoTime() + NodeResponseStats.STALE_AFTER_NANOS + 1;
+        assertThat(Double.isNaN(stats.rank("n1", later)), is(true));
+    }
+}
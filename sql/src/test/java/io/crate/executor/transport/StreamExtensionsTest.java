@@ -0,0 +1,81 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class StreamExtensionsTest extends CrateUnitTest {
+
+    private static final DiscoveryNode NODE = new DiscoveryNode("n1", "n1", DummyTransportAddress.INSTANCE,
+        ImmutableMap.of(StreamExtensions.ATTRIBUTE, "true"), Version.V_2_4_2);
+    private static final DiscoveryNode NODE_1_0 = new DiscoveryNode("n2", DummyTransportAddress.INSTANCE, Version.V_2_4_2);
+
+    @Test
+    public void testOnlyNodesWithAttributeSupportExtensions() throws Exception {
+        assertThat(StreamExtensions.supportedBy(NODE), is(true));
+        assertThat(StreamExtensions.supportedBy(NODE_1_0), is(false));
+
+        assertThat(StreamExtensions.supportedByAll(DiscoveryNodes.builder().put(NODE).build()), is(true));
+        assertThat(StreamExtensions.supportedByAll(DiscoveryNodes.builder().put(NODE).put(NODE_1_0).build()), is(false));
+    }
+
+    @Test
+    public void testStreamVersionIsOnlySwitchedForMarkedMessages() throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_2_4_2);
+
+        TransportRequest.Empty request = new TransportRequest.Empty();
+        StreamExtensions.markIfSupported(NODE_1_0, request);
+        assertThat(StreamExtensions.enable(request, out), is(Version.V_2_4_2));
+        assertThat(out.getVersion(), is(Version.V_2_4_2));
+
+        StreamExtensions.markIfSupported(NODE, request);
+        assertThat(StreamExtensions.enable(request, out), is(Version.V_2_4_2));
+        assertThat(out.getVersion(), is(io.crate.Version.STREAM_VERSION_JOB_EXTENSIONS));
+    }
+
+    @Test
+    public void testResponseIsMarkedLikeRequest() throws Exception {
+        TransportRequest.Empty request = new TransportRequest.Empty();
+        StreamExtensions.markIfSupported(NODE, request);
+
+        TransportResponse.Empty response = new TransportResponse.Empty();
+        StreamExtensions.markLike(request, response);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_2_4_2);
+        StreamExtensions.enable(response, out);
+        assertThat(out.getVersion(), is(io.crate.Version.STREAM_VERSION_JOB_EXTENSIONS));
+    }
+}
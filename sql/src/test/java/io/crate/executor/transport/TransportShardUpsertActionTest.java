@@ -39,12 +39,14 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.DocumentAlreadyExistsException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.ContentPath;
 import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.index.mapper.object.ObjectMapper;
+import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
@@ -97,7 +99,8 @@ public class TransportShardUpsertActionTest extends CrateUnitTest {
                                               ShardUpsertRequest.Item item,
                                               IndexShard indexShard,
                                               boolean tryInsertFirst,
-                                              Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                              InsertSourceGen insertSourceGen,
+                                              XContentType sourceContentType,
                                               int retryCount) throws ElasticsearchException {
             throw new DocumentAlreadyExistsException(new ShardId(request.index(), request.shardId().id()), request.type(), item.id());
         }
@@ -117,6 +120,9 @@ public class TransportShardUpsertActionTest extends CrateUnitTest {
         when(indicesService.indexServiceSafe(PARTITION_INDEX)).thenReturn(indexService);
         indexShard = mock(IndexShard.class);
         when(indexService.shardSafe(0)).thenReturn(indexShard);
+        IndexSettingsService indexSettingsService = mock(IndexSettingsService.class);
+        when(indexSettingsService.getSettings()).thenReturn(Settings.EMPTY);
+        when(indexService.settingsService()).thenReturn(indexSettingsService);
 
         // Avoid null pointer exceptions
         DocTableInfo tableInfo = mock(DocTableInfo.class);
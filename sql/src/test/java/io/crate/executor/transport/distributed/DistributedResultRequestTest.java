@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.distributed;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row1;
+import io.crate.executor.transport.ColumnarBucket;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.executor.transport.StreamExtensions;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class DistributedResultRequestTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{DataTypes.LONG.streamer()};
+
+    private static final DiscoveryNode NODE = new DiscoveryNode("n1", "n1", DummyTransportAddress.INSTANCE,
+        ImmutableMap.of(StreamExtensions.ATTRIBUTE, "true"), Version.V_2_4_2);
+
+    // crate 1.0.x nodes run on the same elasticsearch version but don't advertise the extensions
+    private static final DiscoveryNode NODE_1_0 = new DiscoveryNode("n2", DummyTransportAddress.INSTANCE, Version.V_2_4_2);
+
+    private static DistributedResultRequest streamed(Bucket bucket) throws Exception {
+        return streamed(bucket, NODE);
+    }
+
+    private static DistributedResultRequest streamed(Bucket bucket, DiscoveryNode receiver) throws Exception {
+        DistributedResultRequest request = new DistributedResultRequest(
+            UUID.randomUUID(), 1, (byte) 0, 0, STREAMERS, bucket, true);
+        StreamExtensions.markIfSupported(receiver, request);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(receiver.version());
+        request.writeTo(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(receiver.version());
+        DistributedResultRequest streamed = new DistributedResultRequest();
+        streamed.readFrom(in);
+        assertThat(streamed.rowsCanBeRead(), is(false));
+        streamed.streamers(STREAMERS);
+        assertThat(streamed.rowsCanBeRead(), is(true));
+        return streamed;
+    }
+
+    @Test
+    public void testStreamingOfRowBucket() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS);
+        builder.add(new Row1(1L));
+        builder.add(new Row1(2L));
+
+        DistributedResultRequest streamed = streamed(builder.build());
+        assertThat(streamed.rows(), instanceOf(StreamBucket.class));
+        assertThat(TestingHelpers.printedTable(streamed.rows()), is("1\n2\n"));
+    }
+
+    @Test
+    public void testStreamingOfColumnarBucket() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, true);
+        builder.add(new Row1(1L));
+        builder.add(new Row1(null));
+        builder.add(new Row1(2L));
+
+        DistributedResultRequest streamed = streamed(builder.build());
+        assertThat(streamed.rows(), instanceOf(ColumnarBucket.class));
+        assertThat(TestingHelpers.printedTable(streamed.rows()), is("1\nNULL\n2\n"));
+    }
+
+    @Test
+    public void testColumnarBucketIsStreamedAsRowBucketToOlderNodes() throws Exception {
+        ColumnarBucket.Builder builder = new ColumnarBucket.Builder(STREAMERS, true);
+        builder.add(new Row1(1L));
+        builder.add(new Row1(null));
+
+        DistributedResultRequest streamed = streamed(builder.build(), NODE_1_0);
+        assertThat(streamed.rows(), instanceOf(StreamBucket.class));
+        assertThat(TestingHelpers.printedTable(streamed.rows()), is("1\nNULL\n"));
+    }
+
+    @Test
+    public void testBucketFormatForPhase() throws Exception {
+        assertThat(BucketFormat.forPhase(STREAMERS, true), is(BucketFormat.COLUMNAR_COMPRESSED));
+        assertThat(BucketFormat.forPhase(STREAMERS, false), is(BucketFormat.COLUMNAR));
+        assertThat(BucketFormat.forPhase(new Streamer[]{DataTypes.DOUBLE.streamer()}, true), is(BucketFormat.ROW));
+    }
+}
@@ -53,4 +53,26 @@ public class ModuloBucketBuilderTest extends CrateUnitTest {
         assertThat(rowsD2.size(), is(2));
         assertThat(TestingHelpers.printedTable(rowsD2), is("1\n3\n"));
     }
+
+    @Test
+    public void testOrderIsPreservedIfRowsAreAddedFromDifferentThreads() throws Exception {
+        final ModuloBucketBuilder builder = new ModuloBucketBuilder(
+            new Streamer[]{DataTypes.INTEGER.streamer()}, 2, 0, BucketFormat.ROW, true);
+
+        for (final int value : new int[]{1, 3, 5, 7}) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    builder.add(new Row1(value));
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        builder.add(new Row1(9));
+
+        Bucket[] buckets = new Bucket[2];
+        builder.build(buckets);
+        assertThat(TestingHelpers.printedTable(buckets[1]), is("1\n3\n5\n7\n9\n"));
+    }
 }
\ No newline at end of file
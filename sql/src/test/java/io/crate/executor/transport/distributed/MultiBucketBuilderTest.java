@@ -23,6 +23,7 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
 import io.crate.core.collections.Row1;
 import io.crate.types.DataTypes;
 import org.junit.Before;
@@ -30,6 +31,10 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -72,4 +77,45 @@ public class MultiBucketBuilderTest {
             assertThat(builder.size(), is(0));
         }
     }
+
+    @Test
+    public void testRowsAddedConcurrentlyAreContainedInBuckets() throws Exception {
+        final int numThreads = 4;
+        final int rowsPerThread = 10_000;
+        for (BucketFormat bucketFormat : BucketFormat.values()) {
+            final MultiBucketBuilder builder = new ModuloBucketBuilder(
+                new Streamer[]{DataTypes.INTEGER.streamer()}, 3, 0, bucketFormat);
+            ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < numThreads; t++) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int i = 0; i < rowsPerThread; i++) {
+                                builder.add(new Row1(i));
+                            }
+                        }
+                    }));
+                }
+                Bucket[] buckets = new Bucket[3];
+                int numRows = 0;
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertThat(builder.size(), is(numThreads * rowsPerThread));
+                builder.build(buckets);
+                for (Bucket bucket : buckets) {
+                    for (Row row : bucket) {
+                        assertThat(bucket == buckets[(Integer) row.get(0) % 3], is(true));
+                        numRows++;
+                    }
+                }
+                assertThat(numRows, is(numThreads * rowsPerThread));
+                assertThat(builder.size(), is(0));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.integrationtests;
+
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 2)
+public class ExplainAnalyzeIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExplainAnalyzeGroupBy() throws Exception {
+        execute("create table t (x int, name string) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (x, name) values (1, 'foo'), (2, 'bar'), (3, 'foo')");
+        execute("refresh table t");
+
+        execute("explain analyze select name, count(*) from t group by name");
+        assertThat(response.rowCount(), is(1L));
+        Map<String, Object> result = (Map<String, Object>) response.rows()[0][0];
+        assertThat(((Map<String, Object>) result.get("plan")).get("planType"), notNullValue());
+
+        Map<String, Object> execution = (Map<String, Object>) result.get("execution");
+        assertThat(((Number) execution.get("rows")).longValue(), is(2L));
+        List<Map<String, Object>> phases = (List<Map<String, Object>>) execution.get("phases");
+        assertThat(phases, not(empty()));
+
+        long collectedRows = 0;
+        for (Map<String, Object> phase : phases) {
+            assertThat(phase.get("nodeId"), notNullValue());
+            assertThat(phase.get("error"), nullValue());
+            if (phase.get("name").equals("collect")) {
+                // the first projector of the chain receives all collected rows
+                long rowsIn = 0;
+                for (Map<String, Object> projector : (List<Map<String, Object>>) phase.get("projectors")) {
+                    rowsIn = Math.max(rowsIn, ((Number) projector.get("rowsIn")).longValue());
+                }
+                collectedRows += rowsIn;
+            }
+        }
+        assertThat(collectedRows, is(3L));
+    }
+
+    @Test
+    public void testExplainAnalyzeDoesNotSupportCopyFrom() throws Exception {
+        execute("create table t (x int)");
+        expectedException.expectMessage("EXPLAIN ANALYZE is not supported for CopyFrom");
+        execute("explain analyze copy t from '/tmp/does_not_exist.json'");
+    }
+}
@@ -64,7 +64,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultTables() throws Exception {
         execute("select * from information_schema.tables order by table_schema, table_name");
-        assertEquals(20L, response.rowCount());
+        assertEquals(21L, response.rowCount());
 
         assertThat(TestingHelpers.printedTable(response.rows()), is(
             "NULL| NULL| strict| 0| 1| NULL| NULL| columns| information_schema\n" +
@@ -74,6 +74,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
             "NULL| NULL| strict| 0| 1| NULL| NULL| table_constraints| information_schema\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| table_partitions| information_schema\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| tables| information_schema\n" +
+            "NULL| NULL| strict| 0| 1| NULL| NULL| pg_stats| pg_catalog\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| pg_type| pg_catalog\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| checks| sys\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| cluster| sys\n" +
@@ -86,6 +87,8 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
             "NULL| NULL| strict| 0| 1| NULL| NULL| repositories| sys\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| shards| sys\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| snapshots| sys\n" +
+            "NULL| NULL| strict| 0| 1| NULL| NULL| statement_cache| sys\n" +
+            "NULL| NULL| strict| 0| 1| NULL| NULL| statements| sys\n" +
             "NULL| NULL| strict| 0| 1| NULL| NULL| summits| sys\n"));
     }
 
@@ -441,7 +444,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() throws Exception {
         execute("select * from information_schema.columns order by table_schema, table_name");
-        assertEquals(361, response.rowCount());
+        assertEquals(385, response.rowCount());
     }
 
     @Test
@@ -634,7 +637,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         ensureYellow();
         execute("select count(*) from information_schema.tables");
         assertEquals(1, response.rowCount());
-        assertEquals(23L, response.rows()[0][0]);
+        assertEquals(26L, response.rows()[0][0]);
     }
 
     @Test
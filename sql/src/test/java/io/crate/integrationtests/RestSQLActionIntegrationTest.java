@@ -81,6 +81,24 @@ public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
         assertThat(EntityUtils.toString(response.getEntity()), containsString("TableUnknownException"));
     }
 
+    @Test
+    public void testStreamedResponseIsChunkedAndNotLimited() throws Exception {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 12_000; i++) {
+            if (i > 0) {
+                values.append(',');
+            }
+            values.append(i);
+        }
+        CloseableHttpResponse response = postStreaming("{\"stmt\": \"select * from unnest([" + values + "])\"}");
+        assertThat(response.getStatusLine().getStatusCode(), is(200));
+        assertThat(response.getFirstHeader("Transfer-Encoding").getValue(), is("chunked"));
+
+        String bodyAsString = EntityUtils.toString(response.getEntity());
+        assertThat(bodyAsString, startsWith("{\"cols\":[\"col1\"],\"rows\":[[0],[1],"));
+        assertThat(bodyAsString, containsString("[11999]],\"rowcount\":12000,"));
+    }
+
     @Test
     public void testExecutionErrorContainsStackTrace() throws Exception {
         CloseableHttpResponse resp = post("{\"stmt\": \"select 1 / 0\"}");
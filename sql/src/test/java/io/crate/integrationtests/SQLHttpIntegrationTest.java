@@ -81,6 +81,13 @@ public abstract class SQLHttpIntegrationTest extends SQLTransportIntegrationTest
         return post(body, null);
     }
 
+    protected CloseableHttpResponse postStreaming(String body) throws IOException {
+        HttpPost streamingPost = new HttpPost(String.format(Locale.ENGLISH,
+            "http://%s:%s/_sql?stream=true", address.getHostName(), address.getPort()));
+        streamingPost.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return httpClient.execute(streamingPost);
+    }
+
     protected String upload(String table, String content) throws IOException {
         String digest = blobDigest(content);
         String url = Blobs.url(address, table, digest);
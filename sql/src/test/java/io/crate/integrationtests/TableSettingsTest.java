@@ -28,6 +28,9 @@ import org.junit.Test;
 
 import java.util.Map;
 
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+
 @UseJdbc
 public class TableSettingsTest extends SQLTransportIntegrationTest {
 
@@ -71,6 +74,7 @@ public class TableSettingsTest extends SQLTransportIntegrationTest {
             assertTrue(((Map<String, Object>) row[0]).containsKey("warmer"));
             assertTrue(((Map<String, Object>) row[0]).containsKey("refresh_interval"));
             assertTrue(((Map<String, Object>) row[0]).containsKey("unassigned"));
+            assertTrue(((Map<String, Object>) row[0]).containsKey("source_format"));
         }
     }
 
@@ -132,4 +136,24 @@ public class TableSettingsTest extends SQLTransportIntegrationTest {
                 "where settings['refresh_interval'] = 1000");
         assertEquals(1, response.rowCount());
     }
+
+    @Test
+    public void testSourceFormat() throws Exception {
+        execute("create table binary_source (id int primary key, name string) " +
+                "clustered into 1 shards with (number_of_replicas = 0, source_format = 'smile')");
+        execute("select settings['source_format'] from information_schema.tables where table_name = 'binary_source'");
+        assertThat(printedTable(response.rows()), is("smile\n"));
+
+        execute("insert into binary_source (id, name) values (1, 'Arthur')");
+        execute("alter table binary_source set (source_format = 'cbor')");
+        execute("insert into binary_source (id, name) values (2, 'Trillian')");
+        execute("refresh table binary_source");
+
+        execute("select _raw, name from binary_source order by id");
+        assertThat(printedTable(response.rows()), is(
+            "{\"id\":1,\"name\":\"Arthur\"}| Arthur\n" +
+            "{\"id\":2,\"name\":\"Trillian\"}| Trillian\n"));
+        execute("select _raw from binary_source where id = 2");
+        assertThat(printedTable(response.rows()), is("{\"id\":2,\"name\":\"Trillian\"}\n"));
+    }
 }
@@ -43,9 +43,12 @@ import org.mockito.Mockito;
 import javax.annotation.Nonnull;
 import java.lang.reflect.Field;
 import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.*;
 
@@ -83,6 +86,46 @@ public class JobExecutionContextTest extends CrateUnitTest {
         assertThat(ctx2.numKill.get(), is(1));
     }
 
+    @Test
+    public void testPhaseProfilesAreRecordedIfProfilingIsEnabled() throws Exception {
+        JobExecutionContext.Builder builder = new JobExecutionContext.Builder(
+            UUID.randomUUID(), coordinatorNode, Collections.emptyList(), mock(StatsTables.class), true);
+        PhaseProfile profile = builder.profile(1, "collect");
+        assertThat(profile, notNullValue());
+        profile.counter("rows").add(3);
+
+        AbstractExecutionSubContextTest.TestingExecutionSubContext ctx1 = new AbstractExecutionSubContextTest.TestingExecutionSubContext(1);
+        AbstractExecutionSubContextTest.TestingExecutionSubContext ctx2 = new AbstractExecutionSubContextTest.TestingExecutionSubContext(2);
+        builder.addSubContext(ctx1);
+        builder.addSubContext(ctx2);
+        JobExecutionContext jobExecutionContext = builder.build();
+        assertThat(jobExecutionContext.isProfiled(), is(true));
+
+        ctx1.close();
+        ctx2.kill(new IllegalStateException("dummy"));
+
+        assertThat(jobExecutionContext.profiles().size(), is(2));
+        Map<String, Object> collectProfile = jobExecutionContext.profile(1).toMap();
+        assertThat(collectProfile.get("name"), is("collect"));
+        assertThat(collectProfile.get("rows"), is(3L));
+        assertThat(collectProfile.get("duration"), notNullValue());
+        assertThat(collectProfile.get("error"), nullValue());
+        assertThat(jobExecutionContext.profile(2).toMap().get("error"), is("dummy"));
+    }
+
+    @Test
+    public void testPhaseProfilesAreNotCreatedIfProfilingIsDisabled() throws Exception {
+        JobExecutionContext.Builder builder =
+            new JobExecutionContext.Builder(UUID.randomUUID(), coordinatorNode, Collections.emptyList(), mock(StatsTables.class));
+        assertThat(builder.profile(1, "collect"), nullValue());
+        builder.addSubContext(new AbstractExecutionSubContextTest.TestingExecutionSubContext(1));
+        JobExecutionContext jobExecutionContext = builder.build();
+
+        assertThat(jobExecutionContext.isProfiled(), is(false));
+        assertThat(jobExecutionContext.profile(1), nullValue());
+        assertThat(jobExecutionContext.profiles().isEmpty(), is(true));
+    }
+
     @Test
     public void testErrorMessageIsIncludedInStatsTableOnFailure() throws Exception {
         StatsTables statsTables = mock(StatsTables.class);
@@ -0,0 +1,77 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import com.twitter.jsr166e.LongAdder;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class PhaseProfileTest extends CrateUnitTest {
+
+    @Test
+    public void testProjectorRowsOfChainsWithTheSameNameAreShared() throws Exception {
+        PhaseProfile profile = new PhaseProfile(1, "collect");
+        List<String> projectors = Arrays.asList("GROUP", "TOPN");
+        LongAdder[] shard1 = profile.projectorRows(PhaseProfile.SHARD_CHAIN, projectors);
+        LongAdder[] shard2 = profile.projectorRows(PhaseProfile.SHARD_CHAIN, projectors);
+        assertThat(shard1, sameInstance(shard2));
+        assertThat(shard1.length, is(3));
+
+        shard1[0].add(10);
+        shard2[0].add(5);
+        shard1[1].add(2);
+        shard1[2].add(1);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> projectorMaps = (List<Map<String, Object>>) profile.toMap().get("projectors");
+        assertThat(projectorMaps.size(), is(2));
+        assertThat(projectorMaps.get(0).get("type"), is("GROUP"));
+        assertThat(projectorMaps.get(0).get("rowsIn"), is(15L));
+        assertThat(projectorMaps.get(0).get("rowsOut"), is(2L));
+        assertThat(projectorMaps.get(1).get("type"), is("TOPN"));
+        assertThat(projectorMaps.get(1).get("rowsIn"), is(2L));
+        assertThat(projectorMaps.get(1).get("rowsOut"), is(1L));
+    }
+
+    @Test
+    public void testToMapOfUnfinishedPhase() throws Exception {
+        PhaseProfile profile = new PhaseProfile(2, "mergeOnHandler");
+        profile.counter("rows").increment();
+        profile.started();
+
+        Map<String, Object> map = profile.toMap();
+        assertThat(map.get("phaseId"), is(2));
+        assertThat(map.get("name"), is("mergeOnHandler"));
+        assertThat(map.get("rows"), is(1L));
+        assertThat(map.get("duration"), nullValue());
+        assertThat(map.get("usedBytes"), nullValue());
+        assertThat(map.containsKey("projectors"), is(false));
+        assertThat(profile.durationNanos(), is(-1L));
+    }
+}
@@ -36,11 +36,18 @@ import io.crate.testing.SqlExpressions;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.queries.TermsQuery;
 import org.apache.lucene.sandbox.queries.regex.RegexQuery;
 import org.apache.lucene.search.*;
 import org.apache.lucene.spatial.prefix.IntersectsPrefixTreeQuery;
 import org.apache.lucene.spatial.prefix.WithinPrefixTreeQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.compress.CompressedXContent;
@@ -177,6 +184,30 @@ public class LuceneQueryBuilderTest extends CrateUnitTest {
         assertThat(query.toString(), is("x:{* TO 10]"));
     }
 
+    @Test
+    public void testGenericFunctionQueryIsEvaluatedInSecondPhase() throws Exception {
+        Query query = convert("x = 10 and name = name");
+        assertThat(query, instanceOf(BooleanQuery.class));
+        Query genericQuery = ((BooleanQuery) query).clauses().get(1).getQuery();
+        assertThat(genericQuery, instanceOf(GenericFunctionQuery.class));
+
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()));
+        writer.addDocument(new Document());
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Weight weight = searcher.createNormalizedWeight(genericQuery, false);
+        Scorer scorer = weight.scorer(reader.leaves().get(0));
+        TwoPhaseIterator twoPhaseIterator = scorer.twoPhaseIterator();
+        assertThat(twoPhaseIterator, notNullValue());
+        // 1 function + 2 column expressions
+        assertThat(twoPhaseIterator.matchCost(), is(3f));
+        assertThat(twoPhaseIterator.approximation().nextDoc(), is(0));
+        reader.close();
+        directory.close();
+    }
+
     @Test
     public void testEqOnTwoArraysBecomesGenericFunctionQuery() throws Exception {
         Query query = convert("y_array = [10, 20, 30]");
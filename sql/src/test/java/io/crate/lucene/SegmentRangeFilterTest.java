@@ -0,0 +1,146 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.lucene;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.TableRelation;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleField;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SegmentRangeFilterTest extends CrateUnitTest {
+
+    private SqlExpressions expressions;
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        DocTableInfo tableInfo = TestingTableInfo.builder(new TableIdent(null, "t"), null)
+            .add("ts", DataTypes.TIMESTAMP)
+            .add("x", DataTypes.INTEGER)
+            .add("d", DataTypes.DOUBLE)
+            .add("y", DataTypes.LONG)
+            .add("name", DataTypes.STRING)
+            .build();
+        TableRelation tableRelation = new TableRelation(tableInfo);
+        expressions = new SqlExpressions(
+            ImmutableMap.<QualifiedName, AnalyzedRelation>of(new QualifiedName("t"), tableRelation), tableRelation);
+
+        directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            // 3 segments with the values 0-9, 10-19 and 20-29
+            for (int segment = 0; segment < 3; segment++) {
+                for (int i = segment * 10; i < (segment + 1) * 10; i++) {
+                    Document doc = new Document();
+                    doc.add(new LongField("ts", i, Field.Store.NO));
+                    doc.add(new IntField("x", i, Field.Store.NO));
+                    doc.add(new DoubleField("d", i - 10.5, Field.Store.NO));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(directory);
+        assertThat(reader.leaves().size(), is(3));
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    private List<Boolean> canMatch(String expression) throws Exception {
+        SegmentRangeFilter filter = SegmentRangeFilter.fromQuery(expressions.normalize(expressions.asSymbol(expression)));
+        assertNotNull(filter);
+        List<Boolean> result = new ArrayList<>();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            result.add(filter.canMatch(leaf.reader()));
+        }
+        return result;
+    }
+
+    @Test
+    public void testRangeOnTimestamp() throws Exception {
+        assertThat(canMatch("ts >= 10 and ts < 20"), contains(false, true, false));
+        assertThat(canMatch("ts > 9 and ts <= 10"), contains(false, true, false));
+        assertThat(canMatch("ts = 25"), contains(false, false, true));
+        assertThat(canMatch("ts > 29"), contains(false, false, false));
+    }
+
+    @Test
+    public void testLiteralOnTheLeft() throws Exception {
+        assertThat(canMatch("20 < ts"), contains(false, false, true));
+        assertThat(canMatch("20 >= ts"), contains(true, true, true));
+    }
+
+    @Test
+    public void testIntAndDoubleColumns() throws Exception {
+        assertThat(canMatch("x < 5"), contains(true, false, false));
+        assertThat(canMatch("d < 0.0"), contains(true, true, false));
+        assertThat(canMatch("d > 9.0 and name = 'foo'"), contains(false, false, true));
+    }
+
+    @Test
+    public void testUnknownColumnDoesNotSkip() throws Exception {
+        // y isn't indexed in any segment, so nothing is known about its values
+        assertThat(canMatch("y > 100"), contains(true, true, true));
+    }
+
+    @Test
+    public void testNoFilterWithoutRanges() throws Exception {
+        assertThat(SegmentRangeFilter.fromQuery(expressions.normalize(expressions.asSymbol("name = 'foo'"))), nullValue());
+        assertThat(SegmentRangeFilter.fromQuery(expressions.normalize(expressions.asSymbol("x > 100 or ts > 100"))), nullValue());
+    }
+}
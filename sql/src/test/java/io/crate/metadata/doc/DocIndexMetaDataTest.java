@@ -7,6 +7,7 @@ import com.google.common.collect.Lists;
 import io.crate.Constants;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.*;
+import io.crate.executor.transport.NodeResponseStats;
 import io.crate.metadata.*;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.SchemaInfo;
@@ -896,7 +897,8 @@ public class DocIndexMetaDataTest extends CrateUnitTest {
             functions,
             new IndexNameExpressionResolver(Settings.EMPTY),
             indexTemplateActionProvider,
-            executorService
+            executorService,
+            new NodeResponseStats()
         );
         DocSchemaInfo docSchemaInfo = new DocSchemaInfo(Schemas.DEFAULT_SCHEMA_NAME, clusterService, docTableInfoFactory);
         CreateTableStatementAnalyzer analyzer = new CreateTableStatementAnalyzer(
@@ -25,6 +25,7 @@ package io.crate.metadata.doc;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.Constants;
 import io.crate.exceptions.TableUnknownException;
+import io.crate.executor.transport.NodeResponseStats;
 import io.crate.metadata.Functions;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.TableIdent;
@@ -102,6 +103,7 @@ public class DocTableInfoBuilderTest extends CrateUnitTest {
             new IndexNameExpressionResolver(Settings.EMPTY),
             mock(TransportPutIndexTemplateAction.class),
             executorService,
+            new NodeResponseStats(),
             false
         );
 
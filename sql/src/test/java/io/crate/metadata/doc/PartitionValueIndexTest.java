@@ -0,0 +1,107 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.doc;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.operation.operator.*;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
+
+public class PartitionValueIndexTest extends CrateUnitTest {
+
+    private PartitionValueIndex index;
+
+    private static PartitionName partition(String number, String name) {
+        return new PartitionName("t", Arrays.asList(
+            number == null ? null : new BytesRef(number),
+            name == null ? null : new BytesRef(name)));
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bitSet = new BitSet();
+        for (int position : positions) {
+            bitSet.set(position);
+        }
+        return bitSet;
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        List<Reference> columns = ImmutableList.of(
+            createReference("number", DataTypes.LONG),
+            createReference("name", DataTypes.STRING));
+        List<PartitionName> partitions = ImmutableList.of(
+            partition("30", "c"),
+            partition("10", "a"),
+            partition(null, "b"),
+            partition("20", null),
+            partition("10", "d"),
+            partition("-5", "a"));
+        index = new PartitionValueIndex(columns, partitions);
+    }
+
+    @Test
+    public void testEquality() throws Exception {
+        assertThat(index.matches(0, EqOperator.NAME, 10L), is(bits(1, 4)));
+        assertThat(index.matches(0, EqOperator.NAME, 15L), is(bits()));
+        assertThat(index.matches(1, EqOperator.NAME, new BytesRef("a")), is(bits(1, 5)));
+    }
+
+    @Test
+    public void testRanges() throws Exception {
+        assertThat(index.matches(0, LtOperator.NAME, 10L), is(bits(5)));
+        assertThat(index.matches(0, LteOperator.NAME, 10L), is(bits(1, 4, 5)));
+        assertThat(index.matches(0, GtOperator.NAME, 10L), is(bits(0, 3)));
+        assertThat(index.matches(0, GteOperator.NAME, 10L), is(bits(0, 1, 3, 4)));
+        assertThat(index.matches(0, GtOperator.NAME, 100L), is(bits()));
+        assertThat(index.matches(1, LtOperator.NAME, new BytesRef("c")), is(bits(1, 2, 5)));
+    }
+
+    @Test
+    public void testNullNeverMatches() throws Exception {
+        assertThat(index.matches(0, EqOperator.NAME, null), is(bits()));
+        assertThat(index.matches(1, GteOperator.NAME, null), is(bits()));
+    }
+
+    @Test
+    public void testOnlyComparisonsAreIndexed() throws Exception {
+        assertThat(index.isIndexed(0, GteOperator.NAME), is(true));
+        assertThat(index.isIndexed(1, LikeOperator.NAME), is(false));
+
+        PartitionValueIndex objectIndex = new PartitionValueIndex(
+            ImmutableList.of(createReference("o", DataTypes.OBJECT)), ImmutableList.<PartitionName>of());
+        assertThat(objectIndex.isIndexed(0, EqOperator.NAME), is(false));
+    }
+}
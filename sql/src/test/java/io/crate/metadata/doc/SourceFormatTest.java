@@ -0,0 +1,63 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.doc;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SourceFormatTest extends CrateUnitTest {
+
+    private static final String JSON = "{\"id\":1,\"name\":\"Arthur\",\"tags\":[\"a\",\"b\"],\"o\":{\"x\":1.5}}";
+
+    @Test
+    public void testContentTypeDefaultsToJson() throws Exception {
+        assertThat(SourceFormat.contentType(Settings.EMPTY), is(XContentType.JSON));
+        assertThat(SourceFormat.contentType(Settings.builder().put("index.source_format", "smile").build()),
+            is(XContentType.SMILE));
+    }
+
+    @Test
+    public void testConvertToBinaryAndBackToJson() throws Exception {
+        BytesReference json = new BytesArray(JSON);
+
+        for (XContentType contentType : new XContentType[]{XContentType.SMILE, XContentType.CBOR}) {
+            BytesReference binary = SourceFormat.convert(json, contentType);
+            assertThat(XContentFactory.xContentType(binary), is(contentType));
+            assertThat(SourceFormat.toJson(binary), is(new BytesRef(JSON)));
+        }
+    }
+
+    @Test
+    public void testConvertToSameFormatReturnsSource() throws Exception {
+        BytesReference json = new BytesArray(JSON);
+        assertThat(SourceFormat.convert(json, XContentType.JSON), sameInstance(json));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.FunctionIdent;
+import io.crate.operation.aggregation.AggregationTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class HyperLogLogDistinctAggregationTest extends AggregationTest {
+
+    private static final String NAME = HyperLogLogDistinctAggregation.NAME;
+
+    @Test
+    public void testReturnTypes() throws Exception {
+        for (DataType dataType : DataTypes.PRIMITIVE_TYPES) {
+            FunctionIdent ident = new FunctionIdent(NAME, ImmutableList.of(dataType));
+            assertThat(functions.get(ident).info().returnType(), is(DataTypes.LONG));
+            ident = new FunctionIdent(NAME, ImmutableList.of(dataType, DataTypes.INTEGER));
+            assertThat(functions.get(ident).info().returnType(), is(DataTypes.LONG));
+        }
+    }
+
+    @Test
+    public void testDistinctValuesAreCounted() throws Exception {
+        Object[][] result = executeAggregation(NAME, DataTypes.STRING, new Object[][]{
+            {new BytesRef("Youri")},
+            {new BytesRef("Ruben")},
+            {new BytesRef("Youri")},
+            {null}
+        });
+        assertThat(result[0][0], is(2L));
+    }
+
+    @Test
+    public void testWithPrecision() throws Exception {
+        Object[][] rows = new Object[500][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{(long) i % 250, 10};
+        }
+        Object[][] result = executeAggregation(
+            NAME, DataTypes.LONG, rows, ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.INTEGER));
+        long estimate = (Long) result[0][0];
+        assertThat(Math.abs(estimate - 250) < 25, is(true));
+    }
+
+    @Test
+    public void testNoRows() throws Exception {
+        Object[][] result = executeAggregation(NAME, DataTypes.LONG, new Object[][]{});
+        assertThat(result[0][0], is(0L));
+    }
+
+    @Test
+    public void testInvalidPrecision() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("precision must be between 4 and 18, got 3");
+        executeAggregation(NAME, DataTypes.LONG, new Object[][]{{1L, 3}},
+            ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.INTEGER));
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        HyperLogLogDistinctAggregation aggregation = (HyperLogLogDistinctAggregation)
+            functions.get(new FunctionIdent(NAME, ImmutableList.<DataType>of(DataTypes.LONG)));
+        HyperLogLogState state1 = aggregation.newState(ramAccountingContext);
+        HyperLogLogState state2 = aggregation.newState(ramAccountingContext);
+        state2.init(HyperLogLogState.DEFAULT_PRECISION);
+        state2.add(ramAccountingContext, 1L);
+
+        HyperLogLogState reduced = aggregation.reduce(ramAccountingContext, state1, state2);
+        reduced = aggregation.reduce(ramAccountingContext, reduced, aggregation.newState(ramAccountingContext));
+        assertThat(aggregation.terminatePartial(ramAccountingContext, reduced), is(1L));
+    }
+}
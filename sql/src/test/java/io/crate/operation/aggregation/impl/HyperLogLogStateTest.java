@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class HyperLogLogStateTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    private static HyperLogLogState stateWithValues(int precision, long from, long to) {
+        HyperLogLogState state = HyperLogLogState.createEmptyState();
+        state.init(precision);
+        for (long i = from; i < to; i++) {
+            state.add(RAM_ACCOUNTING_CONTEXT, i);
+        }
+        return state;
+    }
+
+    private static HyperLogLogState streamed(HyperLogLogState state) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        Streamer streamer = HyperLogLogStateType.INSTANCE.create().streamer();
+        streamer.writeValueTo(out, state);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        return (HyperLogLogState) streamer.readValueFrom(in);
+    }
+
+    private static void assertWithinError(long estimate, long expected, double relativeError) {
+        assertThat((double) estimate, closeTo(expected, expected * relativeError));
+    }
+
+    @Test
+    public void testSmallCardinalityIsExact() throws Exception {
+        HyperLogLogState state = stateWithValues(14, 0, 100);
+        for (long i = 0; i < 100; i++) {
+            state.add(RAM_ACCOUNTING_CONTEXT, i);
+        }
+        assertThat(state.isSparse(), is(true));
+        assertThat(state.cardinality(), is(100L));
+    }
+
+    @Test
+    public void testLargeCardinalityIsApproximated() throws Exception {
+        HyperLogLogState state = stateWithValues(14, 0, 1_000_000);
+        assertThat(state.isSparse(), is(false));
+        assertWithinError(state.cardinality(), 1_000_000, 0.03);
+    }
+
+    @Test
+    public void testCardinalityAroundLinearCountingThreshold() throws Exception {
+        // the raw estimate is far too high up to a few times the number of registers (16384 with precision 14)
+        for (long cardinality : new long[]{12_000, 20_000, 40_000, 60_000}) {
+            HyperLogLogState state = stateWithValues(14, 0, cardinality);
+            assertThat(state.isSparse(), is(false));
+            assertWithinError(state.cardinality(), cardinality, 0.05);
+        }
+    }
+
+    @Test
+    public void testStringsAndNumbersAreHashed() throws Exception {
+        HyperLogLogState state = HyperLogLogState.createEmptyState();
+        state.init(HyperLogLogState.DEFAULT_PRECISION);
+        state.add(RAM_ACCOUNTING_CONTEXT, new BytesRef("foo"));
+        state.add(RAM_ACCOUNTING_CONTEXT, new BytesRef("foo"));
+        state.add(RAM_ACCOUNTING_CONTEXT, new BytesRef("bar"));
+        state.add(RAM_ACCOUNTING_CONTEXT, 1.5d);
+        state.add(RAM_ACCOUNTING_CONTEXT, true);
+        assertThat(state.cardinality(), is(4L));
+    }
+
+    @Test
+    public void testMergeSparseAndDense() throws Exception {
+        HyperLogLogState sparse = stateWithValues(12, 0, 100);
+        HyperLogLogState dense = stateWithValues(12, 50, 50_000);
+        assertThat(sparse.isSparse(), is(true));
+        assertThat(dense.isSparse(), is(false));
+
+        sparse.merge(RAM_ACCOUNTING_CONTEXT, dense);
+        assertThat(sparse.isSparse(), is(false));
+        assertWithinError(sparse.cardinality(), 50_000, 0.05);
+    }
+
+    @Test
+    public void testMergeIntoEmptyState() throws Exception {
+        HyperLogLogState state = HyperLogLogState.createEmptyState();
+        state.merge(RAM_ACCOUNTING_CONTEXT, stateWithValues(10, 0, 10));
+        assertThat(state.precision(), is(10));
+        assertThat(state.cardinality(), is(10L));
+    }
+
+    @Test
+    public void testMergeWithDifferentPrecisionFails() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot merge HyperLogLog states with precision 10 and 12");
+        stateWithValues(10, 0, 10).merge(RAM_ACCOUNTING_CONTEXT, stateWithValues(12, 0, 10));
+    }
+
+    @Test
+    public void testInvalidPrecision() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("precision must be between 4 and 18, got 20");
+        HyperLogLogState.createEmptyState().init(20);
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        HyperLogLogState sparse = streamed(stateWithValues(14, 0, 1000));
+        assertThat(sparse.isSparse(), is(true));
+        assertThat(sparse.precision(), is(14));
+        assertThat(sparse.cardinality(), is(1000L));
+
+        HyperLogLogState denseState = stateWithValues(14, 0, 100_000);
+        HyperLogLogState dense = streamed(denseState);
+        assertThat(dense.isSparse(), is(false));
+        assertThat(dense.cardinality(), is(denseState.cardinality()));
+
+        assertThat(streamed(HyperLogLogState.createEmptyState()).isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import com.google.common.collect.Iterables;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class StatementStatsTest extends CrateUnitTest {
+
+    @Test
+    public void testFingerprintReplacesLiterals() throws Exception {
+        assertThat(StatementStats.fingerprint("select * from t where name = 'foo' and x > 10.5"),
+            is("select * from t where name = ? and x > ?"));
+        assertThat(StatementStats.fingerprint("insert into t (a, b) values (1, 'it''s'), (-2e10, 'x')"),
+            is("insert into t (a, b) values (?, ?), (-?, ?)"));
+    }
+
+    @Test
+    public void testFingerprintKeepsIdentifiersAndParameters() throws Exception {
+        assertThat(StatementStats.fingerprint("select col1, \"col 2\" from t2 where x = $1 and y = ?"),
+            is("select col1, \"col 2\" from t2 where x = $1 and y = ?"));
+    }
+
+    @Test
+    public void testFingerprintNormalizesWhitespaceAndComments() throws Exception {
+        assertThat(StatementStats.fingerprint("  select  *\n from t -- comment\n where /* x */ x = 1;  "),
+            is("select * from t where x = ?"));
+    }
+
+    @Test
+    public void testStatementsWithDifferentLiteralsShareEntry() throws Exception {
+        StatementStats stats = new StatementStats(10);
+        stats.record("select * from t where x = 1", ms(10), false, 1, 100);
+        stats.record("select * from t where x = 2", ms(30), true, 3, 200);
+
+        StatementStats.Entry entry = Iterables.getOnlyElement(stats.entries());
+        assertThat(entry.calls(), is(2L));
+        assertThat(entry.errors(), is(1L));
+        assertThat(entry.totalTime(), is(40.0));
+        assertThat(entry.meanTime(), is(20.0));
+        assertThat(entry.minTime(), is(10.0));
+        assertThat(entry.maxTime(), is(30.0));
+        assertThat(entry.rows(), is(4L));
+        assertThat(entry.usedBytes(), is(300L));
+        assertThat(entry.lastExecuted() > 0, is(true));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        StatementStats stats = new StatementStats(10);
+        for (int i = 1; i <= 100; i++) {
+            stats.record("select 1", ms(i), false, 1, 0);
+        }
+        StatementStats.Entry entry = Iterables.getOnlyElement(stats.entries());
+        assertThat(entry.percentileTime(50), closeTo(50.0, 50.0 / 8));
+        assertThat(entry.percentileTime(95), closeTo(95.0, 95.0 / 8));
+        assertThat(entry.percentileTime(99), closeTo(99.0, 99.0 / 8));
+    }
+
+    @Test
+    public void testHistogramBucketsCoverValues() throws Exception {
+        long[] values = new long[]{0, 1, 15, 16, 17, 100, 1023, 1024, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = StatementStats.LatencyHistogram.bucket(value);
+            assertThat(StatementStats.LatencyHistogram.upperBound(bucket) >= value, is(true));
+            if (bucket > 0) {
+                assertThat(StatementStats.LatencyHistogram.upperBound(bucket - 1) < value, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyExecutedEntryIsEvictedIfFull() throws Exception {
+        StatementStats stats = new StatementStats(2);
+        stats.record("select 1", ms(1), false, 1, 0);
+        stats.record("select * from t", ms(1), false, 1, 0);
+        stats.record("select 2", ms(1), false, 1, 0);
+        stats.record("select * from u", ms(1), false, 1, 0);
+
+        Map<String, Long> calls = new TreeMap<>();
+        for (StatementStats.Entry entry : stats.entries()) {
+            calls.put(entry.fingerprint(), entry.calls());
+        }
+        assertThat(calls.toString(), is("{select * from u=1, select ?=2}"));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
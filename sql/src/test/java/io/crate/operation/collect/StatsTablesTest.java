@@ -127,4 +127,35 @@ public class StatsTablesTest extends CrateUnitTest {
         assertTrue(queue.contains(new OperationContextLog(ctxA, null)));
 
     }
+
+    @Test
+    public void testStatementStatsAreRecordedOnExecutionEnd() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
+        Settings settings = Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobA = UUID.randomUUID();
+        stats.logExecutionStart(jobA, "select * from t where x = 1");
+        stats.operationStarted(1, jobA, "collect");
+        stats.operationFinished(1, jobA, null, 100);
+        stats.logExecutionEnd(jobA, null, 10);
+
+        UUID jobB = UUID.randomUUID();
+        stats.logExecutionStart(jobB, "select * from t where x = 2");
+        stats.logExecutionEnd(jobB, "failed", 0);
+
+        Iterable<?> statements = stats.statementsGetter().get();
+        assertThat(statements.iterator().hasNext(), is(true));
+        StatementStats.Entry entry = (StatementStats.Entry) statements.iterator().next();
+        assertThat(entry.fingerprint(), is("select * from t where x = ?"));
+        assertThat(entry.calls(), is(2L));
+        assertThat(entry.errors(), is(1L));
+        assertThat(entry.rows(), is(10L));
+        assertThat(entry.usedBytes(), is(100L));
+
+        stats.listener.onRefreshSettings(Settings.builder()
+            .put(CrateSettings.STATS_ENABLED.settingName(), false).build());
+        assertThat(stats.statementsGetter().get().iterator().hasNext(), is(false));
+    }
 }
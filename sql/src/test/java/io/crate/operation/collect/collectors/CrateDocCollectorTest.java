@@ -24,16 +24,31 @@ package io.crate.operation.collect.collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
 import io.crate.operation.Input;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.testing.CollectingRowReceiver;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.*;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
 import org.elasticsearch.index.shard.ShardId;
 import org.junit.Test;
 import org.mockito.Answers;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -59,4 +74,77 @@ public class CrateDocCollectorTest {
 
         verify(rowReceiver, only()).kill(any(Throwable.class));
     }
+
+    @Test
+    public void testCollectDocRanges() throws Exception {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory,
+            new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int i = 0; i < 80; i++) {
+            writer.addDocument(new Document());
+            if (i == 29) {
+                writer.commit();
+            }
+        }
+        writer.commit();
+        writer.close();
+        DirectoryReader reader = DirectoryReader.open(directory);
+        assertThat(reader.leaves().size(), is(2));
+
+        List<List<DocRange>> partitions = DocRange.partition(reader.leaves(), 3, 1);
+        assertThat(partitions.size(), is(3));
+
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Set<Object> docs = new HashSet<>();
+        for (List<DocRange> partition : partitions) {
+            CollectingRowReceiver rowReceiver = CollectingRowReceiver.withPauseAfter(10);
+            DocExpression docExpression = new DocExpression();
+            CrateDocCollector collector = new CrateDocCollector(
+                new ShardId("dummy", 1),
+                searcher,
+                new MatchAllDocsQuery(),
+                null,
+                MoreExecutors.directExecutor(),
+                false,
+                mock(CollectorContext.class, Answers.RETURNS_MOCKS.get()),
+                null,
+                rowReceiver,
+                ImmutableList.<Input<?>>of(docExpression),
+                ImmutableList.<LuceneCollectorExpression<?>>of(docExpression),
+                partition,
+                null);
+            collector.doCollect();
+            rowReceiver.resumeUpstream(false);
+
+            Bucket rows = rowReceiver.result();
+            assertThat(rows.size(), either(is(26)).or(is(27)));
+            for (Row row : rows) {
+                assertThat("doc must only be collected once", docs.add(row.get(0)), is(true));
+            }
+        }
+        assertThat(docs.size(), is(80));
+        reader.close();
+        directory.close();
+    }
+
+    private static class DocExpression extends LuceneCollectorExpression<Integer> {
+
+        private int docBase;
+        private int doc;
+
+        @Override
+        public void setNextReader(LeafReaderContext context) {
+            docBase = context.docBase;
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            this.doc = doc;
+        }
+
+        @Override
+        public Integer value() {
+            return docBase + doc;
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+public class DocRangeTest extends CrateUnitTest {
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory,
+            new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        // segments with 10, 100 and 5 docs
+        for (int numDocs : new int[]{10, 100, 5}) {
+            for (int i = 0; i < numDocs; i++) {
+                writer.addDocument(new Document());
+            }
+            writer.commit();
+        }
+        writer.close();
+        reader = DirectoryReader.open(directory);
+        assertThat(reader.leaves().size(), is(3));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    private static int numDocs(List<DocRange> partition) {
+        int numDocs = 0;
+        for (DocRange range : partition) {
+            numDocs += range.maxDoc - range.minDoc;
+        }
+        return numDocs;
+    }
+
+    @Test
+    public void testOfCoversAllLeaves() throws Exception {
+        List<DocRange> ranges = DocRange.of(reader.leaves());
+        assertThat(ranges.size(), is(3));
+        assertThat(numDocs(ranges), is(115));
+    }
+
+    @Test
+    public void testPartitionSplitsLargeLeaves() throws Exception {
+        List<List<DocRange>> partitions = DocRange.partition(reader.leaves(), 4, 1);
+        assertThat(partitions.size(), is(4));
+        assertThat(numDocs(partitions.get(0)), is(29));
+        assertThat(numDocs(partitions.get(1)), is(29));
+        assertThat(numDocs(partitions.get(2)), is(29));
+        assertThat(numDocs(partitions.get(3)), is(28));
+
+        // the first partition contains the first segment and the beginning of the second one
+        assertThat(partitions.get(0).size(), is(2));
+        assertThat(partitions.get(0).get(1).minDoc, is(0));
+        assertThat(partitions.get(0).get(1).maxDoc, is(19));
+        assertThat(partitions.get(1).get(0).minDoc, is(19));
+    }
+
+    @Test
+    public void testNoPartitioningIfThereAreNotEnoughDocs() throws Exception {
+        List<List<DocRange>> partitions = DocRange.partition(reader.leaves(), 4, 100);
+        assertThat(partitions.size(), is(1));
+        assertThat(numDocs(partitions.get(0)), is(115));
+
+        partitions = DocRange.partition(reader.leaves(), 4, 50);
+        assertThat(partitions.size(), is(2));
+    }
+}
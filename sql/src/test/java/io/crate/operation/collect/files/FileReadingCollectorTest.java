@@ -41,6 +41,7 @@ import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -60,6 +61,7 @@ import java.util.zip.GZIPOutputStream;
 
 import static io.crate.testing.TestingHelpers.createReference;
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
 import static org.mockito.Matchers.*;
@@ -224,6 +226,53 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         assertThat(it.hasNext(), is(false));
     }
 
+    @Test
+    public void testCollectSplitFile() throws Throwable {
+        File file = File.createTempFile("splitFile", ".json");
+        Set<String> lines = new HashSet<>();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 100; i++) {
+                String line = "{\"id\": " + i + ", \"name\": \"" + new String(new char[i % 7]).replace('\0', 'x') + "\"}";
+                lines.add(line);
+                writer.write(line);
+                writer.write(i % 3 == 0 ? "\r\n" : "\n");
+            }
+        }
+        String fileUri = Paths.get(file.toURI()).toUri().toString();
+
+        Set<String> collected = new HashSet<>();
+        int numSplits = 3;
+        for (int i = 0; i < numSplits; i++) {
+            CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+            Reference raw = createReference("_raw", DataTypes.STRING);
+            InputFactory.Context<LineCollectorExpression<?>> ctx =
+                inputFactory.ctxForRefs(FileLineReferenceResolver.INSTANCE::getImplementation);
+            List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+            FileReadingCollector collector = new FileReadingCollector(
+                Collections.singletonList(fileUri),
+                inputs,
+                ctx.expressions(),
+                rowReceiver,
+                null,
+                ImmutableMap.<String, FileInputFactory>of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+                false,
+                1,
+                0,
+                numSplits,
+                i,
+                100
+            );
+            collector.doCollect();
+            Bucket rows = rowReceiver.result();
+            assertThat(rows.size(), greaterThan(20));
+            for (Row row : rows) {
+                assertThat("line must only be read once", collected.add(((BytesRef) row.get(0)).utf8ToString()), is(true));
+            }
+        }
+        assertThat(collected, is(lines));
+        assertThat(file.delete(), is(true));
+    }
+
     private void assertCorrectResult(Bucket rows) throws Throwable {
         Iterator<Row> it = rows.iterator();
         assertThat(it.next(), isRow("{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}"));
@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class LineReaderTest extends CrateUnitTest {
+
+    private static LineReader reader(String content) {
+        return new LineReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String readLine(LineReader reader) throws IOException {
+        byte[] line = reader.readLine();
+        return line == null ? null : new String(line, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLineTerminators() throws Exception {
+        LineReader reader = reader("foo\nbär\r\n\nbaz\rlast");
+        assertThat(readLine(reader), is("foo"));
+        assertThat(reader.lineStart(), is(0L));
+        assertThat(readLine(reader), is("bär"));
+        assertThat(reader.lineStart(), is(4L));
+        assertThat(readLine(reader), is(""));
+        assertThat(reader.lineStart(), is(10L));
+        assertThat(readLine(reader), is("baz"));
+        assertThat(reader.lineStart(), is(11L));
+        assertThat(readLine(reader), is("last"));
+        assertThat(reader.lineStart(), is(15L));
+        assertThat(readLine(reader), nullValue());
+    }
+
+    @Test
+    public void testLinesLargerThanBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            sb.append('x');
+        }
+        String longLine = sb.toString();
+        LineReader reader = reader(longLine + "\r\n" + longLine + "\r");
+        assertThat(readLine(reader), is(longLine));
+        assertThat(readLine(reader), is(longLine));
+        assertThat(reader.lineStart(), is(100_002L));
+        assertThat(readLine(reader), nullValue());
+    }
+}
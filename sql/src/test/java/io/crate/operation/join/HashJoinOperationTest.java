@@ -0,0 +1,415 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.projectors.SpillSettings;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.RowSender;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+
+public class HashJoinOperationTest extends CrateUnitTest {
+
+    private static final List<DataType> LONG_STRING = ImmutableList.<DataType>of(DataTypes.LONG, DataTypes.STRING);
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setupExecutor() throws Exception {
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executorService.shutdown();
+        executorService.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private static List<Row> rows(Object[]... rows) {
+        List<Row> result = new ArrayList<>(rows.length);
+        for (Object[] row : rows) {
+            result.add(new RowN(row));
+        }
+        return result;
+    }
+
+    private static List<Row> leftRows() {
+        return rows(
+            new Object[]{1L, new BytesRef("green")},
+            new Object[]{2L, new BytesRef("blue")},
+            new Object[]{3L, new BytesRef("red")},
+            new Object[]{null, new BytesRef("white")});
+    }
+
+    private static List<Row> rightRows() {
+        return rows(
+            new Object[]{2L, new BytesRef("small")},
+            new Object[]{3L, new BytesRef("medium")},
+            new Object[]{3L, new BytesRef("large")},
+            new Object[]{4L, new BytesRef("huge")},
+            new Object[]{null, new BytesRef("tiny")});
+    }
+
+    private static JoinKeyExtractor keyOnColumn(int... columns) {
+        List<DataType> types = new ArrayList<>(columns.length);
+        List<InputCollectExpression> inputs = new ArrayList<>(columns.length);
+        for (int column : columns) {
+            types.add(column == 0 ? DataTypes.LONG : DataTypes.STRING);
+            inputs.add(new InputCollectExpression(column));
+        }
+        return new JoinKeyExtractor(types, inputs, inputs);
+    }
+
+    private static HashJoinOperation hashJoin(RowReceiver rowReceiver,
+                                              JoinType joinType,
+                                              boolean buildLeft,
+                                              Predicate<Row> joinPredicate,
+                                              RamAccountingContext ramAccountingContext,
+                                              @Nullable SpillSettings spillSettings) {
+        return hashJoin(rowReceiver, joinType, buildLeft, false, joinPredicate, ramAccountingContext, spillSettings);
+    }
+
+    private static HashJoinOperation hashJoin(RowReceiver rowReceiver,
+                                              JoinType joinType,
+                                              boolean buildLeft,
+                                              boolean probeOrdered,
+                                              Predicate<Row> joinPredicate,
+                                              RamAccountingContext ramAccountingContext,
+                                              @Nullable SpillSettings spillSettings) {
+        return new HashJoinOperation(
+            1,
+            rowReceiver,
+            joinPredicate,
+            joinType,
+            buildLeft,
+            probeOrdered,
+            keyOnColumn(0),
+            keyOnColumn(0),
+            LONG_STRING,
+            LONG_STRING,
+            ramAccountingContext,
+            spillSettings);
+    }
+
+    private static HashJoinOperation hashJoin(RowReceiver rowReceiver, JoinType joinType, boolean buildLeft) {
+        return hashJoin(rowReceiver, joinType, buildLeft, Predicates.<Row>alwaysTrue(),
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)), null);
+    }
+
+    private String executeHashJoin(JoinType joinType, boolean buildLeft) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, joinType, buildLeft);
+        executorService.submit(new RowSender(leftRows(), op.leftRowReceiver(), executorService));
+        executorService.submit(new RowSender(rightRows(), op.rightRowReceiver(), executorService));
+        return sortedPrintedTable(rowReceiver.result());
+    }
+
+    private static String sortedPrintedTable(Bucket bucket) {
+        List<String> lines = Arrays.asList(TestingHelpers.printedTable(bucket).split("\n"));
+        Collections.sort(lines);
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testInnerJoin() throws Exception {
+        String expected = "" +
+                          "2| blue| 2| small\n" +
+                          "3| red| 3| large\n" +
+                          "3| red| 3| medium\n";
+        assertThat(executeHashJoin(JoinType.INNER, false), is(expected));
+        assertThat(executeHashJoin(JoinType.INNER, true), is(expected));
+    }
+
+    @Test
+    public void testLeftJoin() throws Exception {
+        String expected = "" +
+                          "1| green| NULL| NULL\n" +
+                          "2| blue| 2| small\n" +
+                          "3| red| 3| large\n" +
+                          "3| red| 3| medium\n" +
+                          "NULL| white| NULL| NULL\n";
+        assertThat(executeHashJoin(JoinType.LEFT, false), is(expected));
+        assertThat(executeHashJoin(JoinType.LEFT, true), is(expected));
+    }
+
+    @Test
+    public void testRightJoin() throws Exception {
+        String expected = "" +
+                          "2| blue| 2| small\n" +
+                          "3| red| 3| large\n" +
+                          "3| red| 3| medium\n" +
+                          "NULL| NULL| 4| huge\n" +
+                          "NULL| NULL| NULL| tiny\n";
+        assertThat(executeHashJoin(JoinType.RIGHT, false), is(expected));
+        assertThat(executeHashJoin(JoinType.RIGHT, true), is(expected));
+    }
+
+    @Test
+    public void testFullJoin() throws Exception {
+        String expected = "" +
+                          "1| green| NULL| NULL\n" +
+                          "2| blue| 2| small\n" +
+                          "3| red| 3| large\n" +
+                          "3| red| 3| medium\n" +
+                          "NULL| NULL| 4| huge\n" +
+                          "NULL| NULL| NULL| tiny\n" +
+                          "NULL| white| NULL| NULL\n";
+        assertThat(executeHashJoin(JoinType.FULL, false), is(expected));
+        assertThat(executeHashJoin(JoinType.FULL, true), is(expected));
+    }
+
+    @Test
+    public void testJoinPredicateIsAppliedOnMatches() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.LEFT, false, new Predicate<Row>() {
+            @Override
+            public boolean apply(@Nullable Row input) {
+                return input != null && !input.get(3).equals(new BytesRef("medium"));
+            }
+        }, new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)), null);
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+        assertThat(sortedPrintedTable(rowReceiver.result()), is("" +
+                                                                "1| green| NULL| NULL\n" +
+                                                                "2| blue| 2| small\n" +
+                                                                "3| red| 3| large\n" +
+                                                                "NULL| white| NULL| NULL\n"));
+    }
+
+    @Test
+    public void testCompositeKey() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = new HashJoinOperation(
+            1,
+            rowReceiver,
+            Predicates.<Row>alwaysTrue(),
+            JoinType.INNER,
+            false,
+            false,
+            keyOnColumn(0, 1),
+            keyOnColumn(0, 1),
+            LONG_STRING,
+            LONG_STRING,
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)),
+            null);
+        List<Row> right = rows(
+            new Object[]{2L, new BytesRef("blue")},
+            new Object[]{2L, new BytesRef("red")},
+            new Object[]{3L, new BytesRef("red")});
+        new RowSender(right, op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+        assertThat(sortedPrintedTable(rowReceiver.result()), is("" +
+                                                                "2| blue| 2| blue\n" +
+                                                                "3| red| 3| red\n"));
+    }
+
+    @Test
+    public void testProbeSideStartsBeforeBuildSide() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.INNER, false);
+
+        RowSender left = new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor());
+        left.run();
+        assertThat(left.numPauses(), is(1));
+        assertThat(rowReceiver.rows.size(), is(0));
+
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        assertThat(left.numResumes(), is(1));
+        assertThat(rowReceiver.result().size(), is(3));
+    }
+
+    @Test
+    public void testDownstreamPausesWithinMatchesOfOneRow() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withPauseAfter(2);
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.INNER, false);
+
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+        // paused after the first match of the row with the key 3
+        assertThat(rowReceiver.rows.size(), is(2));
+        assertThat(rowReceiver.isFinished(), is(false));
+
+        rowReceiver.resumeUpstream(false);
+        assertThat(rowReceiver.result().size(), is(3));
+    }
+
+    @Test
+    public void testDownstreamStops() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withLimit(1);
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.RIGHT, false);
+
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+        assertThat(rowReceiver.result().size(), is(1));
+    }
+
+    @Test
+    public void testProbeSideEmpty() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.RIGHT, false);
+
+        new RowSender(Collections.<Row>emptyList(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        assertThat(rowReceiver.result().size(), is(5));
+    }
+
+    @Test
+    public void testBuildSideFails() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.INNER, false);
+
+        RowSender left = new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor());
+        left.run();
+        op.rightRowReceiver().fail(new InterruptedException("Job killed"));
+
+        expectedException.expect(instanceOf(RuntimeException.class));
+        rowReceiver.result();
+    }
+
+    @Test
+    public void testDownstreamFailure() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withFailure();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.RIGHT, false);
+
+        new RowSender(rightRows(), op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(leftRows(), op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+
+        expectedException.expect(instanceOf(IllegalStateException.class));
+        rowReceiver.result();
+    }
+
+    @Test
+    public void testJoinWithSpilledPartitions() throws Exception {
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(HashJoinOperationTest.class)));
+        Path spillDir = createTempDir();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.FULL, false, Predicates.<Row>alwaysTrue(),
+            ramAccountingContext, new SpillSettings(spillDir, 0.01));
+
+        int numRows = 20_000;
+        List<Row> left = new ArrayList<>(numRows);
+        List<Row> right = new ArrayList<>(numRows);
+        for (long i = 0; i < numRows; i++) {
+            // left: 0..19999, right: 10000..29999
+            left.add(new RowN(new Object[]{i, new BytesRef("l" + i)}));
+            right.add(new RowN(new Object[]{i + numRows / 2, new BytesRef("r" + i)}));
+        }
+        new RowSender(right, op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        new RowSender(left, op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+
+        Bucket result = rowReceiver.result();
+        int matches = 0;
+        int leftOnly = 0;
+        int rightOnly = 0;
+        for (Row row : result) {
+            if (row.get(0) == null) {
+                rightOnly++;
+            } else if (row.get(2) == null) {
+                leftOnly++;
+            } else {
+                assertThat(row.get(0), is(row.get(2)));
+                matches++;
+            }
+        }
+        assertThat(matches, is(numRows / 2));
+        assertThat(leftOnly, is(numRows / 2));
+        assertThat(rightOnly, is(numRows / 2));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, "*.part")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testOrderedProbeSideIsEmittedInOrderUnderSpillPressure() throws Exception {
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(HashJoinOperationTest.class)));
+        Path spillDir = createTempDir();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation op = hashJoin(rowReceiver, JoinType.INNER, false, true, Predicates.<Row>alwaysTrue(),
+            ramAccountingContext, new SpillSettings(spillDir, 0.01));
+
+        int numRows = 20_000;
+        List<Row> left = new ArrayList<>(numRows);
+        List<Row> right = new ArrayList<>(numRows);
+        for (long i = 0; i < numRows; i++) {
+            // the left side is probed and ordered by its key
+            left.add(new RowN(new Object[]{i, new BytesRef("l" + i)}));
+            right.add(new RowN(new Object[]{numRows - 1 - i, new BytesRef("r" + i)}));
+        }
+        new RowSender(right, op.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, "*.part")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+        new RowSender(left, op.leftRowReceiver(), MoreExecutors.directExecutor()).run();
+
+        Bucket result = rowReceiver.result();
+        assertThat(result.size(), is(numRows));
+        long expectedKey = 0L;
+        for (Row row : result) {
+            assertThat(row.get(0), is(expectedKey));
+            expectedKey++;
+        }
+    }
+}
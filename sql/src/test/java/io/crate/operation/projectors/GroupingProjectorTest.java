@@ -15,19 +15,31 @@ import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.TestingHelpers;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 
 
@@ -82,6 +94,152 @@ public class GroupingProjectorTest extends CrateUnitTest {
         assertThat(rows.iterator().next().get(1), instanceOf(CountAggregation.LongState.class));
     }
 
+    @Test
+    public void testGroupByManyKeysWithNullValues() throws Exception {
+        ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(
+            new DummyInput(new BytesRef("one"), new BytesRef("one"), null, null),
+            new DummyLongInput(1L, 1L, null, null));
+
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.STRING, DataTypes.LONG),
+            keys,
+            new CollectExpression[0],
+            new AggregationContext[]{aggregationContext},
+            RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        Row emptyRow = new RowN(new Object[]{});
+        for (int i = 0; i < 4; i++) {
+            projector.setNextRow(emptyRow);
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), anyOf(
+            is("one| 1| 2\nNULL| NULL| 2\n"),
+            is("NULL| NULL| 2\none| 1| 2\n")
+        ));
+    }
+
+    @Test
+    public void testGroupByLongKeyWithNullValue() throws Exception {
+        ImmutableList<Input<?>> keys = ImmutableList.<Input<?>>of(new DummyLongInput(1L, null, 1L));
+
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            keys,
+            new CollectExpression[0],
+            new AggregationContext[]{aggregationContext},
+            RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        Row emptyRow = new RowN(new Object[]{});
+        for (int i = 0; i < 3; i++) {
+            projector.setNextRow(emptyRow);
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is("1| 2\nNULL| 1\n"));
+    }
+
+    @Test
+    public void testGroupsAreSpilledIfTheyExceedTheThreshold() throws Exception {
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(GroupingProjectorTest.class)));
+        Path spillDir = createTempDir();
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            ImmutableList.<Input<?>>of(keyInput),
+            new CollectExpression[]{keyInput},
+            new AggregationContext[]{aggregationContext},
+            ramAccountingContext,
+            new SpillSettings(spillDir, 0.01)
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        int numKeys = 200_000;
+        for (int i = 0; i < numKeys * 2; i++) {
+            projector.setNextRow(new RowN(new Object[]{(long) (i % numKeys)}));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(numKeys));
+        for (Row row : rows) {
+            assertThat(row.get(1), is((Object) 2L));
+        }
+        // less than the groups would have used without spilling
+        assertThat(ramAccountingContext.totalBytes(), lessThan(numKeys * 48L));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testSpillDecisionIsBasedOnTheBytesOfTheGroups() throws Exception {
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(GroupingProjectorTest.class)));
+        // another operation of the phase uses more than the threshold
+        long otherBytes = new ByteSizeValue(60, ByteSizeUnit.MB).bytes();
+        ramAccountingContext.addBytes(otherBytes);
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            Arrays.asList(DataTypes.LONG),
+            ImmutableList.<Input<?>>of(keyInput),
+            new CollectExpression[]{keyInput},
+            new AggregationContext[]{aggregationContext},
+            ramAccountingContext,
+            new SpillSettings(createTempDir(), 0.5)
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        int numKeys = 100_000;
+        for (int i = 0; i < numKeys; i++) {
+            projector.setNextRow(new RowN(new Object[]{(long) i}));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(rowReceiver.result().size(), is(numKeys));
+        // the groups use less than half of the limit, so they are kept in memory and nothing is released
+        assertThat(ramAccountingContext.totalBytes(), greaterThan(otherBytes + RamAccountingContext.FLUSH_BUFFER_SIZE));
+    }
+
     class DummyInput implements Input<BytesRef> {
 
         private final BytesRef[] values;
@@ -97,4 +255,20 @@ public class GroupingProjectorTest extends CrateUnitTest {
             return values[idx++];
         }
     }
+
+    class DummyLongInput implements Input<Long> {
+
+        private final Long[] values;
+        private int idx;
+
+        DummyLongInput(Long... values) {
+            this.values = values;
+            this.idx = 0;
+        }
+
+        @Override
+        public Long value() {
+            return values[idx++];
+        }
+    }
 }
@@ -24,17 +24,29 @@ package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.symbol.Literal;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.operation.collect.InputCollectExpression;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.RowSender;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 
 public class SortingProjectorTest extends CrateUnitTest {
@@ -78,6 +90,44 @@ public class SortingProjectorTest extends CrateUnitTest {
         }
     }
 
+    @Test
+    public void testOrderByWithSpilledRuns() throws Exception {
+        RamAccountingContext ramAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(SortingProjectorTest.class)));
+        Path spillDir = createTempDir();
+        InputCollectExpression input = new InputCollectExpression(0);
+        SortingProjector projector = new SortingProjector(
+            ImmutableList.of(input, Literal.of(true)),
+            ImmutableList.<CollectExpression<Row, ?>>of(input),
+            2,
+            OrderingByPosition.arrayOrdering(0, false, null),
+            5,
+            ramAccountingContext,
+            ImmutableList.of(DataTypes.LONG, DataTypes.BOOLEAN),
+            new SpillSettings(spillDir, 0.01)
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        int numRows = 100_000;
+        for (int i = 0; i < numRows; i++) {
+            // 7 is coprime to numRows, so every value is emitted once in a shuffled order
+            projector.setNextRow(new RowN(new Object[]{(long) ((i * 7) % numRows)}));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(numRows - 5));
+        long expected = 5;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected++, true));
+        }
+        assertThat(ramAccountingContext.totalBytes(), lessThan(numRows * 40L));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
     @Test
     public void testInvalidOffset() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
@@ -0,0 +1,91 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+public class CompositeKeyTest extends CrateUnitTest {
+
+    private static final List<DataType> TYPES = Arrays.<DataType>asList(
+        DataTypes.LONG, DataTypes.INTEGER, DataTypes.DOUBLE, DataTypes.BOOLEAN, DataTypes.STRING);
+
+    @Test
+    public void testValuesAreDecodedWithTheirType() throws Exception {
+        CompositeKey key = new CompositeKey(TYPES);
+        key.set(0, 10L);
+        key.set(1, 3);
+        key.set(2, 1.5d);
+        key.set(3, true);
+        key.set(4, new BytesRef("foo"));
+
+        assertThat(key.get(0), is((Object) 10L));
+        assertThat(key.get(1), is((Object) 3));
+        assertThat(key.get(2), is((Object) 1.5d));
+        assertThat(key.get(3), is((Object) true));
+        assertThat(key.get(4), is((Object) new BytesRef("foo")));
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        CompositeKey key = new CompositeKey(TYPES);
+        CompositeKey zeroKey = new CompositeKey(TYPES);
+        for (int i = 0; i < TYPES.size() - 1; i++) {
+            key.set(i, null);
+        }
+        zeroKey.set(0, 0L);
+        zeroKey.set(1, 0);
+        zeroKey.set(2, 0d);
+        zeroKey.set(3, false);
+
+        for (int i = 0; i < TYPES.size(); i++) {
+            assertThat(key.get(i), nullValue());
+        }
+        assertThat(key, not(equalTo(zeroKey)));
+    }
+
+    @Test
+    public void testCopyIsNotAffectedBySpareChanges() throws Exception {
+        CompositeKey spare = new CompositeKey(TYPES);
+        spare.set(0, 1L);
+        spare.set(4, new BytesRef("a"));
+        CompositeKey copy = spare.copy();
+
+        assertThat(copy, is(spare));
+        assertThat(copy.hashCode(), is(spare.hashCode()));
+
+        spare.set(0, 2L);
+        assertThat(copy.get(0), is((Object) 1L));
+        assertThat(copy, not(equalTo(spare)));
+
+        spare.set(0, 1L);
+        assertThat(copy, is(spare));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.grouping;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.OperationRamAccountingContext;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.projectors.SpillSettings;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.junit.Test;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class GroupSpillerTest extends CrateUnitTest {
+
+    private static final OperationRamAccountingContext RAM_ACCOUNTING_CONTEXT = new OperationRamAccountingContext(
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)));
+
+    private Aggregator[] countAggregators() {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+            Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationFunction count = (AggregationFunction) getFunctions().get(countInfo.ident());
+        return new Aggregator[]{new Aggregator(RAM_ACCOUNTING_CONTEXT, countAggregation, count)};
+    }
+
+    private static Object[] countStates(Aggregator aggregator, int count) {
+        Object state = aggregator.prepareState();
+        for (int i = 0; i < count; i++) {
+            state = aggregator.processRow(state);
+        }
+        return new Object[]{state};
+    }
+
+    @Test
+    public void testGroupsOfAllRunsAreMerged() throws Exception {
+        Path tmpDir = createTempDir();
+        Aggregator[] aggregators = countAggregators();
+        GroupSpiller spiller = new GroupSpiller(
+            new SpillSettings(tmpDir, 0.5), GroupSpiller.singleKeyCodec(DataTypes.STRING), aggregators, RAM_ACCOUNTING_CONTEXT);
+
+        spiller.spill(
+            new Object[]{new BytesRef("a"), new BytesRef("b"), null},
+            new Object[][]{countStates(aggregators[0], 1), countStates(aggregators[0], 2), countStates(aggregators[0], 3)},
+            3);
+        spiller.spill(
+            new Object[]{new BytesRef("c"), new BytesRef("a")},
+            new Object[][]{countStates(aggregators[0], 4), countStates(aggregators[0], 5)},
+            2);
+        assertThat(spiller.hasSpilled(), is(true));
+
+        Map<String, Object> groups = new TreeMap<>();
+        for (Row row : spiller.mergedRows()) {
+            groups.put(row.get(0) == null ? "NULL" : ((BytesRef) row.get(0)).utf8ToString(), row.get(1));
+        }
+        assertThat(groups.toString(), is("{NULL=3, a=6, b=2, c=4}"));
+
+        // run files are removed once all rows are consumed
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testCompositeKeysAreMerged() throws Exception {
+        Aggregator[] aggregators = countAggregators();
+        List<DataType> keyTypes = Arrays.<DataType>asList(DataTypes.LONG, DataTypes.STRING);
+        GroupSpiller spiller = new GroupSpiller(
+            new SpillSettings(createTempDir(), 0.5), GroupSpiller.compositeKeyCodec(keyTypes), aggregators, RAM_ACCOUNTING_CONTEXT);
+
+        CompositeKey key1 = new CompositeKey(keyTypes);
+        key1.set(0, 1L);
+        key1.set(1, new BytesRef("x"));
+        CompositeKey key2 = new CompositeKey(keyTypes);
+        key2.set(0, 1L);
+        key2.set(1, null);
+
+        spiller.spill(new Object[]{key1.copy(), key2.copy()},
+            new Object[][]{countStates(aggregators[0], 1), countStates(aggregators[0], 1)}, 2);
+        spiller.spill(new Object[]{key1.copy()}, new Object[][]{countStates(aggregators[0], 10)}, 1);
+
+        Map<String, Object> groups = new TreeMap<>();
+        for (Row row : spiller.mergedRows()) {
+            groups.put(row.get(0) + "|" + (row.get(1) == null ? "NULL" : ((BytesRef) row.get(1)).utf8ToString()), row.get(2));
+        }
+        assertThat(groups.toString(), is("{1|NULL=1, 1|x=11}"));
+    }
+
+    @Test
+    public void testCloseDeletesRunFiles() throws Exception {
+        Path tmpDir = createTempDir();
+        Aggregator[] aggregators = countAggregators();
+        GroupSpiller spiller = new GroupSpiller(
+            new SpillSettings(tmpDir, 0.5), GroupSpiller.singleKeyCodec(DataTypes.LONG), aggregators, RAM_ACCOUNTING_CONTEXT);
+        spiller.spill(new Object[]{1L}, new Object[][]{countStates(aggregators[0], 1)}, 1);
+        spiller.mergedRows().iterator().next();
+        spiller.close();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testRunsAreMergedInPassesOfBoundedFanIn() throws Exception {
+        Path tmpDir = createTempDir();
+        Aggregator[] aggregators = countAggregators();
+        GroupSpiller spiller = new GroupSpiller(
+            new SpillSettings(tmpDir, 0.5), GroupSpiller.singleKeyCodec(DataTypes.LONG), aggregators, RAM_ACCOUNTING_CONTEXT, 3);
+
+        int numRuns = 10;
+        for (int run = 0; run < numRuns; run++) {
+            spiller.spill(
+                new Object[]{1L, (long) run + 100},
+                new Object[][]{countStates(aggregators[0], 1), countStates(aggregators[0], 1)},
+                2);
+        }
+
+        Iterator<Row> rows = spiller.mergedRows().iterator();
+        // 3 runs at a time have been merged into a new run until no more than 3 runs are left: 10, 8, 6, 4, 2
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            int numFiles = 0;
+            for (Path ignored : files) {
+                numFiles++;
+            }
+            assertThat(numFiles, is(2));
+        }
+
+        Map<Long, Object> groups = new TreeMap<>();
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            groups.put((Long) row.get(0), row.get(1));
+        }
+        assertThat(groups.toString(),
+            is("{1=10, 100=1, 101=1, 102=1, 103=1, 104=1, 105=1, 106=1, 107=1, 108=1, 109=1}"));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testGroupsAreAccountedWhileTheyAreMerged() throws Exception {
+        RamAccountingContext phaseRamAccountingContext = new RamAccountingContext("spill",
+            new MemoryCircuitBreaker(new ByteSizeValue(100, ByteSizeUnit.MB), 1.0, Loggers.getLogger(GroupSpillerTest.class)));
+        OperationRamAccountingContext ramAccountingContext = new OperationRamAccountingContext(phaseRamAccountingContext);
+        Aggregator[] aggregators = countAggregators();
+        GroupSpiller spiller = new GroupSpiller(
+            new SpillSettings(createTempDir(), 0.5), GroupSpiller.singleKeyCodec(DataTypes.LONG), aggregators, ramAccountingContext);
+
+        ramAccountingContext.addBytes(1024);
+        spiller.spill(new Object[]{1L, 2L}, new Object[][]{countStates(aggregators[0], 1), countStates(aggregators[0], 2)}, 2);
+        // the bytes of the spilled groups are released
+        assertThat(ramAccountingContext.totalBytes(), is(0L));
+
+        Iterator<Row> rows = spiller.mergedRows().iterator();
+        rows.next();
+        assertThat(ramAccountingContext.totalBytes(), greaterThan(0L));
+        rows.next();
+        assertThat(rows.hasNext(), is(false));
+        assertThat(ramAccountingContext.totalBytes(), is(0L));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.sorting;
+
+import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.operation.projectors.SpillSettings;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+public class SortedRunSpillerTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{DataTypes.LONG.streamer(), DataTypes.STRING.streamer()};
+    private static final Ordering<Object[]> ORDERING = OrderingByPosition.arrayOrdering(0, false, null).reverse();
+
+    private static List<Object[]> run(int from, int to, int step) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = from; i < to; i += step) {
+            rows.add(new Object[]{i, new BytesRef(Long.toString(i))});
+        }
+        return rows;
+    }
+
+    @Test
+    public void testRunsAreMerged() throws Exception {
+        Path tmpDir = createTempDir();
+        SortedRunSpiller spiller = new SortedRunSpiller(new SpillSettings(tmpDir, 0.5), STREAMERS);
+        // more rows than fit into a single bucket
+        spiller.spill(run(0, SortedRunSpiller.ROWS_PER_BUCKET * 3, 3));
+        spiller.spill(run(1, SortedRunSpiller.ROWS_PER_BUCKET * 3, 3));
+        spiller.spill(Collections.<Object[]>emptyList());
+        assertThat(spiller.hasSpilled(), is(true));
+
+        Iterator<Object[]> rows = spiller.mergedRows(run(2, SortedRunSpiller.ROWS_PER_BUCKET * 3, 3), ORDERING);
+        long expected = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            assertThat(Arrays.asList(row), is(Arrays.<Object>asList(expected, new BytesRef(Long.toString(expected)))));
+            expected++;
+        }
+        assertThat(expected, is(SortedRunSpiller.ROWS_PER_BUCKET * 3L));
+
+        spiller.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testCloseDeletesRunFiles() throws Exception {
+        Path tmpDir = createTempDir();
+        SortedRunSpiller spiller = new SortedRunSpiller(new SpillSettings(tmpDir, 0.5), STREAMERS);
+        spiller.spill(run(0, 10, 1));
+        spiller.mergedRows(Collections.<Object[]>emptyList(), ORDERING).next();
+        spiller.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void testRunsAreMergedInPassesOfBoundedFanIn() throws Exception {
+        Path tmpDir = createTempDir();
+        SortedRunSpiller spiller = new SortedRunSpiller(new SpillSettings(tmpDir, 0.5), STREAMERS, 3);
+        int numRuns = 7;
+        for (int i = 0; i < numRuns; i++) {
+            spiller.spill(run(i, 100, numRuns + 1));
+        }
+
+        Iterator<Object[]> rows = spiller.mergedRows(run(numRuns, 100, numRuns + 1), ORDERING);
+        // the in-memory run takes one slot, so 3 runs at a time are merged until less than 3 are left: 7, 5, 3, 1
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            int numFiles = 0;
+            for (Path ignored : files) {
+                numFiles++;
+            }
+            assertThat(numFiles, is(1));
+        }
+        long expected = 0;
+        while (rows.hasNext()) {
+            assertThat(rows.next()[0], is((Object) expected));
+            expected++;
+        }
+        assertThat(expected, is(100L));
+
+        spiller.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir, "*.run")) {
+            assertThat(files.iterator().hasNext(), is(false));
+        }
+    }
+}
@@ -23,9 +23,15 @@ package io.crate.operation.reference.file;
 
 import io.crate.metadata.ColumnIdent;
 import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
 import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
 
 public class LineContextTest extends CrateUnitTest {
     @Test
@@ -39,4 +45,39 @@ public class LineContextTest extends CrateUnitTest {
         assertNull(context.get(new ColumnIdent("details", "invalid")));
         assertEquals(43, context.get(new ColumnIdent("details", "age")));
     }
+
+    @Test
+    public void testGetOnlyExtractsRegisteredColumns() throws Exception {
+        LineContext context = new LineContext();
+        context.addColumn(new ColumnIdent("details", "age"));
+        context.addColumn(new ColumnIdent("tags"));
+
+        String source = "{\"name\": \"foo\", \"details\": {\"age\": 43}, \"tags\": [\"a\", \"b\"], \"x\": {\"y\": [1, {}]}}";
+        context.rawSource(source.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(43, context.get(new ColumnIdent("details", "age")));
+        assertEquals(Arrays.asList("a", "b"), context.get(new ColumnIdent("tags")));
+        // columns which haven't been registered cause the whole source to be parsed
+        assertEquals(new BytesRef("foo"), context.get(new ColumnIdent("name")));
+        assertThat(context.sourceAsMap().size(), is(4));
+    }
+
+    @Test
+    public void testExtractColumnsFailsOnInvalidJson() throws Exception {
+        expectedException.expect(ElasticsearchParseException.class);
+        expectedException.expectMessage("Failed to parse content to map");
+        LineContext.extractColumns("{\"name\": \"foo\", \"x\": [1, 2}".getBytes(StandardCharsets.UTF_8),
+            Collections.singleton("name"));
+    }
+
+    @Test
+    public void testGetFailsIfLineIsNotAnObject() throws Exception {
+        LineContext context = new LineContext();
+        context.addColumn(new ColumnIdent("name"));
+        context.rawSource("[\"foo\", \"bar\"]".getBytes(StandardCharsets.UTF_8));
+
+        expectedException.expect(ElasticsearchParseException.class);
+        expectedException.expectMessage("Failed to parse content to map");
+        context.get(new ColumnIdent("name"));
+    }
 }
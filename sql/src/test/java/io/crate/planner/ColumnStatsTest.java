@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.planner;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnStatsTest extends CrateUnitTest {
+
+    @Test
+    public void testNumDistinctOfCompleteSample() throws Exception {
+        assertThat(ColumnStats.estimateNumDistinct(100, 60, 40, 100), is(60.0));
+    }
+
+    @Test
+    public void testNumDistinctWithoutSingletons() throws Exception {
+        assertThat(ColumnStats.estimateNumDistinct(100, 20, 0, 10_000), is(20.0));
+    }
+
+    @Test
+    public void testNumDistinctIsExtrapolatedFromSingletons() throws Exception {
+        // 100 * 60 / (100 - 40 + 40 * 100 / 10000)
+        assertThat(ColumnStats.estimateNumDistinct(100, 60, 40, 10_000), closeTo(99.337, 0.001));
+        // all values are distinct, so the column is likely unique
+        assertThat(ColumnStats.estimateNumDistinct(100, 100, 100, 10_000), is(10_000.0));
+    }
+
+    @Test
+    public void testHistogramHasEqualDepthBuckets() throws Exception {
+        List<Object> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i % 2 == 0 ? null : i);
+        }
+        ColumnStats stats = ColumnStats.fromSamples(DataTypes.INTEGER, samples, 1000);
+
+        assertThat(stats.nullFraction(), is(0.5));
+        assertThat(stats.numDistinct(), is(500.0));
+        List<Object> bounds = stats.histogramBounds();
+        assertThat(bounds.size(), is(ColumnStats.MAX_HISTOGRAM_BUCKETS + 1));
+        assertThat(bounds.get(0), is(1));
+        assertThat(bounds.get(50), is(499));
+        assertThat(bounds.get(100), is(999));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        ColumnStats stats = ColumnStats.fromSamples(
+            DataTypes.STRING, Arrays.asList(new BytesRef("b"), null, new BytesRef("a")), 3);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        ColumnStats streamed = ColumnStats.fromStream(in);
+
+        assertThat(streamed.type(), is(DataTypes.STRING));
+        assertThat(streamed.nullFraction(), is(stats.nullFraction()));
+        assertThat(streamed.numDistinct(), is(2.0));
+        assertThat(streamed.histogramBounds(), contains(new BytesRef("a"), new BytesRef("b")));
+    }
+}
@@ -35,6 +35,7 @@ import io.crate.metadata.*;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.projectors.TopN;
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinSpec;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.projection.*;
@@ -519,8 +520,11 @@ public class SelectPlannerTest extends CrateUnitTest {
         NestedLoop outerNl = (NestedLoop) qtf.subPlan();
         NestedLoop innerNl = (NestedLoop) outerNl.left();
 
-        assertThat(((FilterProjection) innerNl.nestedLoopPhase().projections().get(0)).query(),
-            isSQL("((INPUT(2) = INPUT(0)) AND (INPUT(3) = INPUT(1)))"));
+        HashJoinSpec hashJoinSpec = innerNl.nestedLoopPhase().hashJoinSpec();
+        assertThat(innerNl.nestedLoopPhase().joinType(), is(JoinType.INNER));
+        assertThat(hashJoinSpec.leftKeys(), isSQL("INPUT(0), INPUT(1)"));
+        assertThat(hashJoinSpec.rightKeys(), isSQL("INPUT(0), INPUT(1)"));
+        assertThat(innerNl.nestedLoopPhase().projections().get(0), instanceOf(EvalProjection.class));
     }
 
     @Test
@@ -529,7 +533,7 @@ public class SelectPlannerTest extends CrateUnitTest {
                                   "from users u1 left join users u2 on u1.id = u2.id " +
                                   "where u2.name = 'Arthur'" +
                                   "and u2.id > 1 ");
-        NestedLoop nl = (NestedLoop) qtf.subPlan();
+        NestedLoop nl = (NestedLoop) ((Merge) qtf.subPlan()).subPlan();
         assertThat(nl.nestedLoopPhase().joinType(), is(JoinType.INNER));
         Collect rightCM = (Collect) nl.right();
         assertThat(((RoutedCollectPhase) rightCM.collectPhase()).whereClause().query(),
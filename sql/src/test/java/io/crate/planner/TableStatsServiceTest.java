@@ -26,11 +26,17 @@ import com.carrotsearch.hppc.ObjectLongMap;
 import com.google.common.collect.ImmutableList;
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.protocols.postgres.FormatCodes;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.Provider;
@@ -43,9 +49,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.IsNull.notNullValue;
@@ -203,4 +213,42 @@ public class TableStatsServiceTest extends CrateUnitTest {
         statsService.run();
         Mockito.verify(sqlOperations, times(0)).createSession(anyString(), anySetOf(Option.class), anyByte());
     }
+
+    @Test
+    public void testSampleStatement() throws Exception {
+        TableIdent tableIdent = new TableIdent("doc", "t1");
+        List<Reference> columns = Arrays.asList(
+            new Reference(new ReferenceIdent(tableIdent, new ColumnIdent("a")), RowGranularity.DOC, DataTypes.STRING),
+            new Reference(new ReferenceIdent(tableIdent, new ColumnIdent("select")), RowGranularity.DOC, DataTypes.LONG));
+
+        assertThat(TableStatsService.sampleStatement(tableIdent, columns, -1L),
+            is("select a, \"select\" from doc.t1 limit 30000"));
+        assertThat(TableStatsService.sampleStatement(tableIdent, columns, 20_000L),
+            is("select a, \"select\" from doc.t1 limit 30000"));
+        assertThat(TableStatsService.sampleStatement(tableIdent, columns, 300_000L),
+            is("select a, \"select\" from doc.t1 where random() < 0.1 limit 30000"));
+    }
+
+    @Test
+    public void testColumnStatsFromSamples() throws Exception {
+        TableIdent tableIdent = new TableIdent("doc", "t1");
+        List<Reference> columns = Arrays.asList(
+            new Reference(new ReferenceIdent(tableIdent, new ColumnIdent("a")), RowGranularity.DOC, DataTypes.STRING),
+            new Reference(new ReferenceIdent(tableIdent, new ColumnIdent("b")), RowGranularity.DOC, DataTypes.LONG));
+        List<Object[]> rows = Arrays.asList(
+            new Object[]{new BytesRef("foo"), 1L},
+            new Object[]{new BytesRef("bar"), null},
+            new Object[]{new BytesRef("foo"), 3L},
+            new Object[]{null, null});
+
+        Map<ColumnIdent, ColumnStats> stats = TableStatsService.columnStatsFromSamples(columns, rows, 4L);
+        ColumnStats a = stats.get(new ColumnIdent("a"));
+        assertThat(a.nullFraction(), is(0.25));
+        assertThat(a.numDistinct(), is(2.0));
+        assertThat(a.histogramBounds(), contains(new BytesRef("bar"), new BytesRef("foo")));
+        ColumnStats b = stats.get(new ColumnIdent("b"));
+        assertThat(b.nullFraction(), is(0.5));
+        assertThat(b.numDistinct(), is(2.0));
+        assertThat(b.histogramBounds(), contains(1L, 3L));
+    }
 }
@@ -22,27 +22,33 @@
 
 package io.crate.planner.consumer;
 
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.*;
 import io.crate.analyze.relations.JoinPair;
+import io.crate.metadata.ColumnIdent;
+import io.crate.planner.ColumnStats;
+import io.crate.planner.TableStatsService;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SQLExecutor;
 import io.crate.testing.T3;
+import io.crate.types.DataTypes;
 import org.elasticsearch.test.cluster.NoopClusterService;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Set;
+import java.util.*;
 
 import static io.crate.testing.TestingHelpers.isSQL;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ManyTableConsumerTest extends CrateUnitTest {
 
@@ -197,4 +203,104 @@ public class ManyTableConsumerTest extends CrateUnitTest {
         assertThat(t1Andt3.toString(), is("join.doc.t1.doc.t3"));
         assertThat(root.right().qualifiedName().toString(), is("doc.t2"));
     }
+
+    @Test
+    public void testJoinOrderPrefersSmallConnectedRelations() throws Exception {
+        // t3 is joined with t1 and t2; t1 is large so it should be joined last
+        Set<Set<QualifiedName>> implicitJoinedRelations = ImmutableSet.<Set<QualifiedName>>of(
+            ImmutableSet.of(T3.T1, T3.T3), ImmutableSet.of(T3.T2, T3.T3));
+        ImmutableMap<QualifiedName, Long> numRows = ImmutableMap.of(T3.T1, 1_000_000L, T3.T2, 100L, T3.T3, 10_000L);
+        for (List<QualifiedName> relations : Collections2.permutations(Arrays.asList(T3.T1, T3.T2, T3.T3))) {
+            List<QualifiedName> ordered = new ArrayList<>(ManyTableConsumer.orderByJoinConditions(
+                relations, implicitJoinedRelations, ImmutableList.<JoinPair>of(), ImmutableList.<QualifiedName>of(), numRows));
+            assertThat(ordered.subList(0, 2), Matchers.containsInAnyOrder(T3.T2, T3.T3));
+            assertThat(ordered.get(2), is(T3.T1));
+        }
+    }
+
+    @Test
+    public void testJoinOrderWithEqualStatsKeepsOrderOfRelations() throws Exception {
+        Set<Set<QualifiedName>> implicitJoinedRelations = ImmutableSet.<Set<QualifiedName>>of(
+            ImmutableSet.of(T3.T1, T3.T2), ImmutableSet.of(T3.T2, T3.T3), ImmutableSet.of(T3.T1, T3.T3));
+        Collection<QualifiedName> qualifiedNames = ManyTableConsumer.orderByJoinConditions(
+            Arrays.asList(T3.T3, T3.T1, T3.T2),
+            implicitJoinedRelations,
+            ImmutableList.<JoinPair>of(),
+            ImmutableList.<QualifiedName>of(),
+            ImmutableMap.of(T3.T1, 10L, T3.T2, 10L, T3.T3, 10L));
+
+        assertThat(qualifiedNames, Matchers.contains(T3.T3, T3.T1, T3.T2));
+    }
+
+    @Test
+    public void testJoinOrderOfManyRelationsOnlyJoinsConnectedRelations() throws Exception {
+        // a chain t0 - t1 - ... - t19 given in reverse order is too large for the exhaustive search
+        int numRelations = JoinOrdering.MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH + 8;
+        List<QualifiedName> relations = new ArrayList<>(numRelations);
+        Set<Set<QualifiedName>> implicitJoinedRelations = new HashSet<>();
+        Map<QualifiedName, Long> numRows = new HashMap<>();
+        for (int i = 0; i < numRelations; i++) {
+            QualifiedName name = new QualifiedName("t" + i);
+            relations.add(0, name);
+            numRows.put(name, (long) (i + 1) * 100);
+            if (i > 0) {
+                implicitJoinedRelations.add(ImmutableSet.of(new QualifiedName("t" + (i - 1)), name));
+            }
+        }
+        List<QualifiedName> ordered = new ArrayList<>(ManyTableConsumer.orderByJoinConditions(
+            relations, implicitJoinedRelations, ImmutableList.<JoinPair>of(), ImmutableList.<QualifiedName>of(), numRows));
+
+        assertThat(ordered.size(), is(numRelations));
+        assertThat(ordered.get(0), is(new QualifiedName("t0")));
+        for (int i = 0; i < numRelations; i++) {
+            assertThat(ordered.get(i), is(new QualifiedName("t" + i)));
+        }
+    }
+
+    @Test
+    public void testJoinOrderUsesJoinSelectivity() throws Exception {
+        // all relations have the same size, but t2 and t3 are joined on a key while t1 and t2 are joined on a
+        // column with few distinct values, so t1 should be joined last
+        Set<Set<QualifiedName>> implicitJoinedRelations = ImmutableSet.<Set<QualifiedName>>of(
+            ImmutableSet.of(T3.T1, T3.T2), ImmutableSet.of(T3.T2, T3.T3));
+        Map<QualifiedName, Long> numRows = ImmutableMap.of(T3.T1, 10_000L, T3.T2, 10_000L, T3.T3, 10_000L);
+        Map<Set<QualifiedName>, Double> joinSelectivity = ImmutableMap.<Set<QualifiedName>, Double>of(
+            ImmutableSet.of(T3.T1, T3.T2), 0.01, ImmutableSet.of(T3.T2, T3.T3), 0.0001);
+
+        List<QualifiedName> ordered = new ArrayList<>(ManyTableConsumer.orderByJoinConditions(
+            Arrays.asList(T3.T1, T3.T2, T3.T3), implicitJoinedRelations, ImmutableList.<JoinPair>of(),
+            ImmutableList.<QualifiedName>of(), numRows, joinSelectivity));
+        assertThat(ordered, Matchers.contains(T3.T2, T3.T3, T3.T1));
+
+        // without the selectivities the order of the relations is kept
+        ordered = new ArrayList<>(ManyTableConsumer.orderByJoinConditions(
+            Arrays.asList(T3.T1, T3.T2, T3.T3), implicitJoinedRelations, ImmutableList.<JoinPair>of(),
+            ImmutableList.<QualifiedName>of(), numRows));
+        assertThat(ordered, Matchers.contains(T3.T1, T3.T2, T3.T3));
+    }
+
+    @Test
+    public void testJoinSelectivityIsEstimatedFromColumnStats() throws Exception {
+        MultiSourceSelect mss = analyze("select * from t1, t2, t3 " +
+                                        "where t1.a = t2.b and t2.b = t3.c");
+        TableStatsService tableStatsService = mock(TableStatsService.class);
+        when(tableStatsService.columnStats(T3.T1_INFO.ident(), new ColumnIdent("a")))
+            .thenReturn(new ColumnStats(DataTypes.STRING, 0.5, 10.0, Collections.emptyList()));
+        when(tableStatsService.columnStats(T3.T2_INFO.ident(), new ColumnIdent("b")))
+            .thenReturn(new ColumnStats(DataTypes.STRING, 0.0, 100.0, Collections.emptyList()));
+
+        Map<Set<QualifiedName>, Double> joinSelectivity = ManyTableConsumer.joinSelectivity(mss, tableStatsService);
+        assertThat(joinSelectivity, is(ImmutableMap.<Set<QualifiedName>, Double>of(
+            ImmutableSet.of(T3.T1, T3.T2), 0.005,
+            ImmutableSet.of(T3.T2, T3.T3), 0.01)));
+    }
+
+    @Test
+    public void test3TableJoinOrderUsesTableStats() throws Exception {
+        MultiSourceSelect mss = analyze("select * from t1, t2, t3 " +
+                                        "where t1.a = t2.b and t2.b = t3.c");
+        TwoTableJoin root = ManyTableConsumer.buildTwoTableJoinTree(
+            mss, ImmutableMap.of(T3.T1, 100_000L, T3.T2, 1_000L, T3.T3, 10L));
+        assertThat(root.toString(), is("join.join.doc.t2.doc.t3.doc.t1"));
+    }
 }
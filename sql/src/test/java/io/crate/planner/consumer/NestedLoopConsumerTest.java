@@ -27,6 +27,7 @@ import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.analyze.QueriedTable;
 import io.crate.analyze.TableDefinitions;
 import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.exceptions.ValidationException;
 import io.crate.metadata.*;
@@ -36,13 +37,20 @@ import io.crate.metadata.table.TestingTableInfo;
 import io.crate.planner.*;
 import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinSpec;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.projection.*;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SQLExecutor;
 import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.transport.DummyTransportAddress;
 import org.elasticsearch.test.cluster.NoopClusterService;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -57,6 +65,7 @@ import static io.crate.testing.TestingHelpers.isSQL;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.eq;
@@ -293,7 +302,8 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
     public void testLimitIncludesOffsetOnNestedLoopTopNProjection() throws Exception {
         Merge merge = plan("select u1.name, u2.name from users u1, users u2 where u1.id = u2.id order by u1.name, u2.name limit 15 offset 10");
         NestedLoop nl = (NestedLoop) merge.subPlan();
-        TopNProjection distTopN = (TopNProjection) nl.nestedLoopPhase().projections().get(1);
+        // u1.id = u2.id is used as hash join key, so there is no filter projection
+        TopNProjection distTopN = (TopNProjection) nl.nestedLoopPhase().projections().get(0);
 
         assertThat(distTopN.limit(), is(25));
         assertThat(distTopN.offset(), is(0));
@@ -335,4 +345,105 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
         nl = ((NestedLoop) ((NestedLoop) ((NestedLoop) plan.subPlan()).left()).left()).nestedLoopPhase();
         assertThat(nl.projections().get(0), instanceOf(EvalProjection.class));
     }
+
+    @Test
+    public void testEquiJoinIsPlannedAsHashJoin() throws Exception {
+        Merge merge = plan("select u1.name, u2.name from users u1 " +
+                           "left join users_multi_pk u2 on u1.id = u2.id and u1.name = u2.name and u1.id > u2.id");
+        NestedLoopPhase nl = ((NestedLoop) merge.subPlan()).nestedLoopPhase();
+        HashJoinSpec hashJoinSpec = nl.hashJoinSpec();
+        assertThat(hashJoinSpec, notNullValue());
+        assertThat(hashJoinSpec.leftKeys(), isSQL("INPUT(0), INPUT(1)"));
+        assertThat(hashJoinSpec.rightKeys(), isSQL("INPUT(0), INPUT(1)"));
+        // users has less docs than users_multi_pk
+        assertThat(hashJoinSpec.buildLeft(), is(true));
+        assertThat(hashJoinSpec.probeOrdered(), is(false));
+        assertThat(nl.joinCondition(), isSQL("(INPUT(0) > INPUT(2))"));
+    }
+
+    @Test
+    public void testHashJoinDoesNotBuildFromOrderedLeftSide() throws Exception {
+        Merge merge = plan("select u1.name, u2.name from users u1 " +
+                           "join users_multi_pk u2 on u1.id = u2.id order by u1.name limit 10");
+        NestedLoop nl = (NestedLoop) merge.subPlan();
+        HashJoinSpec hashJoinSpec = nl.nestedLoopPhase().hashJoinSpec();
+        assertThat(hashJoinSpec, notNullValue());
+        // users has less docs than users_multi_pk, but the rows must be emitted in the order of users
+        assertThat(hashJoinSpec.buildLeft(), is(false));
+        // spilling would emit the rows partition by partition
+        assertThat(hashJoinSpec.probeOrdered(), is(true));
+    }
+
+    @Test
+    public void testNoHashJoinIfANodeDoesNotSupportIt() throws Exception {
+        // a crate 1.0.x node doesn't advertise the job extensions which carry the hash join spec
+        ClusterService clusterService = new NoopClusterService() {
+            @Override
+            public ClusterState state() {
+                return ClusterState.builder(ClusterName.DEFAULT)
+                    .nodes(DiscoveryNodes.builder()
+                        .put(new DiscoveryNode("n1", DummyTransportAddress.INSTANCE, Version.V_2_4_2)))
+                    .build();
+            }
+        };
+        SQLExecutor executor = SQLExecutor.builder(clusterService)
+            .enableDefaultTables()
+            .setTableStatsService(getTableStatsService())
+            .build();
+        Plan plan = executor.plan("select u1.name, u2.name from users u1 " +
+                                  "join users_multi_pk u2 on u1.id = u2.id", UUID.randomUUID(), 0, 0);
+        NestedLoop nl = (NestedLoop) (plan instanceof Merge ? ((Merge) plan).subPlan() : ((QueryThenFetch) plan).subPlan());
+        assertThat(nl.nestedLoopPhase().hashJoinSpec(), nullValue());
+        assertThat(nl.nestedLoopPhase().joinCondition(), notNullValue());
+    }
+
+    @Test
+    public void testJoinWithoutEqualityIsNotPlannedAsHashJoin() throws Exception {
+        QueryThenFetch plan = plan("select u1.name, u2.name from users u1 " +
+                                   "left join users u2 on u1.id > u2.id");
+        NestedLoopPhase nl = ((NestedLoop) plan.subPlan()).nestedLoopPhase();
+        assertThat(nl.hashJoinSpec(), nullValue());
+    }
+
+    @Test
+    public void testEquiJoinOfSimilarSizedTablesIsShuffledByJoinKey() throws Exception {
+        Merge merge = plan("select u1.name, u2.name from users u1 join users u2 on u1.name = u2.name");
+        NestedLoop nl = (NestedLoop) merge.subPlan();
+        NestedLoopPhase nlPhase = nl.nestedLoopPhase();
+        assertThat(nlPhase.name(), is("distributed-hash-join"));
+        assertThat(nlPhase.nodeIds(), contains("nodeOne", "nodeTwo"));
+        assertThat(nlPhase.leftMergePhase().numUpstreams(), is(2));
+        assertThat(nlPhase.rightMergePhase().numUpstreams(), is(2));
+
+        HashJoinSpec hashJoinSpec = nlPhase.hashJoinSpec();
+        CollectPhase left = ((Collect) nl.left()).collectPhase();
+        assertThat(left.distributionInfo().distributionType(), is(DistributionType.MODULO));
+        assertThat(left.distributionInfo().distributeByColumn(), is(((InputColumn) hashJoinSpec.leftKeys().get(0)).index()));
+        CollectPhase right = ((Collect) nl.right()).collectPhase();
+        assertThat(right.distributionInfo().distributionType(), is(DistributionType.MODULO));
+        assertThat(right.distributionInfo().distributeByColumn(), is(((InputColumn) hashJoinSpec.rightKeys().get(0)).index()));
+    }
+
+    @Test
+    public void testEquiJoinOnFunctionIsNotShuffled() throws Exception {
+        Plan plan = plan("select u1.name, u2.name from users u1 join users u2 on u1.id + 1 = u2.id");
+        NestedLoop nl = (NestedLoop) (plan instanceof Merge ? ((Merge) plan).subPlan() : plan);
+        NestedLoopPhase nlPhase = nl.nestedLoopPhase();
+        assertThat(nlPhase.hashJoinSpec(), notNullValue());
+        assertThat(nlPhase.name(), is("nested-loop"));
+        CollectPhase left = ((Collect) nl.left()).collectPhase();
+        assertThat(left.distributionInfo().distributionType(), not(DistributionType.MODULO));
+        CollectPhase right = ((Collect) nl.right()).collectPhase();
+        assertThat(right.distributionInfo().distributionType(), not(DistributionType.MODULO));
+    }
+
+    @Test
+    public void testOuterEquiJoinIsShuffledEvenIfOneSideIsSmall() throws Exception {
+        Merge merge = plan("select u1.name, u2.name from users u1 " +
+                           "left join users_multi_pk u2 on u1.name = u2.name");
+        NestedLoop nl = (NestedLoop) merge.subPlan();
+        assertThat(nl.nestedLoopPhase().name(), is("distributed-hash-join"));
+        assertThat(((Collect) nl.left()).collectPhase().distributionInfo().distributionType(), is(DistributionType.MODULO));
+        assertThat(((Collect) nl.right()).collectPhase().distributionInfo().distributionType(), is(DistributionType.MODULO));
+    }
 }
@@ -23,8 +23,11 @@ package io.crate.planner.node.dql;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import io.crate.Version;
+import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.join.HashJoinSpec;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.projection.TopNProjection;
@@ -42,6 +45,7 @@ import java.util.Collections;
 import java.util.UUID;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 
 public class NestedLoopPhaseTest extends CrateUnitTest {
 
@@ -100,4 +104,48 @@ public class NestedLoopPhaseTest extends CrateUnitTest {
         assertThat(node.numLeftOutputs(), is(node2.numLeftOutputs()));
         assertThat(node.numRightOutputs(), is(node2.numRightOutputs()));
     }
+
+    @Test
+    public void testSerializationWithHashJoinSpec() throws Exception {
+        TopNProjection topNProjection = new TopNProjection(10, 0, Collections.emptyList());
+        HashJoinSpec hashJoinSpec = new HashJoinSpec(
+            ImmutableList.<Symbol>of(new InputColumn(0, DataTypes.LONG)),
+            ImmutableList.<Symbol>of(new InputColumn(1, DataTypes.LONG)),
+            ImmutableList.<DataType>of(DataTypes.LONG),
+            ImmutableList.<DataType>of(DataTypes.STRING, DataTypes.LONG),
+            true,
+            true);
+        NestedLoopPhase node = new NestedLoopPhase(
+            UUID.randomUUID(),
+            1,
+            "nestedLoop",
+            ImmutableList.of(topNProjection),
+            null,
+            null,
+            Sets.newHashSet("node1"),
+            JoinType.LEFT,
+            null,
+            1,
+            2,
+            hashJoinSpec
+        );
+
+        BytesStreamOutput output = new BytesStreamOutput();
+        output.setVersion(Version.STREAM_VERSION_JOB_EXTENSIONS);
+        node.writeTo(output);
+
+        StreamInput input = StreamInput.wrap(output.bytes());
+        input.setVersion(Version.STREAM_VERSION_JOB_EXTENSIONS);
+        NestedLoopPhase node2 = new NestedLoopPhase();
+        node2.readFrom(input);
+
+        HashJoinSpec hashJoinSpec2 = node2.hashJoinSpec();
+        assertThat(hashJoinSpec2.leftKeys(), is(hashJoinSpec.leftKeys()));
+        assertThat(hashJoinSpec2.rightKeys(), is(hashJoinSpec.rightKeys()));
+        assertThat(hashJoinSpec2.leftTypes(), is(hashJoinSpec.leftTypes()));
+        assertThat(hashJoinSpec2.rightTypes(), is(hashJoinSpec.rightTypes()));
+        assertThat(hashJoinSpec2.buildLeft(), is(true));
+        assertThat(hashJoinSpec2.probeOrdered(), is(true));
+        assertThat(node2.joinCondition(), nullValue());
+    }
 }
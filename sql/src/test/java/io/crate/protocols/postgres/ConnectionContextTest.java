@@ -24,6 +24,7 @@ package io.crate.protocols.postgres;
 
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.StatementCache;
 import io.crate.executor.Executor;
 import io.crate.operation.collect.StatsTables;
 import io.crate.testing.SQLExecutor;
@@ -71,7 +72,8 @@ public class ConnectionContextTest {
             },
             new StatsTables(Settings.EMPTY, new NodeSettingsService(Settings.EMPTY)),
             Settings.EMPTY,
-            clusterService
+            clusterService,
+            new StatementCache(Settings.EMPTY)
         ) {
 
             @Override
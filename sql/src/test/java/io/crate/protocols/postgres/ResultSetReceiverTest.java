@@ -0,0 +1,131 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.action.sql.RowReceiverToResultReceiver;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.projectors.ResumeHandle;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ResultSetReceiverTest extends CrateUnitTest {
+
+    private static final List<DataType> TYPES = Collections.<DataType>singletonList(DataTypes.LONG);
+
+    private Channel channel;
+    private DefaultChannelFuture writeFuture;
+    private AtomicInteger numWrites;
+
+    @Before
+    public void prepare() throws Exception {
+        channel = mock(Channel.class);
+        writeFuture = new DefaultChannelFuture(channel, false);
+        numWrites = new AtomicInteger(0);
+        when(channel.write(any())).thenAnswer(new Answer<ChannelFuture>() {
+            @Override
+            public ChannelFuture answer(InvocationOnMock invocation) throws Throwable {
+                numWrites.incrementAndGet();
+                return writeFuture;
+            }
+        });
+        when(channel.isWritable()).thenReturn(true);
+    }
+
+    @Test
+    public void testRowsAreWrittenWithASingleWriteOnBatchFinished() throws Exception {
+        ResultSetReceiver receiver = new ResultSetReceiver("select x from t", channel, TYPES, null);
+        for (long i = 0; i < 10; i++) {
+            receiver.setNextRow(new RowN(new Object[]{i}));
+        }
+        verify(channel, never()).write(any());
+
+        receiver.batchFinished();
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        // data rows, PortalSuspended, ReadyForQuery
+        verify(channel, times(3)).write(captor.capture());
+
+        ChannelBuffer buffer = (ChannelBuffer) captor.getAllValues().get(0);
+        int numDataRows = 0;
+        while (buffer.readable()) {
+            assertThat((char) buffer.readByte(), is('D'));
+            buffer.skipBytes(buffer.readInt() - 4);
+            numDataRows++;
+        }
+        assertThat(numDataRows, is(10));
+    }
+
+    @Test
+    public void testBufferIsFlushedOnceItExceedsTheThreshold() throws Exception {
+        ResultSetReceiver receiver = new ResultSetReceiver("select x from t", channel, TYPES, null);
+        Row row = new RowN(new Object[]{Long.MAX_VALUE});
+        int numRows = 0;
+        while (numWrites.get() == 0) {
+            receiver.setNextRow(row);
+            numRows++;
+        }
+        // 'D' | int32 len | int16 numColumns | int32 valueLen | 19 chars
+        int bytesPerRow = 1 + 4 + 2 + 4 + 19;
+        assertThat(numRows, is((ResultSetReceiver.FLUSH_THRESHOLD_BYTES + bytesPerRow - 1) / bytesPerRow));
+    }
+
+    @Test
+    public void testUpstreamIsPausedWhileChannelIsNotWritable() throws Exception {
+        ResultSetReceiver receiver = new ResultSetReceiver("select x from t", channel, TYPES, null);
+        RowReceiverToResultReceiver rowReceiver = new RowReceiverToResultReceiver(receiver, 0);
+        Row row = new RowN(new Object[]{Long.MAX_VALUE});
+
+        while (numWrites.get() == 0) {
+            assertThat(rowReceiver.setNextRow(row), is(RowReceiver.Result.CONTINUE));
+        }
+
+        when(channel.isWritable()).thenReturn(false);
+        assertThat(rowReceiver.setNextRow(row), is(RowReceiver.Result.PAUSE));
+
+        ResumeHandle resumeHandle = mock(ResumeHandle.class);
+        rowReceiver.pauseProcessed(resumeHandle);
+        verify(resumeHandle, never()).resume(anyBoolean());
+        assertThat("pause due to backpressure must not suspend the portal", rowReceiver.resumeHandle(), nullValue());
+
+        writeFuture.setSuccess();
+        verify(resumeHandle, times(1)).resume(true);
+    }
+}
@@ -32,13 +32,22 @@ import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
+import io.crate.http.netty.ChunkedResponseWriter;
 import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class RestActionReceiversTest extends CrateUnitTest {
@@ -111,6 +120,59 @@ public class RestActionReceiversTest extends CrateUnitTest {
         assertXContentBuilder(actualBuilder, builder.build());
     }
 
+    @Test
+    public void testRestStreamingResultSetReceiver() throws Exception {
+        ChunkedResponseWriter writer = mock(ChunkedResponseWriter.class);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        when(writer.write(anyString(), any(byte[].class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                written.write((byte[]) invocation.getArguments()[1]);
+                return null;
+            }
+        });
+        RestStreamingResultSetReceiver receiver = new RestStreamingResultSetReceiver(newChannel(), writer, fields, 0L, true);
+        for (Row row : rows) {
+            receiver.setNextRow(row);
+        }
+        verify(writer, never()).write(anyString(), any(byte[].class));
+        receiver.allFinished();
+        verify(writer, times(1)).finish();
+
+        RestResultSetReceiver expectedReceiver = new RestResultSetReceiver(newChannel(), fields, 0L, true);
+        for (Row row : rows) {
+            expectedReceiver.setNextRow(row);
+        }
+        assertEquals(
+            stripDuration(expectedReceiver.finishBuilder().string()),
+            stripDuration(written.toString(StandardCharsets.UTF_8.name())));
+    }
+
+    @Test
+    public void testRestStreamingResultSetReceiverAddsErrorToStartedResponse() throws Exception {
+        ChunkedResponseWriter writer = mock(ChunkedResponseWriter.class);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        when(writer.write(anyString(), any(byte[].class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                written.write((byte[]) invocation.getArguments()[1]);
+                return null;
+            }
+        });
+        RestChannel channel = newChannel();
+        RestStreamingResultSetReceiver receiver = new RestStreamingResultSetReceiver(channel, writer, fields, 0L, false);
+        Row row = new RowN(new Object[]{new String(new char[1024]).replace('\0', 'x'), 1, true});
+        while (written.size() == 0) {
+            receiver.setNextRow(row);
+        }
+        receiver.fail(new IllegalStateException("dummy"));
+
+        verify(channel, never()).sendResponse(any(RestResponse.class));
+        verify(writer, times(1)).finish();
+        String response = written.toString(StandardCharsets.UTF_8.name());
+        assertThat(response, Matchers.endsWith("]],\"error\":{\"message\":\"SQLActionException[IllegalStateException: dummy]\",\"code\":5000}}"));
+    }
+
     @Test
     public void testRestBulkRowCountReceiver() throws Exception {
         RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[] {